@@ -0,0 +1,60 @@
+package com.example.backend.config;
+
+import com.example.backend.model.ColumnType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the check constraint on {@code dataset_columns.data_type} in step with {@link ColumnType}.
+ * Hibernate writes the constraint when it creates the table, but {@code ddl-auto=update} never
+ * widens it, so databases created before INTEGER, DECIMAL and TIMESTAMP existed would reject them.
+ * Runs after the schema update and does nothing when the constraint already lists every type.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class ColumnTypeCheckConstraint {
+
+    static final String TABLE = "dataset_columns";
+    static final String CONSTRAINT = "dataset_columns_data_type_check";
+
+    private final JdbcTemplate jdbc;
+
+    public ColumnTypeCheckConstraint(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    public void widen() {
+        List<String> definitions = jdbc.queryForList(
+                "SELECT pg_get_constraintdef(c.oid) FROM pg_constraint c "
+                        + "WHERE c.conname = ? AND c.conrelid = to_regclass(?)",
+                String.class, CONSTRAINT, TABLE);
+        if (!definitions.isEmpty() && coversAllTypes(definitions.get(0))) {
+            return;
+        }
+
+        jdbc.execute("ALTER TABLE " + TABLE + " DROP CONSTRAINT IF EXISTS " + CONSTRAINT);
+        jdbc.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + CONSTRAINT + " CHECK " + checkClause());
+        log.info("Widened {} to {}", CONSTRAINT, Arrays.toString(ColumnType.values()));
+    }
+
+    static boolean coversAllTypes(String definition) {
+        return Arrays.stream(ColumnType.values())
+                .allMatch(type -> definition.contains("'" + type.name() + "'"));
+    }
+
+    static String checkClause() {
+        return Arrays.stream(ColumnType.values())
+                .map(type -> "'" + type.name() + "'")
+                .collect(Collectors.joining(", ", "(data_type IN (", "))"));
+    }
+}
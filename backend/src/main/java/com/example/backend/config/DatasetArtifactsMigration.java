@@ -0,0 +1,58 @@
+package com.example.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Moves preview snapshots and row indexes that were stored on {@code datasets} into
+ * {@code dataset_artifacts}, then drops the old columns. {@code ddl-auto=update} adds the new
+ * table but never moves data or drops columns, so this runs after it; once the columns are gone
+ * it does nothing.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class DatasetArtifactsMigration {
+
+    private static final List<String> MOVED_COLUMNS = List.of("preview_snapshot", "row_index");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatasetArtifactsMigration(DataSource dataSource, TransactionTemplate transactionTemplate) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (String column : MOVED_COLUMNS) {
+            if (!datasetsHasColumn(column)) {
+                continue;
+            }
+            Integer moved = transactionTemplate.execute(status -> {
+                int rows = jdbc.update("INSERT INTO dataset_artifacts (dataset_id, " + column + ") "
+                        + "SELECT id, " + column + " FROM datasets WHERE " + column + " IS NOT NULL "
+                        + "ON CONFLICT (dataset_id) DO UPDATE SET " + column + " = EXCLUDED." + column);
+                jdbc.execute("ALTER TABLE datasets DROP COLUMN " + column);
+                return rows;
+            });
+            log.info("Moved {} of {} datasets to dataset_artifacts", column, moved);
+        }
+    }
+
+    private boolean datasetsHasColumn(String column) {
+        Integer count = jdbc.queryForObject(
+                "SELECT count(*) FROM information_schema.columns "
+                        + "WHERE table_schema = current_schema() AND table_name = 'datasets' AND column_name = ?",
+                Integer.class, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class IngestExecutorConfig {
+
+    public static final String INGEST_EXECUTOR = "ingestExecutor";
+
+    @Value("${dataset.ingest.workers:2}")
+    private int workers;
+
+    @Value("${dataset.ingest.queue-capacity:20}")
+    private int queueCapacity;
+
+    /**
+     * Fixed pool for dataset profiling jobs. When all workers are busy and the queue is full,
+     * submissions fail with {@link org.springframework.core.task.TaskRejectedException} so the
+     * upload endpoint can answer 503 instead of piling up work.
+     */
+    @Bean(name = INGEST_EXECUTOR)
+    public ThreadPoolTaskExecutor ingestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ingest-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+
+@Configuration
+public class StorageConfig {
+
+    @Value("${backblaze.endpoint}")
+    private String endpoint;
+
+    @Value("${backblaze.key-id}")
+    private String keyId;
+
+    @Value("${backblaze.application-key}")
+    private String applicationKey;
+
+    @Value("${backblaze.region}")
+    private String region;
+
+    @Value("${storage.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${storage.async.max-connections:64}")
+    private int asyncMaxConnections;
+
+    @Value("${storage.async.connection-acquire-timeout-ms:10000}")
+    private long connectionAcquireTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public S3Client s3Client() {
+        return S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentialsProvider())
+                .region(Region.of(region))
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections))
+                .build();
+    }
+
+    /**
+     * Non-blocking client for parallel ranged downloads. Requests beyond the connection limit wait
+     * for a free connection instead of opening more.
+     */
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient() {
+        return S3AsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentialsProvider())
+                .region(Region.of(region))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(asyncMaxConnections)
+                        .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquireTimeoutMs)))
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentialsProvider())
+                .region(Region.of(region))
+                .build();
+    }
+
+    private StaticCredentialsProvider credentialsProvider() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(keyId, applicationKey));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.charts.ChartRequest;
+import com.example.backend.dto.charts.ChartResponse;
+import com.example.backend.model.Chart;
+import com.example.backend.model.ChartType;
+import com.example.backend.model.CustomUserDetails;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetStatus;
+import com.example.backend.service.ChartSeriesService;
+import com.example.backend.service.ChartService;
+import com.example.backend.service.DatasetService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/charts")
+public class ChartController {
+
+    private final ChartService chartService;
+    private final ChartSeriesService chartSeriesService;
+    private final DatasetService datasetService;
+
+    public ChartController(ChartService chartService, ChartSeriesService chartSeriesService,
+                           DatasetService datasetService) {
+        this.chartService = chartService;
+        this.chartSeriesService = chartSeriesService;
+        this.datasetService = datasetService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ChartResponse>> getUserCharts(
+            @RequestParam(required = false) Long datasetId,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        List<ChartResponse> response = chartService.getUserCharts(currentUser.getUserId(), datasetId).stream()
+                .map(ChartResponse::from)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getChart(
+            @PathVariable Long id,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Chart chart = chartService.getChart(id, currentUser.getUserId());
+
+        if (chart == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(ChartResponse.from(chart));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createChart(
+            @RequestBody ChartRequest request,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        if (request.getDatasetId() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "datasetId is required"));
+        }
+
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(request.getDatasetId(), currentUser.getUserId());
+
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            return ResponseEntity.ok(ChartResponse.from(chartService.createChart(dataset, request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** The dataset a chart belongs to is fixed; {@code datasetId} is ignored here. */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateChart(
+            @PathVariable Long id,
+            @RequestBody ChartRequest request,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Chart chart = chartService.getChart(id, currentUser.getUserId());
+
+        if (chart == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            return ResponseEntity.ok(ChartResponse.from(chartService.updateChart(chart, request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteChart(
+            @PathVariable Long id,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Chart chart = chartService.getChart(id, currentUser.getUserId());
+
+        if (chart == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        chartService.deleteChart(chart);
+
+        return ResponseEntity.ok(Map.of("message", "Chart deleted successfully"));
+    }
+
+    @GetMapping("/{id}/data")
+    public ResponseEntity<?> getChartData(
+            @PathVariable Long id,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Chart chart = chartService.getChart(id, currentUser.getUserId());
+
+        if (chart == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(chart.getDataset().getId(), currentUser.getUserId());
+        return seriesResponse(dataset, chart.getChartType(), chart.getConfigJson());
+    }
+
+    /** Series for an unsaved config, so the chart editor can render before saving. */
+    @PostMapping("/preview")
+    public ResponseEntity<?> previewChart(
+            @RequestBody ChartRequest request,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        if (request.getDatasetId() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "datasetId is required"));
+        }
+
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(request.getDatasetId(), currentUser.getUserId());
+        return seriesResponse(dataset, request.getChartType(), request.getConfigJson());
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Long>> getCacheStats() {
+        return ResponseEntity.ok(chartSeriesService.stats());
+    }
+
+    private ResponseEntity<?> seriesResponse(Dataset dataset, ChartType chartType, String configJson) {
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (dataset.getStatus() != DatasetStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Dataset is not ready yet"));
+        }
+
+        ChartSeriesService.Result result;
+        try {
+            result = chartSeriesService.getSeries(dataset, chartType, configJson);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("error", "Failed to compute chart data"));
+        }
+
+        ChartSeriesService.ChartData data = result.data();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("chartType", chartType);
+        response.put("labels", data.labels());
+        response.put("series", data.series());
+        response.put("categoryCount", data.categoryCount());
+        response.put("truncated", data.truncated());
+        response.put("matchedRows", data.matchedRows());
+        response.put("computedAt", data.computedAt());
+        response.put("cached", result.cached());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,30 +2,67 @@ package com.example.backend.controller;
 
 import com.example.backend.dto.datasets.DatasetColumnResponse;
 import com.example.backend.dto.datasets.DatasetResponse;
+import com.example.backend.dto.datasets.DownloadUrlsRequest;
+import com.example.backend.dto.datasets.QueryRequest;
+import com.example.backend.model.ChartType;
 import com.example.backend.model.CustomUserDetails;
 import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetColumn;
+import com.example.backend.model.DatasetStatus;
+import com.example.backend.processing.ColumnHistograms;
+import com.example.backend.processing.QuantileSketch;
+import com.example.backend.processing.StreamingHistogram;
 import com.example.backend.repository.DatasetColumnRepository;
+import com.example.backend.service.DatasetPreviewService;
+import com.example.backend.service.DatasetQueryService;
+import com.example.backend.service.DatasetRowService;
+import com.example.backend.service.DatasetSeriesService;
 import com.example.backend.service.DatasetService;
+import com.example.backend.service.PresignedUrlService.PresignedUrl;
+import com.example.backend.service.StorageUsageService.QuotaExceededException;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/datasets")
 public class DatasetController {
 
+    private static final int MAX_DOWNLOAD_URLS = 200;
+    private static final int MAX_HISTOGRAM_BINS = 500;
+
     private final DatasetColumnRepository datasetColumnRepository;
     private final DatasetService datasetService;
-
-    public DatasetController(DatasetColumnRepository datasetColumnRepository, DatasetService datasetService) {
+    private final DatasetPreviewService datasetPreviewService;
+    private final DatasetRowService datasetRowService;
+    private final DatasetQueryService datasetQueryService;
+    private final DatasetSeriesService datasetSeriesService;
+
+    public DatasetController(DatasetColumnRepository datasetColumnRepository, DatasetService datasetService,
+                             DatasetPreviewService datasetPreviewService, DatasetRowService datasetRowService,
+                             DatasetQueryService datasetQueryService, DatasetSeriesService datasetSeriesService) {
         this.datasetColumnRepository = datasetColumnRepository;
         this.datasetService = datasetService;
+        this.datasetPreviewService = datasetPreviewService;
+        this.datasetRowService = datasetRowService;
+        this.datasetQueryService = datasetQueryService;
+        this.datasetSeriesService = datasetSeriesService;
     }
 
     @PostMapping("/upload")
@@ -48,7 +85,17 @@ public class DatasetController {
                     .body(Map.of("error", "File size exceeds 50MB limit"));
         }
 
-        Dataset dataset = datasetService.uploadAndCreateDataset(file, currentUser.getUserId());
+        Dataset dataset;
+        try {
+            dataset = datasetService.uploadAndCreateDataset(file, currentUser.getUserId());
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", "Too many uploads are being processed, please try again shortly"));
+        }
 
         return ResponseEntity.ok(Map.of(
                 "id", dataset.getId(),
@@ -96,14 +143,74 @@ public class DatasetController {
             return ResponseEntity.notFound().build();
         }
 
-        String downloadUrl = datasetService.generatePresignedUrl(dataset.getFilePath());
+        PresignedUrl downloadUrl = datasetService.generatePresignedUrl(dataset);
 
         return ResponseEntity.ok(Map.of(
-                "downloadUrl", downloadUrl,
-                "filename", dataset.getName()
+                "downloadUrl", downloadUrl.url(),
+                "filename", dataset.getName(),
+                "expiresAt", downloadUrl.expiresAt()
         ));
     }
 
+    /**
+     * Streams the file through the server. The request thread is released while the object is
+     * fetched into the local cache and picked up again to write the body.
+     */
+    @GetMapping("/{id}/content")
+    public CompletableFuture<ResponseEntity<?>> getContent(
+            @PathVariable Long id,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(id, currentUser.getUserId());
+
+        if (dataset == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+
+        return datasetService.openFileAsync(dataset.getFilePath())
+                .<ResponseEntity<?>>thenApply(in -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                .filename(dataset.getName(), StandardCharsets.UTF_8).build().toString())
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .body(new InputStreamResource(in)))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Failed to read file")));
+    }
+
+    /**
+     * Download URLs for several datasets in one call. Ids that do not exist or belong to another
+     * user are left out of the response.
+     */
+    @PostMapping("/download-urls")
+    public ResponseEntity<?> getDownloadUrls(
+            @RequestBody DownloadUrlsRequest request,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        List<Long> ids = request.getDatasetIds();
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "datasetIds is required"));
+        }
+        if (ids.size() > MAX_DOWNLOAD_URLS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + MAX_DOWNLOAD_URLS + " datasets per request"));
+        }
+
+        List<Map<String, Object>> urls = datasetService.getDatasetsByIdsAndUserId(ids, currentUser.getUserId())
+                .stream()
+                .map(dataset -> {
+                    PresignedUrl downloadUrl = datasetService.generatePresignedUrl(dataset);
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("id", dataset.getId());
+                    entry.put("downloadUrl", downloadUrl.url());
+                    entry.put("filename", dataset.getName());
+                    entry.put("expiresAt", downloadUrl.expiresAt());
+                    return entry;
+                })
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(urls);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteDataset(
             @PathVariable Long id,
@@ -115,7 +222,7 @@ public class DatasetController {
             return ResponseEntity.notFound().build();
         }
 
-        datasetService.deleteDatasetComplete(id, dataset.getFilePath());
+        datasetService.deleteDatasetComplete(dataset);
 
         return ResponseEntity.ok(Map.of("message", "Dataset deleted successfully"));
     }
@@ -144,10 +251,100 @@ public class DatasetController {
         return ResponseEntity.ok(columns);
     }
 
+    @GetMapping("/{id}/columns/{columnId}/percentiles")
+    public ResponseEntity<?> getColumnPercentiles(
+            @PathVariable Long id,
+            @PathVariable Long columnId,
+            @RequestParam(defaultValue = "0.01,0.05,0.25,0.5,0.75,0.95,0.99") List<Double> q,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(id, currentUser.getUserId());
+
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        DatasetColumn column = datasetColumnRepository.findByIdAndDatasetId(columnId, id).orElse(null);
+        if (column == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (column.getQuantileSketch() == null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Percentiles are only available for numeric columns"));
+        }
+
+        QuantileSketch sketch = QuantileSketch.fromBytes(column.getQuantileSketch());
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (Double quantile : q) {
+            if (quantile == null || quantile < 0.0 || quantile > 1.0) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Quantiles must be between 0 and 1"));
+            }
+            percentiles.put(String.valueOf(quantile), sketch.quantile(quantile));
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "columnId", column.getId(),
+                "count", sketch.getCount(),
+                "exact", sketch.isExact(),
+                "percentiles", percentiles
+        ));
+    }
+
+    /**
+     * Equi-width and equi-depth bins. The bin count chosen at profiling time is served as stored;
+     * any other count is rebinned from the column's stored bucket counts and quantile sketch.
+     */
+    @GetMapping("/{id}/columns/{columnId}/histogram")
+    public ResponseEntity<?> getColumnHistogram(
+            @PathVariable Long id,
+            @PathVariable Long columnId,
+            @RequestParam(required = false) Integer bins,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(id, currentUser.getUserId());
+
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        DatasetColumn column = datasetColumnRepository.findByIdAndDatasetId(columnId, id).orElse(null);
+        if (column == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (column.getHistogramBins() == null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Histograms are only available for numeric columns"));
+        }
+
+        if (bins != null && (bins < 1 || bins > MAX_HISTOGRAM_BINS)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "bins must be between 1 and " + MAX_HISTOGRAM_BINS));
+        }
+
+        ColumnHistograms histograms = ColumnHistograms.fromBytes(column.getHistogramBins());
+        boolean precomputed = bins == null || bins == histograms.binCount();
+        if (!precomputed) {
+            histograms = ColumnHistograms.of(StreamingHistogram.fromBytes(column.getHistogram()),
+                    QuantileSketch.fromBytes(column.getQuantileSketch()), bins);
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "columnId", column.getId(),
+                "binCount", histograms.binCount(),
+                "precomputed", precomputed,
+                "equiWidth", histograms.equiWidth(),
+                "equiDepth", histograms.equiDepth()
+        ));
+    }
+
     @GetMapping("/{id}/preview")
     public ResponseEntity<?> getDataPreview(
             @PathVariable Long id,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam MultiValueMap<String, String> params,
             @AuthenticationPrincipal CustomUserDetails currentUser
     ) {
         Dataset dataset = datasetService.getDatasetByIdAndUserId(id, currentUser.getUserId());
@@ -156,15 +353,121 @@ public class DatasetController {
             return ResponseEntity.notFound().build();
         }
 
+        // read raw so a single filter value is not split on its commas
+        List<String> filter = params.get("filter");
+        if (filter != null && !filter.isEmpty()) {
+            if (dataset.getStatus() != DatasetStatus.COMPLETED) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Dataset is not ready yet"));
+            }
+            try {
+                return ResponseEntity.ok(datasetPreviewService.getFilteredPreview(dataset, filter, limit));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (Exception e) {
+                return ResponseEntity.status(500)
+                        .body(Map.of("error", "Failed to load data preview"));
+            }
+        }
+
         try {
-            List<Map<String, Object>> preview = datasetService.getDataPreview(
-                    dataset.getFilePath(),
-                    limit
-            );
+            List<Map<String, Object>> preview = datasetPreviewService.getDataPreview(dataset, limit);
             return ResponseEntity.ok(preview);
         } catch (Exception e) {
             return ResponseEntity.status(500)
                     .body(Map.of("error", "Failed to load data preview"));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}/rows")
+    public ResponseEntity<?> getRows(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(id, currentUser.getUserId());
+
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (dataset.getStatus() != DatasetStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Dataset is not ready yet"));
+        }
+
+        try {
+            return ResponseEntity.ok(cursor != null
+                    ? datasetRowService.getRowsAfter(dataset, cursor, limit)
+                    : datasetRowService.getRows(dataset, offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("error", "Failed to load rows"));
+        }
+    }
+
+    @PostMapping("/{id}/query")
+    public ResponseEntity<?> query(
+            @PathVariable Long id,
+            @RequestBody QueryRequest request,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(id, currentUser.getUserId());
+
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (dataset.getStatus() != DatasetStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Dataset is not ready yet"));
+        }
+
+        try {
+            return ResponseEntity.ok(datasetQueryService.query(dataset, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("error", "Failed to run query"));
+        }
+    }
+
+    /**
+     * An x/y series thinned to about {@code points} points: LTTB for LINE and AREA, grid
+     * thinning for SCATTER.
+     */
+    @GetMapping("/{id}/series")
+    public ResponseEntity<?> getSeries(
+            @PathVariable Long id,
+            @RequestParam String x,
+            @RequestParam String y,
+            @RequestParam(defaultValue = "LINE") ChartType chartType,
+            @RequestParam(required = false) Integer points,
+            @AuthenticationPrincipal CustomUserDetails currentUser
+    ) {
+        Dataset dataset = datasetService.getDatasetByIdAndUserId(id, currentUser.getUserId());
+
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (dataset.getStatus() != DatasetStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Dataset is not ready yet"));
+        }
+
+        try {
+            return ResponseEntity.ok(datasetSeriesService.getSeries(dataset, x, y, chartType, points));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("error", "Failed to load series"));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.backend.controller;
+
+import com.example.backend.model.CustomUserDetails;
+import com.example.backend.model.UserStorageUsage;
+import com.example.backend.service.ObjectCacheService;
+import com.example.backend.service.PresignedUrlService;
+import com.example.backend.service.StorageUsageService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/storage")
+public class StorageController {
+
+    private final ObjectCacheService objectCacheService;
+    private final PresignedUrlService presignedUrlService;
+    private final StorageUsageService storageUsageService;
+
+    public StorageController(ObjectCacheService objectCacheService, PresignedUrlService presignedUrlService,
+                             StorageUsageService storageUsageService) {
+        this.objectCacheService = objectCacheService;
+        this.presignedUrlService = presignedUrlService;
+        this.storageUsageService = storageUsageService;
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Long>> getCacheStats() {
+        return ResponseEntity.ok(objectCacheService.stats());
+    }
+
+    @GetMapping("/usage")
+    public ResponseEntity<?> getUsage(@AuthenticationPrincipal CustomUserDetails currentUser) {
+        UserStorageUsage usage = storageUsageService.getUsage(currentUser.getUserId());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("bytes", usage.getBytes());
+        response.put("objectCount", usage.getObjectCount());
+        response.put("datasetCount", usage.getDatasetCount());
+        response.put("quotaBytes", storageUsageService.getQuotaBytes());
+        response.put("warning", storageUsageService.isNearQuota(usage));
+        response.put("reconciledAt", usage.getReconciledAt());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/presign/stats")
+    public ResponseEntity<Map<String, Long>> getPresignStats() {
+        return ResponseEntity.ok(presignedUrlService.stats());
+    }
+}
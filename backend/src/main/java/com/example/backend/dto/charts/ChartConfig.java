@@ -0,0 +1,26 @@
+package com.example.backend.dto.charts;
+
+import com.example.backend.dto.datasets.QueryRequest;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What {@code Chart.configJson} holds: the x column, the y columns and how to aggregate them, and
+ * the filters to apply first.
+ */
+@Data
+public class ChartConfig {
+    private String x;
+
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    private List<String> y = new ArrayList<>();  // empty: count rows
+
+    private String aggregation;  // count, sum, avg, min, max
+    private String series;       // optional column that splits the data into one series per value
+    private List<QueryRequest.FilterSpec> filters = new ArrayList<>();
+    private String sort;         // "key" or "value"
+    private Integer limit;       // categories to return; pie charts fold the rest into "Other"
+}
@@ -0,0 +1,12 @@
+package com.example.backend.dto.charts;
+
+import com.example.backend.model.ChartType;
+import lombok.Data;
+
+@Data
+public class ChartRequest {
+    private Long datasetId;
+    private String title;
+    private ChartType chartType;
+    private String configJson;
+}
@@ -0,0 +1,30 @@
+package com.example.backend.dto.charts;
+
+import com.example.backend.model.Chart;
+import com.example.backend.model.ChartType;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ChartResponse {
+    private Long id;
+    private Long datasetId;
+    private String title;
+    private ChartType chartType;
+    private String configJson;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static ChartResponse from(Chart chart) {
+        ChartResponse response = new ChartResponse();
+        response.setId(chart.getId());
+        response.setDatasetId(chart.getDataset().getId());
+        response.setTitle(chart.getTitle());
+        response.setChartType(chart.getChartType());
+        response.setConfigJson(chart.getConfigJson());
+        response.setCreatedAt(chart.getCreatedAt());
+        response.setUpdatedAt(chart.getUpdatedAt());
+        return response;
+    }
+}
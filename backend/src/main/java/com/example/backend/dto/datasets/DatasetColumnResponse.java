@@ -3,21 +3,30 @@ package com.example.backend.dto.datasets;
 
 import com.example.backend.model.ColumnType;
 import com.example.backend.model.DatasetColumn;
+import com.example.backend.processing.QuantileSketch;
 import lombok.Data;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Data
 public class DatasetColumnResponse {
+    private static final int[] REPORTED_PERCENTILES = {1, 5, 25, 50, 75, 95, 99};
+
     private Long id;
     private String columnName;
     private Integer columnIndex;
     private ColumnType dataType;
+    private String formatPattern;
     private Integer uniqueValues;
+    private boolean uniqueValuesApproximate;
     private Integer nullCount;
     private Double mean;
     private Double median;
     private Double stdDev;
     private Double minValue;
     private Double maxValue;
+    private Map<String, Double> percentiles;
 
     public static DatasetColumnResponse from(DatasetColumn column) {
         DatasetColumnResponse response = new DatasetColumnResponse();
@@ -25,13 +34,23 @@ public class DatasetColumnResponse {
         response.setColumnName(column.getColumnName());
         response.setColumnIndex(column.getColumnIndex());
         response.setDataType(column.getDataType());
+        response.setFormatPattern(column.getFormatPattern());
         response.setUniqueValues(column.getUniqueValues());
+        response.setUniqueValuesApproximate(Boolean.TRUE.equals(column.getUniqueValuesApproximate()));
         response.setNullCount(column.getNullCount());
         response.setMean(column.getMean());
         response.setMedian(column.getMedian());
         response.setStdDev(column.getStdDev());
         response.setMinValue(column.getMinValue());
         response.setMaxValue(column.getMaxValue());
+        if (column.getQuantileSketch() != null) {
+            QuantileSketch sketch = QuantileSketch.fromBytes(column.getQuantileSketch());
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (int p : REPORTED_PERCENTILES) {
+                percentiles.put("p" + p, sketch.quantile(p / 100.0));
+            }
+            response.setPercentiles(percentiles);
+        }
         return response;
     }
 }
\ No newline at end of file
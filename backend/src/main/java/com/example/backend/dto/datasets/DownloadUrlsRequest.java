@@ -0,0 +1,10 @@
+package com.example.backend.dto.datasets;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class DownloadUrlsRequest {
+    private List<Long> datasetIds;
+}
@@ -0,0 +1,15 @@
+package com.example.backend.dto.datasets;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class FilteredPreviewResponse {
+    private List<String> columns;
+    private List<Map<String, Object>> rows;
+    private Integer blocksScanned;
+    private Integer blocksSkipped;  // ruled out by zone maps without reading
+    private Long elapsedMs;
+}
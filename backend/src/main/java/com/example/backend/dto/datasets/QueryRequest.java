@@ -0,0 +1,28 @@
+package com.example.backend.dto.datasets;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class QueryRequest {
+    private List<String> groupBy = new ArrayList<>();
+    private List<AggregateSpec> aggregates = new ArrayList<>();
+    private List<FilterSpec> filters = new ArrayList<>();
+    private String sort;     // "key" (default) or "value"
+    private Integer limit;
+
+    @Data
+    public static class AggregateSpec {
+        private String function;  // count, sum, avg, min, max
+        private String column;    // omit for count(*)
+    }
+
+    @Data
+    public static class FilterSpec {
+        private String column;
+        private String operator;  // eq, ne, lt, le, gt, ge, in, is_null, not_null
+        private List<String> values;
+    }
+}
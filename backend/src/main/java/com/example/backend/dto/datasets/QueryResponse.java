@@ -0,0 +1,17 @@
+package com.example.backend.dto.datasets;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class QueryResponse {
+    private List<String> columns;
+    private List<List<Object>> rows;
+    private Integer groupCount;
+    private Long matchedRows;
+    private Boolean truncated;  // more groups than rows returned
+    private Long elapsedMs;
+    private Integer blocksScanned;
+    private Integer blocksSkipped;  // ruled out by zone maps without reading
+}
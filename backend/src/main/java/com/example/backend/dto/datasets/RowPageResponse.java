@@ -0,0 +1,15 @@
+package com.example.backend.dto.datasets;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class RowPageResponse {
+    private List<String> columns;
+    private List<Map<String, Object>> rows;
+    private Integer offset;
+    private Integer totalRows;
+    private String nextCursor;  // null on the last page
+}
@@ -0,0 +1,16 @@
+package com.example.backend.dto.datasets;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SeriesResponse {
+    private String method;        // "lttb" or "grid"
+    private List<Object> x;
+    private List<Double> y;
+    private List<Integer> weights;  // grid only: points each returned point stands for
+    private Long pointCount;        // plottable rows before downsampling
+    private Boolean ordered;        // x already ascended in row order
+    private Long elapsedMs;
+}
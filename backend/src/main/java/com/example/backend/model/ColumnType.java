@@ -1,5 +1,15 @@
 package com.example.backend.model;
 
 public enum ColumnType {
-    NUMERIC, TEXT, DATE, BOOLEAN
+    NUMERIC, TEXT, DATE, BOOLEAN,
+    INTEGER, DECIMAL, TIMESTAMP;
+
+    /** NUMERIC is kept for columns profiled before INTEGER and DECIMAL existed. */
+    public boolean isNumeric() {
+        return this == NUMERIC || this == INTEGER || this == DECIMAL;
+    }
+
+    public boolean isTemporal() {
+        return this == DATE || this == TIMESTAMP;
+    }
 }
@@ -11,7 +11,10 @@ import java.util.List;
 
 @Entity
 @Data
-@Table(name = "datasets")
+@Table(name = "datasets", indexes = {
+        @Index(name = "idx_datasets_user_uploaded", columnList = "user_id, uploaded_at"),
+        @Index(name = "idx_datasets_file_path", columnList = "file_path")
+})
 public class Dataset {
 
     @Id
@@ -31,6 +34,8 @@ public class Dataset {
     @Column(nullable = false)
     private Long fileSize;  // in bytes
 
+    private Long storedBytes;  // size of the stored object after encoding; null until uploaded
+
     @Column(nullable = false)
     private Integer totalRows;
 
@@ -44,6 +49,18 @@ public class Dataset {
     @Column(nullable = false)
     private String filePath;
 
+    @Column(length = 64)
+    private String contentSha256;
+
+    private String columnarPath;  // local columnar copy, see ColumnarFile
+
+    private Integer columnarFormatVersion;
+
+    @Enumerated(EnumType.STRING)
+    private StorageCodec storageCodec;  // null for objects stored before compression, read as NONE
+
+    private Integer previewRowCount;  // rows in the snapshot, see DatasetArtifacts
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime uploadedAt;
@@ -0,0 +1,23 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * The preview snapshot and row index of a dataset. They can run to megabytes, so they live in
+ * their own table, keyed by dataset id, and are read only by the preview and row services rather
+ * than with every dataset. Rows are removed alongside their dataset by {@code DatasetService}.
+ */
+@Entity
+@Data
+@Table(name = "dataset_artifacts")
+public class DatasetArtifacts {
+
+    @Id
+    private Long datasetId;
+
+    @Column(columnDefinition = "TEXT")
+    private String previewSnapshot;  // header + first rows as CSV, see PreviewSnapshot
+
+    private byte[] rowIndex;  // CSV only, see CsvRowIndex
+}
@@ -32,9 +32,13 @@ public class DatasetColumn {
     @Column(nullable = false)
     private ColumnType dataType;
 
+    private String formatPattern;  // e.g. "yyyy-MM-dd" for DATE, "yes/no" for BOOLEAN
+
     @Column(nullable = false)
     private Integer uniqueValues;
 
+    private Boolean uniqueValuesApproximate;
+
     @Column(nullable = false)
     private Integer nullCount;
 
@@ -44,6 +48,15 @@ public class DatasetColumn {
     private Double minValue;
     private Double maxValue;
 
+    @JsonIgnore
+    private byte[] quantileSketch;
+
+    @JsonIgnore
+    private byte[] histogram;      // StreamingHistogram, for rebinning
+
+    @JsonIgnore
+    private byte[] histogramBins;  // ColumnHistograms at the profiling bin count
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
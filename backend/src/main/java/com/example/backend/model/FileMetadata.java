@@ -12,4 +12,5 @@ public class FileMetadata {
     private Long size;
     private String contentType;
     private Instant lastModified;
+    private String eTag;
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.example.backend.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * How a dataset object is encoded in the bucket. The codec is recorded on the dataset and in the
+ * object's metadata; GZIP objects also carry {@code Content-Encoding: gzip}, so presigned
+ * downloads are decoded by the browser.
+ */
+public enum StorageCodec {
+    NONE, GZIP;
+
+    public static final String METADATA_KEY = "codec";
+
+    /** Datasets stored before codecs existed have no value and are plain. */
+    public static StorageCodec of(StorageCodec codec) {
+        return codec == null ? NONE : codec;
+    }
+
+    public static StorageCodec fromMetadata(String value) {
+        return "gzip".equalsIgnoreCase(value) ? GZIP : NONE;
+    }
+
+    public String metadataValue() {
+        return name().toLowerCase();
+    }
+
+    public String contentEncoding() {
+        return this == GZIP ? "gzip" : null;
+    }
+
+    public InputStream decode(InputStream in) throws IOException {
+        return this == GZIP ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+}
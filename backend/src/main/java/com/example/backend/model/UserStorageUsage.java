@@ -0,0 +1,33 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running storage totals per user, kept up to date on upload and delete and corrected by the
+ * periodic reconciliation in {@code StorageUsageService}. Rows are written with native upserts,
+ * so the timestamps are set in SQL rather than by Hibernate.
+ */
+@Entity
+@Data
+@Table(name = "user_storage_usage")
+public class UserStorageUsage {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long bytes;  // stored (possibly compressed) object bytes
+
+    @Column(nullable = false)
+    private Long objectCount;
+
+    @Column(nullable = false)
+    private Long datasetCount;  // can exceed objectCount: duplicate uploads share one object
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,112 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetColumn;
+
+/**
+ * Profiles a single column one value at a time. Values are fed in row order and nothing but the
+ * running statistics is kept, so a column can be profiled without holding the file in memory.
+ * <p>
+ * Accumulators for consecutive slices of a file can be combined with {@link #merge}; the type is
+ * only decided in {@link #toColumn}, from a uniform sample of the whole column.
+ */
+public class ColumnAccumulator {
+
+    private int nullCount;
+    private final DistinctCounter distinctValues;
+    private final ValueReservoir typeSample;
+
+    private final NumberParser numberParser = new NumberParser();
+    private final NumericStats numericStats = new NumericStats();
+    private final QuantileSketch quantiles = new QuantileSketch();
+    private final StreamingHistogram histogram = new StreamingHistogram();
+    private final int histogramBins;
+
+    public ColumnAccumulator(ProfilingOptions options, long sampleSeed) {
+        this.distinctValues = new DistinctCounter(options.getExactDistinctThreshold(), options.getHllPrecision());
+        this.typeSample = new ValueReservoir(options.getTypeSampleSize(), sampleSeed);
+        this.histogramBins = options.getHistogramBins();
+    }
+
+    public void accept(String value) {
+        if (isBlank(value)) {
+            nullCount++;
+            return;
+        }
+
+        distinctValues.add(value);
+        typeSample.offer(value);
+
+        if (numberParser.parse(value) && !Double.isNaN(numberParser.value())) {
+            double number = numberParser.value();
+            numericStats.add(number);
+            quantiles.add(number);
+            histogram.add(number);
+        }
+    }
+
+    /**
+     * Folds in the accumulator of the slice that directly follows this one in the file.
+     */
+    public void merge(ColumnAccumulator next) {
+        nullCount += next.nullCount;
+        distinctValues.merge(next.distinctValues);
+        typeSample.merge(next.typeSample);
+        numericStats.merge(next.numericStats);
+        quantiles.merge(next.quantiles);
+        histogram.merge(next.histogram);
+    }
+
+    NumericStats numericStats() {
+        return numericStats;
+    }
+
+    public DatasetColumn toColumn(Dataset dataset, String columnName, int columnIndex) {
+        DatasetColumn column = new DatasetColumn();
+        column.setDataset(dataset);
+        column.setColumnName(columnName);
+        column.setColumnIndex(columnIndex);
+        column.setNullCount(nullCount);
+        column.setUniqueValues((int) Math.min(distinctValues.count(), Integer.MAX_VALUE));
+        column.setUniqueValuesApproximate(!distinctValues.isExact());
+
+        TypeInference.InferredType inferred = TypeInference.infer(typeSample.values());
+        ColumnType type = inferred.getType();
+        column.setDataType(type);
+        column.setFormatPattern(inferred.getFormat());
+
+        if (type.isNumeric() && numericStats.getCount() > 0) {
+            calculateNumericStats(column);
+        }
+
+        return column;
+    }
+
+    private void calculateNumericStats(DatasetColumn column) {
+        column.setMinValue(numericStats.getMin());
+        column.setMaxValue(numericStats.getMax());
+        column.setMean(round2(numericStats.getMean()));
+        column.setStdDev(round2(numericStats.getStdDev()));
+        column.setMedian(round2(quantiles.quantile(0.5)));
+        column.setQuantileSketch(quantiles.toBytes());
+        column.setHistogram(histogram.toBytes());
+        column.setHistogramBins(ColumnHistograms.of(histogram, quantiles, histogramBins).toBytes());
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static boolean isBlank(String str) {
+        if (str == null) {
+            return true;
+        }
+        for (int i = 0, n = str.length(); i < n; i++) {
+            if (str.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.backend.processing;
+
+import com.example.backend.processing.StreamingHistogram.Bin;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Equi-width and equi-depth bins of one column at a fixed bin count, precomputed at ingest so the
+ * common request is answered by decoding a few hundred bytes.
+ */
+public record ColumnHistograms(int binCount, List<Bin> equiWidth, List<Bin> equiDepth) {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    public static ColumnHistograms of(StreamingHistogram histogram, QuantileSketch sketch, int binCount) {
+        return new ColumnHistograms(binCount, histogram.equiWidth(binCount), histogram.equiDepth(binCount, sketch));
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 4 + 4 + (equiWidth.size() + equiDepth.size()) * 24);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(binCount);
+        putBins(buffer, equiWidth);
+        putBins(buffer, equiDepth);
+        return buffer.array();
+    }
+
+    public static ColumnHistograms fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported histogram bins version " + version);
+        }
+        int binCount = buffer.getInt();
+        List<Bin> equiWidth = getBins(buffer);
+        List<Bin> equiDepth = getBins(buffer);
+        return new ColumnHistograms(binCount, equiWidth, equiDepth);
+    }
+
+    private static void putBins(ByteBuffer buffer, List<Bin> bins) {
+        buffer.putInt(bins.size());
+        for (Bin bin : bins) {
+            buffer.putDouble(bin.lower());
+            buffer.putDouble(bin.upper());
+            buffer.putLong(bin.count());
+        }
+    }
+
+    private static List<Bin> getBins(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        List<Bin> bins = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bins.add(new Bin(buffer.getDouble(), buffer.getDouble(), buffer.getLong()));
+        }
+        return bins;
+    }
+}
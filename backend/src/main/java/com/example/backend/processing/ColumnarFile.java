@@ -0,0 +1,341 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only, memory-mapped view of a dataset written by {@link ColumnarFileWriter}.
+ * <p>
+ * Layout (little-endian):
+ * <pre>
+ *   header     magic, version, row count, column count,            6 x int
+ *              rows per zone, reserved
+ *   directory  per column: encoding, dictionary size,              2 x int + 4 x long
+ *              null bitmap offset, values offset, dictionary offset,
+ *              zone map offset
+ *   names      per column: name, type, format pattern              short length + UTF-8 each
+ *   columns    per column, 8-byte aligned: null bitmap (bit set = null, one long per 64 rows),
+ *              then one long, double or int dictionary id per row
+ *   dictionaries  per text column: int length + UTF-8 per entry, in id order
+ *   zone maps  per column, 8-byte aligned: min, max, null count, reserved per zone   2 x long + 2 x int
+ * </pre>
+ * A zone is a block of consecutive rows. Its min and max are in the column's stored form (longs,
+ * double bits or dictionary ids) and cover the non-null rows only; a zone holding a NaN spans
+ * the whole double range. Version 1 files have the smaller header and directory entries and no
+ * zone maps; they are still readable.
+ * <p>
+ * Values are read with absolute gets, so one instance can be shared across threads.
+ */
+public class ColumnarFile implements Closeable {
+
+    public static final int MAGIC = 0x4C4F4344; // "DCOL"
+    public static final int VERSION = 2;
+
+    /** Rows per zone in files written by this version. */
+    public static final int ZONE_ROWS = 4096;
+
+    static final int HEADER_BYTES = 24;
+    static final int DIRECTORY_ENTRY_BYTES = 40;
+    static final int ZONE_BYTES = 24;
+
+    private static final int V1_HEADER_BYTES = 16;
+    private static final int V1_DIRECTORY_ENTRY_BYTES = 32;
+
+    public enum Encoding {
+        LONG(8), DOUBLE(8), DICTIONARY(4);
+
+        final int width;
+
+        Encoding(int width) {
+            this.width = width;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int zoneRows;  // 0 when the file has no zone maps
+    private final List<Column> columns;
+
+    private ColumnarFile(FileChannel channel, ByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a columnar dataset file");
+        }
+        int version = buffer.getInt(4);
+        if (!isSupportedVersion(version)) {
+            throw new IOException("Unsupported columnar format version " + version);
+        }
+        int headerBytes = version == 1 ? V1_HEADER_BYTES : HEADER_BYTES;
+        int entryBytes = version == 1 ? V1_DIRECTORY_ENTRY_BYTES : DIRECTORY_ENTRY_BYTES;
+        this.rowCount = buffer.getInt(8);
+        int columnCount = buffer.getInt(12);
+        this.zoneRows = version == 1 ? 0 : buffer.getInt(16);
+
+        List<Column> list = new ArrayList<>(columnCount);
+        int namesPosition = headerBytes + columnCount * entryBytes;
+        for (int i = 0; i < columnCount; i++) {
+            String[] strings = new String[3];
+            for (int j = 0; j < strings.length; j++) {
+                int length = buffer.getShort(namesPosition) & 0xFFFF;
+                byte[] bytes = new byte[length];
+                buffer.get(namesPosition + 2, bytes);
+                strings[j] = new String(bytes, StandardCharsets.UTF_8);
+                namesPosition += 2 + length;
+            }
+
+            int entry = headerBytes + i * entryBytes;
+            list.add(new Column(
+                    i,
+                    strings[0],
+                    ColumnType.valueOf(strings[1]),
+                    strings[2].isEmpty() ? null : strings[2],
+                    Encoding.values()[buffer.getInt(entry)],
+                    buffer.getInt(entry + 4),
+                    (int) buffer.getLong(entry + 8),
+                    (int) buffer.getLong(entry + 16),
+                    (int) buffer.getLong(entry + 24),
+                    version == 1 ? 0 : (int) buffer.getLong(entry + 32)));
+        }
+        this.columns = Collections.unmodifiableList(list);
+    }
+
+    public static ColumnarFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Columnar file too large to map");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new ColumnarFile(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Files of older versions stay readable; they just lack the newer sections. */
+    public static boolean isSupportedVersion(Integer version) {
+        return version != null && version >= 1 && version <= VERSION;
+    }
+
+    static long bitmapBytes(int rowCount) {
+        return ((rowCount + 63L) >>> 6) * 8L;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean hasZoneMaps() {
+        return zoneRows > 0;
+    }
+
+    /** Rows per zone; the last zone may be shorter. */
+    public int getZoneRows() {
+        return zoneRows;
+    }
+
+    public int getZoneCount() {
+        return zoneRows == 0 ? 0 : (int) ((rowCount + (long) zoneRows - 1) / zoneRows);
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public Column column(String name) {
+        for (Column column : columns) {
+            if (column.getName().equals(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public final class Column {
+
+        private final int index;
+        private final String name;
+        private final ColumnType type;
+        private final String formatPattern;
+        private final Encoding encoding;
+        private final int dictionarySize;
+        private final int nullsOffset;
+        private final int dataOffset;
+        private final int dictionaryOffset;
+        private final int zonesOffset;
+        private final ByteBuffer nulls;
+        private final ByteBuffer values;
+        private volatile String[] dictionary;
+
+        private Column(int index, String name, ColumnType type, String formatPattern, Encoding encoding,
+                       int dictionarySize, int nullsOffset, int dataOffset, int dictionaryOffset, int zonesOffset) {
+            this.index = index;
+            this.name = name;
+            this.type = type;
+            this.formatPattern = formatPattern;
+            this.encoding = encoding;
+            this.dictionarySize = dictionarySize;
+            this.nullsOffset = nullsOffset;
+            this.dataOffset = dataOffset;
+            this.dictionaryOffset = dictionaryOffset;
+            this.zonesOffset = zonesOffset;
+            // little-endian views for bulk reads; on little-endian hosts these copy without swapping
+            this.nulls = buffer.slice(nullsOffset, (int) bitmapBytes(rowCount)).order(ByteOrder.LITTLE_ENDIAN);
+            this.values = buffer.slice(dataOffset, rowCount * encoding.width).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+
+        public String getFormatPattern() {
+            return formatPattern;
+        }
+
+        public Encoding getEncoding() {
+            return encoding;
+        }
+
+        public boolean isNull(int row) {
+            return (buffer.getLong(nullsOffset + (row >>> 6) * 8) & (1L << (row & 63))) != 0;
+        }
+
+        /** Integers, booleans (0/1), dates (epoch day) and timestamps (epoch millis). */
+        public long getLong(int row) {
+            return buffer.getLong(dataOffset + row * 8);
+        }
+
+        /** Any numeric column; LONG columns are widened. */
+        public double getDouble(int row) {
+            return encoding == Encoding.DOUBLE
+                    ? buffer.getDouble(dataOffset + row * 8)
+                    : buffer.getLong(dataOffset + row * 8);
+        }
+
+        public int getDictionaryId(int row) {
+            return buffer.getInt(dataOffset + row * 4);
+        }
+
+        /**
+         * Copies {@code count} words of the null bitmap, starting at word {@code word} (row
+         * {@code word * 64}). Bit {@code r & 63} of word {@code r >>> 6} is set when row r is null.
+         */
+        public void readNullWords(int word, long[] out, int count) {
+            nulls.asLongBuffer().get(word, out, 0, count);
+        }
+
+        /** Bulk {@link #getLong}; LONG encoding only. */
+        public void readLongs(int row, long[] out, int length) {
+            values.asLongBuffer().get(row, out, 0, length);
+        }
+
+        /** Bulk {@link #getDouble}; LONG columns are widened. */
+        public void readDoubles(int row, double[] out, int length) {
+            if (encoding == Encoding.DOUBLE) {
+                values.asDoubleBuffer().get(row, out, 0, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    out[i] = values.getLong((row + i) * 8);
+                }
+            }
+        }
+
+        /** Bulk {@link #getDictionaryId}; DICTIONARY encoding only. */
+        public void readDictionaryIds(int row, int[] out, int length) {
+            values.asIntBuffer().get(row, out, 0, length);
+        }
+
+        /** Smallest non-null value of a zone in stored form; see {@link #getZoneMaxBits}. */
+        public long getZoneMinBits(int zone) {
+            return buffer.getLong(zonesOffset + zone * ZONE_BYTES);
+        }
+
+        /**
+         * Largest non-null value of a zone in stored form: the long itself, the raw bits of a
+         * double, or a dictionary id. Meaningless when every row of the zone is null.
+         */
+        public long getZoneMaxBits(int zone) {
+            return buffer.getLong(zonesOffset + zone * ZONE_BYTES + 8);
+        }
+
+        public int getZoneNullCount(int zone) {
+            return buffer.getInt(zonesOffset + zone * ZONE_BYTES + 16);
+        }
+
+        public int getDictionarySize() {
+            return dictionarySize;
+        }
+
+        public String[] dictionary() {
+            String[] values = dictionary;
+            if (values == null) {
+                values = new String[dictionarySize];
+                int position = dictionaryOffset;
+                for (int i = 0; i < dictionarySize; i++) {
+                    int length = buffer.getInt(position);
+                    byte[] bytes = new byte[length];
+                    buffer.get(position + 4, bytes);
+                    values[i] = new String(bytes, StandardCharsets.UTF_8);
+                    position += 4 + length;
+                }
+                dictionary = values;
+            }
+            return values;
+        }
+
+        /**
+         * The value in a display-friendly, type-normalised form: ISO dates and timestamps,
+         * {@code true}/{@code false} for booleans, or {@code null}.
+         */
+        public Object getValue(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (type) {
+                case INTEGER:
+                    return getLong(row);
+                case DATE:
+                    return LocalDate.ofEpochDay(getLong(row)).toString();
+                case TIMESTAMP:
+                    return LocalDateTime.ofInstant(Instant.ofEpochMilli(getLong(row)), ZoneOffset.UTC).toString();
+                case BOOLEAN:
+                    return getLong(row) != 0;
+                default:
+                    return encoding == Encoding.DICTIONARY ? dictionary()[getDictionaryId(row)] : getDouble(row);
+            }
+        }
+    }
+}
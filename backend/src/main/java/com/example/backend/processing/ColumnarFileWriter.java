@@ -0,0 +1,415 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a dataset in the {@link ColumnarFile} layout. The row count is known from profiling, so
+ * every null bitmap and value array has a fixed place in the file; that region is memory-mapped
+ * and filled as rows arrive. Text dictionaries and zone maps are appended after it in
+ * {@link #finish()}; the zone maps are computed from the mapped columns, which are still in the
+ * page cache at that point.
+ * <p>
+ * Values that do not parse as the column's type are stored as null.
+ */
+public class ColumnarFileWriter implements Closeable {
+
+    public record ColumnSpec(String name, ColumnType type, String formatPattern) {
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int rowCount;
+    private final ColumnEncoder[] encoders;
+    private final long fixedRegionEnd;
+    private int row;
+
+    public ColumnarFileWriter(Path file, List<ColumnSpec> specs, int rowCount) throws IOException {
+        this.rowCount = rowCount;
+        this.encoders = new ColumnEncoder[specs.size()];
+
+        byte[][] names = new byte[specs.size() * 3][];
+        long position = ColumnarFile.HEADER_BYTES + (long) specs.size() * ColumnarFile.DIRECTORY_ENTRY_BYTES;
+        for (int i = 0; i < specs.size(); i++) {
+            ColumnSpec spec = specs.get(i);
+            names[i * 3] = utf8(spec.name());
+            names[i * 3 + 1] = utf8(spec.type().name());
+            names[i * 3 + 2] = utf8(spec.formatPattern() == null ? "" : spec.formatPattern());
+            position += 6 + names[i * 3].length + names[i * 3 + 1].length + names[i * 3 + 2].length;
+        }
+        position = align8(position);
+
+        long bitmapBytes = ColumnarFile.bitmapBytes(rowCount);
+        for (int i = 0; i < encoders.length; i++) {
+            ColumnEncoder encoder = ColumnEncoder.of(specs.get(i));
+            encoder.nullsOffset = position;
+            encoder.dataOffset = position + bitmapBytes;
+            position = align8(encoder.dataOffset + (long) rowCount * encoder.encoding.width);
+            encoders[i] = encoder;
+        }
+        this.fixedRegionEnd = position;
+
+        if (fixedRegionEnd > Integer.MAX_VALUE) {
+            throw new IOException("Dataset is too large for a columnar file");
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fixedRegionEnd);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(0, ColumnarFile.MAGIC);
+        buffer.putInt(4, ColumnarFile.VERSION);
+        buffer.putInt(8, rowCount);
+        buffer.putInt(12, encoders.length);
+        buffer.putInt(16, ColumnarFile.ZONE_ROWS);
+
+        int namesPosition = ColumnarFile.HEADER_BYTES + encoders.length * ColumnarFile.DIRECTORY_ENTRY_BYTES;
+        for (byte[] name : names) {
+            buffer.putShort(namesPosition, (short) name.length);
+            buffer.put(namesPosition + 2, name);
+            namesPosition += 2 + name.length;
+        }
+    }
+
+    public void acceptRow(List<String> values) {
+        if (row >= rowCount) {
+            throw new IllegalStateException("More rows than the " + rowCount + " that were profiled");
+        }
+        int size = values.size();
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i].write(buffer, row, i < size ? values.get(i) : null);
+        }
+        row++;
+    }
+
+    /**
+     * Marks rows that never arrived as null, appends the dictionaries and fills in the directory.
+     */
+    public void finish() throws IOException {
+        for (; row < rowCount; row++) {
+            for (ColumnEncoder encoder : encoders) {
+                encoder.write(buffer, row, null);
+            }
+        }
+
+        channel.position(fixedRegionEnd);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        long position = fixedRegionEnd;
+        for (ColumnEncoder encoder : encoders) {
+            if (encoder.encoding != ColumnarFile.Encoding.DICTIONARY) {
+                continue;
+            }
+            encoder.dictionaryOffset = position;
+            for (String value : encoder.dictionary) {
+                byte[] bytes = utf8(value);
+                out.writeInt(Integer.reverseBytes(bytes.length));
+                out.write(bytes);
+                position += 4 + bytes.length;
+            }
+        }
+
+        for (; position != align8(position); position++) {
+            out.write(0);
+        }
+        for (ColumnEncoder encoder : encoders) {
+            encoder.zonesOffset = position;
+            position += encoder.writeZones(buffer, rowCount, out);
+        }
+        out.flush();
+
+        for (int i = 0; i < encoders.length; i++) {
+            ColumnEncoder encoder = encoders[i];
+            int entry = ColumnarFile.HEADER_BYTES + i * ColumnarFile.DIRECTORY_ENTRY_BYTES;
+            buffer.putInt(entry, encoder.encoding.ordinal());
+            buffer.putInt(entry + 4, encoder.dictionary == null ? 0 : encoder.dictionary.size());
+            buffer.putLong(entry + 8, encoder.nullsOffset);
+            buffer.putLong(entry + 16, encoder.dataOffset);
+            buffer.putLong(entry + 24, encoder.dictionaryOffset);
+            buffer.putLong(entry + 32, encoder.zonesOffset);
+        }
+        buffer.force();
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static long align8(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private abstract static class ColumnEncoder {
+
+        final ColumnarFile.Encoding encoding;
+        long nullsOffset;
+        long dataOffset;
+        long dictionaryOffset;
+        long zonesOffset;
+        List<String> dictionary;
+
+        ColumnEncoder(ColumnarFile.Encoding encoding) {
+            this.encoding = encoding;
+        }
+
+        static ColumnEncoder of(ColumnSpec spec) {
+            switch (spec.type()) {
+                case INTEGER:
+                    return new IntegerEncoder();
+                case NUMERIC:
+                case DECIMAL:
+                    return new DoubleEncoder();
+                case DATE:
+                case TIMESTAMP:
+                    return new TemporalEncoder(spec.type(), spec.formatPattern());
+                case BOOLEAN:
+                    return new BooleanEncoder(spec.formatPattern());
+                default:
+                    return new DictionaryEncoder();
+            }
+        }
+
+        void write(MappedByteBuffer buffer, int row, String value) {
+            if (value == null || value.isBlank() || !encode(buffer, (int) (dataOffset + (long) row * encoding.width), value.trim())) {
+                int word = (int) (nullsOffset + (row >>> 6) * 8L);
+                buffer.putLong(word, buffer.getLong(word) | (1L << (row & 63)));
+            }
+        }
+
+        /**
+         * @return {@code false} when the value does not parse and the row should be marked null
+         */
+        abstract boolean encode(MappedByteBuffer buffer, int index, String value);
+
+        /**
+         * Appends min, max and null count for every {@link ColumnarFile#ZONE_ROWS} rows.
+         *
+         * @return the number of bytes written
+         */
+        long writeZones(MappedByteBuffer buffer, int rowCount, DataOutputStream out) throws IOException {
+            int zones = (rowCount + ColumnarFile.ZONE_ROWS - 1) / ColumnarFile.ZONE_ROWS;
+            for (int zone = 0; zone < zones; zone++) {
+                int start = zone * ColumnarFile.ZONE_ROWS;
+                int end = Math.min(start + ColumnarFile.ZONE_ROWS, rowCount);
+                long min = 0;
+                long max = 0;
+                int nullCount = 0;
+                if (encoding == ColumnarFile.Encoding.DOUBLE) {
+                    double minValue = Double.POSITIVE_INFINITY;
+                    double maxValue = Double.NEGATIVE_INFINITY;
+                    for (int row = start; row < end; row++) {
+                        if (isNull(buffer, row)) {
+                            nullCount++;
+                            continue;
+                        }
+                        double value = buffer.getDouble((int) (dataOffset + row * 8L));
+                        if (Double.isNaN(value)) {
+                            // NaN compares false to everything, so the zone can't be ruled out by range
+                            minValue = Double.NEGATIVE_INFINITY;
+                            maxValue = Double.POSITIVE_INFINITY;
+                            break;
+                        }
+                        minValue = Math.min(minValue, value);
+                        maxValue = Math.max(maxValue, value);
+                    }
+                    min = Double.doubleToLongBits(minValue);
+                    max = Double.doubleToLongBits(maxValue);
+                } else {
+                    boolean seen = false;
+                    for (int row = start; row < end; row++) {
+                        if (isNull(buffer, row)) {
+                            nullCount++;
+                            continue;
+                        }
+                        long value = encoding == ColumnarFile.Encoding.LONG
+                                ? buffer.getLong((int) (dataOffset + row * 8L))
+                                : buffer.getInt((int) (dataOffset + row * 4L));
+                        min = seen ? Math.min(min, value) : value;
+                        max = seen ? Math.max(max, value) : value;
+                        seen = true;
+                    }
+                }
+                out.writeLong(Long.reverseBytes(min));
+                out.writeLong(Long.reverseBytes(max));
+                out.writeInt(Integer.reverseBytes(nullCount));
+                out.writeInt(0);
+            }
+            return (long) zones * ColumnarFile.ZONE_BYTES;
+        }
+
+        private boolean isNull(MappedByteBuffer buffer, int row) {
+            return (buffer.getLong((int) (nullsOffset + (row >>> 6) * 8L)) & (1L << (row & 63))) != 0;
+        }
+    }
+
+    private static final class IntegerEncoder extends ColumnEncoder {
+
+        private final NumberParser numberParser = new NumberParser();
+
+        IntegerEncoder() {
+            super(ColumnarFile.Encoding.LONG);
+        }
+
+        @Override
+        boolean encode(MappedByteBuffer buffer, int index, String value) {
+            long result = 0;
+            int i = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+            int digits = value.length() - i;
+            if (digits > 0 && digits <= 18) {
+                for (; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    if (c < '0' || c > '9') {
+                        break;
+                    }
+                    result = result * 10 + (c - '0');
+                }
+                if (i == value.length()) {
+                    buffer.putLong(index, value.charAt(0) == '-' ? -result : result);
+                    return true;
+                }
+            }
+
+            // "1e3", "2.0" and the like
+            if (numberParser.parse(value)) {
+                double number = numberParser.value();
+                if (number == Math.rint(number) && Math.abs(number) < 0x1p63) {
+                    buffer.putLong(index, (long) number);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class DoubleEncoder extends ColumnEncoder {
+
+        private final NumberParser numberParser = new NumberParser();
+
+        DoubleEncoder() {
+            super(ColumnarFile.Encoding.DOUBLE);
+        }
+
+        @Override
+        boolean encode(MappedByteBuffer buffer, int index, String value) {
+            if (!numberParser.parse(value)) {
+                return false;
+            }
+            buffer.putDouble(index, numberParser.value());
+            return true;
+        }
+    }
+
+    /**
+     * Dates become epoch days, timestamps epoch milliseconds. Timestamps without an offset are
+     * taken as UTC.
+     */
+    private static final class TemporalEncoder extends ColumnEncoder {
+
+        private final boolean timestamp;
+        private final DateTimeFormatter formatter;
+
+        TemporalEncoder(ColumnType type, String formatPattern) {
+            super(ColumnarFile.Encoding.LONG);
+            this.timestamp = type == ColumnType.TIMESTAMP;
+            this.formatter = formatPattern == null ? null : DateTimeFormatter.ofPattern(formatPattern);
+        }
+
+        @Override
+        boolean encode(MappedByteBuffer buffer, int index, String value) {
+            if (formatter == null) {
+                return false;
+            }
+            try {
+                TemporalAccessor parsed = formatter.parse(value);
+                long encoded;
+                if (!timestamp) {
+                    encoded = LocalDate.from(parsed).toEpochDay();
+                } else if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+                    encoded = Instant.from(parsed).toEpochMilli();
+                } else {
+                    encoded = LocalDateTime.from(parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+                }
+                buffer.putLong(index, encoded);
+                return true;
+            } catch (DateTimeException e) {
+                return false;
+            }
+        }
+    }
+
+    private static final class BooleanEncoder extends ColumnEncoder {
+
+        private final String trueToken;
+        private final String falseToken;
+
+        BooleanEncoder(String formatPattern) {
+            super(ColumnarFile.Encoding.LONG);
+            String[] tokens = (formatPattern == null ? "true/false" : formatPattern).split("/", 2);
+            this.trueToken = tokens[0];
+            this.falseToken = tokens.length > 1 ? tokens[1] : "";
+        }
+
+        @Override
+        boolean encode(MappedByteBuffer buffer, int index, String value) {
+            if (value.equalsIgnoreCase(trueToken)) {
+                buffer.putLong(index, 1L);
+                return true;
+            }
+            if (value.equalsIgnoreCase(falseToken)) {
+                buffer.putLong(index, 0L);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class DictionaryEncoder extends ColumnEncoder {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        DictionaryEncoder() {
+            super(ColumnarFile.Encoding.DICTIONARY);
+            this.dictionary = new ArrayList<>();
+        }
+
+        @Override
+        boolean encode(MappedByteBuffer buffer, int index, String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = dictionary.size();
+                ids.put(value, id);
+                dictionary.add(value);
+            }
+            buffer.putInt(index, id);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,937 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+import com.example.backend.processing.ColumnarFile.Column;
+import com.example.backend.processing.ColumnarFile.Encoding;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filtered group-by aggregation over a {@link ColumnarFile}.
+ * <p>
+ * Rows are processed {@value #BATCH_ROWS} at a time. Each column that takes part is bulk-copied
+ * into a primitive array per batch; filters narrow a selection vector of row positions, group
+ * columns turn the selected rows into dense group ids, and aggregates accumulate into arrays
+ * indexed by group id. Text columns are compared and grouped by dictionary id, so their strings
+ * are only touched once per distinct value.
+ * <p>
+ * When the file has zone maps, a batch whose zones cannot satisfy every filter is skipped without
+ * reading its values.
+ */
+public final class ColumnarQuery {
+
+    /** A multiple of 64, so every batch starts on a null-bitmap word. */
+    static final int BATCH_ROWS = 4096;
+
+    /** Composite key spaces up to this size use a direct lookup array instead of hashing. */
+    private static final int DENSE_KEY_LIMIT = 1 << 16;
+
+    public enum Function { COUNT, SUM, AVG, MIN, MAX }
+
+    public enum Operator { EQ, NE, LT, LE, GT, GE, IN, IS_NULL, NOT_NULL }
+
+    /** {@code column} is null for {@code COUNT(*)}. */
+    public record Aggregate(Function function, String column) {
+
+        public String label() {
+            return column == null ? "count" : function.name().toLowerCase() + "(" + column + ")";
+        }
+    }
+
+    public record Filter(String column, Operator operator, List<String> values) {
+
+        /**
+         * Parses {@code column:operator[:value]}, e.g. {@code price:gt:100} or
+         * {@code region:in:north|south}. The column name ends at the first colon; the value may
+         * contain further colons.
+         */
+        public static Filter parse(String expression) {
+            String[] parts = expression.split(":", 3);
+            if (parts.length < 2 || parts[0].isEmpty()) {
+                throw new IllegalArgumentException("Filters look like column:operator[:value], got " + expression);
+            }
+            Operator operator;
+            try {
+                operator = Operator.valueOf(parts[1].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown filter operator: " + parts[1]);
+            }
+            List<String> values;
+            if (parts.length < 3) {
+                values = List.of();
+            } else if (operator == Operator.IN) {
+                values = List.of(parts[2].split("\\|"));
+            } else {
+                values = List.of(parts[2]);
+            }
+            return new Filter(parts[0], operator, values);
+        }
+    }
+
+    public record Result(List<String> columns, List<List<Object>> rows, int groupCount, long matchedRows,
+                         ScanStats stats) {
+    }
+
+    /** Rows that passed the filters, in file order, up to the requested limit. */
+    public record Selection(int[] rows, ScanStats stats) {
+    }
+
+    /** Batches read versus ruled out by zone maps. */
+    public record ScanStats(int blocksScanned, int blocksSkipped) {
+    }
+
+    private final ColumnarFile file;
+    private final Column[] groupColumns;
+    private final Aggregate[] aggregates;
+    private final AggregateState[] states;
+    private final CompiledFilter[] filters;
+    private final int maxGroups;
+
+    // scratch, reused across batches
+    private final int[] selection = new int[BATCH_ROWS];
+    private final int[] groupIds = new int[BATCH_ROWS];
+    private final KeyReader[] keyReaders;
+
+    private int blocksScanned;
+    private int blocksSkipped;
+
+    private int groupCount;
+    private long[] groupKeys = new long[0];     // groupColumns.length keys per group
+    private boolean[] groupNulls = new boolean[0];
+    private int[] denseGroups;                  // composite key -> group id, or null when hashing
+    private int[] denseStrides;
+    private GroupTable groupTable;
+
+    private ColumnarQuery(ColumnarFile file, List<String> groupBy, List<Aggregate> aggregates, List<Filter> filters,
+                          int maxGroups) {
+        this.file = file;
+        this.maxGroups = maxGroups;
+
+        this.groupColumns = new Column[groupBy.size()];
+        this.keyReaders = new KeyReader[groupBy.size()];
+        for (int i = 0; i < groupColumns.length; i++) {
+            groupColumns[i] = require(groupBy.get(i));
+            keyReaders[i] = new KeyReader(groupColumns[i]);
+        }
+
+        this.aggregates = aggregates.toArray(new Aggregate[0]);
+        this.states = new AggregateState[this.aggregates.length];
+        for (int i = 0; i < states.length; i++) {
+            Aggregate aggregate = this.aggregates[i];
+            states[i] = new AggregateState(aggregate.function(),
+                    aggregate.column() == null ? null : require(aggregate.column()));
+        }
+
+        this.filters = new CompiledFilter[filters.size()];
+        for (int i = 0; i < this.filters.length; i++) {
+            this.filters[i] = compile(filters.get(i));
+        }
+
+        long keySpace = 1;
+        for (Column column : groupColumns) {
+            keySpace *= denseCardinality(column);
+            if (keySpace > DENSE_KEY_LIMIT) {
+                break;
+            }
+        }
+        if (keySpace <= DENSE_KEY_LIMIT) {
+            denseGroups = new int[(int) keySpace];
+            Arrays.fill(denseGroups, -1);
+            denseStrides = new int[groupColumns.length];
+            int stride = 1;
+            for (int i = groupColumns.length - 1; i >= 0; i--) {
+                denseStrides[i] = stride;
+                stride *= denseCardinality(groupColumns[i]);
+            }
+        } else {
+            groupTable = new GroupTable(groupColumns.length);
+        }
+    }
+
+    /**
+     * @param sortByValue order groups by the first aggregate, descending, instead of by key
+     * @param limit       maximum number of groups returned; {@link Result#groupCount()} has the total
+     * @param maxGroups   fail rather than track more distinct groups than this
+     */
+    public static Result execute(ColumnarFile file, List<String> groupBy, List<Aggregate> aggregates,
+                                 List<Filter> filters, boolean sortByValue, int limit, int maxGroups) {
+        if (aggregates.isEmpty()) {
+            throw new IllegalArgumentException("At least one aggregate is required");
+        }
+        ColumnarQuery query = new ColumnarQuery(file, groupBy, aggregates, filters, maxGroups);
+        long matched = query.run();
+        return query.result(matched, sortByValue, limit);
+    }
+
+    /**
+     * The first {@code limit} rows that pass every filter. Stops reading once it has them.
+     */
+    public static Selection select(ColumnarFile file, List<Filter> filters, int limit) {
+        ColumnarQuery query = new ColumnarQuery(file, List.of(), List.of(), filters, 1);
+        int[] rows = new int[Math.min(limit, file.getRowCount())];
+        int found = 0;
+        for (int start = 0; start < file.getRowCount() && found < rows.length; start += BATCH_ROWS) {
+            int length = Math.min(BATCH_ROWS, file.getRowCount() - start);
+            int selected = Math.min(query.filterBatch(start, length), rows.length - found);
+            for (int i = 0; i < selected; i++) {
+                rows[found++] = start + query.selection[i];
+            }
+        }
+        return new Selection(Arrays.copyOf(rows, found), query.stats());
+    }
+
+    private long run() {
+        if (groupColumns.length == 0) {
+            newGroup(new long[0], new boolean[0]);
+        }
+
+        long matched = 0;
+        int rowCount = file.getRowCount();
+        for (int start = 0; start < rowCount; start += BATCH_ROWS) {
+            int length = Math.min(BATCH_ROWS, rowCount - start);
+            int selected = filterBatch(start, length);
+            if (selected == 0) {
+                continue;
+            }
+            matched += selected;
+
+            assignGroups(start, length, selected);
+            for (AggregateState state : states) {
+                state.accumulate(start, length, selection, groupIds, selected, groupCount);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Leaves the surviving batch positions in {@code selection} and returns how many there are.
+     */
+    private int filterBatch(int start, int length) {
+        if (!mightMatch(start, length)) {
+            blocksSkipped++;
+            return 0;
+        }
+        blocksScanned++;
+
+        int selected = length;
+        for (int i = 0; i < length; i++) {
+            selection[i] = i;
+        }
+        for (CompiledFilter filter : filters) {
+            selected = filter.rows().apply(start, length, selection, selected);
+            if (selected == 0) {
+                break;
+            }
+        }
+        return selected;
+    }
+
+    /** False when some filter rules out every zone the batch overlaps. */
+    private boolean mightMatch(int start, int length) {
+        if (filters.length == 0 || !file.hasZoneMaps()) {
+            return true;
+        }
+        int zoneRows = file.getZoneRows();
+        int lastZone = (start + length - 1) / zoneRows;
+        for (int zone = start / zoneRows; zone <= lastZone; zone++) {
+            boolean possible = true;
+            for (CompiledFilter filter : filters) {
+                if (!filter.zones().mightMatch(zone)) {
+                    possible = false;
+                    break;
+                }
+            }
+            if (possible) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ScanStats stats() {
+        return new ScanStats(blocksScanned, blocksSkipped);
+    }
+
+    private void assignGroups(int start, int length, int selected) {
+        if (groupColumns.length == 0) {
+            Arrays.fill(groupIds, 0, selected, 0);
+            return;
+        }
+        for (KeyReader reader : keyReaders) {
+            reader.load(start, length);
+        }
+
+        if (denseGroups != null) {
+            for (int i = 0; i < selected; i++) {
+                int row = selection[i];
+                int code = 0;
+                for (int c = 0; c < keyReaders.length; c++) {
+                    code += keyReaders[c].denseCode(row) * denseStrides[c];
+                }
+                int group = denseGroups[code];
+                if (group < 0) {
+                    group = newGroup(row);
+                    denseGroups[code] = group;
+                }
+                groupIds[i] = group;
+            }
+            return;
+        }
+
+        long[] key = new long[keyReaders.length];
+        boolean[] nulls = new boolean[keyReaders.length];
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            for (int c = 0; c < keyReaders.length; c++) {
+                nulls[c] = keyReaders[c].isNull(row);
+                key[c] = nulls[c] ? 0 : keyReaders[c].key(row);
+            }
+            int group = groupTable.find(key, nulls);
+            if (group < 0) {
+                group = newGroup(key, nulls);
+                groupTable.insert(key, nulls, group);
+            }
+            groupIds[i] = group;
+        }
+    }
+
+    private int newGroup(int row) {
+        long[] key = new long[keyReaders.length];
+        boolean[] nulls = new boolean[keyReaders.length];
+        for (int c = 0; c < keyReaders.length; c++) {
+            nulls[c] = keyReaders[c].isNull(row);
+            key[c] = nulls[c] ? 0 : keyReaders[c].key(row);
+        }
+        return newGroup(key, nulls);
+    }
+
+    private int newGroup(long[] key, boolean[] nulls) {
+        if (groupCount >= maxGroups) {
+            throw new IllegalArgumentException("Query produces more than " + maxGroups + " groups");
+        }
+        int width = key.length;
+        if ((groupCount + 1) * width > groupKeys.length) {
+            int capacity = Math.max(16, groupCount * 2) * width;
+            groupKeys = Arrays.copyOf(groupKeys, capacity);
+            groupNulls = Arrays.copyOf(groupNulls, capacity);
+        }
+        System.arraycopy(key, 0, groupKeys, groupCount * width, width);
+        System.arraycopy(nulls, 0, groupNulls, groupCount * width, width);
+        return groupCount++;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Result result(long matched, boolean sortByValue, int limit) {
+        int width = groupColumns.length;
+        Integer[] order = new Integer[groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            order[g] = g;
+        }
+
+        List<Object[]> decoded = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            Object[] row = new Object[width + states.length];
+            for (int c = 0; c < width; c++) {
+                row[c] = groupNulls[g * width + c] ? null : decodeKey(groupColumns[c], groupKeys[g * width + c]);
+            }
+            for (int a = 0; a < states.length; a++) {
+                row[width + a] = states[a].value(g);
+            }
+            decoded.add(row);
+        }
+
+        Comparator<Object[]> comparator;
+        if (sortByValue) {
+            comparator = Comparator.comparing((Object[] row) -> (Comparable) row[width],
+                    Comparator.nullsLast(Comparator.<Comparable>naturalOrder().reversed()));
+        } else {
+            comparator = (a, b) -> 0;
+            for (int c = 0; c < width; c++) {
+                int column = c;
+                comparator = comparator.thenComparing((Object[] row) -> (Comparable) row[column],
+                        Comparator.nullsLast(Comparator.<Comparable>naturalOrder()));
+            }
+        }
+        decoded.sort(comparator);
+
+        List<String> columns = new ArrayList<>(width + aggregates.length);
+        for (Column column : groupColumns) {
+            columns.add(column.getName());
+        }
+        for (Aggregate aggregate : aggregates) {
+            columns.add(aggregate.label());
+        }
+
+        List<List<Object>> rows = new ArrayList<>(Math.min(limit, decoded.size()));
+        for (int i = 0; i < decoded.size() && i < limit; i++) {
+            rows.add(Arrays.asList(decoded.get(i)));
+        }
+        return new Result(columns, rows, groupCount, matched, stats());
+    }
+
+    private Column require(String name) {
+        Column column = file.column(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown column: " + name);
+        }
+        return column;
+    }
+
+    /** Distinct key values plus one for null, or a huge number for columns that need hashing. */
+    private static long denseCardinality(Column column) {
+        if (column.getEncoding() == Encoding.DICTIONARY) {
+            return column.getDictionarySize() + 1L;
+        }
+        return column.getType() == ColumnType.BOOLEAN ? 3 : Long.MAX_VALUE / 2;
+    }
+
+    private static Object decodeKey(Column column, long key) {
+        if (column.getEncoding() == Encoding.DICTIONARY) {
+            return column.dictionary()[(int) key];
+        }
+        if (column.getEncoding() == Encoding.DOUBLE) {
+            return Double.longBitsToDouble(key);
+        }
+        return decodeLong(column.getType(), key);
+    }
+
+    static Object decodeLong(ColumnType type, long value) {
+        switch (type) {
+            case DATE:
+                return LocalDate.ofEpochDay(value).toString();
+            case TIMESTAMP:
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneOffset.UTC).toString();
+            case BOOLEAN:
+                return value != 0;
+            default:
+                return value;
+        }
+    }
+
+    private static boolean isNull(long[] nullWords, int row) {
+        return (nullWords[row >>> 6] & (1L << (row & 63))) != 0;
+    }
+
+    private static int words(int length) {
+        return (length + 63) >>> 6;
+    }
+
+    // ---- filters ----
+
+    private interface BatchFilter {
+        /** Compacts {@code selection[0..selected)} to the rows that pass; returns the new count. */
+        int apply(int start, int length, int[] selection, int selected);
+    }
+
+    private interface ZoneFilter {
+        /** False only if no row of the zone can pass. */
+        boolean mightMatch(int zone);
+    }
+
+    private record CompiledFilter(ZoneFilter zones, BatchFilter rows) {
+    }
+
+    private int zoneLength(int zone) {
+        return Math.min(file.getZoneRows(), file.getRowCount() - zone * file.getZoneRows());
+    }
+
+    private CompiledFilter compile(Filter filter) {
+        Column column = require(filter.column());
+        Operator operator = filter.operator();
+        if (operator == null) {
+            throw new IllegalArgumentException("Missing filter operator for " + column.getName());
+        }
+        List<String> values = filter.values() == null ? List.of() : filter.values();
+        long[] nullWords = new long[BATCH_ROWS / 64];
+
+        if (operator == Operator.IS_NULL || operator == Operator.NOT_NULL) {
+            boolean wantNull = operator == Operator.IS_NULL;
+            ZoneFilter zones = wantNull
+                    ? zone -> column.getZoneNullCount(zone) > 0
+                    : zone -> column.getZoneNullCount(zone) < zoneLength(zone);
+            return new CompiledFilter(zones, (start, length, selection, selected) -> {
+                column.readNullWords(start >>> 6, nullWords, words(length));
+                int kept = 0;
+                for (int i = 0; i < selected; i++) {
+                    int row = selection[i];
+                    if (isNull(nullWords, row) == wantNull) {
+                        selection[kept++] = row;
+                    }
+                }
+                return kept;
+            });
+        }
+
+        if (values.isEmpty() || (operator != Operator.IN && values.size() != 1)) {
+            throw new IllegalArgumentException(operator + " on " + column.getName() + " needs "
+                    + (operator == Operator.IN ? "at least one value" : "exactly one value"));
+        }
+
+        switch (column.getEncoding()) {
+            case DICTIONARY: {
+                // evaluate the predicate once per distinct string, then filter on ids
+                String[] dictionary = column.dictionary();
+                boolean[] accept = new boolean[dictionary.length];
+                // acceptedBefore[i] counts accepted ids below i, so a zone's id range is checked in O(1)
+                int[] acceptedBefore = new int[dictionary.length + 1];
+                for (int id = 0; id < dictionary.length; id++) {
+                    accept[id] = matchesText(dictionary[id], operator, values);
+                    acceptedBefore[id + 1] = acceptedBefore[id] + (accept[id] ? 1 : 0);
+                }
+                ZoneFilter zones = zone -> column.getZoneNullCount(zone) < zoneLength(zone)
+                        && acceptedBefore[(int) column.getZoneMaxBits(zone) + 1]
+                        > acceptedBefore[(int) column.getZoneMinBits(zone)];
+                int[] ids = new int[BATCH_ROWS];
+                return new CompiledFilter(zones, (start, length, selection, selected) -> {
+                    column.readDictionaryIds(start, ids, length);
+                    column.readNullWords(start >>> 6, nullWords, words(length));
+                    int kept = 0;
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        if (!isNull(nullWords, row) && accept[ids[row]]) {
+                            selection[kept++] = row;
+                        }
+                    }
+                    return kept;
+                });
+            }
+            case LONG: {
+                long[] constants = new long[values.size()];
+                for (int i = 0; i < constants.length; i++) {
+                    constants[i] = parseLong(column, values.get(i));
+                }
+                ZoneFilter zones = zone -> column.getZoneNullCount(zone) < zoneLength(zone)
+                        && overlaps(column.getZoneMinBits(zone), column.getZoneMaxBits(zone), operator, constants);
+                long[] batch = new long[BATCH_ROWS];
+                return new CompiledFilter(zones, (start, length, selection, selected) -> {
+                    column.readLongs(start, batch, length);
+                    column.readNullWords(start >>> 6, nullWords, words(length));
+                    int kept = 0;
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        if (!isNull(nullWords, row) && compare(batch[row], operator, constants)) {
+                            selection[kept++] = row;
+                        }
+                    }
+                    return kept;
+                });
+            }
+            default: {
+                double[] constants = new double[values.size()];
+                for (int i = 0; i < constants.length; i++) {
+                    constants[i] = parseDouble(column, values.get(i));
+                }
+                ZoneFilter zones = zone -> column.getZoneNullCount(zone) < zoneLength(zone)
+                        && overlaps(Double.longBitsToDouble(column.getZoneMinBits(zone)),
+                        Double.longBitsToDouble(column.getZoneMaxBits(zone)), operator, constants);
+                double[] batch = new double[BATCH_ROWS];
+                return new CompiledFilter(zones, (start, length, selection, selected) -> {
+                    column.readDoubles(start, batch, length);
+                    column.readNullWords(start >>> 6, nullWords, words(length));
+                    int kept = 0;
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        if (!isNull(nullWords, row) && compare(batch[row], operator, constants)) {
+                            selection[kept++] = row;
+                        }
+                    }
+                    return kept;
+                });
+            }
+        }
+    }
+
+    /** Whether some value in [min, max] could pass; the range of a zone's non-null values. */
+    private static boolean overlaps(long min, long max, Operator operator, long[] constants) {
+        switch (operator) {
+            case EQ: return constants[0] >= min && constants[0] <= max;
+            case NE: return min != max || min != constants[0];
+            case LT: return min < constants[0];
+            case LE: return min <= constants[0];
+            case GT: return max > constants[0];
+            case GE: return max >= constants[0];
+            default:
+                for (long constant : constants) {
+                    if (constant >= min && constant <= max) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    private static boolean overlaps(double min, double max, Operator operator, double[] constants) {
+        switch (operator) {
+            case EQ: return constants[0] >= min && constants[0] <= max;
+            case NE: return min != max || min != constants[0];
+            case LT: return min < constants[0];
+            case LE: return min <= constants[0];
+            case GT: return max > constants[0];
+            case GE: return max >= constants[0];
+            default:
+                for (double constant : constants) {
+                    if (constant >= min && constant <= max) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    private static boolean compare(long value, Operator operator, long[] constants) {
+        switch (operator) {
+            case EQ: return value == constants[0];
+            case NE: return value != constants[0];
+            case LT: return value < constants[0];
+            case LE: return value <= constants[0];
+            case GT: return value > constants[0];
+            case GE: return value >= constants[0];
+            default:
+                for (long constant : constants) {
+                    if (value == constant) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    private static boolean compare(double value, Operator operator, double[] constants) {
+        switch (operator) {
+            case EQ: return value == constants[0];
+            case NE: return value != constants[0];
+            case LT: return value < constants[0];
+            case LE: return value <= constants[0];
+            case GT: return value > constants[0];
+            case GE: return value >= constants[0];
+            default:
+                for (double constant : constants) {
+                    if (value == constant) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    private static boolean matchesText(String value, Operator operator, List<String> constants) {
+        if (operator == Operator.IN) {
+            return constants.contains(value);
+        }
+        int comparison = value.compareTo(constants.get(0));
+        switch (operator) {
+            case EQ: return comparison == 0;
+            case NE: return comparison != 0;
+            case LT: return comparison < 0;
+            case LE: return comparison <= 0;
+            case GT: return comparison > 0;
+            default: return comparison >= 0;
+        }
+    }
+
+    /** Filter constants in the column's stored form: epoch days, epoch millis, 0/1. */
+    static long parseLong(Column column, String value) {
+        String trimmed = value.trim();
+        try {
+            switch (column.getType()) {
+                case DATE:
+                    return LocalDate.parse(trimmed).toEpochDay();
+                case TIMESTAMP:
+                    return parseTimestamp(trimmed);
+                case BOOLEAN:
+                    if (trimmed.equalsIgnoreCase("true") || trimmed.equals("1")) {
+                        return 1;
+                    }
+                    if (trimmed.equalsIgnoreCase("false") || trimmed.equals("0")) {
+                        return 0;
+                    }
+                    throw new IllegalArgumentException("Invalid boolean '" + value + "' for column " + column.getName());
+                default:
+                    return Long.parseLong(trimmed);
+            }
+        } catch (DateTimeException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' for column " + column.getName());
+        }
+    }
+
+    private static long parseTimestamp(String value) {
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            // no offset: stored timestamps without one are UTC
+        }
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        }
+        return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static double parseDouble(Column column, String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' for column " + column.getName());
+        }
+    }
+
+    // ---- grouping ----
+
+    /** One group column's keys for the current batch. */
+    private static final class KeyReader {
+        private final Column column;
+        private final long[] nullWords = new long[BATCH_ROWS / 64];
+        private final int[] ids;
+        private final long[] longs;
+        private final double[] doubles;
+
+        KeyReader(Column column) {
+            this.column = column;
+            this.ids = column.getEncoding() == Encoding.DICTIONARY ? new int[BATCH_ROWS] : null;
+            this.longs = column.getEncoding() == Encoding.LONG ? new long[BATCH_ROWS] : null;
+            this.doubles = column.getEncoding() == Encoding.DOUBLE ? new double[BATCH_ROWS] : null;
+        }
+
+        void load(int start, int length) {
+            column.readNullWords(start >>> 6, nullWords, words(length));
+            if (ids != null) {
+                column.readDictionaryIds(start, ids, length);
+            } else if (longs != null) {
+                column.readLongs(start, longs, length);
+            } else {
+                column.readDoubles(start, doubles, length);
+            }
+        }
+
+        boolean isNull(int row) {
+            return ColumnarQuery.isNull(nullWords, row);
+        }
+
+        long key(int row) {
+            if (ids != null) {
+                return ids[row];
+            }
+            if (longs != null) {
+                return longs[row];
+            }
+            double value = doubles[row];
+            // -0.0 and 0.0 are one group
+            return Double.doubleToLongBits(value == 0.0 ? 0.0 : value);
+        }
+
+        /** 0 for null, otherwise key + 1; only for dictionary and boolean columns. */
+        int denseCode(int row) {
+            return isNull(row) ? 0 : (int) key(row) + 1;
+        }
+    }
+
+    /** Open-addressing map from a composite key to a group id. */
+    private static final class GroupTable {
+        private final int width;
+        private long[] keys;
+        private boolean[] nulls;
+        private int[] groups;
+        private int size;
+
+        GroupTable(int width) {
+            this.width = width;
+            allocate(1024);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity * width];
+            nulls = new boolean[capacity * width];
+            groups = new int[capacity];
+            Arrays.fill(groups, -1);
+        }
+
+        int find(long[] key, boolean[] keyNulls) {
+            int mask = groups.length - 1;
+            for (int slot = hash(key, keyNulls) & mask; ; slot = (slot + 1) & mask) {
+                int group = groups[slot];
+                if (group < 0) {
+                    return -1;
+                }
+                if (equalsAt(slot, key, keyNulls)) {
+                    return group;
+                }
+            }
+        }
+
+        void insert(long[] key, boolean[] keyNulls, int group) {
+            if ((size + 1) * 2 > groups.length) {
+                grow();
+            }
+            put(key, keyNulls, group);
+            size++;
+        }
+
+        private void put(long[] key, boolean[] keyNulls, int group) {
+            int mask = groups.length - 1;
+            int slot = hash(key, keyNulls) & mask;
+            while (groups[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            groups[slot] = group;
+            System.arraycopy(key, 0, keys, slot * width, width);
+            System.arraycopy(keyNulls, 0, nulls, slot * width, width);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldNulls = nulls;
+            int[] oldGroups = groups;
+            allocate(oldGroups.length * 2);
+
+            long[] key = new long[width];
+            boolean[] keyNulls = new boolean[width];
+            for (int slot = 0; slot < oldGroups.length; slot++) {
+                if (oldGroups[slot] >= 0) {
+                    System.arraycopy(oldKeys, slot * width, key, 0, width);
+                    System.arraycopy(oldNulls, slot * width, keyNulls, 0, width);
+                    put(key, keyNulls, oldGroups[slot]);
+                }
+            }
+        }
+
+        private boolean equalsAt(int slot, long[] key, boolean[] keyNulls) {
+            int base = slot * width;
+            for (int c = 0; c < width; c++) {
+                if (keys[base + c] != key[c] || nulls[base + c] != keyNulls[c]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(long[] key, boolean[] keyNulls) {
+            long h = 0x9E3779B97F4A7C15L;
+            for (int c = 0; c < key.length; c++) {
+                h = (h ^ (keyNulls[c] ? 0x7FF8DEADL : key[c])) * 0xBF58476D1CE4E5B9L;
+                h ^= h >>> 31;
+            }
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    // ---- aggregation ----
+
+    private static final class AggregateState {
+        private final Function function;
+        private final Column column;  // null for COUNT(*)
+        private final long[] nullWords = new long[BATCH_ROWS / 64];
+        private final double[] batch;
+        private long[] counts = new long[16];
+        private double[] values = new double[16];
+
+        AggregateState(Function function, Column column) {
+            this.function = function;
+            this.column = column;
+
+            if (column == null) {
+                if (function != Function.COUNT) {
+                    throw new IllegalArgumentException(function + " needs a column");
+                }
+            } else if (function != Function.COUNT) {
+                boolean numeric = column.getEncoding() != Encoding.DICTIONARY;
+                boolean additive = column.getType() != ColumnType.DATE && column.getType() != ColumnType.TIMESTAMP;
+                if (!numeric || ((function == Function.SUM || function == Function.AVG) && !additive)) {
+                    throw new IllegalArgumentException(function + " is not supported on "
+                            + column.getType() + " column " + column.getName());
+                }
+            }
+            this.batch = column != null && function != Function.COUNT ? new double[BATCH_ROWS] : null;
+        }
+
+        void accumulate(int start, int length, int[] selection, int[] groupIds, int selected, int groupCount) {
+            ensureCapacity(groupCount);
+
+            if (column == null) {
+                for (int i = 0; i < selected; i++) {
+                    counts[groupIds[i]]++;
+                }
+                return;
+            }
+
+            column.readNullWords(start >>> 6, nullWords, words(length));
+            if (batch == null) {
+                for (int i = 0; i < selected; i++) {
+                    if (!isNull(nullWords, selection[i])) {
+                        counts[groupIds[i]]++;
+                    }
+                }
+                return;
+            }
+
+            column.readDoubles(start, batch, length);
+            switch (function) {
+                case MIN:
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        if (!isNull(nullWords, row)) {
+                            int g = groupIds[i];
+                            values[g] = counts[g]++ == 0 ? batch[row] : Math.min(values[g], batch[row]);
+                        }
+                    }
+                    break;
+                case MAX:
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        if (!isNull(nullWords, row)) {
+                            int g = groupIds[i];
+                            values[g] = counts[g]++ == 0 ? batch[row] : Math.max(values[g], batch[row]);
+                        }
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        if (!isNull(nullWords, row)) {
+                            int g = groupIds[i];
+                            counts[g]++;
+                            values[g] += batch[row];
+                        }
+                    }
+            }
+        }
+
+        Object value(int group) {
+            long count = counts[group];
+            switch (function) {
+                case COUNT:
+                    return count;
+                case AVG:
+                    return count == 0 ? null : values[group] / count;
+                case SUM:
+                    if (count == 0) {
+                        return null;
+                    }
+                    return column.getEncoding() == Encoding.LONG ? (Object) (long) values[group] : values[group];
+                default:
+                    if (count == 0) {
+                        return null;
+                    }
+                    return column.getEncoding() == Encoding.LONG
+                            ? decodeLong(column.getType(), (long) values[group])
+                            : values[group];
+            }
+        }
+
+        private void ensureCapacity(int groupCount) {
+            if (groupCount > counts.length) {
+                int capacity = Math.max(groupCount, counts.length * 2);
+                counts = Arrays.copyOf(counts, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+import com.example.backend.processing.ColumnarFile.Column;
+import com.example.backend.processing.ColumnarFile.Encoding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An x/y series read from a {@link ColumnarFile} and reduced to at most a target number of
+ * points, for charts over more rows than a browser can draw.
+ * <p>
+ * Two streaming passes over the columns, {@link ColumnarQuery#BATCH_ROWS} rows at a time: the
+ * first counts the usable points (both values present and finite), measures their range and
+ * checks whether x already ascends in row order; the second feeds them to
+ * {@link LttbDownsampler} or {@link GridThinner}. Lines need their points ordered by x, so when
+ * the rows are not, the usable points are collected and sorted before the second pass.
+ */
+public final class ColumnarSeries {
+
+    public enum Method { LTTB, GRID }
+
+    /**
+     * @param x          x values, decoded like query keys: ISO dates and timestamps, longs, doubles
+     * @param weights    for {@link Method#GRID}, how many points each kept point stands for
+     * @param pointCount usable points before downsampling
+     * @param ordered    whether x already ascended in row order
+     */
+    public record Result(List<Object> x, List<Double> y, List<Integer> weights, long pointCount,
+                         boolean ordered) {
+    }
+
+    private interface PointConsumer {
+        void accept(double x, double y);
+    }
+
+    private final ColumnarFile file;
+    private final Column xColumn;
+    private final Column yColumn;
+
+    private ColumnarSeries(ColumnarFile file, String x, String y) {
+        this.file = file;
+        this.xColumn = require(file, x);
+        this.yColumn = require(file, y);
+        if (xColumn.getEncoding() == Encoding.DICTIONARY || xColumn.getType() == ColumnType.BOOLEAN) {
+            throw new IllegalArgumentException("x must be a numeric, date or timestamp column: " + x);
+        }
+        if (!yColumn.getType().isNumeric()) {
+            throw new IllegalArgumentException("y must be a numeric column: " + y);
+        }
+    }
+
+    /**
+     * @param points target number of points; LTTB keeps at least 3
+     */
+    public static Result downsample(ColumnarFile file, String x, String y, Method method, int points) {
+        if (points < 1) {
+            throw new IllegalArgumentException("points must be > 0");
+        }
+        ColumnarSeries series = new ColumnarSeries(file, x, y);
+        return method == Method.GRID ? series.grid(points) : series.lttb(Math.max(3, points));
+    }
+
+    private Result lttb(int points) {
+        Range range = measure();
+        LttbDownsampler downsampler = new LttbDownsampler(range.count, points);
+        if (range.ordered) {
+            forEachPoint(downsampler::add);
+        } else {
+            double[] xs = new double[(int) range.count];
+            double[] ys = new double[(int) range.count];
+            int[] size = new int[1];
+            forEachPoint((px, py) -> {
+                xs[size[0]] = px;
+                ys[size[0]] = py;
+                size[0]++;
+            });
+            for (int i : orderByX(xs, size[0])) {
+                downsampler.add(xs[i], ys[i]);
+            }
+        }
+        downsampler.finish();
+
+        List<Object> xOut = new ArrayList<>(downsampler.size());
+        List<Double> yOut = new ArrayList<>(downsampler.size());
+        for (int i = 0; i < downsampler.size(); i++) {
+            xOut.add(decodeX(downsampler.x(i)));
+            yOut.add(downsampler.y(i));
+        }
+        return new Result(xOut, yOut, null, range.count, range.ordered);
+    }
+
+    private Result grid(int points) {
+        Range range = measure();
+        GridThinner thinner = new GridThinner(range.minX, range.maxX, range.minY, range.maxY, points);
+        forEachPoint(thinner::add);
+
+        List<Object> xOut = new ArrayList<>(thinner.size());
+        List<Double> yOut = new ArrayList<>(thinner.size());
+        List<Integer> weights = new ArrayList<>(thinner.size());
+        for (int i = 0; i < thinner.size(); i++) {
+            xOut.add(decodeX(thinner.x(i)));
+            yOut.add(thinner.y(i));
+            weights.add(thinner.weight(i));
+        }
+        return new Result(xOut, yOut, weights, range.count, range.ordered);
+    }
+
+    /**
+     * Indices of the first {@code n} points ordered by x. A bottom-up merge sort over an int
+     * array, so rows with equal x stay in file order without boxing an index per point.
+     */
+    static int[] orderByX(double[] xs, int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] merged = new int[n];
+        for (long width = 1; width < n; width *= 2) {
+            for (long lo = 0; lo + width < n; lo += 2 * width) {
+                int mid = (int) (lo + width);
+                int hi = (int) Math.min(lo + 2 * width, n);
+                if (Double.compare(xs[order[mid - 1]], xs[order[mid]]) <= 0) {
+                    continue;  // the two runs are already in order
+                }
+                int left = (int) lo;
+                int right = mid;
+                int out = (int) lo;
+                while (left < mid && right < hi) {
+                    // ties take the left run first, which is what keeps the sort stable
+                    merged[out++] = Double.compare(xs[order[right]], xs[order[left]]) < 0
+                            ? order[right++] : order[left++];
+                }
+                while (left < mid) {
+                    merged[out++] = order[left++];
+                }
+                while (right < hi) {
+                    merged[out++] = order[right++];
+                }
+                System.arraycopy(merged, (int) lo, order, (int) lo, hi - (int) lo);
+            }
+        }
+        return order;
+    }
+
+    private static final class Range {
+        long count;
+        boolean ordered = true;
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+    }
+
+    private Range measure() {
+        Range range = new Range();
+        forEachPoint((px, py) -> {
+            if (px < range.maxX) {
+                range.ordered = false;
+            }
+            range.count++;
+            range.minX = Math.min(range.minX, px);
+            range.maxX = Math.max(range.maxX, px);
+            range.minY = Math.min(range.minY, py);
+            range.maxY = Math.max(range.maxY, py);
+        });
+        return range;
+    }
+
+    /** Rows where both values are present and finite, in row order. */
+    private void forEachPoint(PointConsumer consumer) {
+        int batch = ColumnarQuery.BATCH_ROWS;
+        long[] xNulls = new long[batch >>> 6];
+        long[] yNulls = new long[batch >>> 6];
+        double[] xs = new double[batch];
+        double[] ys = new double[batch];
+
+        int rowCount = file.getRowCount();
+        for (int start = 0; start < rowCount; start += batch) {
+            int length = Math.min(batch, rowCount - start);
+            int words = (length + 63) >>> 6;
+            xColumn.readNullWords(start >>> 6, xNulls, words);
+            yColumn.readNullWords(start >>> 6, yNulls, words);
+            xColumn.readDoubles(start, xs, length);
+            yColumn.readDoubles(start, ys, length);
+
+            for (int i = 0; i < length; i++) {
+                if (((xNulls[i >>> 6] | yNulls[i >>> 6]) & (1L << (i & 63))) != 0) {
+                    continue;
+                }
+                if (Double.isFinite(xs[i]) && Double.isFinite(ys[i])) {
+                    consumer.accept(xs[i], ys[i]);
+                }
+            }
+        }
+    }
+
+    private Object decodeX(double value) {
+        // LONG columns were widened on read; epoch days and millis fit a double exactly
+        return xColumn.getEncoding() == Encoding.LONG
+                ? ColumnarQuery.decodeLong(xColumn.getType(), (long) value)
+                : (Object) value;
+    }
+
+    private static Column require(ColumnarFile file, String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("x and y columns are required");
+        }
+        Column column = file.column(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown column: " + name);
+        }
+        return column;
+    }
+}
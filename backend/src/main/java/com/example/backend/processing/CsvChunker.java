@@ -0,0 +1,100 @@
+package com.example.backend.processing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CSV file into byte ranges that each start and end on a record boundary. A newline only
+ * counts as a boundary when it is outside a quoted field, so ranges never cut a multi-line value.
+ */
+public class CsvChunker {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private CsvChunker() {
+    }
+
+    /**
+     * Returns the range boundaries: element 0 is the offset just after the header record, the last
+     * element is the file size, and consecutive pairs delimit one range of data records.
+     */
+    public static long[] split(FileChannel channel, int chunks, long minChunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int state = FIELD_START;
+        boolean lineHasContent = false;
+        long headerEnd = -1;
+        long chunkSize = 0;
+        long nextTarget = Long.MAX_VALUE;
+        long position = 0;
+
+        channel.position(0);
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                position++;
+
+                if (b == '\n' && state != QUOTED) {
+                    state = FIELD_START;
+                    if (headerEnd < 0) {
+                        if (lineHasContent) {
+                            headerEnd = position;
+                            boundaries.add(headerEnd);
+                            chunkSize = Math.max((size - headerEnd) / Math.max(chunks, 1), minChunkBytes);
+                            nextTarget = headerEnd + chunkSize;
+                        }
+                    } else if (position >= nextTarget && position < size) {
+                        boundaries.add(position);
+                        nextTarget = position + chunkSize;
+                    }
+                    lineHasContent = false;
+                    continue;
+                }
+
+                if (b != '\r') {
+                    lineHasContent = true;
+                }
+
+                switch (state) {
+                    case FIELD_START:
+                        state = b == '"' ? QUOTED : b == ',' ? FIELD_START : UNQUOTED;
+                        break;
+                    case UNQUOTED:
+                        if (b == ',') state = FIELD_START;
+                        break;
+                    case QUOTED:
+                        if (b == '"') state = QUOTE_IN_QUOTED;
+                        break;
+                    case QUOTE_IN_QUOTED:
+                        state = b == '"' ? QUOTED : b == ',' ? FIELD_START : UNQUOTED;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            buffer.clear();
+        }
+
+        if (headerEnd < 0) {
+            boundaries.add(size);
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+}
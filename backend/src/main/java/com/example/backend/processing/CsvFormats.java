@@ -0,0 +1,24 @@
+package com.example.backend.processing;
+
+import org.apache.commons.csv.CSVFormat;
+
+/**
+ * CSV dialects shared by the sequential and the chunked ingest paths, so both read records the same way.
+ */
+public final class CsvFormats {
+
+    /** Whole file: the first record is the header. */
+    public static final CSVFormat WITH_HEADER = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setIgnoreHeaderCase(true)
+            .setTrim(true)
+            .build();
+
+    /** A byte range of data records that starts after the header. */
+    public static final CSVFormat RECORDS_ONLY = CSVFormat.DEFAULT.builder()
+            .setTrim(true)
+            .build();
+
+    private CsvFormats() {
+    }
+}
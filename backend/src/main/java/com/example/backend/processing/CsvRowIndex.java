@@ -0,0 +1,155 @@
+package com.example.backend.processing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Sparse index of a CSV file: the byte offset at which every {@code stride}-th data record starts.
+ * Any row can then be reached by seeking to the nearest indexed record before it and parsing at
+ * most {@code stride - 1} records. Record boundaries are found with the same quote-aware scan as
+ * {@link CsvChunker}, so multi-line quoted values are counted as one record.
+ */
+public class CsvRowIndex {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final int stride;
+    private final int rowCount;
+    private final long[] offsets;
+
+    private CsvRowIndex(int stride, int rowCount, long[] offsets) {
+        this.stride = stride;
+        this.rowCount = rowCount;
+        this.offsets = offsets;
+    }
+
+    public static CsvRowIndex build(FileChannel channel, int stride) throws IOException {
+        long[] offsets = new long[16];
+        int blocks = 0;
+        int rows = 0;
+        boolean headerSeen = false;
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int state = FIELD_START;
+        boolean lineHasContent = false;
+        long lineStart = 0;
+        long recordStart = 0;
+        long position = 0;
+
+        channel.position(0);
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                position++;
+
+                if (b == '\n' && state != QUOTED) {
+                    state = FIELD_START;
+                    if (lineHasContent) {
+                        if (!headerSeen) {
+                            headerSeen = true;
+                        } else {
+                            if (rows % stride == 0) {
+                                if (blocks == offsets.length) {
+                                    offsets = Arrays.copyOf(offsets, blocks * 2);
+                                }
+                                offsets[blocks++] = recordStart;
+                            }
+                            rows++;
+                        }
+                    }
+                    lineHasContent = false;
+                    lineStart = position;
+                    continue;
+                }
+
+                if (b != '\r' && !lineHasContent) {
+                    lineHasContent = true;
+                    recordStart = lineStart;
+                }
+
+                switch (state) {
+                    case FIELD_START:
+                        state = b == '"' ? QUOTED : b == ',' ? FIELD_START : UNQUOTED;
+                        break;
+                    case UNQUOTED:
+                        if (b == ',') state = FIELD_START;
+                        break;
+                    case QUOTED:
+                        if (b == '"') state = QUOTE_IN_QUOTED;
+                        break;
+                    case QUOTE_IN_QUOTED:
+                        state = b == '"' ? QUOTED : b == ',' ? FIELD_START : UNQUOTED;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            buffer.clear();
+        }
+
+        // last record without a trailing newline
+        if (lineHasContent && headerSeen) {
+            if (rows % stride == 0) {
+                if (blocks == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, blocks + 1);
+                }
+                offsets[blocks++] = recordStart;
+            }
+            rows++;
+        }
+
+        return new CsvRowIndex(stride, rows, Arrays.copyOf(offsets, blocks));
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Byte offset of the indexed record at or before {@code row}; parsing from there, skip
+     * {@code row % stride} records to reach it.
+     */
+    public long offsetBefore(int row) {
+        return offsets[row / stride];
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + offsets.length * 8);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(stride);
+        buffer.putInt(rowCount);
+        buffer.putInt(offsets.length);
+        for (long offset : offsets) {
+            buffer.putLong(offset);
+        }
+        return buffer.array();
+    }
+
+    public static CsvRowIndex fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported row index version " + version);
+        }
+        int stride = buffer.getInt();
+        int rowCount = buffer.getInt();
+        long[] offsets = new long[buffer.getInt()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = buffer.getLong();
+        }
+        return new CsvRowIndex(stride, rowCount, offsets);
+    }
+}
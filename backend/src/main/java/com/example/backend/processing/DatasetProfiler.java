@@ -0,0 +1,90 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetColumn;
+import org.apache.commons.csv.CSVRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single-pass profiler for a tabular file: each row is handed over once and its values are
+ * routed to one {@link ColumnAccumulator} per header. Profilers that cover separate slices of the
+ * file are combined in file order with {@link #merge}; give each slice its own sample seed.
+ */
+public class DatasetProfiler {
+
+    private final List<String> headers;
+    private final ColumnAccumulator[] columns;
+    private int rowCount;
+
+    public DatasetProfiler(List<String> headers) {
+        this(headers, ProfilingOptions.defaults(), 0L);
+    }
+
+    public DatasetProfiler(List<String> headers, ProfilingOptions options, long sampleSeed) {
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+        this.columns = new ColumnAccumulator[headers.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnAccumulator(options, sampleSeed * 31 + i);
+        }
+    }
+
+    public void accept(int columnIndex, String value) {
+        columns[columnIndex].accept(value);
+    }
+
+    public void acceptRow(List<String> values) {
+        int size = values.size();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].accept(i < size ? values.get(i) : null);
+        }
+        endRow();
+    }
+
+    public void acceptRecord(CSVRecord record) {
+        int size = record.size();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].accept(i < size ? record.get(i) : null);
+        }
+        endRow();
+    }
+
+    public void endRow() {
+        rowCount++;
+    }
+
+    public DatasetProfiler merge(DatasetProfiler next) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].merge(next.columns[i]);
+        }
+        rowCount += next.rowCount;
+        return this;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /** Unrounded statistics of one column; {@link #toColumns} only keeps two decimals. */
+    NumericStats numericStats(int columnIndex) {
+        return columns[columnIndex].numericStats();
+    }
+
+    public List<DatasetColumn> toColumns(Dataset dataset) {
+        List<DatasetColumn> result = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            result.add(columns[i].toColumn(dataset, headers.get(i), i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.backend.processing;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Counts distinct values exactly until {@code exactThreshold} values have been seen, then switches
+ * to a {@link HyperLogLog} sketch so ID-like columns stop growing a set with one entry per row.
+ */
+public class DistinctCounter {
+
+    private final int exactThreshold;
+    private final int precision;
+
+    private Set<String> values = new HashSet<>();
+    private HyperLogLog sketch;
+
+    public DistinctCounter(int exactThreshold, int precision) {
+        this.exactThreshold = exactThreshold;
+        this.precision = precision;
+    }
+
+    public void add(String value) {
+        if (sketch != null) {
+            sketch.add(value);
+        } else if (values.add(value) && values.size() > exactThreshold) {
+            switchToSketch();
+        }
+    }
+
+    public void merge(DistinctCounter other) {
+        if (other.sketch != null) {
+            if (sketch == null) {
+                switchToSketch();
+            }
+            sketch.merge(other.sketch);
+        } else if (sketch != null) {
+            for (String value : other.values) {
+                sketch.add(value);
+            }
+        } else {
+            values.addAll(other.values);
+            if (values.size() > exactThreshold) {
+                switchToSketch();
+            }
+        }
+    }
+
+    public boolean isExact() {
+        return sketch == null;
+    }
+
+    public long count() {
+        return sketch == null ? values.size() : sketch.estimate();
+    }
+
+    private void switchToSketch() {
+        sketch = new HyperLogLog(precision);
+        for (String value : values) {
+            sketch.add(value);
+        }
+        values = null;
+    }
+}
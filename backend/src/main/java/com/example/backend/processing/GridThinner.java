@@ -0,0 +1,85 @@
+package com.example.backend.processing;
+
+import java.util.Arrays;
+
+/**
+ * Thins a scatter plot by laying a grid of at most {@code maxPoints} cells over the x/y range and
+ * keeping the first point that lands in each cell. Dense regions collapse to one mark per cell
+ * while isolated points and outliers survive, which is what the eye reads from a scatter plot
+ * anyway. The range has to be known up front; points outside it go to the edge cells.
+ */
+public class GridThinner {
+
+    private final double minX;
+    private final double minY;
+    private final double scaleX;
+    private final double scaleY;
+    private final int columns;
+    private final int rows;
+    private final long[] occupied;
+    private final int[] counts;
+
+    private double[] outX;
+    private double[] outY;
+    private int[] outCell;
+    private int size;
+
+    public GridThinner(double minX, double maxX, double minY, double maxY, int maxPoints) {
+        if (maxPoints < 1) {
+            throw new IllegalArgumentException("maxPoints must be at least 1");
+        }
+        // square-ish cells in data-normalised space, never more than maxPoints of them
+        this.columns = (int) Math.ceil(Math.sqrt(maxPoints));
+        this.rows = Math.max(1, maxPoints / columns);
+        this.minX = minX;
+        this.minY = minY;
+        this.scaleX = maxX > minX ? columns / (maxX - minX) : 0;
+        this.scaleY = maxY > minY ? rows / (maxY - minY) : 0;
+        this.occupied = new long[(columns * rows + 63) >>> 6];
+        this.counts = new int[columns * rows];
+
+        int capacity = Math.min(columns * rows, 1024);
+        this.outX = new double[capacity];
+        this.outY = new double[capacity];
+        this.outCell = new int[capacity];
+    }
+
+    public void add(double x, double y) {
+        int column = Math.min(columns - 1, Math.max(0, (int) ((x - minX) * scaleX)));
+        int row = Math.min(rows - 1, Math.max(0, (int) ((y - minY) * scaleY)));
+        int cell = row * columns + column;
+        counts[cell]++;
+
+        long bit = 1L << (cell & 63);
+        if ((occupied[cell >>> 6] & bit) != 0) {
+            return;
+        }
+        occupied[cell >>> 6] |= bit;
+        if (size == outX.length) {
+            outX = Arrays.copyOf(outX, size * 2);
+            outY = Arrays.copyOf(outY, size * 2);
+            outCell = Arrays.copyOf(outCell, size * 2);
+        }
+        outX[size] = x;
+        outY[size] = y;
+        outCell[size] = cell;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double x(int i) {
+        return outX[i];
+    }
+
+    public double y(int i) {
+        return outY[i];
+    }
+
+    /** How many points fell into the cell kept point {@code i} stands for. */
+    public int weight(int i) {
+        return counts[outCell[i]];
+    }
+}
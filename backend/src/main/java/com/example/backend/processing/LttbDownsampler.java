@@ -0,0 +1,200 @@
+package com.example.backend.processing;
+
+import java.util.Arrays;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a line, in one pass over points ordered by x.
+ * The first and last points are kept; the ones between are split into {@code threshold - 2}
+ * equal-count buckets, and each bucket keeps the point forming the largest triangle with the
+ * point kept before it and the average of the next bucket. Only two buckets are held at a time,
+ * so memory depends on the bucket size, not on the number of points.
+ * <p>
+ * The bucket layout needs the number of points up front. If fewer arrive than announced the
+ * trailing buckets are simply missing; the last point is always kept.
+ */
+public class LttbDownsampler {
+
+    private final long total;
+    private final int buckets;
+    private final boolean keepAll;
+
+    private double[] outX;
+    private double[] outY;
+    private int size;
+
+    private Bucket current;
+    private Bucket next;
+    private long currentEnd;  // index one past the last point of the current bucket
+    private long nextEnd;
+    private int bucket;
+
+    private long index;
+    private boolean pending;  // the latest point, held back in case it is the last
+    private double pendingX;
+    private double pendingY;
+    private double anchorX;   // point kept from the previous bucket
+    private double anchorY;
+
+    /**
+     * @param total     number of points that will be added
+     * @param threshold points to keep, at least 3
+     */
+    public LttbDownsampler(long total, int threshold) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("threshold must be at least 3");
+        }
+        this.total = total;
+        this.keepAll = total <= threshold;
+        this.buckets = threshold - 2;
+        int capacity = keepAll ? (int) Math.max(total, 0) : threshold;
+        this.outX = new double[capacity];
+        this.outY = new double[capacity];
+
+        int bucketCapacity = keepAll ? 0 : (int) ((total - 2 + buckets - 1) / buckets) + 1;
+        this.current = new Bucket(bucketCapacity);
+        this.next = new Bucket(bucketCapacity);
+        this.currentEnd = bucketEnd(0);
+        this.nextEnd = bucketEnd(1);
+    }
+
+    public void add(double x, double y) {
+        if (pending) {
+            place(pendingX, pendingY);
+        }
+        pending = true;
+        pendingX = x;
+        pendingY = y;
+    }
+
+    /** Kept points, in order; call once every point has been added. */
+    public void finish() {
+        if (!pending) {
+            return;
+        }
+        if (!keepAll && index > 0) {
+            // the final point stands in for the average of the bucket after the last one
+            if (!current.isEmpty()) {
+                keepFrom(current, next.isEmpty() ? pendingX : next.averageX(),
+                        next.isEmpty() ? pendingY : next.averageY());
+            }
+            if (!next.isEmpty()) {
+                keepFrom(next, pendingX, pendingY);
+            }
+        }
+        emit(pendingX, pendingY);
+        pending = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double x(int i) {
+        return outX[i];
+    }
+
+    public double y(int i) {
+        return outY[i];
+    }
+
+    private void place(double x, double y) {
+        long i = index++;
+        if (keepAll || i == 0) {
+            emit(x, y);
+            anchorX = x;
+            anchorY = y;
+            return;
+        }
+        if (i >= nextEnd) {
+            // the next bucket is complete, so the current one can choose its point
+            keepFrom(current, next.averageX(), next.averageY());
+            Bucket done = current;
+            current = next;
+            next = done;
+            next.clear();
+            bucket++;
+            currentEnd = nextEnd;
+            nextEnd = bucketEnd(bucket + 1);
+        }
+        (i < currentEnd ? current : next).add(x, y);
+    }
+
+    private void keepFrom(Bucket candidates, double averageX, double averageY) {
+        int best = 0;
+        double bestArea = -1;
+        for (int j = 0; j < candidates.size; j++) {
+            // twice the triangle area; the constant factor doesn't change the winner
+            double area = Math.abs((anchorX - averageX) * (candidates.y[j] - anchorY)
+                    - (anchorX - candidates.x[j]) * (averageY - anchorY));
+            if (area > bestArea) {
+                bestArea = area;
+                best = j;
+            }
+        }
+        anchorX = candidates.x[best];
+        anchorY = candidates.y[best];
+        emit(anchorX, anchorY);
+    }
+
+    private void emit(double x, double y) {
+        if (size == outX.length) {
+            outX = Arrays.copyOf(outX, Math.max(4, size * 2));
+            outY = Arrays.copyOf(outY, Math.max(4, size * 2));
+        }
+        outX[size] = x;
+        outY[size] = y;
+        size++;
+    }
+
+    /**
+     * Points 1 .. total - 2 are spread over the middle buckets; bucket b ends before this index.
+     * Integer arithmetic: the same floor taken in doubles can land one short of {@code total - 1}
+     * for the last bucket, which then spills a point into a bucket past the threshold.
+     */
+    private long bucketEnd(int b) {
+        return Math.min(total - 1, (b + 1L) * (total - 2) / buckets + 1);
+    }
+
+    private static final class Bucket {
+        private double[] x;
+        private double[] y;
+        private int size;
+        private double sumX;
+        private double sumY;
+
+        Bucket(int capacity) {
+            x = new double[capacity];
+            y = new double[capacity];
+        }
+
+        void add(double px, double py) {
+            if (size == x.length) {
+                x = Arrays.copyOf(x, Math.max(4, size * 2));
+                y = Arrays.copyOf(y, Math.max(4, size * 2));
+            }
+            x[size] = px;
+            y[size] = py;
+            size++;
+            sumX += px;
+            sumY += py;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double averageX() {
+            return sumX / size;
+        }
+
+        double averageY() {
+            return sumY / size;
+        }
+
+        void clear() {
+            size = 0;
+            sumX = 0;
+            sumY = 0;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.backend.processing;
+
+/**
+ * Exception-free replacement for {@code Double.parseDouble(value.trim())} on the profiling hot path.
+ * It accepts the same decimal syntax and reports success through its return value. Surrounding
+ * whitespace is skipped by index rather than by trimming.
+ * <p>
+ * Numbers with at most 15 significant digits and a decimal exponent within +/-22 are converted with
+ * one exact multiplication or division (Clinger's fast path), which rounds the same way the JDK
+ * does. Longer numbers, hex literals and other rare forms are validated first and then handed to
+ * {@link Double#parseDouble}, so the result is always identical to the JDK's.
+ * <p>
+ * Instances keep the last parsed value in a field and are not thread-safe.
+ */
+public class NumberParser {
+
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_EXACT_EXPONENT = 22;
+
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_EXPONENT + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private double value;
+
+    /**
+     * @return whether {@code text} is a number; if so the value is available from {@link #value()}
+     */
+    public boolean parse(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        if (start == end) {
+            return false;
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == end) return false;
+            c = text.charAt(i);
+        }
+
+        if (c == 'N' || c == 'I') {
+            return parseSpecial(text, i, end, negative);
+        }
+        if (c == '0' && i + 1 < end && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X')) {
+            return parseSlow(text, start, end);
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean seenDot = false;
+
+        for (; i < end; i++) {
+            c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigits = true;
+                if (mantissa == 0 && c == '0') {
+                    if (seenDot) exponent--;
+                    continue;
+                }
+                if (significantDigits < 19) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenDot) exponent--;
+                } else if (!seenDot) {
+                    exponent++;
+                }
+                significantDigits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigits) {
+            return false;
+        }
+
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            if (++i == end) return false;
+            boolean negativeExponent = false;
+            c = text.charAt(i);
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                if (++i == end) return false;
+            }
+            int exponentDigits = 0;
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                c = text.charAt(i);
+                if (c < '0' || c > '9') break;
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (i < end) {
+            c = text.charAt(i);
+            boolean typeSuffix = c == 'd' || c == 'D' || c == 'f' || c == 'F';
+            if (!typeSuffix || i + 1 != end) {
+                return false;
+            }
+            if (c == 'f' || c == 'F') {
+                return parseSlow(text, start, end);
+            }
+        }
+
+        if (significantDigits > MAX_EXACT_DIGITS || Math.abs(exponent) > MAX_EXACT_EXPONENT) {
+            return parseSlow(text, start, end);
+        }
+
+        double result = mantissa;
+        if (exponent < 0) {
+            result /= POWERS_OF_TEN[-exponent];
+        } else if (exponent > 0) {
+            result *= POWERS_OF_TEN[exponent];
+        }
+        value = negative ? -result : result;
+        return true;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    private boolean parseSpecial(CharSequence text, int from, int end, boolean negative) {
+        if (regionEquals(text, from, end, "NaN")) {
+            value = Double.NaN;
+            return true;
+        }
+        if (regionEquals(text, from, end, "Infinity")) {
+            value = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean parseSlow(CharSequence text, int start, int end) {
+        try {
+            value = Double.parseDouble(text.subSequence(start, end).toString());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean regionEquals(CharSequence text, int from, int end, String expected) {
+        if (end - from != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(from + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
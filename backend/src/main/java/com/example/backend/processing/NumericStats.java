@@ -0,0 +1,71 @@
+package com.example.backend.processing;
+
+/**
+ * One-pass count, min, max, mean and variance using Welford's update, so values never have to be
+ * buffered. Partial results from separate slices combine with Chan et al.'s parallel formula.
+ */
+public class NumericStats {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public void add(double value) {
+        count++;
+        if (count == 1 || value < min) min = value;
+        if (count == 1 || value > max) max = value;
+
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    public void merge(NumericStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /** Population variance, matching how the column statistics have always been reported. */
+    public double getVariance() {
+        return count == 0 ? 0.0 : m2 / count;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+}
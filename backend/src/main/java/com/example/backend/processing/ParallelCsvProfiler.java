@@ -0,0 +1,128 @@
+package com.example.backend.processing;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Profiles a CSV file on a fork-join pool. The file is cut into record-aligned byte ranges by
+ * {@link CsvChunker}, every range is profiled into a partial {@link DatasetProfiler}, and the
+ * partials are merged back in file order.
+ * <p>
+ * Row, null and distinct counts are identical to the sequential path (HyperLogLog registers merge
+ * by maximum, so approximate distinct counts match too). Types are inferred from a uniform sample
+ * of the same size in both paths; the sampled rows differ, so only columns right at the type
+ * threshold can come out differently.
+ * Floating-point statistics may differ only by summation order, i.e. by at most
+ * {@link #STATS_RELATIVE_TOLERANCE} relative to the sequential value. Median and percentiles come
+ * from {@link QuantileSketch}, whose rank error bound holds for merged sketches as well.
+ */
+public class ParallelCsvProfiler {
+
+    public static final double STATS_RELATIVE_TOLERANCE = 1e-9;
+
+    private final ForkJoinPool pool;
+    private final long minChunkBytes;
+    private final ProfilingOptions options;
+
+    public ParallelCsvProfiler(ForkJoinPool pool, long minChunkBytes, ProfilingOptions options) {
+        this.pool = pool;
+        this.minChunkBytes = minChunkBytes;
+        this.options = options;
+    }
+
+    public DatasetProfiler profile(Path file) throws IOException {
+        long[] boundaries;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            boundaries = CsvChunker.split(channel, pool.getParallelism() * 4, minChunkBytes);
+        }
+
+        List<String> headers = readHeaders(file, boundaries[0]);
+
+        try {
+            return pool.invoke(new ChunkTask(file, headers, options, boundaries, 0, boundaries.length - 1));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<String> readHeaders(Path file, long headerEnd) throws IOException {
+        try (Reader reader = openRange(file, 0, headerEnd);
+             CSVParser parser = new CSVParser(reader, CsvFormats.WITH_HEADER)) {
+            return parser.getHeaderNames();
+        }
+    }
+
+    private static DatasetProfiler profileRange(Path file, List<String> headers, ProfilingOptions options,
+                                                long start, long end) throws IOException {
+        DatasetProfiler profiler = new DatasetProfiler(headers, options, start);
+
+        try (Reader reader = openRange(file, start, end);
+             CSVParser parser = new CSVParser(reader, CsvFormats.RECORDS_ONLY)) {
+            for (CSVRecord record : parser) {
+                profiler.acceptRecord(record);
+            }
+        }
+
+        return profiler;
+    }
+
+    private static Reader openRange(Path file, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(start);
+        InputStream in = new BoundedInputStream(Channels.newInputStream(channel), end - start);
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    private static class ChunkTask extends RecursiveTask<DatasetProfiler> {
+
+        private final Path file;
+        private final List<String> headers;
+        private final ProfilingOptions options;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Path file, List<String> headers, ProfilingOptions options, long[] boundaries, int from, int to) {
+            this.file = file;
+            this.headers = headers;
+            this.options = options;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DatasetProfiler compute() {
+            if (to - from <= 1) {
+                try {
+                    return from == to
+                            ? new DatasetProfiler(headers, options, boundaries[from])
+                            : profileRange(file, headers, options, boundaries[from], boundaries[to]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(file, headers, options, boundaries, from, mid);
+            ChunkTask right = new ChunkTask(file, headers, options, boundaries, mid, to);
+            right.fork();
+            DatasetProfiler head = left.compute();
+            return head.merge(right.join());
+        }
+    }
+}
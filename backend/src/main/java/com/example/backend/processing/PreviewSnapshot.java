@@ -0,0 +1,84 @@
+package com.example.backend.processing;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The first rows of a dataset, header included, kept as a small CSV document so previews can be
+ * answered without touching object storage.
+ */
+public final class PreviewSnapshot {
+
+    private PreviewSnapshot() {
+    }
+
+    /**
+     * Row handler that records the header and up to {@code maxRows} data rows, then stops the read.
+     */
+    public static class Collector implements XlsxRowReader.RowHandler {
+
+        private final int maxRows;
+        private final List<List<String>> rows = new ArrayList<>();
+
+        public Collector(int maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        @Override
+        public boolean onRow(int rowNum, List<String> values) {
+            rows.add(new ArrayList<>(values));
+            return rows.size() <= maxRows;
+        }
+
+        public int getRowCount() {
+            return Math.max(rows.size() - 1, 0);
+        }
+
+        public String encode() {
+            StringBuilder out = new StringBuilder();
+            try (CSVPrinter printer = new CSVPrinter(out, CSVFormat.DEFAULT)) {
+                for (List<String> row : rows) {
+                    printer.printRecord(row);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toString();
+        }
+    }
+
+    public static List<Map<String, Object>> decode(String snapshot, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        try (CSVParser parser = CSVParser.parse(snapshot, CSVFormat.DEFAULT)) {
+            Iterator<CSVRecord> records = parser.iterator();
+            if (!records.hasNext()) {
+                return result;
+            }
+            List<String> headers = records.next().toList();
+
+            while (records.hasNext() && result.size() < limit) {
+                CSVRecord record = records.next();
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int j = 0; j < headers.size(); j++) {
+                    row.put(headers.get(j), j < record.size() ? record.get(j) : "");
+                }
+                result.add(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return result;
+    }
+}
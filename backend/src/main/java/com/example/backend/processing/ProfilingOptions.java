@@ -0,0 +1,31 @@
+package com.example.backend.processing;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Tuning knobs for the column profilers.
+ */
+@Getter
+@Builder
+public class ProfilingOptions {
+
+    /** Distinct values are counted exactly up to this many, and estimated with HyperLogLog beyond it. */
+    @Builder.Default
+    private final int exactDistinctThreshold = 100_000;
+
+    @Builder.Default
+    private final int hllPrecision = HyperLogLog.DEFAULT_PRECISION;
+
+    /** Size of the per-column reservoir sample that type inference runs on. */
+    @Builder.Default
+    private final int typeSampleSize = 1_000;
+
+    /** Bin count of the histograms precomputed for numeric columns. */
+    @Builder.Default
+    private final int histogramBins = 20;
+
+    public static ProfilingOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.backend.processing;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch over doubles. Items live in a stack of compactors; level {@code h} items carry
+ * weight {@code 2^h}. When the sketch is full the lowest full level is sorted and every other item
+ * is promoted, which keeps memory at roughly {@code 3k} doubles regardless of how many values were
+ * added. With the default {@code k = 200} the rank error is about 1.3%, and the sketch is exact
+ * until more than {@code k} values have been added.
+ * <p>
+ * Sketches merge level by level, and {@link #toBytes()} / {@link #fromBytes(byte[])} let a sketch be
+ * stored with its column and queried later without rescanning the data.
+ */
+public class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final double LEVEL_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final int k;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double[][] levels;
+    private int[] sizes;
+    private int[] capacities;
+    private int retained;
+    private int totalCapacity;
+    private boolean compactOddOffset;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        this.k = k;
+        this.levels = new double[][]{new double[k]};
+        this.sizes = new int[1];
+        updateCapacities();
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0 || value < min) min = value;
+        if (count == 0 || value > max) max = value;
+        count++;
+
+        append(0, value);
+        if (retained > totalCapacity) {
+            compress();
+        }
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0 || other.min < min) min = other.min;
+        if (count == 0 || other.max > max) max = other.max;
+        count += other.count;
+
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Whether every added value is still retained with weight one, in which case quantiles are exact.
+     */
+    public boolean isExact() {
+        return levels.length == 1;
+    }
+
+    /**
+     * Value at quantile {@code q} in [0, 1]. Exact sketches interpolate between the two closest
+     * order statistics, so the 0.5 quantile of an even-sized sample is the mean of the middle pair.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0.0) return min;
+        if (q >= 1.0) return max;
+
+        if (isExact()) {
+            double[] sorted = Arrays.copyOf(levels[0], sizes[0]);
+            Arrays.sort(sorted);
+            double position = q * (sorted.length - 1);
+            int lower = (int) Math.floor(position);
+            int upper = Math.min(lower + 1, sorted.length - 1);
+            return sorted[lower] + (sorted[upper] - sorted[lower]) * (position - lower);
+        }
+
+        WeightedItems items = sortedItems();
+        double target = q * items.totalWeight;
+        long cumulative = 0;
+        for (int i = 0; i < items.values.length; i++) {
+            cumulative += items.weights[i];
+            if (cumulative >= target) {
+                return items.values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Estimated fraction of values that are less than or equal to {@code value}.
+     */
+    public double cdf(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long weight = 0;
+        long total = 0;
+        for (int level = 0; level < levels.length; level++) {
+            long levelWeight = 1L << level;
+            for (int i = 0; i < sizes[level]; i++) {
+                if (levels[level][i] <= value) {
+                    weight += levelWeight;
+                }
+                total += levelWeight;
+            }
+        }
+        return (double) weight / total;
+    }
+
+    public byte[] toBytes() {
+        int items = 0;
+        for (int size : sizes) {
+            items += size;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 8 + 8 + 4 + levels.length * 4 + items * 8);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(k);
+        buffer.putLong(count);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(levels.length);
+        for (int level = 0; level < levels.length; level++) {
+            buffer.putInt(sizes[level]);
+            for (int i = 0; i < sizes[level]; i++) {
+                buffer.putDouble(levels[level][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported quantile sketch version " + version);
+        }
+
+        QuantileSketch sketch = new QuantileSketch(buffer.getInt());
+        sketch.count = buffer.getLong();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+
+        int numLevels = buffer.getInt();
+        sketch.levels = new double[numLevels][];
+        sketch.sizes = new int[numLevels];
+        for (int level = 0; level < numLevels; level++) {
+            int size = buffer.getInt();
+            double[] items = new double[Math.max(size, MIN_LEVEL_CAPACITY)];
+            for (int i = 0; i < size; i++) {
+                items[i] = buffer.getDouble();
+            }
+            sketch.levels[level] = items;
+            sketch.sizes[level] = size;
+            sketch.retained += size;
+        }
+        sketch.updateCapacities();
+        return sketch;
+    }
+
+    private void append(int level, double value) {
+        while (level >= levels.length) {
+            addLevel();
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(levels[level].length << 1, MIN_LEVEL_CAPACITY));
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        levels[levels.length - 1] = new double[MIN_LEVEL_CAPACITY];
+        updateCapacities();
+    }
+
+    private void updateCapacities() {
+        capacities = new int[levels.length];
+        totalCapacity = 0;
+        for (int level = 0; level < levels.length; level++) {
+            int depth = levels.length - level - 1;
+            capacities[level] = Math.max((int) Math.ceil(k * Math.pow(LEVEL_DECAY, depth)), MIN_LEVEL_CAPACITY);
+            totalCapacity += capacities[level];
+        }
+    }
+
+    private void compress() {
+        while (retained > totalCapacity) {
+            for (int level = 0; level < levels.length; level++) {
+                if (sizes[level] >= capacities[level]) {
+                    compact(level);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void compact(int level) {
+        if (level + 1 >= levels.length) {
+            addLevel();
+        }
+
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+
+        // an odd item out stays behind so the total weight is preserved exactly
+        int paired = size & ~1;
+        int offset = compactOddOffset ? 1 : 0;
+        compactOddOffset = !compactOddOffset;
+        for (int i = offset; i < paired; i += 2) {
+            append(level + 1, items[i]);
+        }
+
+        retained -= paired;
+        if (paired < size) {
+            items[0] = items[size - 1];
+            sizes[level] = 1;
+        } else {
+            sizes[level] = 0;
+        }
+    }
+
+    private WeightedItems sortedItems() {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        Integer[] order = new Integer[total];
+        int n = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[n] = levels[level][i];
+                weights[n] = 1L << level;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        WeightedItems items = new WeightedItems(total);
+        for (int i = 0; i < total; i++) {
+            items.values[i] = values[order[i]];
+            items.weights[i] = weights[order[i]];
+            items.totalWeight += weights[order[i]];
+        }
+        return items;
+    }
+
+    private static class WeightedItems {
+        final double[] values;
+        final long[] weights;
+        long totalWeight;
+
+        WeightedItems(int size) {
+            values = new double[size];
+            weights = new long[size];
+        }
+    }
+}
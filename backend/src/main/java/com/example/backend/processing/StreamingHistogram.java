@@ -0,0 +1,299 @@
+package com.example.backend.processing;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact value counts over a window of {@value #BUCKETS} equal-width buckets, built in one pass
+ * without knowing the range up front. Bucket widths are powers of two and aligned to zero; when a
+ * value lands outside the window the width doubles, folding neighbouring buckets together, until
+ * the whole range fits. The data therefore always spans a large part of the window, and bins of
+ * any coarser layout can be read off it by splitting the buckets a bin edge cuts through in
+ * proportion to the overlap.
+ * <p>
+ * Like {@link QuantileSketch}, histograms of consecutive slices merge and can be stored with
+ * their column via {@link #toBytes()} / {@link #fromBytes(byte[])}. Infinite and NaN values are
+ * ignored.
+ */
+public class StreamingHistogram {
+
+    public static final int BUCKETS = 1024;
+
+    private static final int BUCKET_BITS = Integer.numberOfTrailingZeros(BUCKETS);
+
+    private static final byte FORMAT_VERSION = 1;
+
+    /** Bucket width of the first value is its magnitude over 2^40, well below any later spread. */
+    private static final int INITIAL_RESOLUTION_BITS = 40;
+
+    public record Bin(double lower, double upper, long count) {
+    }
+
+    private long[] counts;  // allocated on the first value; text columns never need it
+    private int exponent;   // bucket width is 2^exponent
+    private long offset;    // absolute index of counts[0], the bucket holding min
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        if (count == 0) {
+            counts = new long[BUCKETS];
+            exponent = Math.getExponent(value) - INITIAL_RESOLUTION_BITS;
+            offset = index(value);
+            min = value;
+            max = value;
+        } else if (value < min || value > max) {
+            fit(Math.min(min, value), Math.max(max, value));
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        counts[(int) (index(value) - offset)]++;
+        count++;
+    }
+
+    public void merge(StreamingHistogram other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            counts = other.counts.clone();
+            exponent = other.exponent;
+            offset = other.offset;
+            count = other.count;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+
+        StreamingHistogram source = other.copy();
+        double low = Math.min(min, source.min);
+        double high = Math.max(max, source.max);
+        if (exponent < source.exponent) {
+            coarsen(source.exponent - exponent);
+        }
+        fit(low, high);
+        if (source.exponent < exponent) {
+            source.coarsen(exponent - source.exponent);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            if (source.counts[i] != 0) {
+                counts[(int) (source.offset + i - offset)] += source.counts[i];
+            }
+        }
+        min = low;
+        max = high;
+        count += source.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * {@code binCount} bins of equal width from min to max; a single bin when every value is the
+     * same.
+     */
+    public List<Bin> equiWidth(int binCount) {
+        if (count == 0) {
+            return List.of();
+        }
+        if (min == max || binCount == 1) {
+            return List.of(new Bin(min, max, count));
+        }
+        double[] edges = new double[binCount + 1];
+        for (int i = 0; i <= binCount; i++) {
+            edges[i] = i == binCount ? max : min + (max - min) * i / binCount;
+        }
+        return binsFor(edges, null);
+    }
+
+    /**
+     * Bins holding roughly {@code count / binCount} values each. The edges are quantiles from
+     * {@code sketch}, so they carry its rank error; bins that would have zero width because of
+     * heavily repeated values are merged, so fewer than {@code binCount} may come back. The
+     * counts come from the buckets, except that where an edge cuts through a bucket the sketch
+     * decides how the bucket splits: on skewed data several edges can fall into one bucket, where
+     * assuming an even spread is far off.
+     */
+    public List<Bin> equiDepth(int binCount, QuantileSketch sketch) {
+        if (count == 0) {
+            return List.of();
+        }
+        if (min == max || binCount == 1) {
+            return List.of(new Bin(min, max, count));
+        }
+        double[] edges = new double[binCount + 1];
+        int size = 0;
+        edges[size++] = min;
+        for (int i = 1; i < binCount; i++) {
+            double edge = Math.max(min, Math.min(max, sketch.quantile((double) i / binCount)));
+            if (edge > edges[size - 1]) {
+                edges[size++] = edge;
+            }
+        }
+        if (max > edges[size - 1]) {
+            edges[size++] = max;
+        }
+        double[] distinct = new double[size];
+        System.arraycopy(edges, 0, distinct, 0, size);
+        return binsFor(distinct, sketch);
+    }
+
+    public byte[] toBytes() {
+        int used = 0;
+        if (counts != null) {
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    used = i + 1;
+                    break;
+                }
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 8 + 8 + 8 + 4 + used * 8);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(exponent);
+        buffer.putLong(offset);
+        buffer.putLong(count);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(used);
+        for (int i = 0; i < used; i++) {
+            buffer.putLong(counts[i]);
+        }
+        return buffer.array();
+    }
+
+    public static StreamingHistogram fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported histogram version " + version);
+        }
+
+        StreamingHistogram histogram = new StreamingHistogram();
+        histogram.exponent = buffer.getInt();
+        histogram.offset = buffer.getLong();
+        histogram.count = buffer.getLong();
+        histogram.min = buffer.getDouble();
+        histogram.max = buffer.getDouble();
+        int used = buffer.getInt();
+        if (histogram.count > 0) {
+            histogram.counts = new long[BUCKETS];
+            for (int i = 0; i < used; i++) {
+                histogram.counts[i] = buffer.getLong();
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Bins between consecutive edges; the last bin includes {@code edges[last]}.
+     *
+     * @param sketch ranks edges within a bucket, or null to assume an even spread
+     */
+    private List<Bin> binsFor(double[] edges, QuantileSketch sketch) {
+        long[] prefix = new long[BUCKETS + 1];
+        for (int i = 0; i < BUCKETS; i++) {
+            prefix[i + 1] = prefix[i] + counts[i];
+        }
+
+        // rounding cumulative positions rather than each bin keeps the total exact
+        List<Bin> bins = new ArrayList<>(edges.length - 1);
+        long previous = 0;
+        for (int i = 1; i < edges.length; i++) {
+            long cumulative = i == edges.length - 1 ? count : Math.round(countBelow(edges[i], prefix, sketch));
+            cumulative = Math.max(previous, Math.min(count, cumulative));
+            bins.add(new Bin(edges[i - 1], edges[i], cumulative - previous));
+            previous = cumulative;
+        }
+        return bins;
+    }
+
+    /**
+     * Estimated number of values below {@code x}. The buckets before the one holding {@code x}
+     * are counted exactly; within it the sketch's rank of {@code x} is used, kept inside the
+     * bucket's bounds, or without a sketch values are assumed to spread evenly.
+     */
+    private double countBelow(double x, long[] prefix, QuantileSketch sketch) {
+        if (x <= min) {
+            return 0;
+        }
+        if (x > max) {
+            return count;
+        }
+        int bucket = (int) (index(x) - offset);
+        if (sketch != null && !sketch.isEmpty()) {
+            double ranked = sketch.cdf(Math.nextDown(x)) * count;
+            return Math.max(prefix[bucket], Math.min(prefix[bucket + 1], ranked));
+        }
+        double lower = Math.max(min, Math.scalb((double) (offset + bucket), exponent));
+        double upper = Math.min(max, Math.scalb((double) (offset + bucket + 1), exponent));
+        double fraction = upper > lower ? Math.min(1.0, (x - lower) / (upper - lower)) : 1.0;
+        return prefix[bucket] + counts[bucket] * Math.max(0.0, fraction);
+    }
+
+    /** Makes the window cover [low, high] and start at the bucket holding {@code low}. */
+    private void fit(double low, double high) {
+        double span;
+        while ((span = scaled(high) - scaled(low)) >= BUCKETS) {
+            // jump most of the way in one fold; an infinite span still needs at least 64 doublings
+            coarsen(Double.isFinite(span) ? Math.max(1, Math.getExponent(span) - BUCKET_BITS) : 64);
+        }
+        long start = index(low);
+        int shift = (int) (offset - start);
+        if (shift > 0) {
+            System.arraycopy(counts, 0, counts, shift, BUCKETS - shift);
+            Arrays.fill(counts, 0, shift, 0L);
+            offset = start;
+        }
+    }
+
+    /** Multiplies the bucket width by {@code 2^steps}, summing the buckets that now coincide. */
+    private void coarsen(int steps) {
+        int shift = Math.min(steps, 63);
+        long[] folded = new long[BUCKETS];
+        long foldedOffset = offset >> shift;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                folded[(int) (((offset + i) >> shift) - foldedOffset)] += counts[i];
+            }
+        }
+        counts = folded;
+        offset = foldedOffset;
+        exponent += steps;
+    }
+
+    private double scaled(double value) {
+        return Math.floor(Math.scalb(value, -exponent));
+    }
+
+    private long index(double value) {
+        return (long) scaled(value);
+    }
+
+    private StreamingHistogram copy() {
+        StreamingHistogram copy = new StreamingHistogram();
+        copy.counts = counts.clone();
+        copy.exponent = exponent;
+        copy.offset = offset;
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.backend.processing;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Walks the rows of a CSV, .xlsx or .xls file in order, header row first, with values rendered
+ * the same way for every format. The value list handed to the handler is reused between rows.
+ */
+public final class TabularFileReader {
+
+    private TabularFileReader() {
+    }
+
+    public static void read(Path file, String fileName, XlsxRowReader.RowHandler handler) throws IOException {
+        String name = fileName.toLowerCase();
+
+        if (name.endsWith(".csv")) {
+            readCsv(file, handler);
+        } else if (name.endsWith(".xlsx")) {
+            XlsxRowReader.read(file, handler);
+        } else if (name.endsWith(".xls")) {
+            try (InputStream inputStream = Files.newInputStream(file);
+                 Workbook workbook = new HSSFWorkbook(inputStream)) {
+                readWorkbook(workbook, handler);
+            }
+        } else {
+            throw new RuntimeException("Unsupported file format");
+        }
+    }
+
+    private static void readCsv(Path file, XlsxRowReader.RowHandler handler) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             CSVParser csvParser = new CSVParser(reader, CsvFormats.RECORDS_ONLY)) {
+
+            List<String> values = new ArrayList<>();
+            int rowNum = 0;
+            for (CSVRecord record : csvParser) {
+                values.clear();
+                for (String value : record) {
+                    values.add(value);
+                }
+                if (!handler.onRow(rowNum++, values)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the first sheet. The header row decides the column count; missing rows are skipped.
+     */
+    public static void readWorkbook(Workbook workbook, XlsxRowReader.RowHandler handler) {
+        Sheet sheet = workbook.getSheetAt(0);
+        Row headerRow = sheet.getRow(0);
+        if (headerRow == null) {
+            return;
+        }
+
+        List<String> values = new ArrayList<>();
+        for (Cell cell : headerRow) {
+            values.add(getCellValueAsString(cell));
+        }
+        int columnCount = values.size();
+        if (!handler.onRow(0, values)) {
+            return;
+        }
+
+        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+            Row row = sheet.getRow(i);
+            if (row == null) continue;
+
+            values.clear();
+            for (int j = 0; j < columnCount; j++) {
+                values.add(getCellValueAsString(row.getCell(j)));
+            }
+            if (!handler.onRow(i, values)) {
+                return;
+            }
+        }
+    }
+
+    public static String getCellValueAsString(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+
+        switch (cell.getCellType()) {
+            case STRING:
+                return cell.getStringCellValue();
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    LocalDateTime dateTime = cell.getLocalDateTimeCellValue();
+                    return dateTime.toLocalTime().toSecondOfDay() == 0
+                            ? dateTime.toLocalDate().toString()
+                            : dateTime.toString();
+                }
+                return NumberToTextConverter.toText(cell.getNumericCellValue());
+            case BOOLEAN:
+                return String.valueOf(cell.getBooleanCellValue());
+            case FORMULA:
+                return cell.getCellFormula();
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.backend.processing;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Copies every byte read from the wrapped stream to {@code branch}. Skipped bytes, and whatever
+ * is still unread on close, are read and copied as well, so the branch always sees the full
+ * stream, unless the tee was {@link #abort() aborted}. The branch itself is not closed.
+ */
+public class TeeInputStream extends FilterInputStream {
+
+    private final OutputStream branch;
+    private boolean closed;
+    private boolean aborted;
+
+    public TeeInputStream(InputStream in, OutputStream branch) {
+        super(in);
+        this.branch = branch;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            branch.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            branch.write(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    /**
+     * Makes {@link #close()} stop without copying the unread rest of the stream, for when the
+     * branch is going to be thrown away.
+     */
+    public void abort() {
+        aborted = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!aborted) {
+                skip(Long.MAX_VALUE);
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
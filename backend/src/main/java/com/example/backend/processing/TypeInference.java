@@ -0,0 +1,181 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+
+import java.util.List;
+
+/**
+ * Decides a column's type from a sample of its values and derives a format descriptor for it: a
+ * {@link java.time.format.DateTimeFormatter} pattern for DATE and TIMESTAMP columns and the token
+ * pair for BOOLEAN columns. Later readers parse with that descriptor instead of re-detecting.
+ * <p>
+ * A type wins when at least {@link #TYPE_RATIO} of the sampled values fit it; numeric types are
+ * checked first, then temporal, then boolean, and everything else is TEXT.
+ */
+public final class TypeInference {
+
+    static final double TYPE_RATIO = 0.8;
+
+    private static final String[] BOOLEAN_FORMATS = {"true/false", "yes/no", "1/0"};
+
+    private TypeInference() {
+    }
+
+    public static InferredType infer(List<String> sample) {
+        if (sample.isEmpty()) {
+            return new InferredType(ColumnType.TEXT, null);
+        }
+
+        ValueClassifier classifier = new ValueClassifier();
+        Votes votes = new Votes();
+        for (String value : sample) {
+            votes.add(classifier.classify(value), classifier);
+        }
+
+        double size = sample.size();
+        if ((votes.integers + votes.decimals) / size >= TYPE_RATIO) {
+            return new InferredType(votes.decimals == 0 ? ColumnType.INTEGER : ColumnType.DECIMAL, null);
+        }
+        if ((votes.dates + votes.timestamps) / size >= TYPE_RATIO) {
+            return votes.timestamps > votes.dates
+                    ? new InferredType(ColumnType.TIMESTAMP, votes.timestampPattern())
+                    : new InferredType(ColumnType.DATE, votes.datePattern());
+        }
+        if (votes.booleans / size >= TYPE_RATIO) {
+            return new InferredType(ColumnType.BOOLEAN, BOOLEAN_FORMATS[votes.majorityBooleanStyle()]);
+        }
+        return new InferredType(ColumnType.TEXT, null);
+    }
+
+    public static final class InferredType {
+        private final ColumnType type;
+        private final String format;
+
+        InferredType(ColumnType type, String format) {
+            this.type = type;
+            this.format = format;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+    }
+
+    private static final class Votes {
+        int integers;
+        int decimals;
+        int booleans;
+        int dates;
+        int timestamps;
+
+        final int[] booleanStyles = new int[BOOLEAN_FORMATS.length];
+
+        // date shape, over dates and timestamps alike
+        final int[] orders = new int[4];
+        int dashes;
+        int slashes;
+        int dots;
+        boolean firstFieldUnpadded;
+        boolean secondFieldUnpadded;
+
+        // time shape, over timestamps only
+        int tSeparators;
+        boolean hourUnpadded;
+        int withSeconds;
+        final int[] fractionDigits = new int[10];
+        final int[] offsetStyles = new int[3];
+
+        void add(int kinds, ValueClassifier shape) {
+            if ((kinds & ValueClassifier.INTEGER) != 0) integers++;
+            else if ((kinds & ValueClassifier.DECIMAL) != 0) decimals++;
+
+            if ((kinds & ValueClassifier.BOOLEAN) != 0) {
+                booleans++;
+                booleanStyles[shape.booleanStyle()]++;
+            }
+
+            if ((kinds & (ValueClassifier.DATE | ValueClassifier.TIMESTAMP)) != 0) {
+                orders[shape.order()]++;
+                switch (shape.dateSeparator()) {
+                    case '-': dashes++; break;
+                    case '/': slashes++; break;
+                    default: dots++; break;
+                }
+                firstFieldUnpadded |= !shape.firstFieldPadded();
+                secondFieldUnpadded |= !shape.secondFieldPadded();
+
+                if ((kinds & ValueClassifier.TIMESTAMP) != 0) {
+                    timestamps++;
+                    if (shape.timeSeparator() == 'T') tSeparators++;
+                    hourUnpadded |= !shape.hourPadded();
+                    if (shape.hasSeconds()) withSeconds++;
+                    fractionDigits[shape.fractionDigits()]++;
+                    offsetStyles[shape.offsetStyle()]++;
+                } else {
+                    dates++;
+                }
+            }
+        }
+
+        int majorityBooleanStyle() {
+            return argMax(booleanStyles);
+        }
+
+        String datePattern() {
+            char separator = dashes >= slashes && dashes >= dots ? '-' : slashes >= dots ? '/' : '.';
+            String first = firstFieldUnpadded ? "M" : "MM";
+            String second = secondFieldUnpadded ? "d" : "dd";
+
+            int ymd = orders[ValueClassifier.ORDER_YMD];
+            int dayFirst = orders[ValueClassifier.ORDER_DMY];
+            int monthFirst = orders[ValueClassifier.ORDER_MDY] + orders[ValueClassifier.ORDER_AMBIGUOUS];
+
+            if (ymd >= dayFirst && ymd >= monthFirst) {
+                return "yyyy" + separator + first + separator + second;
+            }
+            if (dayFirst > orders[ValueClassifier.ORDER_MDY]) {
+                return (firstFieldUnpadded ? "d" : "dd") + separator
+                        + (secondFieldUnpadded ? "M" : "MM") + separator + "yyyy";
+            }
+            return first + separator + second + separator + "yyyy";
+        }
+
+        String timestampPattern() {
+            StringBuilder pattern = new StringBuilder(datePattern());
+            pattern.append(tSeparators * 2 > timestamps ? "'T'" : " ");
+            pattern.append(hourUnpadded ? "H" : "HH").append(":mm");
+            if (withSeconds * 2 > timestamps) {
+                pattern.append(":ss");
+                int digits = argMax(fractionDigits);
+                if (digits > 0) {
+                    pattern.append('.').append("S".repeat(digits));
+                }
+            }
+            switch (argMax(offsetStyles)) {
+                case ValueClassifier.OFFSET_COLON:
+                    pattern.append("XXX");
+                    break;
+                case ValueClassifier.OFFSET_COMPACT:
+                    pattern.append("XX");
+                    break;
+                default:
+                    break;
+            }
+            return pattern.toString();
+        }
+
+        private static int argMax(int[] counts) {
+            int best = 0;
+            for (int i = 1; i < counts.length; i++) {
+                if (counts[i] > counts[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.backend.processing;
+
+/**
+ * Hand-written character-level classifiers for column values. A single left-to-right scan decides
+ * whether a value looks like an integer, decimal, boolean, date or timestamp, and for dates and
+ * timestamps records the shape (field order, separators, padding, time precision, offset) that
+ * {@link TypeInference} turns into a format pattern. No regexes are compiled or run.
+ * <p>
+ * Instances keep the shape of the last classified value and are not thread-safe.
+ */
+public class ValueClassifier {
+
+    public static final int INTEGER = 1;
+    public static final int DECIMAL = 1 << 1;
+    public static final int BOOLEAN = 1 << 2;
+    public static final int DATE = 1 << 3;
+    public static final int TIMESTAMP = 1 << 4;
+
+    public static final int ORDER_YMD = 0;
+    public static final int ORDER_MDY = 1;
+    public static final int ORDER_DMY = 2;
+    /** Day and month both fit in 1..12, so the value alone cannot tell M/d from d/M. */
+    public static final int ORDER_AMBIGUOUS = 3;
+
+    public static final int BOOLEAN_TRUE_FALSE = 0;
+    public static final int BOOLEAN_YES_NO = 1;
+    public static final int BOOLEAN_ONE_ZERO = 2;
+
+    public static final int OFFSET_NONE = 0;
+    public static final int OFFSET_COLON = 1;
+    public static final int OFFSET_COMPACT = 2;
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final NumberParser numberParser = new NumberParser();
+
+    private int position;
+    private int groupValue;
+    private int groupLength;
+
+    // shape of the last temporal value
+    private int order;
+    private char dateSeparator;
+    private boolean firstFieldPadded;
+    private boolean secondFieldPadded;
+    private char timeSeparator;
+    private boolean hourPadded;
+    private boolean hasSeconds;
+    private int fractionDigits;
+    private int offsetStyle;
+
+    // token family of the last boolean value
+    private int booleanStyle;
+
+    /**
+     * @return bit set of {@link #INTEGER}, {@link #DECIMAL}, {@link #BOOLEAN}, {@link #DATE} and
+     * {@link #TIMESTAMP}; zero for plain text
+     */
+    public int classify(CharSequence value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') start++;
+        while (end > start && value.charAt(end - 1) <= ' ') end--;
+        if (start == end) {
+            return 0;
+        }
+
+        int kinds = 0;
+        char first = value.charAt(start);
+
+        if (isInteger(value, start, end)) {
+            kinds |= INTEGER;
+        } else if ((first >= '0' && first <= '9') || first == '-' || first == '+' || first == '.' || first == 'N' || first == 'I') {
+            if (numberParser.parse(value)) {
+                kinds |= DECIMAL;
+            }
+        }
+
+        if (isBoolean(value, start, end)) {
+            kinds |= BOOLEAN;
+        }
+
+        if (first >= '0' && first <= '9') {
+            int temporal = classifyTemporal(value, start, end);
+            kinds |= temporal;
+        }
+
+        return kinds;
+    }
+
+    public int order() {
+        return order;
+    }
+
+    public char dateSeparator() {
+        return dateSeparator;
+    }
+
+    /** Whether the first non-year date field was written with two digits. */
+    public boolean firstFieldPadded() {
+        return firstFieldPadded;
+    }
+
+    /** Whether the second non-year date field was written with two digits. */
+    public boolean secondFieldPadded() {
+        return secondFieldPadded;
+    }
+
+    public char timeSeparator() {
+        return timeSeparator;
+    }
+
+    public boolean hourPadded() {
+        return hourPadded;
+    }
+
+    public boolean hasSeconds() {
+        return hasSeconds;
+    }
+
+    public int fractionDigits() {
+        return fractionDigits;
+    }
+
+    public int offsetStyle() {
+        return offsetStyle;
+    }
+
+    public int booleanStyle() {
+        return booleanStyle;
+    }
+
+    private static boolean isInteger(CharSequence value, int start, int end) {
+        int i = start;
+        char c = value.charAt(i);
+        if (c == '-' || c == '+') {
+            i++;
+        }
+        int digits = end - i;
+        if (digits == 0 || digits > MAX_LONG_DIGITS) {
+            return false;
+        }
+        for (; i < end; i++) {
+            c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBoolean(CharSequence value, int start, int end) {
+        int length = end - start;
+        if (length == 1) {
+            char c = value.charAt(start);
+            booleanStyle = BOOLEAN_ONE_ZERO;
+            return c == '1' || c == '0';
+        }
+        if (regionEqualsIgnoreCase(value, start, end, "true") || regionEqualsIgnoreCase(value, start, end, "false")) {
+            booleanStyle = BOOLEAN_TRUE_FALSE;
+            return true;
+        }
+        if (regionEqualsIgnoreCase(value, start, end, "yes") || regionEqualsIgnoreCase(value, start, end, "no")) {
+            booleanStyle = BOOLEAN_YES_NO;
+            return true;
+        }
+        return false;
+    }
+
+    private int classifyTemporal(CharSequence value, int start, int end) {
+        position = start;
+
+        if (!readDigits(value, end, 4)) return 0;
+        int firstValue = groupValue;
+        int firstLength = groupLength;
+
+        if (position >= end) return 0;
+        char separator = value.charAt(position);
+        if (separator != '-' && separator != '/' && separator != '.') return 0;
+        position++;
+
+        if (!readDigits(value, end, 2)) return 0;
+        int secondValue = groupValue;
+        int secondLength = groupLength;
+
+        if (position >= end || value.charAt(position) != separator) return 0;
+        position++;
+
+        if (!readDigits(value, end, 4)) return 0;
+        int thirdValue = groupValue;
+        int thirdLength = groupLength;
+
+        if (firstLength == 4 && thirdLength <= 2) {
+            if (!isMonth(secondValue) || !isDay(thirdValue)) return 0;
+            order = ORDER_YMD;
+            firstFieldPadded = secondLength == 2;
+            secondFieldPadded = thirdLength == 2;
+        } else if (firstLength <= 2 && thirdLength == 4) {
+            if (isMonth(firstValue) && isDay(secondValue)) {
+                order = isMonth(secondValue) ? ORDER_AMBIGUOUS : ORDER_MDY;
+            } else if (isDay(firstValue) && isMonth(secondValue)) {
+                order = ORDER_DMY;
+            } else {
+                return 0;
+            }
+            firstFieldPadded = firstLength == 2;
+            secondFieldPadded = secondLength == 2;
+        } else {
+            return 0;
+        }
+        dateSeparator = separator;
+
+        if (position == end) {
+            return DATE;
+        }
+        return readTime(value, end) ? TIMESTAMP : 0;
+    }
+
+    private boolean readTime(CharSequence value, int end) {
+        char separator = value.charAt(position);
+        if (separator != 'T' && separator != ' ') return false;
+        timeSeparator = separator;
+        position++;
+
+        if (!readDigits(value, end, 2) || groupValue > 23) return false;
+        hourPadded = groupLength == 2;
+
+        if (position >= end || value.charAt(position) != ':') return false;
+        position++;
+        if (!readDigits(value, end, 2) || groupLength != 2 || groupValue > 59) return false;
+
+        hasSeconds = false;
+        fractionDigits = 0;
+        offsetStyle = OFFSET_NONE;
+
+        if (position < end && value.charAt(position) == ':') {
+            position++;
+            if (!readDigits(value, end, 2) || groupLength != 2 || groupValue > 60) return false;
+            hasSeconds = true;
+
+            if (position < end && value.charAt(position) == '.') {
+                position++;
+                int fractionStart = position;
+                while (position < end && isDigit(value.charAt(position))) position++;
+                fractionDigits = position - fractionStart;
+                if (fractionDigits == 0 || fractionDigits > 9) return false;
+            }
+        }
+
+        if (position == end) {
+            return true;
+        }
+
+        char c = value.charAt(position);
+        if (c == 'Z') {
+            offsetStyle = OFFSET_COLON;
+            return position + 1 == end;
+        }
+        if (c != '+' && c != '-') return false;
+        position++;
+        if (!readDigits(value, end, 2) || groupLength != 2 || groupValue > 18) return false;
+        if (position == end) {
+            offsetStyle = OFFSET_COMPACT;
+            return true;
+        }
+        boolean colon = value.charAt(position) == ':';
+        if (colon) position++;
+        if (!readDigits(value, end, 2) || groupLength != 2 || groupValue > 59) return false;
+        offsetStyle = colon ? OFFSET_COLON : OFFSET_COMPACT;
+        return position == end;
+    }
+
+    private boolean readDigits(CharSequence value, int end, int maxLength) {
+        int start = position;
+        int result = 0;
+        while (position < end && position - start < maxLength) {
+            char c = value.charAt(position);
+            if (!isDigit(c)) break;
+            result = result * 10 + (c - '0');
+            position++;
+        }
+        groupValue = result;
+        groupLength = position - start;
+        return groupLength > 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isMonth(int value) {
+        return value >= 1 && value <= 12;
+    }
+
+    private static boolean isDay(int value) {
+        return value >= 1 && value <= 31;
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence value, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(value.charAt(start + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
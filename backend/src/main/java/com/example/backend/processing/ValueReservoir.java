@@ -0,0 +1,101 @@
+package com.example.backend.processing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Uniform sample of up to {@code capacity} values drawn from the whole column. Every offered value
+ * gets a random priority and the sample keeps the lowest priorities (bottom-k sampling), which is
+ * equivalent to classic reservoir sampling but also merges exactly: the union of two samples cut back
+ * to the lowest priorities is a uniform sample of both slices together.
+ */
+public class ValueReservoir {
+
+    private final int capacity;
+    private final SplittableRandom random;
+    private final double[] priorities;
+    private final String[] values;
+    private int size;
+
+    public ValueReservoir(int capacity, long seed) {
+        this.capacity = capacity;
+        this.random = new SplittableRandom(seed);
+        this.priorities = new double[capacity];
+        this.values = new String[capacity];
+    }
+
+    public void offer(String value) {
+        offer(value, random.nextDouble());
+    }
+
+    public void merge(ValueReservoir other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.values[i], other.priorities[i]);
+        }
+    }
+
+    public List<String> values() {
+        List<String> sample = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sample.add(values[i]);
+        }
+        return sample;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void offer(String value, double priority) {
+        if (capacity == 0) {
+            return;
+        }
+        if (size < capacity) {
+            priorities[size] = priority;
+            values[size] = value;
+            siftUp(size++);
+        } else if (priority < priorities[0]) {
+            priorities[0] = priority;
+            values[0] = value;
+            siftDown(0);
+        }
+    }
+
+    // max-heap on priority, so the entry to evict is always at the root
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (priorities[parent] >= priorities[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int largest = left + 1 < size && priorities[left + 1] > priorities[left] ? left + 1 : left;
+            if (priorities[index] >= priorities[largest]) {
+                return;
+            }
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double priority = priorities[a];
+        priorities[a] = priorities[b];
+        priorities[b] = priority;
+        String value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.backend.processing;
+
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streams the first sheet of an .xlsx file through POI's SAX event model. Only the shared strings
+ * table is held in memory; rows are handed to the caller as they are parsed and never kept.
+ */
+public class XlsxRowReader {
+
+    public interface RowHandler {
+        /**
+         * @return {@code false} to stop reading the sheet
+         */
+        boolean onRow(int rowNum, List<String> values);
+    }
+
+    private XlsxRowReader() {
+    }
+
+    public static void read(InputStream inputStream, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(inputStream)) {
+            read(pkg, handler);
+        } catch (OpenXML4JException | UnsupportedFileFormatException e) {
+            throw new IOException("Invalid xlsx file", e);
+        }
+    }
+
+    public static void read(Path file, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            read(pkg, handler);
+        } catch (OpenXML4JException | UnsupportedFileFormatException e) {
+            throw new IOException("Invalid xlsx file", e);
+        }
+    }
+
+    public static void read(OPCPackage pkg, RowHandler handler) throws IOException {
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new RuntimeException("Excel file has no sheets");
+            }
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, strings, new RowCollector(handler), new CellFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            } catch (StopReading ignored) {
+                // the handler has seen enough rows
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read xlsx sheet", e);
+        }
+    }
+
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> values = new ArrayList<>();
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            values.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!handler.onRow(rowNum, values)) {
+                throw new StopReading();
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? values.size() : new CellReference(cellReference).getCol();
+            while (values.size() < column) {
+                values.add("");
+            }
+            values.add(formattedValue == null ? "" : formattedValue);
+        }
+    }
+
+    /**
+     * Renders numeric cells without display formatting (no thousands separators or currency signs)
+     * and date cells in ISO form, so the profiler's type detection sees the underlying values.
+     */
+    private static class CellFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                LocalDateTime dateTime = DateUtil.getLocalDateTime(value, use1904Windowing);
+                return dateTime.toLocalTime().toSecondOfDay() == 0
+                        ? dateTime.toLocalDate().toString()
+                        : dateTime.toString();
+            }
+            return NumberToTextConverter.toText(value);
+        }
+    }
+
+    private static class StopReading extends RuntimeException {
+        StopReading() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.Chart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChartRepository extends JpaRepository<Chart, Long> {
+
+    Optional<Chart> findByIdAndUserId(Long id, Long userId);
+
+    List<Chart> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    List<Chart> findByUserIdAndDatasetIdOrderByCreatedAtDesc(Long userId, Long datasetId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Chart c where c.dataset.id in :datasetIds")
+    int deleteByDatasetIdIn(@Param("datasetIds") Collection<Long> datasetIds);
+}
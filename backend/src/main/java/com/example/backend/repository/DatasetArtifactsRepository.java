@@ -0,0 +1,22 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.DatasetArtifacts;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface DatasetArtifactsRepository extends JpaRepository<DatasetArtifacts, Long> {
+
+    @Modifying
+    @Query("delete from DatasetArtifacts a where a.datasetId in :datasetIds")
+    int deleteByDatasetIdIn(@Param("datasetIds") Collection<Long> datasetIds);
+
+    @Modifying
+    @Query("delete from DatasetArtifacts a where a.datasetId in (select d.id from Dataset d where d.user.id = :userId)")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -3,14 +3,25 @@ package com.example.backend.repository;
 
 import com.example.backend.model.DatasetColumn;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DatasetColumnRepository extends JpaRepository<DatasetColumn, Long> {
 
     List<DatasetColumn> findByDatasetIdOrderByColumnIndex(Long datasetId);
 
+    Optional<DatasetColumn> findByIdAndDatasetId(Long id, Long datasetId);
+
     void deleteByDatasetId(Long datasetId);
+
+    @Modifying
+    @Query("delete from DatasetColumn c where c.dataset.id in :datasetIds")
+    int deleteByDatasetIdIn(@Param("datasetIds") Collection<Long> datasetIds);
 }
\ No newline at end of file
@@ -2,9 +2,15 @@ package com.example.backend.repository;
 
 import com.example.backend.model.Dataset;
 import com.example.backend.model.DatasetStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,9 +21,67 @@ public interface DatasetRepository extends JpaRepository<Dataset, Long> {
 
     List<Dataset> findByUserIdOrderByUploadedAtDesc(Long userId);
 
+    List<Dataset> findByIdInAndUserId(Collection<Long> ids, Long userId);
+
     List<Dataset> findByUserId(Long userId);
 
     long countByUserId(Long userId);
 
+    long countByFilePath(String filePath);
+
+    boolean existsByFilePathAndStoredBytesIsNotNullAndIdNot(String filePath, Long id);
+
+    /**
+     * Read with a shared row lock (FOR SHARE), so the row cannot be deleted until the caller's
+     * transaction ends; must be called in a transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<Dataset> findFirstByFilePathAndStatusOrderByIdDesc(String filePath, DatasetStatus status);
+
+    interface ExpiredDataset {
+        Long getId();
+
+        Long getUserId();
+
+        String getFilePath();
+
+        Long getStoredBytes();
+    }
+
+    interface UserDatasetCount {
+        Long getUserId();
+
+        Long getDatasetCount();
+    }
+
+    /**
+     * Datasets past their owner's {@code autoDelete} window, oldest first. Walks
+     * idx_datasets_user_uploaded per opted-in user; prefs with a non-numeric day count are skipped.
+     */
+    @Query(value = """
+            SELECT d.id AS id, d.user_id AS userId, d.file_path AS filePath, d.stored_bytes AS storedBytes
+            FROM datasets d
+            JOIN users u ON u.id = d.user_id
+            WHERE u.dataset_prefs ->> 'autoDelete' = 'true'
+              AND d.status <> 'PROCESSING'
+              AND d.uploaded_at < now() - CASE
+                    WHEN u.dataset_prefs ->> 'autoDeleteDays' ~ '^[0-9]{1,5}$'
+                    THEN make_interval(days => CAST(u.dataset_prefs ->> 'autoDeleteDays' AS int))
+                  END
+            ORDER BY d.uploaded_at
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ExpiredDataset> findExpired(@Param("limit") int limit);
+
+    @Query("select distinct d.filePath from Dataset d where d.filePath in :filePaths")
+    List<String> findReferencedFilePaths(@Param("filePaths") Collection<String> filePaths);
+
+    @Query("select d.user.id as userId, count(d) as datasetCount from Dataset d group by d.user.id")
+    List<UserDatasetCount> countDatasetsByUser();
+
+    @Modifying
+    @Query("delete from Dataset d where d.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
     List<Dataset> findByUserIdAndStatus(Long userId, DatasetStatus status);
 }
@@ -0,0 +1,42 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.UserStorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UserStorageUsageRepository extends JpaRepository<UserStorageUsage, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_storage_usage (user_id, bytes, object_count, dataset_count, updated_at)
+            VALUES (:userId, GREATEST(:bytes, 0), GREATEST(:objects, 0), GREATEST(:datasets, 0), now())
+            ON CONFLICT (user_id) DO UPDATE SET
+                bytes = GREATEST(user_storage_usage.bytes + :bytes, 0),
+                object_count = GREATEST(user_storage_usage.object_count + :objects, 0),
+                dataset_count = GREATEST(user_storage_usage.dataset_count + :datasets, 0),
+                updated_at = now()
+            """, nativeQuery = true)
+    int add(@Param("userId") Long userId, @Param("bytes") long bytes,
+            @Param("objects") long objects, @Param("datasets") long datasets);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_storage_usage (user_id, bytes, object_count, dataset_count, updated_at, reconciled_at)
+            VALUES (:userId, :bytes, :objects, :datasets, now(), now())
+            ON CONFLICT (user_id) DO UPDATE SET
+                bytes = :bytes,
+                object_count = :objects,
+                dataset_count = :datasets,
+                updated_at = now(),
+                reconciled_at = now()
+            """, nativeQuery = true)
+    int set(@Param("userId") Long userId, @Param("bytes") long bytes,
+            @Param("objects") long objects, @Param("datasets") long datasets);
+}
@@ -39,6 +39,9 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh").permitAll()
                         .requestMatchers("/api/auth/logout").authenticated()
                         .requestMatchers("/api/oauth2/**").permitAll()
+                        // process-wide cache and signing metrics, not scoped to the caller
+                        .requestMatchers("/api/storage/cache/stats", "/api/storage/presign/stats",
+                                "/api/charts/cache/stats").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                         .oauth2Login(oauth2 -> oauth2
@@ -7,12 +7,14 @@ import com.example.backend.dto.auth.UserDTO;
 import com.example.backend.model.AuthProvider;
 import com.example.backend.model.Role;
 import com.example.backend.model.User;
+import com.example.backend.repository.DatasetArtifactsRepository;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.security.JWTTokenGenerator;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.List;
@@ -24,12 +26,14 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JWTTokenGenerator jwtTokenGenerator;
+    private final DatasetArtifactsRepository datasetArtifactsRepository;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JWTTokenGenerator jwtTokenGenerator) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JWTTokenGenerator jwtTokenGenerator, DatasetArtifactsRepository datasetArtifactsRepository) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtTokenGenerator = jwtTokenGenerator;
+        this.datasetArtifactsRepository = datasetArtifactsRepository;
     }
 
     public AuthTokensResponse registerWithTokens(RegisterRequest request) {
@@ -140,7 +144,10 @@ public class AuthService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    @Transactional
     public void deleteAccount(Long userId) {
+        // datasets go with the user through the cascade; their artifacts are not mapped on them
+        datasetArtifactsRepository.deleteByUserId(userId);
         userRepository.deleteById(userId);
     }
 
@@ -0,0 +1,443 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.charts.ChartConfig;
+import com.example.backend.dto.datasets.QueryRequest;
+import com.example.backend.dto.datasets.QueryResponse;
+import com.example.backend.model.ChartType;
+import com.example.backend.model.Dataset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns a chart's {@code configJson} into series data, computed with a group-by over the dataset's
+ * columnar copy. Results are cached under the dataset id and a hash of the normalized config, so
+ * two configs that differ only in spelling, defaults or filter order share an entry, and concurrent
+ * misses on one entry share a single query. A dataset's data never changes once ingested, so
+ * entries only leave by TTL, size or dataset deletion.
+ */
+@Slf4j
+@Service
+public class ChartSeriesService {
+
+    private static final Set<ChartType> SUPPORTED_TYPES = Set.of(ChartType.LINE, ChartType.BAR, ChartType.PIE, ChartType.AREA);
+    private static final Set<String> AGGREGATIONS = Set.of("count", "sum", "avg", "min", "max");
+    private static final String OTHER_LABEL = "Other";
+
+    @Value("${chart.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${chart.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${chart.default-limit:1000}")
+    private int defaultLimit;
+
+    @Value("${chart.pie.default-slices:10}")
+    private int defaultPieSlices;
+
+    private final DatasetQueryService datasetQueryService;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<String, ChartData> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<ChartData>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ChartSeriesService(DatasetQueryService datasetQueryService, ObjectMapper objectMapper) {
+        this.datasetQueryService = datasetQueryService;
+        this.objectMapper = objectMapper;
+    }
+
+    public record Series(String name, List<Object> data) {
+    }
+
+    /**
+     * @param categoryCount distinct x values that matched, before the limit
+     */
+    public record ChartData(List<Object> labels, List<Series> series, int categoryCount, boolean truncated,
+                            long matchedRows, Instant computedAt) {
+    }
+
+    public record Result(ChartData data, boolean cached) {
+    }
+
+    /**
+     * Parses and validates a config, filling in defaults.
+     *
+     * @throws IllegalArgumentException when the config is not valid JSON or not usable for the type
+     */
+    public ChartConfig parseConfig(ChartType chartType, String configJson) {
+        if (chartType == null) {
+            throw new IllegalArgumentException("chartType is required");
+        }
+        if (!SUPPORTED_TYPES.contains(chartType)) {
+            throw new IllegalArgumentException(chartType + " charts are not computed server-side");
+        }
+        if (configJson == null || configJson.isBlank()) {
+            throw new IllegalArgumentException("configJson is required");
+        }
+
+        ChartConfig config;
+        try {
+            config = objectMapper.readValue(configJson, ChartConfig.class);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("configJson is not a valid chart config");
+        }
+        return normalize(chartType, config);
+    }
+
+    public Result getSeries(Dataset dataset, ChartType chartType, String configJson) throws IOException {
+        ChartConfig config = parseConfig(chartType, configJson);
+        String key = dataset.getId() + ":" + hash(canonicalForm(chartType, config));
+        Instant now = Instant.now();
+
+        ChartData cached = cache.get(key);
+        if (cached != null && isFresh(cached, now)) {
+            hits.incrementAndGet();
+            return new Result(cached, true);
+        }
+
+        return computeOnce(key, dataset, chartType, config, now);
+    }
+
+    /** Concurrent misses on one key wait for the first caller's query instead of each running it. */
+    private Result computeOnce(String key, Dataset dataset, ChartType chartType, ChartConfig config, Instant now)
+            throws IOException {
+        CompletableFuture<ChartData> mine = new CompletableFuture<>();
+        CompletableFuture<ChartData> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            ChartData data = join(existing);
+            hits.incrementAndGet();
+            return new Result(data, true);
+        }
+
+        try {
+            // another caller may have finished between the cache check and claiming the key
+            ChartData cached = cache.get(key);
+            if (cached != null && isFresh(cached, now)) {
+                hits.incrementAndGet();
+                mine.complete(cached);
+                return new Result(cached, true);
+            }
+
+            misses.incrementAndGet();
+            ChartData data = compute(dataset, chartType, config, now);
+            cache.put(key, data);
+            mine.complete(data);
+            if (cache.size() > maxEntries) {
+                evictExpired();
+            }
+            return new Result(data, false);
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    public void invalidateDataset(Long datasetId) {
+        String prefix = datasetId + ":";
+        cache.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("entries", (long) cache.size());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${chart.cache.sweep-interval-ms:300000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        cache.values().removeIf(data -> !isFresh(data, now));
+
+        int excess = cache.size() - maxEntries;
+        if (excess > 0) {
+            cache.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue(Comparator.comparing(ChartData::computedAt)))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(cache::remove);
+        }
+    }
+
+    private boolean isFresh(ChartData data, Instant now) {
+        return now.isBefore(data.computedAt().plus(Duration.ofMinutes(ttlMinutes)));
+    }
+
+    private ChartConfig normalize(ChartType chartType, ChartConfig config) {
+        boolean pie = chartType == ChartType.PIE;
+
+        config.setX(trimToNull(config.getX()));
+        if (config.getX() == null) {
+            throw new IllegalArgumentException("x is required");
+        }
+
+        List<String> y = new ArrayList<>();
+        if (config.getY() != null) {
+            for (String column : config.getY()) {
+                if (trimToNull(column) != null) {
+                    y.add(column.trim());
+                }
+            }
+        }
+        config.setY(y);
+
+        String aggregation = trimToNull(config.getAggregation());
+        aggregation = aggregation == null ? (y.isEmpty() ? "count" : "sum") : aggregation.toLowerCase(Locale.ROOT);
+        if (!AGGREGATIONS.contains(aggregation)) {
+            throw new IllegalArgumentException("Unknown aggregation: " + config.getAggregation());
+        }
+        if (y.isEmpty() && !aggregation.equals("count")) {
+            throw new IllegalArgumentException(aggregation + " needs a y column");
+        }
+        config.setAggregation(aggregation);
+
+        config.setSeries(trimToNull(config.getSeries()));
+        if (config.getSeries() != null && y.size() > 1) {
+            throw new IllegalArgumentException("A series column can only be combined with one y column");
+        }
+        if (pie && (y.size() > 1 || config.getSeries() != null)) {
+            throw new IllegalArgumentException("Pie charts take a single y column and no series column");
+        }
+
+        String sort = trimToNull(config.getSort());
+        sort = sort == null ? (pie ? "value" : "key") : sort.toLowerCase(Locale.ROOT);
+        if (!sort.equals("key") && !sort.equals("value")) {
+            throw new IllegalArgumentException("sort must be 'key' or 'value'");
+        }
+        config.setSort(sort);
+
+        int limit = config.getLimit() != null ? config.getLimit() : (pie ? defaultPieSlices : defaultLimit);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be > 0");
+        }
+        config.setLimit(limit);
+
+        List<QueryRequest.FilterSpec> filters = new ArrayList<>();
+        if (config.getFilters() != null) {
+            for (QueryRequest.FilterSpec filter : config.getFilters()) {
+                if (filter.getColumn() == null || filter.getOperator() == null) {
+                    throw new IllegalArgumentException("Filters need a column and an operator");
+                }
+                filter.setColumn(filter.getColumn().trim());
+                filter.setOperator(filter.getOperator().trim().toLowerCase(Locale.ROOT));
+                filter.setValues(filter.getValues() == null ? List.of() : filter.getValues());
+                filters.add(filter);
+            }
+        }
+        // filters are ANDed, so their order doesn't change the result
+        filters.sort(Comparator.comparing(QueryRequest.FilterSpec::getColumn)
+                .thenComparing(QueryRequest.FilterSpec::getOperator)
+                .thenComparing(filter -> String.join("\u0000", filter.getValues())));
+        config.setFilters(filters);
+        return config;
+    }
+
+    /** Every token length-prefixed, so no column name or value can run into the next one. */
+    private static String canonicalForm(ChartType chartType, ChartConfig config) {
+        StringBuilder out = new StringBuilder();
+        token(out, chartType.name());
+        token(out, config.getX());
+        token(out, String.valueOf(config.getY().size()));
+        config.getY().forEach(column -> token(out, column));
+        token(out, config.getAggregation());
+        token(out, config.getSeries() == null ? "" : "s" + config.getSeries());
+        token(out, config.getSort());
+        token(out, String.valueOf(config.getLimit()));
+        token(out, String.valueOf(config.getFilters().size()));
+        for (QueryRequest.FilterSpec filter : config.getFilters()) {
+            token(out, filter.getColumn());
+            token(out, filter.getOperator());
+            token(out, String.valueOf(filter.getValues().size()));
+            filter.getValues().forEach(value -> token(out, value));
+        }
+        return out.toString();
+    }
+
+    private static void token(StringBuilder out, String value) {
+        out.append(value.length()).append(':').append(value);
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private ChartData compute(Dataset dataset, ChartType chartType, ChartConfig config, Instant now)
+            throws IOException {
+        boolean pie = chartType == ChartType.PIE;
+        boolean pivot = config.getSeries() != null;
+
+        QueryRequest request = new QueryRequest();
+        request.getGroupBy().add(config.getX());
+        if (pivot) {
+            request.getGroupBy().add(config.getSeries());
+        }
+        if (config.getY().isEmpty()) {
+            request.getAggregates().add(aggregate("count", null));
+        } else {
+            config.getY().forEach(column -> request.getAggregates().add(aggregate(config.getAggregation(), column)));
+        }
+        request.setFilters(config.getFilters());
+        request.setSort(pivot ? "key" : config.getSort());
+        // pies need every slice to total up "Other"; pivots need every (x, series) pair
+        request.setLimit(pie || pivot ? Integer.MAX_VALUE : config.getLimit());
+
+        QueryResponse response = datasetQueryService.query(dataset, request);
+        if (pivot) {
+            return pivot(response, config.getLimit(), now);
+        }
+
+        List<List<Object>> rows = response.getRows();
+        List<Object> labels = new ArrayList<>();
+        List<Series> series = new ArrayList<>();
+        for (int i = 1; i < response.getColumns().size(); i++) {
+            series.add(new Series(response.getColumns().get(i), new ArrayList<>()));
+        }
+        int shown = Math.min(rows.size(), config.getLimit());
+        for (int r = 0; r < shown; r++) {
+            labels.add(rows.get(r).get(0));
+            for (int i = 0; i < series.size(); i++) {
+                series.get(i).data().add(rows.get(r).get(i + 1));
+            }
+        }
+
+        boolean truncated = response.getTruncated() || shown < rows.size();
+        boolean additive = config.getAggregation().equals("count") || config.getAggregation().equals("sum");
+        if (pie && truncated && additive) {
+            labels.add(OTHER_LABEL);
+            series.get(0).data().add(otherSlice(dataset, request, rows, shown, response.getTruncated()));
+        }
+
+        return new ChartData(labels, series, response.getGroupCount(), truncated, response.getMatchedRows(), now);
+    }
+
+    /**
+     * Sum of the slices past the limit. When the query itself was cut off, the remainder is taken
+     * from an ungrouped total instead.
+     */
+    private Object otherSlice(Dataset dataset, QueryRequest request, List<List<Object>> rows, int shown,
+                              boolean incomplete) throws IOException {
+        double rest = 0;
+        if (incomplete) {
+            QueryRequest totalRequest = new QueryRequest();
+            totalRequest.setAggregates(request.getAggregates());
+            totalRequest.setFilters(request.getFilters());
+            List<Object> total = datasetQueryService.query(dataset, totalRequest).getRows().get(0);
+            rest = total.get(0) == null ? 0 : ((Number) total.get(0)).doubleValue();
+            for (int r = 0; r < shown; r++) {
+                rest -= value(rows.get(r).get(1));
+            }
+        } else {
+            for (int r = shown; r < rows.size(); r++) {
+                rest += value(rows.get(r).get(1));
+            }
+        }
+        // integer sums and counts stay integers
+        boolean integral = rows.get(0).get(1) instanceof Long;
+        return integral ? (Object) Math.round(rest) : rest;
+    }
+
+    /** Rows come sorted by (x, series); spreads them into one series per series value. */
+    private static ChartData pivot(QueryResponse response, int limit, Instant now) {
+        Map<Object, Integer> labelIndex = new LinkedHashMap<>();
+        Map<Object, List<Object>> bySeries = new TreeMap<>(Comparator.nullsLast(ChartSeriesService::compareValues));
+        List<List<Object>> rows = response.getRows();
+
+        for (List<Object> row : rows) {
+            Object label = row.get(0);
+            Integer index = labelIndex.get(label);
+            if (index == null) {
+                if (labelIndex.size() >= limit) {
+                    continue;
+                }
+                index = labelIndex.size();
+                labelIndex.put(label, index);
+            }
+            List<Object> data = bySeries.computeIfAbsent(row.get(1), name -> new ArrayList<>());
+            while (data.size() <= index) {
+                data.add(null);
+            }
+            data.set(index, row.get(2));
+        }
+
+        List<Series> series = new ArrayList<>(bySeries.size());
+        bySeries.forEach((name, data) -> {
+            while (data.size() < labelIndex.size()) {
+                data.add(null);
+            }
+            series.add(new Series(name == null ? null : name.toString(), data));
+        });
+
+        long categories = rows.stream().map(row -> row.get(0)).distinct().count();
+        boolean truncated = response.getTruncated() || categories > labelIndex.size();
+        return new ChartData(new ArrayList<>(labelIndex.keySet()), series, (int) categories, truncated,
+                response.getMatchedRows(), now);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private static QueryRequest.AggregateSpec aggregate(String function, String column) {
+        QueryRequest.AggregateSpec spec = new QueryRequest.AggregateSpec();
+        spec.setFunction(function);
+        spec.setColumn(column);
+        return spec;
+    }
+
+    private static double value(Object value) {
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
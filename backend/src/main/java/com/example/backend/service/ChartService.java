@@ -0,0 +1,65 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.charts.ChartRequest;
+import com.example.backend.model.Chart;
+import com.example.backend.model.Dataset;
+import com.example.backend.repository.ChartRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Saved charts. Configs are validated on save with the same rules the series endpoint applies, so
+ * a stored chart always renders.
+ */
+@Service
+public class ChartService {
+
+    private final ChartRepository chartRepository;
+    private final ChartSeriesService chartSeriesService;
+
+    public ChartService(ChartRepository chartRepository, ChartSeriesService chartSeriesService) {
+        this.chartRepository = chartRepository;
+        this.chartSeriesService = chartSeriesService;
+    }
+
+    public List<Chart> getUserCharts(Long userId, Long datasetId) {
+        if (datasetId != null) {
+            return chartRepository.findByUserIdAndDatasetIdOrderByCreatedAtDesc(userId, datasetId);
+        }
+        return chartRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    }
+
+    public Chart getChart(Long chartId, Long userId) {
+        return chartRepository.findByIdAndUserId(chartId, userId)
+                .orElse(null);
+    }
+
+    public Chart createChart(Dataset dataset, ChartRequest request) {
+        Chart chart = new Chart();
+        chart.setDataset(dataset);
+        chart.setUser(dataset.getUser());
+        apply(chart, request);
+        return chartRepository.save(chart);
+    }
+
+    public Chart updateChart(Chart chart, ChartRequest request) {
+        apply(chart, request);
+        return chartRepository.save(chart);
+    }
+
+    public void deleteChart(Chart chart) {
+        chartRepository.delete(chart);
+    }
+
+    private void apply(Chart chart, ChartRequest request) {
+        if (request.getTitle() == null || request.getTitle().isBlank()) {
+            throw new IllegalArgumentException("title is required");
+        }
+        chartSeriesService.parseConfig(request.getChartType(), request.getConfigJson());
+
+        chart.setTitle(request.getTitle().trim());
+        chart.setChartType(request.getChartType());
+        chart.setConfigJson(request.getConfigJson());
+    }
+}
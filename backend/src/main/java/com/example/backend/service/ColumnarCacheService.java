@@ -0,0 +1,146 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetColumn;
+import com.example.backend.processing.ColumnarFile;
+import com.example.backend.processing.ColumnarFileWriter;
+import com.example.backend.processing.ColumnarFileWriter.ColumnSpec;
+import com.example.backend.processing.TabularFileReader;
+import com.example.backend.repository.DatasetColumnRepository;
+import com.example.backend.repository.DatasetRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a typed, columnar copy of each dataset on local disk so read paths can work on primitive
+ * arrays instead of re-parsing the original file.
+ */
+@Slf4j
+@Service
+public class ColumnarCacheService {
+
+    @Value("${dataset.columnar.dir:${java.io.tmpdir}/dataset-columnar}")
+    private String columnarDir;
+
+    private Path root;
+
+    private final DatasetRepository datasetRepository;
+    private final DatasetColumnRepository datasetColumnRepository;
+
+    public ColumnarCacheService(DatasetRepository datasetRepository, DatasetColumnRepository datasetColumnRepository) {
+        this.datasetRepository = datasetRepository;
+        this.datasetColumnRepository = datasetColumnRepository;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        this.root = Paths.get(columnarDir).toAbsolutePath();
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Second pass over the local file once profiling has fixed the column types and row count.
+     *
+     * @param rowCount data rows the profiler counted; the file is laid out for exactly this many
+     */
+    public void build(Long datasetId, Path file, String originalFilename, int rowCount) throws IOException {
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new RuntimeException("Dataset not found"));
+        List<ColumnSpec> specs = datasetColumnRepository.findByDatasetIdOrderByColumnIndex(datasetId).stream()
+                .map(this::toSpec)
+                .collect(Collectors.toList());
+
+        Path target = pathFor(datasetId);
+        Path partial = root.resolve(datasetId + "-" + UUID.randomUUID() + ".partial");
+        try {
+            try (ColumnarFileWriter writer = new ColumnarFileWriter(partial, specs, rowCount)) {
+                // the first row the reader emits is the header, as in profiling, even when a
+                // sheet leaves its first rows empty
+                boolean[] headerSeen = new boolean[1];
+                TabularFileReader.read(file, originalFilename, (rowNum, values) -> {
+                    if (headerSeen[0]) {
+                        writer.acceptRow(values);
+                    } else {
+                        headerSeen[0] = true;
+                    }
+                    return true;
+                });
+                writer.finish();
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        dataset.setColumnarPath(target.toString());
+        dataset.setColumnarFormatVersion(ColumnarFile.VERSION);
+        datasetRepository.save(dataset);
+    }
+
+    /**
+     * @return the mapped file, or {@code null} if the dataset has no usable columnar copy
+     */
+    public ColumnarFile open(Dataset dataset) throws IOException {
+        if (dataset.getColumnarPath() == null
+                || !ColumnarFile.isSupportedVersion(dataset.getColumnarFormatVersion())) {
+            return null;
+        }
+        Path path = Paths.get(dataset.getColumnarPath());
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return ColumnarFile.open(path);
+    }
+
+    /**
+     * Gives {@code targetId} its own name for the source's columnar file. A hard link costs nothing
+     * and lets either dataset be deleted independently; filesystems without links get a copy.
+     */
+    public void share(Dataset source, Dataset target) {
+        if (source.getColumnarPath() == null) {
+            return;
+        }
+        Path from = Paths.get(source.getColumnarPath());
+        Path to = pathFor(target.getId());
+        try {
+            try {
+                Files.createLink(to, from);
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING);
+            }
+            target.setColumnarPath(to.toString());
+            target.setColumnarFormatVersion(source.getColumnarFormatVersion());
+        } catch (IOException e) {
+            // the copy is only a cache; rows fall back to the original file
+            log.warn("Could not share columnar file of dataset {} with {}: {}",
+                    source.getId(), target.getId(), e.getMessage());
+        }
+    }
+
+    public void delete(Long datasetId) {
+        try {
+            Files.deleteIfExists(pathFor(datasetId));
+        } catch (IOException e) {
+            log.warn("Could not delete columnar file for dataset {}: {}", datasetId, e.getMessage());
+        }
+    }
+
+    private Path pathFor(Long datasetId) {
+        return root.resolve(datasetId + ".col");
+    }
+
+    private ColumnSpec toSpec(DatasetColumn column) {
+        return new ColumnSpec(column.getColumnName(), column.getDataType(), column.getFormatPattern());
+    }
+}
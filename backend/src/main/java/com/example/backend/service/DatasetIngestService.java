@@ -0,0 +1,166 @@
+package com.example.backend.service;
+
+import com.example.backend.config.IngestExecutorConfig;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetStatus;
+import com.example.backend.model.StorageCodec;
+import com.example.backend.processing.TeeInputStream;
+import com.example.backend.repository.DatasetRepository;
+import com.example.backend.service.ObjectUploadService.MultipartSink;
+import com.example.backend.service.UploadSpoolService.SpooledUpload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class DatasetIngestService {
+
+    private final DatasetProcessingService datasetProcessingService;
+    private final ObjectUploadService objectUploadService;
+    private final ColumnarCacheService columnarCacheService;
+    private final DatasetPreviewService datasetPreviewService;
+    private final DatasetRowService datasetRowService;
+    private final DatasetRepository datasetRepository;
+    private final UploadSpoolService uploadSpoolService;
+    private final PresignedUrlService presignedUrlService;
+    private final StorageUsageService storageUsageService;
+
+    public DatasetIngestService(DatasetProcessingService datasetProcessingService, ObjectUploadService objectUploadService,
+                                ColumnarCacheService columnarCacheService, DatasetPreviewService datasetPreviewService,
+                                DatasetRowService datasetRowService, DatasetRepository datasetRepository,
+                                UploadSpoolService uploadSpoolService, PresignedUrlService presignedUrlService,
+                                StorageUsageService storageUsageService) {
+        this.datasetProcessingService = datasetProcessingService;
+        this.objectUploadService = objectUploadService;
+        this.columnarCacheService = columnarCacheService;
+        this.datasetPreviewService = datasetPreviewService;
+        this.datasetRowService = datasetRowService;
+        this.datasetRepository = datasetRepository;
+        this.uploadSpoolService = uploadSpoolService;
+        this.presignedUrlService = presignedUrlService;
+        this.storageUsageService = storageUsageService;
+    }
+
+    public record IngestJob(Long datasetId, String objectKey, String originalFilename, String contentType,
+                            SpooledUpload upload, StorageCodec codec, long submittedAtNanos) {
+    }
+
+    /**
+     * Stores and profiles a spooled upload on the ingest executor. The job owns the spool file
+     * and releases it once processing finishes.
+     */
+    @Async(IngestExecutorConfig.INGEST_EXECUTOR)
+    public void processDatasetAsync(IngestJob job) {
+        long startedAt = System.nanoTime();
+        boolean succeeded = false;
+
+        try {
+            int rowCount = datasetProcessingService.supportsStreaming(job.upload().path(), job.originalFilename())
+                    ? uploadAndProfileInOnePass(job)
+                    : uploadAndProfileConcurrently(job);
+            datasetPreviewService.captureSnapshot(job.datasetId(), job.upload().path(), job.originalFilename());
+            datasetRowService.buildIndex(job.datasetId(), job.upload().path(), job.originalFilename());
+            buildColumnarCopy(job, rowCount);
+            datasetProcessingService.markCompleted(job.datasetId());
+            succeeded = true;
+            warmDownloadUrl(job);
+        } catch (Exception e) {
+            log.error("Processing of dataset {} failed: {}", job.datasetId(), e.getMessage(), e);
+            Dataset dataset = datasetRepository.findById(job.datasetId()).orElse(null);
+            if (dataset != null) {
+                dataset.setStatus(DatasetStatus.FAILED);
+                datasetRepository.save(dataset);
+            }
+        } finally {
+            uploadSpoolService.release(job.upload().path());
+            long finishedAt = System.nanoTime();
+            log.info("Dataset {} {} in {} ms (queued {} ms)",
+                    job.datasetId(),
+                    succeeded ? "processed" : "failed",
+                    TimeUnit.NANOSECONDS.toMillis(finishedAt - startedAt),
+                    TimeUnit.NANOSECONDS.toMillis(startedAt - job.submittedAtNanos()));
+        }
+    }
+
+    /**
+     * Reads the spool file once: the profiler consumes the stream while every byte it reads is
+     * copied into the multipart sink, whose parts upload in the background.
+     */
+    private int uploadAndProfileInOnePass(IngestJob job) throws IOException {
+        try (MultipartSink sink = objectUploadService.open(
+                job.objectKey(), job.contentType(), objectMetadata(job), job.codec());
+             TeeInputStream in = new TeeInputStream(Files.newInputStream(job.upload().path()), sink)) {
+            int rowCount;
+            try {
+                rowCount = datasetProcessingService.profileStream(job.datasetId(), in);
+            } catch (IOException | RuntimeException e) {
+                // the sink is aborted on close, so the unread rest of the file is not copied into it
+                in.abort();
+                throw e;
+            }
+            in.close();
+            sink.complete();
+            storageUsageService.recordObjectStored(job.datasetId(), sink.getStoredBytes());
+            return rowCount;
+        }
+    }
+
+    /**
+     * Files that need random access (xlsx, or CSVs large enough for parallel profiling) are
+     * uploaded from the spool file in the background while this thread profiles them.
+     */
+    private int uploadAndProfileConcurrently(IngestJob job) throws IOException {
+        CompletableFuture<Long> upload = objectUploadService.uploadFileAsync(
+                job.objectKey(), job.upload().path(), job.contentType(), objectMetadata(job), job.codec());
+
+        try {
+            return datasetProcessingService.profileFile(job.datasetId(), job.upload().path(), job.originalFilename());
+        } finally {
+            try {
+                // recorded even if profiling failed: the object is in the bucket either way
+                storageUsageService.recordObjectStored(job.datasetId(), upload.join());
+            } catch (CompletionException e) {
+                throw new IOException("Upload of " + job.objectKey() + " failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The columnar copy is only a cache; without it reads fall back to the original file, so a
+     * failure doesn't fail the dataset. It is still a bug, and is logged as one.
+     */
+    private void buildColumnarCopy(IngestJob job, int rowCount) {
+        long startedAt = System.nanoTime();
+        try {
+            columnarCacheService.build(job.datasetId(), job.upload().path(), job.originalFilename(), rowCount);
+            log.info("Columnar copy of dataset {} written in {} ms",
+                    job.datasetId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (IOException | RuntimeException e) {
+            log.error("Columnar copy of dataset {} failed; reads will use the original file", job.datasetId(), e);
+            columnarCacheService.delete(job.datasetId());
+        }
+    }
+
+    /**
+     * Signs the download URL now, so the first download request is served from the cache.
+     */
+    private void warmDownloadUrl(IngestJob job) {
+        try {
+            presignedUrlService.get(job.objectKey(), job.originalFilename());
+        } catch (RuntimeException e) {
+            log.warn("Could not presign download URL for dataset {}: {}", job.datasetId(), e.getMessage());
+        }
+    }
+
+    private static Map<String, String> objectMetadata(IngestJob job) {
+        return Map.of("sha256", job.upload().sha256());
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.datasets.FilteredPreviewResponse;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetArtifacts;
+import com.example.backend.model.StorageCodec;
+import com.example.backend.processing.ColumnarFile;
+import com.example.backend.processing.ColumnarQuery;
+import com.example.backend.processing.CsvFormats;
+import com.example.backend.processing.PreviewSnapshot;
+import com.example.backend.processing.TabularFileReader;
+import com.example.backend.processing.XlsxRowReader;
+import com.example.backend.repository.DatasetArtifactsRepository;
+import com.example.backend.repository.DatasetRepository;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class DatasetPreviewService {
+
+    @Value("${backblaze.bucket-name}")
+    private String bucketName;
+
+    @Value("${dataset.preview.snapshot-rows:100}")
+    private int snapshotRows;
+
+    @Value("${dataset.preview.initial-range-bytes:65536}")
+    private int initialRangeBytes;
+
+    @Value("${dataset.preview.max-range-bytes:4194304}")
+    private int maxRangeBytes;
+
+    private final S3Client s3Client;
+    private final ObjectCacheService objectCacheService;
+    private final DatasetRepository datasetRepository;
+    private final DatasetArtifactsRepository datasetArtifactsRepository;
+    private final ColumnarCacheService columnarCacheService;
+
+    public DatasetPreviewService(S3Client s3Client, ObjectCacheService objectCacheService,
+                                 DatasetRepository datasetRepository, DatasetArtifactsRepository datasetArtifactsRepository,
+                                 ColumnarCacheService columnarCacheService) {
+        this.s3Client = s3Client;
+        this.objectCacheService = objectCacheService;
+        this.datasetRepository = datasetRepository;
+        this.datasetArtifactsRepository = datasetArtifactsRepository;
+        this.columnarCacheService = columnarCacheService;
+    }
+
+    /**
+     * Stores the first rows of the local upload on the dataset. Reading stops as soon as enough
+     * rows have been seen.
+     */
+    public void captureSnapshot(Long datasetId, Path file, String originalFilename) throws IOException {
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new RuntimeException("Dataset not found"));
+
+        PreviewSnapshot.Collector collector = new PreviewSnapshot.Collector(snapshotRows);
+        TabularFileReader.read(file, originalFilename, collector);
+
+        DatasetArtifacts artifacts = datasetArtifactsRepository.findById(datasetId).orElseGet(() -> {
+            DatasetArtifacts created = new DatasetArtifacts();
+            created.setDatasetId(datasetId);
+            return created;
+        });
+        artifacts.setPreviewSnapshot(collector.encode());
+        datasetArtifactsRepository.save(artifacts);
+
+        dataset.setPreviewRowCount(collector.getRowCount());
+        datasetRepository.save(dataset);
+    }
+
+    public List<Map<String, Object>> getDataPreview(Dataset dataset, int limit) throws IOException {
+        if (snapshotCovers(dataset, limit)) {
+            String snapshot = datasetArtifactsRepository.findById(dataset.getId())
+                    .map(DatasetArtifacts::getPreviewSnapshot)
+                    .orElse(null);
+            if (snapshot != null) {
+                return PreviewSnapshot.decode(snapshot, limit);
+            }
+        }
+
+        String fileName = dataset.getFilePath().toLowerCase();
+
+        if (fileName.endsWith(".csv")) {
+            return getCSVPreview(dataset, limit);
+        } else if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
+            // zip and OLE2 containers keep their index at the end, so there is no cheap prefix to fetch;
+            // read the whole object through the local cache instead
+            try (InputStream in = objectCacheService.openStream(dataset.getFilePath())) {
+                return getExcelPreview(in, fileName, limit);
+            }
+        }
+
+        throw new RuntimeException("Unsupported file type");
+    }
+
+    /**
+     * First rows matching every filter, read from the columnar copy rather than the original
+     * file. Zone maps let the scan skip blocks whose value ranges cannot match.
+     *
+     * @param filters expressions of the form {@code column:operator[:value]}
+     */
+    public FilteredPreviewResponse getFilteredPreview(Dataset dataset, List<String> filters, int limit)
+            throws IOException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be > 0");
+        }
+        List<ColumnarQuery.Filter> parsed = new ArrayList<>(filters.size());
+        for (String filter : filters) {
+            parsed.add(ColumnarQuery.Filter.parse(filter));
+        }
+
+        long startedAt = System.nanoTime();
+        try (ColumnarFile file = columnarCacheService.open(dataset)) {
+            if (file == null) {
+                throw new RuntimeException("Filtered preview is not available for this dataset");
+            }
+            ColumnarQuery.Selection selection = ColumnarQuery.select(file, parsed, limit);
+
+            List<String> columns = new ArrayList<>(file.getColumns().size());
+            for (ColumnarFile.Column column : file.getColumns()) {
+                columns.add(column.getName());
+            }
+            List<Map<String, Object>> rows = new ArrayList<>(selection.rows().length);
+            for (int row : selection.rows()) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (ColumnarFile.Column column : file.getColumns()) {
+                    values.put(column.getName(), column.getValue(row));
+                }
+                rows.add(values);
+            }
+
+            FilteredPreviewResponse response = new FilteredPreviewResponse();
+            response.setColumns(columns);
+            response.setRows(rows);
+            response.setBlocksScanned(selection.stats().blocksScanned());
+            response.setBlocksSkipped(selection.stats().blocksSkipped());
+            response.setElapsedMs((System.nanoTime() - startedAt) / 1_000_000);
+            return response;
+        }
+    }
+
+    /**
+     * Whether the stored snapshot can answer a preview of {@code limit} rows: it holds that many,
+     * or it holds every row of the dataset. Datasets ingested before the row count was persisted
+     * have a total of 0, which says nothing, so for them only the first test counts. The row
+     * count is set with the snapshot, so the snapshot itself is only loaded once it is needed.
+     */
+    private static boolean snapshotCovers(Dataset dataset, int limit) {
+        Integer snapshotRows = dataset.getPreviewRowCount();
+        if (snapshotRows == null) {
+            return false;
+        }
+        Integer totalRows = dataset.getTotalRows();
+        return limit <= snapshotRows || (totalRows != null && totalRows > 0 && snapshotRows >= totalRows);
+    }
+
+    private List<Map<String, Object>> getCSVPreview(Dataset dataset, int limit) throws IOException {
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        // fileSize is the uncompressed length, so compressed objects learn their size from the first range
+        StorageCodec codec = StorageCodec.of(dataset.getStorageCodec());
+        long storedSize = codec == StorageCodec.NONE ? dataset.getFileSize() : -1;
+
+        try (InputStream in = codec.decode(new RangedObjectInputStream(s3Client, bucketName, dataset.getFilePath(), 0,
+                storedSize, initialRangeBytes, maxRangeBytes));
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+             CSVParser csvParser = new CSVParser(reader, CsvFormats.WITH_HEADER)) {
+
+            List<String> headers = csvParser.getHeaderNames();
+
+            for (CSVRecord record : csvParser) {
+                if (result.size() >= limit) break;
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int j = 0; j < headers.size(); j++) {
+                    row.put(headers.get(j), j < record.size() ? record.get(j) : "");
+                }
+                result.add(row);
+            }
+        }
+
+        return result;
+    }
+
+    private List<Map<String, Object>> getExcelPreview(InputStream in, String fileName, int limit) throws IOException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        List<String> headers = new ArrayList<>();
+
+        XlsxRowReader.RowHandler handler = (rowNum, values) -> {
+            if (headers.isEmpty()) {
+                headers.addAll(values);
+                return limit > 0;
+            }
+
+            Map<String, Object> rowMap = new LinkedHashMap<>();
+            for (int j = 0; j < headers.size(); j++) {
+                rowMap.put(headers.get(j), j < values.size() ? values.get(j) : "");
+            }
+            result.add(rowMap);
+            return result.size() < limit;
+        };
+
+        if (fileName.endsWith(".xlsx")) {
+            XlsxRowReader.read(in, handler);
+        } else {
+            try (Workbook workbook = new HSSFWorkbook(in)) {
+                TabularFileReader.readWorkbook(workbook, handler);
+            }
+        }
+
+        return result;
+    }
+}
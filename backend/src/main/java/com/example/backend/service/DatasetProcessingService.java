@@ -1,317 +1,193 @@
 package com.example.backend.service;
 
 
-import com.example.backend.model.ColumnType;
 import com.example.backend.model.Dataset;
 import com.example.backend.model.DatasetColumn;
 import com.example.backend.model.DatasetStatus;
+import com.example.backend.processing.CsvFormats;
+import com.example.backend.processing.DatasetProfiler;
+import com.example.backend.processing.ParallelCsvProfiler;
+import com.example.backend.processing.ProfilingOptions;
+import com.example.backend.processing.TabularFileReader;
 import com.example.backend.repository.DatasetColumnRepository;
 import com.example.backend.repository.DatasetRepository;
-import org.apache.commons.csv.CSVFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class DatasetProcessingService {
 
-    private final DatasetRepository datasetRepository;
-    private final DatasetColumnRepository datasetColumnRepository;
-
-    public DatasetProcessingService(DatasetRepository datasetRepository, DatasetColumnRepository datasetColumnRepository) {
-        this.datasetRepository = datasetRepository;
-        this.datasetColumnRepository = datasetColumnRepository;
-    }
+    private static final long MIN_CHUNK_BYTES = 4L * 1024 * 1024;
 
-    public void processDataset(Long datasetId, MultipartFile file) throws Exception {
-        Dataset dataset = datasetRepository.findById(datasetId)
-                .orElseThrow(() -> new RuntimeException("Dataset not found"));
-
-        String fileName = file.getOriginalFilename();
-
-        if (fileName.toLowerCase().endsWith(".csv")) {
-            processCSV(dataset, file);
-        } else if (fileName.toLowerCase().endsWith(".xlsx") || fileName.toLowerCase().endsWith(".xls")) {
-            processExcel(dataset, file);
-        } else {
-            throw new RuntimeException("Unsupported file format");
-        }
+    @Value("${dataset.profiling.parallelism:0}")
+    private int parallelism;
 
-        dataset.setStatus(DatasetStatus.COMPLETED);
-        datasetRepository.save(dataset);
-    }
+    @Value("${dataset.profiling.parallel-threshold-bytes:16777216}")
+    private long parallelThresholdBytes;
 
-    private void processCSV(Dataset dataset, MultipartFile file) throws IOException {
-        try (Reader reader = new InputStreamReader(file.getInputStream());
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT
-                     .withFirstRecordAsHeader()
-                     .withIgnoreHeaderCase()
-                     .withTrim())) {
+    @Value("${dataset.profiling.distinct-exact-threshold:100000}")
+    private int distinctExactThreshold;
 
-            List<CSVRecord> records = csvParser.getRecords();
-            Map<String, Integer> headers = csvParser.getHeaderMap();
+    @Value("${dataset.profiling.hll-precision:14}")
+    private int hllPrecision;
 
-            if (records.isEmpty()) {
-                throw new RuntimeException("CSV file is empty");
-            }
+    @Value("${dataset.profiling.type-sample-size:1000}")
+    private int typeSampleSize;
 
-            dataset.setTotalRows(records.size());
-            dataset.setTotalColumns(headers.size());
+    @Value("${dataset.profiling.histogram-bins:20}")
+    private int histogramBins;
 
-            List<DatasetColumn> columns = new ArrayList<>();
-            int columnIndex = 0;
+    private ForkJoinPool profilingPool;
+    private ProfilingOptions profilingOptions;
 
-            for (String columnName : headers.keySet()) {
-                DatasetColumn column = analyzeColumn(dataset, columnName, columnIndex, records);
-                columns.add(column);
-                columnIndex++;
-            }
+    private final DatasetRepository datasetRepository;
+    private final DatasetColumnRepository datasetColumnRepository;
+    private final TransactionTemplate transactionTemplate;
 
-            datasetColumnRepository.saveAll(columns);
-        }
+    public DatasetProcessingService(DatasetRepository datasetRepository, DatasetColumnRepository datasetColumnRepository,
+                                    TransactionTemplate transactionTemplate) {
+        this.datasetRepository = datasetRepository;
+        this.datasetColumnRepository = datasetColumnRepository;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    private void processExcel(Dataset dataset, MultipartFile file) throws IOException {
-        Workbook workbook = null;
-
-        try {
-            if (file.getOriginalFilename().toLowerCase().endsWith(".xlsx")) {
-                workbook = new XSSFWorkbook(file.getInputStream());
-            } else {
-                workbook = new HSSFWorkbook(file.getInputStream());
-            }
-
-            Sheet sheet = workbook.getSheetAt(0);
-
-            if (sheet.getPhysicalNumberOfRows() < 2) {
-                throw new RuntimeException("Excel file must have at least a header row and one data row");
-            }
-
-            Row headerRow = sheet.getRow(0);
-            List<String> headers = new ArrayList<>();
-            for (Cell cell : headerRow) {
-                headers.add(getCellValueAsString(cell));
-            }
-
-            List<List<String>> rows = new ArrayList<>();
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-
-                List<String> rowData = new ArrayList<>();
-                for (int j = 0; j < headers.size(); j++) {
-                    Cell cell = row.getCell(j);
-                    rowData.add(cell == null ? "" : getCellValueAsString(cell));
-                }
-                rows.add(rowData);
-            }
-
-            dataset.setTotalRows(rows.size());
-            dataset.setTotalColumns(headers.size());
-
-            List<DatasetColumn> columns = new ArrayList<>();
-            for (int i = 0; i < headers.size(); i++) {
-                DatasetColumn column = analyzeExcelColumn(dataset, headers.get(i), i, rows, i);
-                columns.add(column);
-            }
-
-            datasetColumnRepository.saveAll(columns);
-
-        } finally {
-            if (workbook != null) {
-                workbook.close();
-            }
-        }
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.profilingPool = new ForkJoinPool(threads);
+        this.profilingOptions = ProfilingOptions.builder()
+                .exactDistinctThreshold(distinctExactThreshold)
+                .hllPrecision(hllPrecision)
+                .typeSampleSize(typeSampleSize)
+                .histogramBins(histogramBins)
+                .build();
     }
 
-
-    private DatasetColumn analyzeColumn(Dataset dataset, String columnName, int columnIndex, List<CSVRecord> records) {
-        List<String> values = records.stream()
-                .map(record -> record.get(columnName))
-                .collect(Collectors.toList());
-
-        return analyzeColumnData(dataset, columnName, columnIndex, values);
+    @PreDestroy
+    public void shutdown() {
+        profilingPool.shutdown();
     }
 
-
-    private DatasetColumn analyzeExcelColumn(Dataset dataset, String columnName, int columnIndex,
-                                             List<List<String>> rows, int colIdx) {
-        List<String> values = rows.stream()
-                .map(row -> row.get(colIdx))
-                .collect(Collectors.toList());
-
-        return analyzeColumnData(dataset, columnName, columnIndex, values);
+    /**
+     * True when the file can be profiled in a single forward pass over a stream, which lets
+     * the ingest job feed it from the same read that uploads it.
+     */
+    public boolean supportsStreaming(Path file, String originalFilename) throws IOException {
+        return originalFilename.toLowerCase().endsWith(".csv") && Files.size(file) < parallelThresholdBytes;
     }
 
-    private DatasetColumn analyzeColumnData(Dataset dataset, String columnName, int columnIndex, List<String> values) {
-        DatasetColumn column = new DatasetColumn();
-        column.setDataset(dataset);
-        column.setColumnName(columnName);
-        column.setColumnIndex(columnIndex);
-
-        long nullCount = values.stream()
-                .filter(v -> v == null || v.trim().isEmpty())
-                .count();
-        column.setNullCount((int) nullCount);
-
-        List<String> nonNullValues = values.stream()
-                .filter(v -> v != null && !v.trim().isEmpty())
-                .collect(Collectors.toList());
-
-        Set<String> uniqueValues = new HashSet<>(nonNullValues);
-        column.setUniqueValues(uniqueValues.size());
-
-        ColumnType dataType = determineDataType(nonNullValues);
-        column.setDataType(dataType);
-
-        if (dataType == ColumnType.NUMERIC && !nonNullValues.isEmpty()) {
-            calculateNumericStats(column, nonNullValues);
-        }
+    /**
+     * @return the number of data rows profiled
+     */
+    public int profileStream(Long datasetId, InputStream inputStream) throws IOException {
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new RuntimeException("Dataset not found"));
 
-        return column;
+        return profileCsv(dataset, inputStream);
     }
 
+    private int profileCsv(Dataset dataset, InputStream inputStream) throws IOException {
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+             CSVParser csvParser = new CSVParser(reader, CsvFormats.WITH_HEADER)) {
 
-    private ColumnType determineDataType(List<String> values) {
-        if (values.isEmpty()) {
-            return ColumnType.TEXT;
+            DatasetProfiler profiler = new DatasetProfiler(csvParser.getHeaderNames(), profilingOptions, 0L);
+            for (CSVRecord record : csvParser) {
+                profiler.acceptRecord(record);
+            }
+            return saveCsvProfile(dataset, profiler);
         }
+    }
 
-        List<String> sample = values.stream()
-                .limit(100)
-                .collect(Collectors.toList());
-
-        long numericCount = sample.stream()
-                .filter(this::isNumeric)
-                .count();
-
-        long dateCount = sample.stream()
-                .filter(this::isDate)
-                .count();
-
-        long booleanCount = sample.stream()
-                .filter(this::isBoolean)
-                .count();
+    /**
+     * @return the number of data rows profiled
+     */
+    public int profileFile(Long datasetId, Path file, String originalFilename) throws IOException {
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new RuntimeException("Dataset not found"));
 
-        double numericRatio = (double) numericCount / sample.size();
-        double dateRatio = (double) dateCount / sample.size();
-        double booleanRatio = (double) booleanCount / sample.size();
+        String fileName = originalFilename.toLowerCase();
 
-        if (numericRatio >= 0.8) {
-            return ColumnType.NUMERIC;
-        } else if (dateRatio >= 0.8) {
-            return ColumnType.DATE;
-        } else if (booleanRatio >= 0.8) {
-            return ColumnType.BOOLEAN;
+        if (fileName.endsWith(".csv")) {
+            return processCSV(dataset, file);
+        } else if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
+            return processExcel(dataset, file, fileName);
         } else {
-            return ColumnType.TEXT;
+            throw new RuntimeException("Unsupported file format");
         }
     }
 
-
-    private void calculateNumericStats(DatasetColumn column, List<String> values) {
-        List<Double> numbers = values.stream()
-                .filter(this::isNumeric)
-                .map(Double::parseDouble)
-                .sorted()
-                .collect(Collectors.toList());
-
-        if (numbers.isEmpty()) {
-            return;
-        }
-
-        column.setMinValue(numbers.get(0));
-        column.setMaxValue(numbers.get(numbers.size() - 1));
-
-        double mean = numbers.stream()
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-        mean = Math.round(mean * 100.0) / 100.0;
-        column.setMean(mean);
-
-        double median;
-        int size = numbers.size();
-        if (size % 2 == 0) {
-            median = (numbers.get(size / 2 - 1) + numbers.get(size / 2)) / 2.0;
-        } else {
-            median = numbers.get(size / 2);
-        }
-        median = Math.round(median * 100.0) / 100.0;
-        column.setMedian(median);
-
-        double finalMean = mean;
-        double variance = numbers.stream()
-                .mapToDouble(num -> Math.pow(num - finalMean, 2))
-                .average()
-                .orElse(0.0);
-        double stdDev = Math.sqrt(variance);
-        stdDev = Math.round(stdDev * 100.0) / 100.0;
-        column.setStdDev(stdDev);
+    public void markCompleted(Long datasetId) {
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new RuntimeException("Dataset not found"));
+        dataset.setStatus(DatasetStatus.COMPLETED);
+        datasetRepository.save(dataset);
     }
 
-    private boolean isNumeric(String str) {
-        if (str == null || str.trim().isEmpty()) {
-            return false;
+    private int processCSV(Dataset dataset, Path file) throws IOException {
+        if (Files.size(file) >= parallelThresholdBytes) {
+            return saveCsvProfile(dataset, new ParallelCsvProfiler(profilingPool, MIN_CHUNK_BYTES, profilingOptions).profile(file));
         }
-        try {
-            Double.parseDouble(str.trim());
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return profileCsv(dataset, inputStream);
         }
     }
 
-
-    private boolean isDate(String str) {
-        if (str == null || str.trim().isEmpty()) {
-            return false;
+    private int saveCsvProfile(Dataset dataset, DatasetProfiler profiler) {
+        if (profiler.getRowCount() == 0) {
+            throw new RuntimeException("CSV file is empty");
         }
 
-        String datePattern = "^\\d{4}[-/]\\d{1,2}[-/]\\d{1,2}$|^\\d{1,2}[-/]\\d{1,2}[-/]\\d{4}$";
-        return str.trim().matches(datePattern);
+        return saveProfile(dataset, profiler);
     }
 
-    private boolean isBoolean(String str) {
-        if (str == null || str.trim().isEmpty()) {
-            return false;
-        }
-        String lower = str.trim().toLowerCase();
-        return lower.equals("true") || lower.equals("false") ||
-                lower.equals("yes") || lower.equals("no") ||
-                lower.equals("1") || lower.equals("0");
-    }
+    private int processExcel(Dataset dataset, Path file, String fileName) throws IOException {
+        DatasetProfiler[] profiler = new DatasetProfiler[1];
 
+        TabularFileReader.read(file, fileName, (rowNum, values) -> {
+            if (profiler[0] == null) {
+                profiler[0] = new DatasetProfiler(values, profilingOptions, 0L);
+            } else {
+                profiler[0].acceptRow(values);
+            }
+            return true;
+        });
 
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return "";
+        if (profiler[0] == null || profiler[0].getRowCount() == 0) {
+            throw new RuntimeException("Excel file must have at least a header row and one data row");
         }
 
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                }
-                return String.valueOf(cell.getNumericCellValue());
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
-        }
+        return saveProfile(dataset, profiler[0]);
+    }
+
+    /**
+     * Writes the counts and the column profiles in one transaction. The dataset was loaded
+     * before profiling, outside any transaction, so it has to be saved explicitly; later steps
+     * reload it and rely on the persisted row count.
+     */
+    private int saveProfile(Dataset dataset, DatasetProfiler profiler) {
+        dataset.setTotalRows(profiler.getRowCount());
+        dataset.setTotalColumns(profiler.getColumnCount());
+        List<DatasetColumn> columns = profiler.toColumns(dataset);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            datasetRepository.save(dataset);
+            datasetColumnRepository.saveAll(columns);
+        });
+        return profiler.getRowCount();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.datasets.QueryRequest;
+import com.example.backend.dto.datasets.QueryResponse;
+import com.example.backend.model.Dataset;
+import com.example.backend.processing.ColumnarFile;
+import com.example.backend.processing.ColumnarQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Group-by aggregation over a dataset's columnar copy. See {@link ColumnarQuery} for how rows are
+ * scanned; this class only validates the request and maps it onto the engine.
+ */
+@Service
+public class DatasetQueryService {
+
+    @Value("${dataset.query.max-groups:100000}")
+    private int maxGroups;
+
+    @Value("${dataset.query.default-limit:1000}")
+    private int defaultLimit;
+
+    @Value("${dataset.query.max-limit:10000}")
+    private int maxLimit;
+
+    private final ColumnarCacheService columnarCacheService;
+
+    public DatasetQueryService(ColumnarCacheService columnarCacheService) {
+        this.columnarCacheService = columnarCacheService;
+    }
+
+    public QueryResponse query(Dataset dataset, QueryRequest request) throws IOException {
+        List<String> groupBy = request.getGroupBy() != null ? request.getGroupBy() : List.of();
+        List<ColumnarQuery.Aggregate> aggregates = new ArrayList<>();
+        if (request.getAggregates() == null || request.getAggregates().isEmpty()) {
+            aggregates.add(new ColumnarQuery.Aggregate(ColumnarQuery.Function.COUNT, null));
+        } else {
+            for (QueryRequest.AggregateSpec spec : request.getAggregates()) {
+                aggregates.add(new ColumnarQuery.Aggregate(
+                        parse(ColumnarQuery.Function.class, spec.getFunction(), "aggregate function"),
+                        spec.getColumn()));
+            }
+        }
+        List<ColumnarQuery.Filter> filters = new ArrayList<>();
+        if (request.getFilters() != null) {
+            for (QueryRequest.FilterSpec spec : request.getFilters()) {
+                filters.add(new ColumnarQuery.Filter(spec.getColumn(),
+                        parse(ColumnarQuery.Operator.class, spec.getOperator(), "filter operator"),
+                        spec.getValues()));
+            }
+        }
+
+        boolean sortByValue;
+        if (request.getSort() == null || request.getSort().equalsIgnoreCase("key")) {
+            sortByValue = false;
+        } else if (request.getSort().equalsIgnoreCase("value")) {
+            sortByValue = true;
+        } else {
+            throw new IllegalArgumentException("sort must be 'key' or 'value'");
+        }
+
+        int limit = request.getLimit() != null ? request.getLimit() : defaultLimit;
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be > 0");
+        }
+        limit = Math.min(limit, maxLimit);
+
+        long startedAt = System.nanoTime();
+        try (ColumnarFile file = columnarCacheService.open(dataset)) {
+            if (file == null) {
+                throw new RuntimeException("Queries are not available for this dataset");
+            }
+            ColumnarQuery.Result result = ColumnarQuery.execute(file, groupBy, aggregates, filters,
+                    sortByValue, limit, maxGroups);
+
+            QueryResponse response = new QueryResponse();
+            response.setColumns(result.columns());
+            response.setRows(result.rows());
+            response.setGroupCount(result.groupCount());
+            response.setMatchedRows(result.matchedRows());
+            response.setTruncated(result.groupCount() > result.rows().size());
+            response.setElapsedMs((System.nanoTime() - startedAt) / 1_000_000);
+            response.setBlocksScanned(result.stats().blocksScanned());
+            response.setBlocksSkipped(result.stats().blocksSkipped());
+            return response;
+        }
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String what) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + what);
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + what + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.DatasetRepository;
+import com.example.backend.repository.DatasetRepository.ExpiredDataset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the {@code autoDelete}/{@code autoDeleteDays} dataset preferences. Each run removes at
+ * most {@code max-batches-per-run} batches and sleeps between them, so a large backlog is worked
+ * off over several runs instead of competing with live traffic.
+ */
+@Slf4j
+@Service
+public class DatasetRetentionService {
+
+    @Value("${dataset.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${dataset.retention.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${dataset.retention.pause-between-batches-ms:1000}")
+    private long pauseBetweenBatchesMs;
+
+    private final DatasetRepository datasetRepository;
+    private final DatasetService datasetService;
+    private final ColumnarCacheService columnarCacheService;
+    private final ChartSeriesService chartSeriesService;
+    private final StorageUsageService storageUsageService;
+
+    public DatasetRetentionService(DatasetRepository datasetRepository, DatasetService datasetService,
+                                   ColumnarCacheService columnarCacheService, ChartSeriesService chartSeriesService,
+                                   StorageUsageService storageUsageService) {
+        this.datasetRepository = datasetRepository;
+        this.datasetService = datasetService;
+        this.columnarCacheService = columnarCacheService;
+        this.chartSeriesService = chartSeriesService;
+        this.storageUsageService = storageUsageService;
+    }
+
+    @Scheduled(fixedDelayString = "${dataset.retention.sweep-interval-ms:3600000}",
+            initialDelayString = "${dataset.retention.initial-delay-ms:300000}")
+    public void sweep() {
+        // DeleteObjects takes at most 1000 keys, so a batch never needs more than one call
+        int limit = Math.max(1, Math.min(batchSize, 1000));
+        int deleted = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<ExpiredDataset> expired = datasetRepository.findExpired(limit);
+                if (expired.isEmpty()) {
+                    break;
+                }
+                deleted += deleteBatch(expired);
+                if (expired.size() < limit) {
+                    break;
+                }
+                Thread.sleep(pauseBetweenBatchesMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Retention sweep failed: {}", e.getMessage(), e);
+        }
+
+        if (deleted > 0) {
+            log.info("Retention sweep removed {} datasets", deleted);
+        }
+    }
+
+    private int deleteBatch(List<ExpiredDataset> expired) {
+        List<Long> ids = expired.stream().map(ExpiredDataset::getId).collect(Collectors.toList());
+
+        // rows go first: if the object delete fails we leak storage rather than leave rows pointing at nothing
+        Map<String, ExpiredDataset> unreferenced = datasetService.deleteDatasetRows(expired);
+        ids.forEach(columnarCacheService::delete);
+        ids.forEach(chartSeriesService::invalidateDataset);
+
+        if (!unreferenced.isEmpty()) {
+            List<String> failed = datasetService.deleteFiles(unreferenced.keySet());
+            if (!failed.isEmpty()) {
+                log.warn("Retention sweep could not delete {} objects, e.g. {}", failed.size(), failed.get(0));
+            }
+            // an object that is still there still counts until reconciliation finds it
+            Set<String> kept = new HashSet<>(failed);
+            unreferenced.forEach((filePath, owner) -> {
+                if (!kept.contains(filePath)) {
+                    storageUsageService.recordObjectDeleted(owner.getUserId(), owner.getStoredBytes());
+                }
+            });
+        }
+        return ids.size();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.datasets.RowPageResponse;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetArtifacts;
+import com.example.backend.model.DatasetColumn;
+import com.example.backend.model.StorageCodec;
+import com.example.backend.processing.ColumnarFile;
+import com.example.backend.processing.CsvFormats;
+import com.example.backend.processing.CsvRowIndex;
+import com.example.backend.repository.DatasetArtifactsRepository;
+import com.example.backend.repository.DatasetColumnRepository;
+import com.example.backend.repository.DatasetRepository;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Row browsing. CSV pages are read through the local object cache: the sparse row index gives
+ * the byte offset of the checkpoint before the first requested row, so a page seeks there and
+ * parses at most {@code stride - 1} records it does not return. Excel files have no usable byte
+ * layout, so their pages come from the columnar copy instead, as do CSVs stored compressed, where
+ * offsets into the original file do not map onto the object.
+ * <p>
+ * Page totals come from the structure being paged, the row index or the columnar copy, so they
+ * always agree with the rows that can actually be read.
+ */
+@Service
+public class DatasetRowService {
+
+    /** Checkpoint value in cursors of datasets paged from the columnar copy. */
+    private static final long NO_CHECKPOINT = -1;
+
+    @Value("${dataset.rows.index-stride:1000}")
+    private int indexStride;
+
+    @Value("${dataset.rows.max-page-size:500}")
+    private int maxPageSize;
+
+    private final ObjectCacheService objectCacheService;
+    private final DatasetRepository datasetRepository;
+    private final DatasetColumnRepository datasetColumnRepository;
+    private final DatasetArtifactsRepository datasetArtifactsRepository;
+    private final ColumnarCacheService columnarCacheService;
+
+    public DatasetRowService(ObjectCacheService objectCacheService, DatasetRepository datasetRepository,
+                             DatasetColumnRepository datasetColumnRepository,
+                             DatasetArtifactsRepository datasetArtifactsRepository,
+                             ColumnarCacheService columnarCacheService) {
+        this.objectCacheService = objectCacheService;
+        this.datasetRepository = datasetRepository;
+        this.datasetColumnRepository = datasetColumnRepository;
+        this.datasetArtifactsRepository = datasetArtifactsRepository;
+        this.columnarCacheService = columnarCacheService;
+    }
+
+    public void buildIndex(Long datasetId, Path file, String originalFilename) throws IOException {
+        if (!originalFilename.toLowerCase().endsWith(".csv")) {
+            return;
+        }
+
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new RuntimeException("Dataset not found"));
+        if (StorageCodec.of(dataset.getStorageCodec()) != StorageCodec.NONE) {
+            return;
+        }
+
+        DatasetArtifacts artifacts = datasetArtifactsRepository.findById(datasetId).orElseGet(() -> {
+            DatasetArtifacts created = new DatasetArtifacts();
+            created.setDatasetId(datasetId);
+            return created;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            artifacts.setRowIndex(CsvRowIndex.build(channel, indexStride).toBytes());
+        }
+        datasetArtifactsRepository.save(artifacts);
+    }
+
+    public RowPageResponse getRows(Dataset dataset, int offset, int limit) throws IOException {
+        return getRows(dataset, loadIndex(dataset), offset, limit);
+    }
+
+    private RowPageResponse getRows(Dataset dataset, CsvRowIndex index, int offset, int limit) throws IOException {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("offset must be >= 0 and limit > 0");
+        }
+        limit = Math.min(limit, maxPageSize);
+
+        List<String> columns = datasetColumnRepository.findByDatasetIdOrderByColumnIndex(dataset.getId()).stream()
+                .map(DatasetColumn::getColumnName)
+                .collect(Collectors.toList());
+
+        int totalRows;
+        List<Map<String, Object>> rows;
+        long nextCheckpoint = NO_CHECKPOINT;
+
+        if (index != null) {
+            totalRows = index.getRowCount();
+            rows = offset < totalRows ? readCsvRows(dataset, index, columns, offset, limit) : new ArrayList<>();
+            if (offset + rows.size() < totalRows) {
+                nextCheckpoint = index.offsetBefore(offset + rows.size());
+            }
+        } else {
+            try (ColumnarFile file = columnarCacheService.open(dataset)) {
+                if (file == null) {
+                    throw new RuntimeException("Row browsing is not available for this dataset");
+                }
+                totalRows = file.getRowCount();
+                rows = readColumnarRows(file, offset, limit);
+            }
+        }
+
+        RowPageResponse page = new RowPageResponse();
+        page.setColumns(columns);
+        page.setRows(rows);
+        page.setOffset(offset);
+        page.setTotalRows(totalRows);
+        int next = offset + rows.size();
+        page.setNextCursor(!rows.isEmpty() && next < totalRows
+                ? encodeCursor(dataset.getId(), next, nextCheckpoint)
+                : null);
+        return page;
+    }
+
+    /**
+     * The page a previous page's {@code nextCursor} points at.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or was not issued for this
+     *                                  dataset's current row index
+     */
+    public RowPageResponse getRowsAfter(Dataset dataset, String cursor, int limit) throws IOException {
+        CsvRowIndex index = loadIndex(dataset);
+        return getRows(dataset, index, resolveCursor(dataset, index, cursor), limit);
+    }
+
+    /**
+     * @return the dataset's row index, or {@code null} if it is paged from its columnar copy
+     */
+    private CsvRowIndex loadIndex(Dataset dataset) {
+        return datasetArtifactsRepository.findById(dataset.getId())
+                .map(DatasetArtifacts::getRowIndex)
+                .map(CsvRowIndex::fromBytes)
+                .orElse(null);
+    }
+
+    /**
+     * Cursors are opaque to clients. They carry the dataset, the row the next page starts at and
+     * the byte offset of the row index checkpoint at or before that row ({@link #NO_CHECKPOINT}
+     * when the dataset is paged from its columnar copy).
+     */
+    static String encodeCursor(long datasetId, int row, long checkpoint) {
+        String position = datasetId + ":" + row + ":" + checkpoint;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the row the cursor points at, once its dataset and checkpoint match what this
+     * dataset's row index says about that row
+     */
+    private static int resolveCursor(Dataset dataset, CsvRowIndex index, String cursor) {
+        long datasetId;
+        int row;
+        long checkpoint;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            datasetId = Long.parseLong(parts[0]);
+            row = Integer.parseInt(parts[1]);
+            checkpoint = Long.parseLong(parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+
+        if (datasetId != dataset.getId() || row < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (index == null) {
+            if (checkpoint != NO_CHECKPOINT) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return row;
+        }
+        if (row >= index.getRowCount() || index.offsetBefore(row) != checkpoint) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return row;
+    }
+
+    private List<Map<String, Object>> readCsvRows(Dataset dataset, CsvRowIndex index, List<String> columns,
+                                                  int offset, int limit) throws IOException {
+        long start = index.offsetBefore(offset);
+        int skip = offset % index.getStride();
+
+        List<Map<String, Object>> rows = new ArrayList<>(limit);
+        try (InputStream in = objectCacheService.openStream(dataset.getFilePath())) {
+            // a seek on the cached file: the index is only built for objects stored uncompressed
+            in.skipNBytes(start);
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+                 CSVParser csvParser = new CSVParser(reader, CsvFormats.RECORDS_ONLY)) {
+
+                Iterator<CSVRecord> records = csvParser.iterator();
+                for (int i = 0; i < skip && records.hasNext(); i++) {
+                    records.next();
+                }
+                while (rows.size() < limit && records.hasNext()) {
+                    CSVRecord record = records.next();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int j = 0; j < columns.size(); j++) {
+                        row.put(columns.get(j), j < record.size() ? record.get(j) : "");
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<Map<String, Object>> readColumnarRows(ColumnarFile file, int offset, int limit) {
+        int end = Math.min(offset + limit, file.getRowCount());
+        List<Map<String, Object>> rows = new ArrayList<>(Math.max(end - offset, 0));
+        for (int r = offset; r < end; r++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (ColumnarFile.Column column : file.getColumns()) {
+                row.put(column.getName(), column.getValue(r));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
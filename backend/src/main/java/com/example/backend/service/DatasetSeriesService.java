@@ -0,0 +1,68 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.datasets.SeriesResponse;
+import com.example.backend.model.ChartType;
+import com.example.backend.model.Dataset;
+import com.example.backend.processing.ColumnarFile;
+import com.example.backend.processing.ColumnarSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Downsampled x/y series for line, area and scatter charts, read from the dataset's columnar
+ * copy. Lines and areas use LTTB, scatter plots grid thinning; see {@link ColumnarSeries}.
+ */
+@Service
+public class DatasetSeriesService {
+
+    @Value("${dataset.series.default-points:1000}")
+    private int defaultPoints;
+
+    @Value("${dataset.series.max-points:10000}")
+    private int maxPoints;
+
+    private final ColumnarCacheService columnarCacheService;
+
+    public DatasetSeriesService(ColumnarCacheService columnarCacheService) {
+        this.columnarCacheService = columnarCacheService;
+    }
+
+    public SeriesResponse getSeries(Dataset dataset, String x, String y, ChartType chartType, Integer points)
+            throws IOException {
+        ColumnarSeries.Method method;
+        if (chartType == null || chartType == ChartType.LINE || chartType == ChartType.AREA) {
+            method = ColumnarSeries.Method.LTTB;
+        } else if (chartType == ChartType.SCATTER) {
+            method = ColumnarSeries.Method.GRID;
+        } else {
+            throw new IllegalArgumentException("Series are only available for LINE, AREA and SCATTER charts");
+        }
+
+        int target = points != null ? points : defaultPoints;
+        if (target <= 0) {
+            throw new IllegalArgumentException("points must be > 0");
+        }
+        target = Math.min(target, maxPoints);
+
+        long startedAt = System.nanoTime();
+        try (ColumnarFile file = columnarCacheService.open(dataset)) {
+            if (file == null) {
+                throw new RuntimeException("Series are not available for this dataset");
+            }
+            ColumnarSeries.Result result = ColumnarSeries.downsample(file, x, y, method, target);
+
+            SeriesResponse response = new SeriesResponse();
+            response.setMethod(method.name().toLowerCase(Locale.ROOT));
+            response.setX(result.x());
+            response.setY(result.y());
+            response.setWeights(result.weights());
+            response.setPointCount(result.pointCount());
+            response.setOrdered(result.ordered());
+            response.setElapsedMs((System.nanoTime() - startedAt) / 1_000_000);
+            return response;
+        }
+    }
+}
@@ -1,131 +1,112 @@
 package com.example.backend.service;
 
 import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetArtifacts;
+import com.example.backend.model.DatasetColumn;
 import com.example.backend.model.DatasetStatus;
 import com.example.backend.model.FileMetadata;
+import com.example.backend.model.StorageCodec;
 import com.example.backend.model.User;
+import com.example.backend.repository.ChartRepository;
+import com.example.backend.repository.DatasetArtifactsRepository;
+import com.example.backend.repository.DatasetColumnRepository;
 import com.example.backend.repository.DatasetRepository;
+import com.example.backend.repository.DatasetRepository.ExpiredDataset;
 import com.example.backend.repository.UserRepository;
-import jakarta.annotation.PostConstruct;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.example.backend.service.DatasetIngestService.IngestJob;
+import com.example.backend.service.PresignedUrlService.PresignedUrl;
+import com.example.backend.service.StorageUsageService.QuotaExceededException;
+import com.example.backend.service.UploadSpoolService.SpooledUpload;
+import lombok.extern.slf4j.Slf4j;
 import org.slf4j.ILoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.net.URI;
-import java.time.Duration;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Service
 public class DatasetService {
 
-    @Value("${backblaze.endpoint}")
-    private String endpoint;
-
-    @Value("${backblaze.key-id}")
-    private String keyId;
-
-    @Value("${backblaze.application-key}")
-    private String applicationKey;
+    private static final int MAX_KEYS_PER_DELETE = 1000;
 
     @Value("${backblaze.bucket-name}")
     private String bucketName;
 
-    @Value("${backblaze.region}")
-    private String region;
-
-    private S3Client s3Client;
-    private S3Presigner presigner;
-
+    private final S3Client s3Client;
+    private final PresignedUrlService presignedUrlService;
     private final DatasetRepository datasetRepository;
+    private final DatasetColumnRepository datasetColumnRepository;
+    private final DatasetArtifactsRepository datasetArtifactsRepository;
+    private final ChartRepository chartRepository;
     private final UserRepository userRepository;
-    private final DatasetProcessingService datasetProcessingService;
-
-    public DatasetService(DatasetRepository datasetRepository, UserRepository userRepository, DatasetProcessingService datasetProcessingService) {
+    private final DatasetIngestService datasetIngestService;
+    private final UploadSpoolService uploadSpoolService;
+    private final ColumnarCacheService columnarCacheService;
+    private final ObjectCacheService objectCacheService;
+    private final ObjectUploadService objectUploadService;
+    private final StorageUsageService storageUsageService;
+    private final ChartSeriesService chartSeriesService;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatasetService(S3Client s3Client, PresignedUrlService presignedUrlService,
+                          DatasetRepository datasetRepository, DatasetColumnRepository datasetColumnRepository,
+                          DatasetArtifactsRepository datasetArtifactsRepository, ChartRepository chartRepository, UserRepository userRepository,
+                          DatasetIngestService datasetIngestService, UploadSpoolService uploadSpoolService,
+                          ColumnarCacheService columnarCacheService, ObjectCacheService objectCacheService,
+                          ObjectUploadService objectUploadService, StorageUsageService storageUsageService,
+                          ChartSeriesService chartSeriesService, TransactionTemplate transactionTemplate) {
+        this.s3Client = s3Client;
+        this.presignedUrlService = presignedUrlService;
         this.datasetRepository = datasetRepository;
+        this.datasetColumnRepository = datasetColumnRepository;
+        this.datasetArtifactsRepository = datasetArtifactsRepository;
+        this.chartRepository = chartRepository;
         this.userRepository = userRepository;
-        this.datasetProcessingService = datasetProcessingService;
+        this.datasetIngestService = datasetIngestService;
+        this.uploadSpoolService = uploadSpoolService;
+        this.columnarCacheService = columnarCacheService;
+        this.objectCacheService = objectCacheService;
+        this.objectUploadService = objectUploadService;
+        this.storageUsageService = storageUsageService;
+        this.chartSeriesService = chartSeriesService;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @PostConstruct
-    public void init() {
-        AwsBasicCredentials credentials = AwsBasicCredentials.create(keyId, applicationKey);
-
-        this.s3Client = S3Client.builder()
-                .endpointOverride(URI.create(endpoint))
-                .credentialsProvider(StaticCredentialsProvider.create(credentials))
-                .region(Region.of(region))
-                .build();
-
-        this.presigner = S3Presigner.builder()
-                .endpointOverride(URI.create(endpoint))
-                .credentialsProvider(StaticCredentialsProvider.create(credentials))
-                .region(Region.of(region))
-                .build();
+    /**
+     * Objects are addressed by content, per user: the same bytes stored with the same codec always
+     * land on the same key, so a key match means the stored object can be reused as is. The codec
+     * is a path segment rather than a {@code .gz} suffix: encoded objects carry
+     * {@code Content-Encoding}, so what a browser saves is the decoded file and the name has to
+     * keep the original extension.
+     */
+    public String contentObjectKey(Long userId, String sha256, String originalFilename, StorageCodec codec) {
+        String name = originalFilename.toLowerCase();
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        String prefix = codec == StorageCodec.NONE ? "" : codec.metadataValue() + "/";
+        return userId + "/objects/" + prefix + sha256 + "." + extension;
     }
 
-
-    public String uploadFile(MultipartFile file, Long userId, String originalFilename) throws IOException {
-        String filename = UUID.randomUUID() + "_" + originalFilename;
-        String key = userId + "/" + filename;
-
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType(file.getContentType())
-                .contentLength(file.getSize())
-                .build();
-
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
-
-        return key;
+    public byte[] downloadFile(String key) throws IOException {
+        return objectCacheService.readAllBytes(key);
     }
 
-    public byte[] downloadFile(String key) {
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-
-        return s3Client.getObjectAsBytes(getObjectRequest).asByteArray();
+    public CompletableFuture<InputStream> openFileAsync(String key) {
+        return objectCacheService.openStreamAsync(key);
     }
 
-    public String generatePresignedUrl(String key) {
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-
-        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                .signatureDuration(Duration.ofHours(1))
-                .getObjectRequest(getObjectRequest)
-                .build();
-
-        PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
-        return presignedRequest.url().toString();
+    public PresignedUrl generatePresignedUrl(Dataset dataset) {
+        return presignedUrlService.get(dataset.getFilePath(), dataset.getName());
     }
 
     public void deleteFile(String filePath) {
@@ -138,12 +119,72 @@ public class DatasetService {
                     .build();
 
             s3Client.deleteObject(deleteObjectRequest);
+            objectCacheService.invalidate(key);
+            presignedUrlService.invalidate(key);
 
-        } catch (Exception e) {
-            System.out.println("deleteFile() ERROR:");
+        } catch (RuntimeException e) {
+            log.error("Failed to delete {} from storage: {}", key, e.getMessage());
+            throw e;
         }
     }
 
+    /**
+     * Deletes objects with DeleteObjects, up to 1000 keys per request.
+     *
+     * @return keys that could not be deleted
+     */
+    public List<String> deleteFiles(Collection<String> keys) {
+        List<String> pending = new ArrayList<>(keys);
+        List<String> failed = new ArrayList<>();
+
+        for (int from = 0; from < pending.size(); from += MAX_KEYS_PER_DELETE) {
+            List<String> batch = pending.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, pending.size()));
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder()
+                            .objects(batch.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                            .quiet(true)
+                            .build())
+                    .build());
+            response.errors().forEach(error -> failed.add(error.key()));
+        }
+
+        for (String key : pending) {
+            objectCacheService.invalidate(key);
+            presignedUrlService.invalidate(key);
+        }
+        return failed;
+    }
+
+    /**
+     * Removes dataset rows and their columns, artifacts and charts with one bulk delete each,
+     * skipping the per-entity cascade. Objects and columnar files are left to the caller, once this
+     * has committed. A duplicate upload copying one of these rows holds a lock on it, so the
+     * reference check below either sees the copy or the copy finds nothing to copy.
+     * <p>
+     * Object usage is left to the caller too, to record once the object is actually gone.
+     *
+     * @return for each given key that no remaining dataset references, a dataset that used it,
+     *         preferring one whose stored size is known
+     */
+    @Transactional
+    public Map<String, ExpiredDataset> deleteDatasetRows(List<ExpiredDataset> datasets) {
+        List<Long> datasetIds = datasets.stream().map(ExpiredDataset::getId).toList();
+        Map<String, ExpiredDataset> byFilePath = new HashMap<>();
+        datasets.forEach(dataset -> byFilePath.merge(dataset.getFilePath(), dataset,
+                (kept, other) -> kept.getStoredBytes() != null ? kept : other));
+
+        chartRepository.deleteByDatasetIdIn(datasetIds);
+        datasetColumnRepository.deleteByDatasetIdIn(datasetIds);
+        datasetArtifactsRepository.deleteByDatasetIdIn(datasetIds);
+        datasetRepository.deleteByIdIn(datasetIds);
+
+        datasetRepository.findReferencedFilePaths(byFilePath.keySet()).forEach(byFilePath::remove);
+
+        datasets.forEach(dataset -> storageUsageService.recordDatasetDeleted(dataset.getUserId()));
+        return byFilePath;
+    }
+
     public boolean fileExists(String key) {
         try {
             HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
@@ -159,19 +200,7 @@ public class DatasetService {
     }
 
     public FileMetadata getFileMetadata(String key) {
-        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-
-        HeadObjectResponse response = s3Client.headObject(headObjectRequest);
-
-        return FileMetadata.builder()
-                .key(key)
-                .size(response.contentLength())
-                .contentType(response.contentType())
-                .lastModified(response.lastModified())
-                .build();
+        return objectCacheService.getFileMetadata(key);
     }
 
     public List<String> listUserFiles(Long userId) {
@@ -182,9 +211,8 @@ public class DatasetService {
                 .prefix(prefix)
                 .build();
 
-        ListObjectsV2Response response = s3Client.listObjectsV2(listRequest);
-
-        return response.contents().stream()
+        // a single ListObjectsV2 call stops at 1000 keys; the paginator follows continuation tokens
+        return s3Client.listObjectsV2Paginator(listRequest).contents().stream()
                 .map(S3Object::key)
                 .collect(java.util.stream.Collectors.toList());
     }
@@ -192,7 +220,8 @@ public class DatasetService {
 
     @Transactional
     public Dataset createDataset(Long userId, String originalFilename,
-                                 String filePath, Long fileSize, String fileType) {
+                                 String filePath, Long fileSize, String fileType, String contentSha256,
+                                 StorageCodec storageCodec) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -202,162 +231,193 @@ public class DatasetService {
         dataset.setFilePath(filePath);
         dataset.setFileSize(fileSize);
         dataset.setFileType(fileType);
+        dataset.setContentSha256(contentSha256);
+        dataset.setStorageCodec(storageCodec);
         dataset.setStatus(DatasetStatus.PROCESSING);
         dataset.setTotalRows(0);
         dataset.setTotalColumns(0);
 
-        return datasetRepository.save(dataset);
+        Dataset saved = datasetRepository.save(dataset);
+        storageUsageService.recordDatasetCreated(userId);
+        return saved;
     }
 
-    @Transactional
     public Dataset uploadAndCreateDataset(MultipartFile file, Long userId) throws IOException {
+        String originalFilename = file.getOriginalFilename();
 
-        String filePath = uploadFile(file, userId, file.getOriginalFilename());
-
-        String fileType = file.getOriginalFilename().toLowerCase().endsWith(".csv") ? "CSV" : "EXCEL";
+        // The multipart part is gone once the request ends, so everything downstream reads the spooled copy.
+        SpooledUpload upload = uploadSpoolService.spool(file);
 
-        Dataset dataset = createDataset(
-                userId,
-                file.getOriginalFilename(),
-                filePath,
-                file.getSize(),
-                fileType
-        );
+        StorageCodec codec = objectUploadService.getCodec();
+        String filePath = contentObjectKey(userId, upload.sha256(), originalFilename, codec);
 
-        processDatasetAsync(dataset.getId(), file);
-
-        return dataset;
-    }
-
-    public Dataset getDatasetByIdAndUserId(Long datasetId, Long userId) {
-        return datasetRepository.findByIdAndUserId(datasetId, userId)
-                .orElse(null);
-    }
-
-List<Dataset> getUserDatasets(Long userId) {
-        return datasetRepository.findByUserIdOrderByUploadedAtDesc(userId);
-    }
-
-
-    @Transactional
-    public void deleteDatasetComplete(Long datasetId, String filePath) {
+        // only finished datasets can be copied; identical uploads that overlap are each processed
+        Dataset copy;
         try {
-            deleteFile(filePath);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to delete file from storage", e);
+            copy = createFromDuplicate(filePath, userId, originalFilename);
+        } catch (RuntimeException e) {
+            uploadSpoolService.release(upload.path());
+            throw e;
+        }
+        if (copy != null) {
+            uploadSpoolService.release(upload.path());
+            return copy;
         }
-        datasetRepository.deleteById(datasetId);
-    }
-
 
-    @Async
-    public void processDatasetAsync(Long datasetId, MultipartFile file) {
+        Dataset dataset = null;
         try {
-            datasetProcessingService.processDataset(datasetId, file);
-        } catch (Exception e) {
-            Dataset dataset = datasetRepository.findById(datasetId).orElse(null);
-            if (dataset != null) {
-                dataset.setStatus(DatasetStatus.FAILED);
-                datasetRepository.save(dataset);
+            // a copy stores nothing new, so only uploads that will write an object count against the quota
+            if (storageUsageService.wouldExceedQuota(userId, upload.size())) {
+                throw new QuotaExceededException();
             }
-        }
-    }
-
-    public List<Map<String, Object>> getDataPreview(String filePath, int limit) throws IOException {
-
-        byte[] fileBytes = downloadFile(filePath);
 
-        String fileName = filePath.toLowerCase();
-
-        if (fileName.endsWith(".csv")) {
-            return getCSVPreview(fileBytes, limit);
-        } else if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
-            return getExcelPreview(fileBytes, fileName, limit);
+            String fileType = originalFilename.toLowerCase().endsWith(".csv") ? "CSV" : "EXCEL";
+
+            // createDataset's @Transactional does not apply to calls on this, so the template
+            // keeps the row and the usage counter in one transaction
+            dataset = transactionTemplate.execute(status -> createDataset(
+                    userId,
+                    originalFilename,
+                    filePath,
+                    upload.size(),
+                    fileType,
+                    upload.sha256(),
+                    codec
+            ));
+
+            // Storage upload and profiling both happen in the ingest job, off the request thread.
+            datasetIngestService.processDatasetAsync(new IngestJob(
+                    dataset.getId(),
+                    filePath,
+                    originalFilename,
+                    file.getContentType(),
+                    upload,
+                    codec,
+                    System.nanoTime()
+            ));
+        } catch (RuntimeException e) {
+            if (dataset != null) {
+                Long datasetId = dataset.getId();
+                transactionTemplate.executeWithoutResult(status -> {
+                    datasetRepository.deleteById(datasetId);
+                    storageUsageService.recordDatasetDeleted(userId);
+                });
+            }
+            uploadSpoolService.release(upload.path());
+            throw e;
         }
 
-        throw new RuntimeException("Unsupported file type");
+        return dataset;
     }
 
-    private List<Map<String, Object>> getCSVPreview(byte[] fileBytes, int limit) throws IOException {
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        CSVFormat format = CSVFormat.DEFAULT.builder()
-                .setHeader()
-                .setIgnoreHeaderCase(true)
-                .setTrim(true)
-                .build();
-
-        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(fileBytes));
-             CSVParser csvParser = new CSVParser(reader,format)) {
-
-            List<String> headers = new ArrayList<>(csvParser.getHeaderMap().keySet());
-            int count = 0;
-
-            for (CSVRecord record : csvParser) {
-                if (count >= limit) break;
+    /**
+     * Same bytes as a dataset that is already profiled: share its object and copy its profile
+     * instead of uploading and profiling again. The copy is created in one transaction, so a
+     * failure leaves neither a half-copied dataset nor a usage count for it.
+     * <p>
+     * The source row is read with a shared lock. A concurrent delete of it therefore either waits
+     * until the copy has committed, and then sees the copy referencing the object, or has already
+     * removed it, and there is nothing to copy.
+     *
+     * @return the copy, or null if no completed dataset has these bytes
+     */
+    private Dataset createFromDuplicate(String filePath, Long userId, String originalFilename) {
+        return transactionTemplate.execute(status -> datasetRepository
+                .findFirstByFilePathAndStatusOrderByIdDesc(filePath, DatasetStatus.COMPLETED)
+                .map(source -> copyDataset(source, userId, originalFilename))
+                .orElse(null));
+    }
 
-                Map<String, Object> row = new LinkedHashMap<>();
-                for (String header : headers) {
-                    row.put(header, record.get(header));
-                }
-                result.add(row);
-                count++;
+    private Dataset copyDataset(Dataset source, Long userId, String originalFilename) {
+        Dataset dataset = createDataset(userId, originalFilename, source.getFilePath(), source.getFileSize(),
+                source.getFileType(), source.getContentSha256(), source.getStorageCodec());
+        try {
+            dataset.setTotalRows(source.getTotalRows());
+            dataset.setTotalColumns(source.getTotalColumns());
+            dataset.setPreviewRowCount(source.getPreviewRowCount());
+            dataset.setStoredBytes(source.getStoredBytes());
+
+            datasetArtifactsRepository.findById(source.getId()).ifPresent(sourceArtifacts -> {
+                DatasetArtifacts artifacts = new DatasetArtifacts();
+                artifacts.setDatasetId(dataset.getId());
+                artifacts.setPreviewSnapshot(sourceArtifacts.getPreviewSnapshot());
+                artifacts.setRowIndex(sourceArtifacts.getRowIndex());
+                datasetArtifactsRepository.save(artifacts);
+            });
+
+            List<DatasetColumn> columns = new ArrayList<>();
+            for (DatasetColumn sourceColumn : datasetColumnRepository.findByDatasetIdOrderByColumnIndex(source.getId())) {
+                DatasetColumn column = new DatasetColumn();
+                column.setDataset(dataset);
+                column.setColumnName(sourceColumn.getColumnName());
+                column.setColumnIndex(sourceColumn.getColumnIndex());
+                column.setDataType(sourceColumn.getDataType());
+                column.setFormatPattern(sourceColumn.getFormatPattern());
+                column.setUniqueValues(sourceColumn.getUniqueValues());
+                column.setUniqueValuesApproximate(sourceColumn.getUniqueValuesApproximate());
+                column.setNullCount(sourceColumn.getNullCount());
+                column.setMean(sourceColumn.getMean());
+                column.setMedian(sourceColumn.getMedian());
+                column.setStdDev(sourceColumn.getStdDev());
+                column.setMinValue(sourceColumn.getMinValue());
+                column.setMaxValue(sourceColumn.getMaxValue());
+                column.setQuantileSketch(sourceColumn.getQuantileSketch());
+                column.setHistogram(sourceColumn.getHistogram());
+                column.setHistogramBins(sourceColumn.getHistogramBins());
+                columns.add(column);
             }
+            datasetColumnRepository.saveAll(columns);
+
+            columnarCacheService.share(source, dataset);
+            dataset.setStatus(DatasetStatus.COMPLETED);
+            return datasetRepository.save(dataset);
+        } catch (RuntimeException e) {
+            // the rows roll back with the transaction, the shared columnar file does not
+            columnarCacheService.delete(dataset.getId());
+            throw e;
         }
-
-        return result;
     }
 
-    private List<Map<String, Object>> getExcelPreview(byte[] fileBytes, String fileName, int limit) throws IOException {
-        List<Map<String, Object>> result = new ArrayList<>();
+    public List<Dataset> getDatasetsByIdsAndUserId(Collection<Long> datasetIds, Long userId) {
+        return datasetRepository.findByIdInAndUserId(datasetIds, userId);
+    }
 
-        try (Workbook workbook = fileName.endsWith(".xlsx")
-                ? new XSSFWorkbook(new ByteArrayInputStream(fileBytes))
-                : new HSSFWorkbook(new ByteArrayInputStream(fileBytes))) {
+    public Dataset getDatasetByIdAndUserId(Long datasetId, Long userId) {
+        return datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElse(null);
+    }
 
-            Sheet sheet = workbook.getSheetAt(0);
-            Row headerRow = sheet.getRow(0);
+    public List<Dataset> getUserDatasets(Long userId) {
+        return datasetRepository.findByUserIdOrderByUploadedAtDesc(userId);
+    }
 
-            List<String> headers = new ArrayList<>();
-            for (Cell cell : headerRow) {
-                headers.add(getCellValueAsString(cell));
-            }
 
-            int count = 0;
-            for (int i = 1; i <= sheet.getLastRowNum() && count < limit; i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-
-                Map<String, Object> rowMap = new LinkedHashMap<>();
-                for (int j = 0; j < headers.size(); j++) {
-                    Cell cell = row.getCell(j);
-                    rowMap.put(headers.get(j), cell == null ? "" : getCellValueAsString(cell));
-                }
-                result.add(rowMap);
-                count++;
+    /**
+     * Deletes the rows in one transaction, and only once that has committed looks at the files.
+     * Duplicate uploads share one object, which goes when the last dataset using it does; the
+     * count is taken after the commit, so a copy that locked this row is already visible in it.
+     * Usage is only reduced once the object delete has succeeded.
+     */
+    public void deleteDatasetComplete(Dataset dataset) {
+        Long userId = dataset.getUser().getId();
+        String filePath = dataset.getFilePath();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            chartRepository.deleteByDatasetIdIn(List.of(dataset.getId()));
+            datasetArtifactsRepository.deleteByDatasetIdIn(List.of(dataset.getId()));
+            datasetRepository.deleteById(dataset.getId());
+            storageUsageService.recordDatasetDeleted(userId);
+        });
+        columnarCacheService.delete(dataset.getId());
+        chartSeriesService.invalidateDataset(dataset.getId());
+
+        if (datasetRepository.countByFilePath(filePath) == 0) {
+            try {
+                deleteFile(filePath);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Failed to delete file from storage", e);
             }
-        }
-
-        return result;
-    }
-
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return "";
-
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                }
-                return String.valueOf(cell.getNumericCellValue());
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+            storageUsageService.recordObjectDeleted(userId, dataset.getStoredBytes());
         }
     }
-}
\ No newline at end of file
+}
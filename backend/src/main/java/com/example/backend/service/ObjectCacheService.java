@@ -0,0 +1,343 @@
+package com.example.backend.service;
+
+import com.example.backend.model.FileMetadata;
+import com.example.backend.model.StorageCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache of bucket objects on local disk, bounded by total size with LRU eviction.
+ * Objects are cached as stored; {@link #openStream} decodes compressed ones on the way out.
+ * <p>
+ * Entries are revalidated with a HEAD request (ETag, falling back to size and last-modified) once
+ * they are older than {@code storage.cache.revalidate-after-ms}. Concurrent misses for the same key
+ * share one download, which runs on the async client (see {@link ParallelObjectDownloader}), so
+ * callers that use {@link #openStreamAsync} do not hold a thread while the object is fetched.
+ * Evicted files may still be open by readers; on POSIX systems they stay readable until closed.
+ */
+@Slf4j
+@Service
+public class ObjectCacheService {
+
+    @Value("${backblaze.bucket-name}")
+    private String bucketName;
+
+    @Value("${storage.cache.dir:${java.io.tmpdir}/object-cache}")
+    private String cacheDir;
+
+    @Value("${storage.cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    @Value("${storage.cache.revalidate-after-ms:30000}")
+    private long revalidateAfterMs;
+
+    private Path root;
+
+    private final S3Client s3Client;
+    private final ParallelObjectDownloader downloader;
+
+    // access-ordered, so iteration starts at the least recently used entry; guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // a load only caches its result while it is still registered here; see invalidate
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+
+    public ObjectCacheService(S3Client s3Client, ParallelObjectDownloader downloader) {
+        this.s3Client = s3Client;
+        this.downloader = downloader;
+    }
+
+    private static final class Entry {
+        final String key;
+        final Path file;
+        final long size;
+        final String eTag;
+        final Instant lastModified;
+        final StorageCodec codec;
+        volatile long validatedAt;
+
+        Entry(String key, Path file, long size, String eTag, Instant lastModified, StorageCodec codec) {
+            this.key = key;
+            this.file = file;
+            this.size = size;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.codec = codec;
+            this.validatedAt = System.currentTimeMillis();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        this.root = Paths.get(cacheDir).toAbsolutePath();
+        Files.createDirectories(root);
+
+        // the index lives in memory, so files from a previous run cannot be trusted
+        try (Stream<Path> files = Files.list(root)) {
+            files.forEach(this::deleteQuietly);
+        }
+    }
+
+    public FileMetadata getFileMetadata(String key) {
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+
+        return toMetadata(key, s3Client.headObject(headObjectRequest));
+    }
+
+    private static FileMetadata toMetadata(String key, HeadObjectResponse response) {
+        return FileMetadata.builder()
+                .key(key)
+                .size(response.contentLength())
+                .contentType(response.contentType())
+                .lastModified(response.lastModified())
+                .eTag(response.eTag())
+                .build();
+    }
+
+    public InputStream openStream(String key) throws IOException {
+        return join(openStreamAsync(key));
+    }
+
+    public CompletableFuture<InputStream> openStreamAsync(String key) {
+        return lookup(key).thenCompose(entry -> {
+            try {
+                return CompletableFuture.completedFuture(open(entry));
+            } catch (NoSuchFileException e) {
+                // evicted between lookup and open
+                return lookup(key).thenApply(ObjectCacheService::openUnchecked);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    public byte[] readAllBytes(String key) throws IOException {
+        try (InputStream in = openStream(key)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Drops the cached copy. A download of the key that is still running is dropped as well, so it
+     * cannot put bytes from before the change back; its callers get a fresh download instead.
+     */
+    public void invalidate(String key) {
+        Entry removed;
+        synchronized (this) {
+            inFlight.remove(key);
+            removed = entries.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size;
+            }
+        }
+        if (removed != null) {
+            deleteQuietly(removed.file);
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("revalidations", revalidations.get());
+        stats.put("staleEntries", staleEntries.get());
+        stats.put("bytesDownloaded", bytesDownloaded.get());
+        synchronized (this) {
+            stats.put("entries", (long) entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    private CompletableFuture<Entry> lookup(String key) {
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+
+        if (cached == null) {
+            misses.incrementAndGet();
+            return loadOnce(key);
+        }
+        if (System.currentTimeMillis() - cached.validatedAt < revalidateAfterMs) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        revalidations.incrementAndGet();
+        return downloader.head(key).thenCompose(head -> {
+            if (isCurrent(cached, toMetadata(key, head))) {
+                cached.validatedAt = System.currentTimeMillis();
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(cached);
+            }
+            staleEntries.incrementAndGet();
+            invalidate(key);
+            misses.incrementAndGet();
+            return loadOnce(key);
+        });
+    }
+
+    private CompletableFuture<Entry> loadOnce(String key) {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing;
+        }
+
+        Path partial = root.resolve(UUID.randomUUID() + ".partial");
+        Path file = root.resolve(UUID.randomUUID() + ".object");
+        downloader.downloadToFile(key, partial)
+                .thenApply(download -> {
+                    try {
+                        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    bytesDownloaded.addAndGet(download.size());
+                    String codec = download.metadata().getOrDefault(StorageCodec.METADATA_KEY, download.contentEncoding());
+                    return new Entry(key, file, download.size(), download.eTag(), download.lastModified(),
+                            StorageCodec.fromMetadata(codec));
+                })
+                .whenComplete((entry, e) -> {
+                    deleteQuietly(partial);
+                    if (e != null) {
+                        inFlight.remove(key, mine);
+                        mine.completeExceptionally(unwrap(e));
+                    } else if (insert(entry, mine)) {
+                        mine.complete(entry);
+                    } else {
+                        // invalidated while downloading, so the bytes may predate the change
+                        deleteQuietly(entry.file);
+                        loadOnce(key).whenComplete((reloaded, retryError) -> {
+                            if (retryError != null) {
+                                mine.completeExceptionally(unwrap(retryError));
+                            } else {
+                                mine.complete(reloaded);
+                            }
+                        });
+                    }
+                });
+        return mine;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static InputStream open(Entry entry) throws IOException {
+        return entry.codec.decode(Files.newInputStream(entry.file));
+    }
+
+    private static InputStream openUnchecked(Entry entry) {
+        try {
+            return open(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    /**
+     * Caches the result of {@code load}, unless the key was invalidated since the load started.
+     *
+     * @return whether the entry was cached
+     */
+    private boolean insert(Entry entry, CompletableFuture<Entry> load) {
+        Entry replaced;
+        synchronized (this) {
+            if (!inFlight.remove(entry.key, load)) {
+                return false;
+            }
+            replaced = entries.put(entry.key, entry);
+            if (replaced != null) {
+                totalBytes -= replaced.size;
+            }
+            totalBytes += entry.size;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Entry candidate = eldest.next();
+                if (candidate == entry) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= candidate.size;
+                evictions.incrementAndGet();
+                deleteQuietly(candidate.file);
+            }
+        }
+        if (replaced != null) {
+            deleteQuietly(replaced.file);
+        }
+        return true;
+    }
+
+    private static boolean isCurrent(Entry entry, FileMetadata metadata) {
+        if (entry.eTag != null && metadata.getETag() != null) {
+            return entry.eTag.equals(metadata.getETag());
+        }
+        return metadata.getSize() != null && entry.size == metadata.getSize()
+                && Objects.equals(entry.lastModified, metadata.getLastModified());
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached object {}: {}", file, e.getMessage());
+        }
+    }
+}
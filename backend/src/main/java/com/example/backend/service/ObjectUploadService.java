@@ -0,0 +1,368 @@
+package com.example.backend.service;
+
+import com.example.backend.model.StorageCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams objects to the bucket as multipart uploads with several parts in flight at once.
+ * Each upload keeps a bounded pool of part buffers, allocated as parts are needed, so memory
+ * stays bounded and a writer that outpaces the network blocks until a part finishes.
+ */
+@Slf4j
+@Service
+public class ObjectUploadService {
+
+    // S3 (and B2) reject non-final parts smaller than this.
+    private static final int MIN_PART_BYTES = 5 * 1024 * 1024;
+
+    // The first part buffer starts at this size and doubles up to the part size, so small
+    // objects never hold a whole part in memory.
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    @Value("${backblaze.bucket-name}")
+    private String bucketName;
+
+    @Value("${storage.upload.part-size-bytes:8388608}")
+    private int partSizeBytes;
+
+    @Value("${storage.upload.max-in-flight-parts:4}")
+    private int maxInFlightParts;
+
+    @Value("${storage.upload.threads:8}")
+    private int uploadThreads;
+
+    @Value("${storage.compression.codec:NONE}")
+    private StorageCodec codec;
+
+    private final S3Client s3Client;
+    private ExecutorService partExecutor;
+    private ExecutorService fileExecutor;
+
+    public ObjectUploadService(S3Client s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.partExecutor = Executors.newFixedThreadPool(uploadThreads, namedThreads("s3-part-"));
+        // File uploads only feed parts to partExecutor, so they must not share its threads.
+        this.fileExecutor = Executors.newCachedThreadPool(namedThreads("s3-file-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fileExecutor.shutdown();
+        partExecutor.shutdown();
+    }
+
+    /**
+     * Codec new uploads are stored with, from {@code storage.compression.codec}.
+     */
+    public StorageCodec getCodec() {
+        return codec;
+    }
+
+    public MultipartSink open(String key, String contentType, Map<String, String> metadata, StorageCodec codec) {
+        return new MultipartSink(key, contentType, metadata, codec);
+    }
+
+    /**
+     * @return the number of bytes stored, after encoding
+     */
+    public long uploadFile(String key, Path file, String contentType, Map<String, String> metadata,
+                           StorageCodec codec) throws IOException {
+        try (MultipartSink sink = open(key, contentType, metadata, codec);
+             InputStream in = Files.newInputStream(file)) {
+            in.transferTo(sink);
+            sink.complete();
+            return sink.getStoredBytes();
+        }
+    }
+
+    public CompletableFuture<Long> uploadFileAsync(String key, Path file, String contentType, Map<String, String> metadata,
+                                                   StorageCodec codec) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploadFile(key, file, contentType, metadata, codec);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, fileExecutor);
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Write side of one upload. Bytes written are encoded with the upload's codec before they
+     * are cut into parts. Objects that fit in a single part are sent with one PutObject; the
+     * multipart upload is only created once bytes follow a full first part. Closing a sink that
+     * was not completed aborts the upload.
+     */
+    public final class MultipartSink extends OutputStream {
+
+        private final String key;
+        private final String contentType;
+        private final String contentEncoding;
+        private final Map<String, String> metadata;
+        private final OutputStream encoder;
+        private final int partSize;
+        private final int maxBuffers;
+        private final BlockingQueue<byte[]> freeBuffers;
+        private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+
+        private byte[] current;
+        private int filled;
+        private int allocatedBuffers;
+        private long storedBytes;
+        private String uploadId;
+        private volatile Throwable failure;
+        private boolean finished;
+
+        private MultipartSink(String key, String contentType, Map<String, String> metadata, StorageCodec codec) {
+            this.key = key;
+            this.contentType = contentType;
+            this.contentEncoding = codec.contentEncoding();
+            this.metadata = new HashMap<>(metadata);
+            this.metadata.put(StorageCodec.METADATA_KEY, codec.metadataValue());
+
+            this.partSize = Math.max(partSizeBytes, MIN_PART_BYTES);
+            this.maxBuffers = Math.max(maxInFlightParts, 1) + 1;
+            this.freeBuffers = new ArrayBlockingQueue<>(maxBuffers);
+            this.current = new byte[Math.min(INITIAL_BUFFER_BYTES, partSize)];
+            this.allocatedBuffers = 1;
+
+            OutputStream raw = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    writeEncoded(b, off, len);
+                }
+            };
+            try {
+                this.encoder = codec == StorageCodec.GZIP ? new GzipEncoder(raw) : raw;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            encoder.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            encoder.write(b, off, len);
+        }
+
+        private void writeEncoded(byte[] b, int off, int len) throws IOException {
+            storedBytes += len;
+            while (len > 0) {
+                // a full part is only sent once more bytes follow it, so an object of exactly
+                // one part still goes up as a single PutObject
+                if (filled == partSize) {
+                    submitPart();
+                } else if (filled == current.length) {
+                    current = Arrays.copyOf(current, (int) Math.min(2L * current.length, partSize));
+                }
+                int n = Math.min(len, current.length - filled);
+                System.arraycopy(b, off, current, filled, n);
+                filled += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        public long getStoredBytes() {
+            return storedBytes;
+        }
+
+        public void complete() throws IOException {
+            if (encoder instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+
+            if (uploadId == null) {
+                PutObjectRequest request = PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentEncoding(contentEncoding)
+                        .contentLength((long) filled)
+                        .metadata(metadata)
+                        .build();
+                s3Client.putObject(request, RequestBody.fromInputStream(new ByteArrayInputStream(current, 0, filled), filled));
+                finished = true;
+                return;
+            }
+
+            if (filled > 0) {
+                submitPart();
+            }
+
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            try {
+                for (CompletableFuture<CompletedPart> part : parts) {
+                    completed.add(part.join());
+                }
+            } catch (CompletionException e) {
+                throw new IOException("Part upload failed for " + key, e.getCause());
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                    .build());
+            finished = true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (!finished && uploadId != null) {
+                    abort();
+                }
+            } finally {
+                // the encoder is never closed, since that would flush into the upload
+                if (encoder instanceof GzipEncoder gzip) {
+                    gzip.endDeflater();
+                }
+            }
+        }
+
+        private void abort() {
+            for (CompletableFuture<CompletedPart> part : parts) {
+                part.exceptionally(e -> null).join();
+            }
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build());
+            } catch (RuntimeException e) {
+                log.warn("Could not abort multipart upload of {}: {}", key, e.getMessage());
+            }
+        }
+
+        private void submitPart() throws IOException {
+            if (failure != null) {
+                throw new IOException("Part upload failed for " + key, failure);
+            }
+            if (uploadId == null) {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentEncoding(contentEncoding)
+                        .metadata(metadata)
+                        .build()).uploadId();
+            }
+
+            byte[] body = current;
+            int length = filled;
+            int partNumber = parts.size() + 1;
+
+            CompletableFuture<CompletedPart> part = CompletableFuture.supplyAsync(() -> {
+                try {
+                    UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                                    .bucket(bucketName)
+                                    .key(key)
+                                    .uploadId(uploadId)
+                                    .partNumber(partNumber)
+                                    .contentLength((long) length)
+                                    .build(),
+                            RequestBody.fromInputStream(new ByteArrayInputStream(body, 0, length), length));
+                    return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+                } finally {
+                    freeBuffers.add(body);
+                }
+            }, partExecutor);
+            part.whenComplete((result, e) -> {
+                if (e != null) {
+                    failure = e;
+                }
+            });
+            parts.add(part);
+
+            current = nextBuffer();
+            filled = 0;
+        }
+
+        /**
+         * Reuses a buffer whose part has finished, allocates another while the upload is below its
+         * cap, and otherwise waits for a part to finish.
+         */
+        private byte[] nextBuffer() throws IOException {
+            byte[] buffer = freeBuffers.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+            if (allocatedBuffers < maxBuffers) {
+                allocatedBuffers++;
+                return new byte[partSize];
+            }
+            try {
+                return freeBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a free part buffer");
+            }
+        }
+    }
+
+    /** Exposes the stream's own deflater so it can be released without closing the stream. */
+    private static final class GzipEncoder extends GZIPOutputStream {
+
+        GzipEncoder(OutputStream out) throws IOException {
+            super(out, 64 * 1024);
+        }
+
+        void endDeflater() {
+            def.end();
+        }
+    }
+}
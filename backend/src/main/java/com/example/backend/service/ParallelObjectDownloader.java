@@ -0,0 +1,187 @@
+package com.example.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads objects to local files over the async client without blocking the caller.
+ * <p>
+ * The first part is fetched with a ranged GET; its Content-Range tells us the object size, so
+ * small objects cost one request. Larger objects continue with the remaining parts fetched in
+ * parallel, at most {@code storage.download.max-parts-in-flight} at a time, pinned to the first
+ * part's ETag. Each part is written at its own offset, so the file comes out in order whichever
+ * part finishes first.
+ */
+@Slf4j
+@Service
+public class ParallelObjectDownloader {
+
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    @Value("${backblaze.bucket-name}")
+    private String bucketName;
+
+    @Value("${storage.download.part-size-bytes:8388608}")
+    private int partSizeBytes;
+
+    @Value("${storage.download.max-parts-in-flight:8}")
+    private int maxPartsInFlight;
+
+    private final S3AsyncClient s3AsyncClient;
+
+    public ParallelObjectDownloader(S3AsyncClient s3AsyncClient) {
+        this.s3AsyncClient = s3AsyncClient;
+    }
+
+    public record Download(long size, String eTag, Instant lastModified, String contentEncoding,
+                           Map<String, String> metadata) {
+    }
+
+    public CompletableFuture<HeadObjectResponse> head(String key) {
+        return s3AsyncClient.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build());
+    }
+
+    public CompletableFuture<Download> downloadToFile(String key, Path target) {
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(target,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<Download> download = getRange(key, 0, null)
+                .thenCompose(first -> {
+                    GetObjectResponse response = first.response();
+                    long size = totalLength(key, response.contentRange());
+                    Download result = new Download(size, response.eTag(), response.lastModified(),
+                            response.contentEncoding(), response.metadata());
+                    return write(channel, first.asByteBuffer(), 0)
+                            .thenCompose(ignored -> fetchRemainingParts(key, channel, result))
+                            .thenApply(ignored -> result);
+                })
+                .exceptionallyCompose(e -> isEmptyObject(e) ? emptyObject(key) : CompletableFuture.failedFuture(e));
+
+        return download.whenComplete((result, e) -> {
+            try {
+                channel.close();
+            } catch (IOException closeFailure) {
+                log.warn("Could not close {}: {}", target, closeFailure.getMessage());
+            }
+        });
+    }
+
+    private CompletableFuture<Void> fetchRemainingParts(String key, AsynchronousFileChannel channel, Download download) {
+        int parts = (int) ((download.size() + partSize() - 1) / partSize());
+        if (parts <= 1) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // each lane takes the next unclaimed part when its previous one is on disk
+        AtomicInteger nextPart = new AtomicInteger(1);
+        int lanes = Math.min(Math.max(maxPartsInFlight, 1), parts - 1);
+        List<CompletableFuture<Void>> running = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            running.add(runLane(key, channel, download, nextPart, parts));
+        }
+        return CompletableFuture.allOf(running.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> runLane(String key, AsynchronousFileChannel channel, Download download,
+                                            AtomicInteger nextPart, int parts) {
+        int part = nextPart.getAndIncrement();
+        if (part >= parts) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = (long) part * partSize();
+        return getRange(key, start, download.eTag())
+                .thenCompose(bytes -> write(channel, bytes.asByteBuffer(), start))
+                .thenCompose(ignored -> runLane(key, channel, download, nextPart, parts));
+    }
+
+    private CompletableFuture<ResponseBytes<GetObjectResponse>> getRange(String key, long start, String eTag) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + start + "-" + (start + partSize() - 1));
+        if (eTag != null) {
+            // fail rather than stitch together parts of two different versions
+            request.ifMatch(eTag);
+        }
+        return s3AsyncClient.getObject(request.build(), AsyncResponseTransformer.toBytes());
+    }
+
+    private CompletableFuture<Download> emptyObject(String key) {
+        return head(key).thenApply(head -> new Download(head.contentLength(), head.eTag(), head.lastModified(),
+                head.contentEncoding(), head.metadata()));
+    }
+
+    private int partSize() {
+        return Math.max(partSizeBytes, 64 * 1024);
+    }
+
+    private static CompletableFuture<Void> write(AsynchronousFileChannel channel, ByteBuffer buffer, long position) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        channel.write(buffer, position, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer written, Void attachment) {
+                if (buffer.hasRemaining()) {
+                    write(channel, buffer, position + written).whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            done.completeExceptionally(e);
+                        } else {
+                            done.complete(null);
+                        }
+                    });
+                } else {
+                    done.complete(null);
+                }
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    private static long totalLength(String key, String contentRange) {
+        // "bytes 0-8388607/52428800"
+        int slash = contentRange == null ? -1 : contentRange.lastIndexOf('/');
+        if (slash < 0 || contentRange.endsWith("*")) {
+            throw new UncheckedIOException(new IOException(
+                    "No object length in Content-Range for " + key + ": " + contentRange));
+        }
+        return Long.parseLong(contentRange.substring(slash + 1).trim());
+    }
+
+    private static boolean isEmptyObject(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof S3Exception s3 && s3.statusCode() == RANGE_NOT_SATISFIABLE;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presigned download URLs, cached per object key and download filename. URLs carry
+ * {@code response-content-disposition}, so browsers save the file under the dataset's name
+ * rather than the content hash the object is stored under. A cached URL is handed out for at most
+ * {@code storage.presign.cache-ttl-minutes}, which is kept below the signature duration so every
+ * URL returned still has a usable amount of validity left.
+ */
+@Slf4j
+@Service
+public class PresignedUrlService {
+
+    @Value("${backblaze.bucket-name}")
+    private String bucketName;
+
+    @Value("${storage.presign.signature-duration-minutes:60}")
+    private long signatureDurationMinutes;
+
+    @Value("${storage.presign.cache-ttl-minutes:45}")
+    private long cacheTtlMinutes;
+
+    @Value("${storage.presign.max-entries:10000}")
+    private int maxEntries;
+
+    private Duration signatureDuration;
+    private Duration cacheTtl;
+
+    private final S3Presigner presigner;
+
+    private final ConcurrentHashMap<CacheKey, PresignedUrl> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong signatures = new AtomicLong();
+
+    public PresignedUrlService(S3Presigner presigner) {
+        this.presigner = presigner;
+    }
+
+    public record PresignedUrl(String url, Instant signedAt, Instant expiresAt) {
+    }
+
+    /** Datasets sharing an object by content can have different names, so each gets its own URL. */
+    private record CacheKey(String objectKey, String filename) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.signatureDuration = Duration.ofMinutes(signatureDurationMinutes);
+        Duration ttl = Duration.ofMinutes(cacheTtlMinutes);
+        Duration ceiling = signatureDuration.multipliedBy(3).dividedBy(4);
+        if (ttl.compareTo(ceiling) > 0) {
+            log.warn("storage.presign.cache-ttl-minutes={} is too close to the signature duration, using {} minutes",
+                    cacheTtlMinutes, ceiling.toMinutes());
+            ttl = ceiling;
+        }
+        this.cacheTtl = ttl;
+    }
+
+    /**
+     * @param filename name the browser saves the download under
+     */
+    public PresignedUrl get(String key, String filename) {
+        Instant now = Instant.now();
+        CacheKey cacheKey = new CacheKey(key, filename);
+        PresignedUrl cached = cache.get(cacheKey);
+        if (cached != null && isFresh(cached, now)) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        PresignedUrl url = cache.compute(cacheKey, (k, existing) ->
+                existing != null && isFresh(existing, now) ? existing : sign(k, now));
+        if (cache.size() > maxEntries) {
+            evictExpired();
+        }
+        return url;
+    }
+
+    public void invalidate(String key) {
+        cache.keySet().removeIf(cacheKey -> cacheKey.objectKey().equals(key));
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("signatures", signatures.get());
+        stats.put("entries", (long) cache.size());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${storage.presign.sweep-interval-ms:300000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        cache.values().removeIf(url -> !isFresh(url, now));
+
+        // still over the cap with only fresh entries: drop the oldest signatures
+        int excess = cache.size() - maxEntries;
+        if (excess > 0) {
+            cache.values().stream()
+                    .sorted((a, b) -> a.signedAt().compareTo(b.signedAt()))
+                    .limit(excess)
+                    .toList()
+                    .forEach(url -> cache.values().remove(url));
+        }
+    }
+
+    private boolean isFresh(PresignedUrl url, Instant now) {
+        return now.isBefore(url.signedAt().plus(cacheTtl));
+    }
+
+    private PresignedUrl sign(CacheKey key, Instant now) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key.objectKey())
+                .responseContentDisposition(ContentDisposition.attachment()
+                        .filename(key.filename(), StandardCharsets.UTF_8).build().toString())
+                .build();
+
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(signatureDuration)
+                .getObjectRequest(getObjectRequest)
+                .build();
+
+        PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
+        signatures.incrementAndGet();
+        return new PresignedUrl(presignedRequest.url().toString(), now, presignedRequest.expiration());
+    }
+}
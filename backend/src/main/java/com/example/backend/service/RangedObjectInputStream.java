@@ -0,0 +1,119 @@
+package com.example.backend.service;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads an object front to back with ranged GETs that start small and double in size, so a
+ * caller that stops after a few records only pays for the bytes it actually consumed.
+ * <p>
+ * Pass an object size of -1 when the stored length is not known (compressed objects); it is then
+ * taken from the Content-Range of the first response.
+ */
+public class RangedObjectInputStream extends InputStream {
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String key;
+    private long objectSize;
+    private final int maxRangeBytes;
+
+    private long position;
+    private int nextRangeBytes;
+    private ResponseInputStream<GetObjectResponse> current;
+    private long currentEnd;
+
+    public RangedObjectInputStream(S3Client s3Client, String bucketName, String key, long startOffset, long objectSize,
+                                   int initialRangeBytes, int maxRangeBytes) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.position = startOffset;
+        this.objectSize = objectSize;
+        this.nextRangeBytes = initialRangeBytes;
+        this.maxRangeBytes = maxRangeBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (current == null) {
+                if (objectSize >= 0 && position >= objectSize) {
+                    return -1;
+                }
+                openNextRange();
+            }
+            int n = current.read(b, off, (int) Math.min(len, currentEnd - position));
+            if (n > 0) {
+                position += n;
+                if (position >= currentEnd) {
+                    closeCurrent();
+                }
+                return n;
+            }
+            // range ended early; move on to the next one
+            closeCurrent();
+            if (n < 0 && position < currentEnd) {
+                throw new IOException("Unexpected end of " + key + " at byte " + position);
+            }
+        }
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeCurrent();
+    }
+
+    private void openNextRange() throws IOException {
+        long end = objectSize < 0 ? position + nextRangeBytes : Math.min(objectSize, position + nextRangeBytes);
+        current = s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + position + "-" + (end - 1))
+                .build());
+        if (objectSize < 0) {
+            objectSize = totalLength(current.response().contentRange());
+            end = Math.min(end, objectSize);
+        }
+        currentEnd = end;
+        nextRangeBytes = (int) Math.min((long) nextRangeBytes * 2, maxRangeBytes);
+    }
+
+    private long totalLength(String contentRange) throws IOException {
+        // "bytes 0-65535/1048576"
+        int slash = contentRange == null ? -1 : contentRange.lastIndexOf('/');
+        if (slash < 0 || contentRange.endsWith("*")) {
+            throw new IOException("No object length in Content-Range for " + key + ": " + contentRange);
+        }
+        return Long.parseLong(contentRange.substring(slash + 1).trim());
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            if (position < currentEnd) {
+                // abort rather than drain whatever is left of the range
+                current.abort();
+            }
+            current.close();
+            current = null;
+        }
+    }
+}
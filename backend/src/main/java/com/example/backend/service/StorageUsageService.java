@@ -0,0 +1,180 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Dataset;
+import com.example.backend.model.UserStorageUsage;
+import com.example.backend.repository.DatasetRepository;
+import com.example.backend.repository.DatasetRepository.UserDatasetCount;
+import com.example.backend.repository.UserStorageUsageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user storage totals, maintained as uploads and deletes happen so usage displays and quota
+ * checks are a primary-key lookup instead of a bucket listing.
+ * <p>
+ * Deltas are applied with an atomic upsert. {@link #reconcile} periodically recomputes the totals
+ * from a full, paginated listing of the bucket; changes that land while it runs can be off until
+ * the next reconciliation.
+ */
+@Slf4j
+@Service
+public class StorageUsageService {
+
+    @Value("${backblaze.bucket-name}")
+    private String bucketName;
+
+    @Value("${storage.quota.max-bytes-per-user:0}")
+    private long quotaBytes;
+
+    @Value("${storage.quota.warning-ratio:0.9}")
+    private double warningRatio;
+
+    private final S3Client s3Client;
+    private final UserStorageUsageRepository usageRepository;
+    private final DatasetRepository datasetRepository;
+
+    public StorageUsageService(S3Client s3Client, UserStorageUsageRepository usageRepository,
+                               DatasetRepository datasetRepository) {
+        this.s3Client = s3Client;
+        this.usageRepository = usageRepository;
+        this.datasetRepository = datasetRepository;
+    }
+
+    public UserStorageUsage getUsage(Long userId) {
+        return usageRepository.findById(userId).orElseGet(() -> {
+            UserStorageUsage empty = new UserStorageUsage();
+            empty.setUserId(userId);
+            empty.setBytes(0L);
+            empty.setObjectCount(0L);
+            empty.setDatasetCount(0L);
+            return empty;
+        });
+    }
+
+    /**
+     * @return the per-user quota, or null when storage is unlimited
+     */
+    public Long getQuotaBytes() {
+        return quotaBytes > 0 ? quotaBytes : null;
+    }
+
+    public boolean isNearQuota(UserStorageUsage usage) {
+        return quotaBytes > 0 && usage.getBytes() >= quotaBytes * warningRatio;
+    }
+
+    /**
+     * Checked against the uncompressed upload size, so it errs on the side of allowing less.
+     */
+    public boolean wouldExceedQuota(Long userId, long additionalBytes) {
+        return quotaBytes > 0 && getUsage(userId).getBytes() + additionalBytes > quotaBytes;
+    }
+
+    public static class QuotaExceededException extends RuntimeException {
+        public QuotaExceededException() {
+            super("Storage quota exceeded");
+        }
+    }
+
+    @Transactional
+    public void recordDatasetCreated(Long userId) {
+        usageRepository.add(userId, 0, 0, 1);
+    }
+
+    @Transactional
+    public void recordDatasetDeleted(Long userId) {
+        usageRepository.add(userId, 0, 0, -1);
+    }
+
+    /**
+     * Called once the object behind a dataset has been written. Deduplicated datasets never get
+     * here, since they reuse an object that is already counted. Identical uploads that overlap
+     * each write the same object, so only the first to record it is counted.
+     */
+    @Transactional
+    public void recordObjectStored(Long datasetId, long storedBytes) {
+        Dataset dataset = datasetRepository.findById(datasetId)
+                .orElseThrow(() -> new RuntimeException("Dataset not found"));
+        Long userId = dataset.getUser().getId();
+
+        // objects are per user, and the upsert locks the user's row until commit, so a
+        // concurrent upload of the same object waits here and then sees this one's storedBytes
+        usageRepository.add(userId, 0, 0, 0);
+        boolean counted = datasetRepository.existsByFilePathAndStoredBytesIsNotNullAndIdNot(
+                dataset.getFilePath(), datasetId);
+
+        dataset.setStoredBytes(storedBytes);
+        datasetRepository.save(dataset);
+        if (!counted) {
+            usageRepository.add(userId, storedBytes, 1, 0);
+        }
+    }
+
+    /**
+     * @param storedBytes size recorded on the dataset, or null if its object was never written
+     */
+    @Transactional
+    public void recordObjectDeleted(Long userId, Long storedBytes) {
+        if (storedBytes != null) {
+            usageRepository.add(userId, -storedBytes, -1, 0);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.usage.reconcile-interval-ms:86400000}",
+            initialDelayString = "${storage.usage.reconcile-initial-delay-ms:600000}")
+    public void reconcile() {
+        long startedAt = System.currentTimeMillis();
+        Map<Long, long[]> objects = new HashMap<>();  // userId -> {bytes, count}
+
+        // the paginator follows continuation tokens, so this sees every key, not just the first 1000
+        ListObjectsV2Request request = ListObjectsV2Request.builder().bucket(bucketName).build();
+        for (S3Object object : s3Client.listObjectsV2Paginator(request).contents()) {
+            Long userId = ownerOf(object.key());
+            if (userId == null) {
+                continue;
+            }
+            long[] totals = objects.computeIfAbsent(userId, id -> new long[2]);
+            totals[0] += object.size();
+            totals[1]++;
+        }
+
+        Map<Long, Long> datasets = new HashMap<>();
+        for (UserDatasetCount count : datasetRepository.countDatasetsByUser()) {
+            datasets.put(count.getUserId(), count.getDatasetCount());
+        }
+
+        Set<Long> userIds = new HashSet<>(objects.keySet());
+        userIds.addAll(datasets.keySet());
+        usageRepository.findAll().forEach(usage -> userIds.add(usage.getUserId()));
+
+        for (Long userId : userIds) {
+            long[] totals = objects.getOrDefault(userId, new long[2]);
+            usageRepository.set(userId, totals[0], totals[1], datasets.getOrDefault(userId, 0L));
+        }
+
+        log.info("Reconciled storage usage for {} users in {} ms", userIds.size(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    private static Long ownerOf(String key) {
+        int slash = key.indexOf('/');
+        if (slash <= 0) {
+            return null;
+        }
+        try {
+            return Long.parseLong(key.substring(0, slash));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
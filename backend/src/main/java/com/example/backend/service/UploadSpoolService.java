@@ -0,0 +1,118 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class UploadSpoolService {
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    @Value("${dataset.spool.dir:${java.io.tmpdir}/dataset-spool}")
+    private String spoolDir;
+
+    @Value("${dataset.spool.max-age-minutes:180}")
+    private long maxAgeMinutes;
+
+    private Path root;
+
+    public record SpooledUpload(Path path, long size, String sha256) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        this.root = Paths.get(spoolDir).toAbsolutePath();
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Copies the upload into the spool directory in fixed-size chunks, hashing it on the way,
+     * so the rest of the pipeline never has to touch the multipart part again.
+     */
+    public SpooledUpload spool(MultipartFile file) throws IOException {
+        Path target = root.resolve(UUID.randomUUID() + ".upload");
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
+        long size = 0;
+
+        try (InputStream in = file.getInputStream();
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    out.write(chunk);
+                }
+                size += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            release(target);
+            throw e;
+        }
+
+        return new SpooledUpload(target, size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public void release(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes spool files left behind by jobs that never finished, e.g. after a crash or restart.
+     */
+    @Scheduled(fixedDelayString = "${dataset.spool.sweep-interval-ms:600000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(maxAgeMinutes));
+
+        try (Stream<Path> files = Files.list(root)) {
+            files.filter(path -> isOlderThan(path, cutoff)).forEach(path -> {
+                log.info("Removing stale spool file {}", path);
+                release(path);
+            });
+        } catch (IOException e) {
+            log.warn("Spool sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+import com.example.backend.processing.ColumnarFileWriter.ColumnSpec;
+import com.example.backend.processing.ColumnarQuery.Aggregate;
+import com.example.backend.processing.ColumnarQuery.Filter;
+import com.example.backend.processing.ColumnarQuery.Function;
+import com.example.backend.processing.ColumnarQuery.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarQueryTest {
+
+    private static final int ROWS = 5 * ColumnarFile.ZONE_ROWS + 100;
+    private static final String[] REGIONS = {"north", "south", "east", "west"};
+
+    @TempDir
+    Path tempDir;
+
+    private ColumnarFile file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path path = tempDir.resolve("data.col");
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(path, List.of(
+                new ColumnSpec("id", ColumnType.INTEGER, null),
+                new ColumnSpec("bucket", ColumnType.INTEGER, null),
+                new ColumnSpec("amount", ColumnType.DECIMAL, null),
+                new ColumnSpec("region", ColumnType.TEXT, null),
+                new ColumnSpec("era", ColumnType.TEXT, null),
+                new ColumnSpec("active", ColumnType.BOOLEAN, null)), ROWS)) {
+            for (int row = 0; row < ROWS; row++) {
+                writer.acceptRow(Arrays.asList(String.valueOf(row), String.valueOf(bucket(row)),
+                        amount(row) == null ? "" : String.valueOf(amount(row)),
+                        region(row) == null ? "" : region(row), era(row), String.valueOf(active(row))));
+            }
+            writer.finish();
+        }
+        file = ColumnarFile.open(path);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        file.close();
+    }
+
+    @Test
+    void groupByTextMatchesAPlainLoop() {
+        ColumnarQuery.Result result = ColumnarQuery.execute(file, List.of("region"), List.of(
+                        new Aggregate(Function.COUNT, null),
+                        new Aggregate(Function.COUNT, "amount"),
+                        new Aggregate(Function.SUM, "amount"),
+                        new Aggregate(Function.AVG, "amount"),
+                        new Aggregate(Function.MIN, "amount"),
+                        new Aggregate(Function.MAX, "amount")),
+                List.of(Filter.parse("amount:ge:50"), Filter.parse("era:ne:old")), false, 100, 100);
+
+        IntPredicate filter = row -> amount(row) != null && amount(row) >= 50 && !era(row).equals("old");
+        assertEquals(List.of("region", "count", "count(amount)", "sum(amount)", "avg(amount)", "min(amount)",
+                "max(amount)"), result.columns());
+        assertEquals(count(filter), result.matchedRows());
+
+        // keys ascending, the null region last
+        List<String> regions = new ArrayList<>(List.of(REGIONS));
+        regions.sort(Comparator.naturalOrder());
+        regions.add(null);
+        assertEquals(regions.size(), result.groupCount());
+        for (int g = 0; g < regions.size(); g++) {
+            String region = regions.get(g);
+            List<Object> row = result.rows().get(g);
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            long count = 0;
+            for (int r = 0; r < ROWS; r++) {
+                if (filter.test(r) && Objects.equals(region(r), region)) {
+                    count++;
+                    sum += amount(r);
+                    min = Math.min(min, amount(r));
+                    max = Math.max(max, amount(r));
+                }
+            }
+            assertEquals(region, row.get(0));
+            assertEquals(count, row.get(1), String.valueOf(region));
+            assertEquals(count, row.get(2), String.valueOf(region));
+            assertEquals(sum, (Double) row.get(3), 1e-9 * sum);
+            assertEquals(sum / count, (Double) row.get(4), 1e-9 * sum);
+            assertEquals(min, row.get(5));
+            assertEquals(max, row.get(6));
+        }
+    }
+
+    @Test
+    void compositeKeysGroupLikeAMap() {
+        // bucket is a plain integer column, so its keys are hashed rather than looked up directly
+        ColumnarQuery.Result result = ColumnarQuery.execute(file, List.of("bucket", "active"),
+                List.of(new Aggregate(Function.COUNT, null), new Aggregate(Function.SUM, "id")),
+                List.of(Filter.parse("region:in:north|south"), Filter.parse("id:lt:15000")), false, 1_000, 1_000);
+
+        Map<List<Object>, long[]> expected = new TreeMap<>(Comparator
+                .comparing((List<Object> key) -> (Long) key.get(0))
+                .thenComparing(key -> (Boolean) key.get(1)));
+        for (int r = 0; r < 15_000; r++) {
+            if ("north".equals(region(r)) || "south".equals(region(r))) {
+                long[] totals = expected.computeIfAbsent(List.of(bucket(r), active(r)), key -> new long[2]);
+                totals[0]++;
+                totals[1] += r;
+            }
+        }
+
+        assertEquals(expected.size(), result.groupCount());
+        List<List<Object>> rows = new ArrayList<>();
+        expected.forEach((key, totals) -> rows.add(List.of(key.get(0), key.get(1), totals[0], totals[1])));
+        assertEquals(rows, result.rows());
+    }
+
+    @Test
+    void sortByValueReturnsTheLargestGroupsFirst() {
+        ColumnarQuery.Result result = ColumnarQuery.execute(file, List.of("bucket"),
+                List.of(new Aggregate(Function.SUM, "amount")), List.of(), true, 5, 1_000);
+
+        Map<Long, Double> sums = new TreeMap<>();
+        for (int r = 0; r < ROWS; r++) {
+            if (amount(r) != null) {
+                sums.merge(bucket(r), amount(r), Double::sum);
+            }
+        }
+        List<Map.Entry<Long, Double>> top = new ArrayList<>(sums.entrySet());
+        top.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+        assertEquals(sums.size(), result.groupCount());
+        assertEquals(5, result.rows().size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(top.get(i).getKey(), result.rows().get(i).get(0));
+            assertEquals(top.get(i).getValue(), (Double) result.rows().get(i).get(1), 1e-9 * top.get(i).getValue());
+        }
+    }
+
+    @Test
+    void withoutGroupByEveryRowIsOneGroup() {
+        ColumnarQuery.Result result = ColumnarQuery.execute(file, List.of(),
+                List.of(new Aggregate(Function.COUNT, null), new Aggregate(Function.MAX, "id"),
+                        new Aggregate(Function.AVG, "amount")),
+                List.of(Filter.parse("region:is_null")), false, 10, 10);
+
+        IntPredicate filter = row -> region(row) == null;
+        assertEquals(1, result.groupCount());
+        assertEquals(count(filter), result.rows().get(0).get(0));
+        assertEquals((long) (ROWS - 1) / 11 * 11, result.rows().get(0).get(1));
+
+        ColumnarQuery.Result none = ColumnarQuery.execute(file, List.of(),
+                List.of(new Aggregate(Function.COUNT, null), new Aggregate(Function.MIN, "amount")),
+                List.of(Filter.parse("id:gt:" + ROWS)), false, 10, 10);
+        assertEquals(0L, none.rows().get(0).get(0));
+        assertNull(none.rows().get(0).get(1));
+        assertEquals(0, none.matchedRows());
+    }
+
+    @Test
+    void selectReturnsMatchingRowsInFileOrder() {
+        ColumnarQuery.Selection selection = ColumnarQuery.select(file,
+                List.of(Filter.parse("region:eq:east"), Filter.parse("active:eq:true")), 50);
+
+        int[] expected = new int[50];
+        int found = 0;
+        for (int r = 0; r < ROWS && found < 50; r++) {
+            if ("east".equals(region(r)) && active(r)) {
+                expected[found++] = r;
+            }
+        }
+        assertEquals(Arrays.toString(expected), Arrays.toString(selection.rows()));
+    }
+
+    @Test
+    void zonesOutsideARangeFilterAreSkipped() {
+        ColumnarQuery.Result result = count(List.of(Filter.parse("id:lt:5000")));
+
+        // only the first two zones hold ids below 5000
+        assertEquals(new ColumnarQuery.ScanStats(2, 4), result.stats());
+        assertEquals(5_000L, result.matchedRows());
+        assertEquals(6, count(List.of(Filter.parse("id:ge:0"))).stats().blocksScanned());
+    }
+
+    @Test
+    void clusteredTextSkipsByDictionaryRange() {
+        ColumnarQuery.Result old = count(List.of(Filter.parse("era:eq:old")));
+        assertEquals(new ColumnarQuery.ScanStats(2, 4), old.stats());
+        assertEquals(2L * ColumnarFile.ZONE_ROWS, old.matchedRows());
+
+        ColumnarQuery.Result recent = count(List.of(Filter.parse("era:in:new|unknown")));
+        assertEquals(new ColumnarQuery.ScanStats(4, 2), recent.stats());
+        assertEquals(ROWS - 2L * ColumnarFile.ZONE_ROWS, recent.matchedRows());
+
+        // each filter alone keeps some zones, but no zone passes both
+        ColumnarQuery.Result none = count(List.of(Filter.parse("era:eq:old"), Filter.parse("id:ge:10000")));
+        assertEquals(new ColumnarQuery.ScanStats(0, 6), none.stats());
+        assertEquals(0L, none.matchedRows());
+    }
+
+    @Test
+    void valuesSpreadOverEveryZoneSkipNothing() {
+        ColumnarQuery.Result result = count(List.of(Filter.parse("region:eq:east")));
+
+        assertEquals(new ColumnarQuery.ScanStats(6, 0), result.stats());
+        assertEquals(count(row -> "east".equals(region(row))), result.matchedRows());
+    }
+
+    @Test
+    void nullCountsDecideNullFilters() {
+        // id is never blank, amount is blank in every zone
+        assertEquals(new ColumnarQuery.ScanStats(0, 6), count(List.of(Filter.parse("id:is_null"))).stats());
+        ColumnarQuery.Result blank = count(List.of(Filter.parse("amount:is_null")));
+        assertEquals(new ColumnarQuery.ScanStats(6, 0), blank.stats());
+        assertEquals(count(row -> amount(row) == null), blank.matchedRows());
+    }
+
+    @Test
+    void selectStopsAtTheLimitAndSkipsLeadingZones() {
+        ColumnarQuery.Selection selection = ColumnarQuery.select(file, List.of(Filter.parse("id:gt:20000")), 10);
+
+        assertEquals("[20001, 20002, 20003, 20004, 20005, 20006, 20007, 20008, 20009, 20010]",
+                Arrays.toString(selection.rows()));
+        // zones 0-3 end below 20000, and the last zone is never reached
+        assertEquals(new ColumnarQuery.ScanStats(1, 4), selection.stats());
+    }
+
+    @Test
+    void invalidQueriesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ColumnarQuery.execute(file, List.of("bucket"),
+                List.of(new Aggregate(Function.COUNT, null)), List.of(), false, 10, 50));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarQuery.execute(file, List.of("missing"),
+                List.of(new Aggregate(Function.COUNT, null)), List.of(), false, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarQuery.execute(file, List.of(),
+                List.of(new Aggregate(Function.SUM, "region")), List.of(), false, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarQuery.execute(file, List.of(),
+                List.of(new Aggregate(Function.COUNT, null)), List.of(Filter.parse("id:eq")), false, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarQuery.execute(file, List.of(),
+                List.of(), List.of(), false, 10, 10));
+    }
+
+    @Test
+    void filterExpressionsParse() {
+        assertEquals(new Filter("price", Operator.GT, List.of("100")), Filter.parse("price:gt:100"));
+        assertEquals(new Filter("region", Operator.IN, List.of("north", "south")), Filter.parse("region:in:north|south"));
+        assertEquals(new Filter("at", Operator.EQ, List.of("12:30")), Filter.parse("at:eq:12:30"));
+        assertEquals(new Filter("note", Operator.IS_NULL, List.of()), Filter.parse("note:IS_NULL"));
+        assertThrows(IllegalArgumentException.class, () -> Filter.parse("price"));
+        assertThrows(IllegalArgumentException.class, () -> Filter.parse("price:between:1"));
+    }
+
+    private ColumnarQuery.Result count(List<Filter> filters) {
+        return ColumnarQuery.execute(file, List.of(), List.of(new Aggregate(Function.COUNT, null)), filters,
+                false, 1, 1);
+    }
+
+    private static long count(IntPredicate filter) {
+        long count = 0;
+        for (int r = 0; r < ROWS; r++) {
+            if (filter.test(r)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long bucket(int row) {
+        return (row * 31L) % 97;
+    }
+
+    private static Double amount(int row) {
+        return row % 13 == 0 ? null : (row * 37 % 1000) / 4.0;
+    }
+
+    private static String region(int row) {
+        return row % 11 == 0 ? null : REGIONS[(row * 7 + row / 5) % 4];
+    }
+
+    /** Clustered: the first two zones are "old", the rest "new". */
+    private static String era(int row) {
+        return row < 2 * ColumnarFile.ZONE_ROWS ? "old" : "new";
+    }
+
+    private static boolean active(int row) {
+        return row % 3 == 0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+import com.example.backend.processing.ColumnarFileWriter.ColumnSpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarSeriesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void orderByXKeepsEqualValuesInRowOrder() {
+        Random random = new Random(11);
+        double[] xs = new double[10_000];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(50) - 25.5;
+        }
+        int n = xs.length - 37;
+
+        int[] order = ColumnarSeries.orderByX(xs, n);
+
+        // the reference is a stable sort of boxed indices
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            expected.add(i);
+        }
+        expected.sort(Comparator.comparingDouble(i -> xs[i]));
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), order);
+
+        assertArrayEquals(new int[0], ColumnarSeries.orderByX(xs, 0));
+        assertArrayEquals(new int[]{0}, ColumnarSeries.orderByX(xs, 1));
+        assertArrayEquals(new int[]{1, 0, 2}, ColumnarSeries.orderByX(new double[]{2, 1, 2}, 3));
+    }
+
+    @Test
+    void unorderedRowsDownsampleLikeTheSameRowsSorted() throws IOException {
+        Random random = new Random(17);
+        List<long[]> rows = new ArrayList<>();
+        for (int i = 0; i < 9_000; i++) {
+            // many rows share an x, so the order among them matters
+            rows.add(new long[]{random.nextInt(2_000), random.nextInt(100_000)});
+        }
+        List<long[]> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingLong(row -> row[0]));
+
+        try (ColumnarFile shuffledFile = write("shuffled.col", rows);
+             ColumnarFile sortedFile = write("sorted.col", sorted)) {
+            for (int points : new int[]{50, 9_000}) {
+                ColumnarSeries.Result shuffled = ColumnarSeries.downsample(shuffledFile, "x", "y",
+                        ColumnarSeries.Method.LTTB, points);
+                ColumnarSeries.Result expected = ColumnarSeries.downsample(sortedFile, "x", "y",
+                        ColumnarSeries.Method.LTTB, points);
+
+                assertFalse(shuffled.ordered());
+                assertTrue(expected.ordered());
+                assertEquals(points, shuffled.x().size());
+                assertEquals(expected.x(), shuffled.x(), "points " + points);
+                assertEquals(expected.y(), shuffled.y(), "points " + points);
+            }
+        }
+    }
+
+    private ColumnarFile write(String name, List<long[]> rows) throws IOException {
+        Path path = tempDir.resolve(name);
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(path, List.of(
+                new ColumnSpec("x", ColumnType.INTEGER, null),
+                new ColumnSpec("y", ColumnType.INTEGER, null)), rows.size())) {
+            for (long[] row : rows) {
+                writer.acceptRow(List.of(String.valueOf(row[0]), String.valueOf(row[1])));
+            }
+            writer.finish();
+        }
+        return ColumnarFile.open(path);
+    }
+}
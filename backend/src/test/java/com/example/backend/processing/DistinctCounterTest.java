@@ -0,0 +1,71 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistinctCounterTest {
+
+    @Test
+    void countsExactlyUpToTheThreshold() {
+        DistinctCounter counter = new DistinctCounter(1_000, 14);
+        for (int i = 0; i < 3_000; i++) {
+            counter.add("v" + (i % 1_000));
+        }
+        assertTrue(counter.isExact());
+        assertEquals(1_000, counter.count());
+    }
+
+    @Test
+    void switchesToTheSketchPastTheThreshold() {
+        DistinctCounter counter = new DistinctCounter(1_000, 14);
+        for (int i = 0; i < 10_000; i++) {
+            counter.add("v" + i);
+        }
+        assertFalse(counter.isExact());
+        assertEquals(10_000, counter.count(), 10_000 * 0.03);
+    }
+
+    @Test
+    void mergeOfTwoExactCountersSwitchesWhenTheUnionIsTooLarge() {
+        DistinctCounter left = new DistinctCounter(1_000, 14);
+        DistinctCounter right = new DistinctCounter(1_000, 14);
+        for (int i = 0; i < 800; i++) {
+            left.add("l" + i);
+            right.add("r" + i);
+        }
+        left.merge(right);
+        assertFalse(left.isExact());
+        assertEquals(1_600, left.count(), 1_600 * 0.03);
+    }
+
+    @Test
+    void overlappingExactCountersStayExact() {
+        DistinctCounter left = new DistinctCounter(1_000, 14);
+        DistinctCounter right = new DistinctCounter(1_000, 14);
+        for (int i = 0; i < 600; i++) {
+            left.add("v" + i);
+            right.add("v" + (i + 300));
+        }
+        left.merge(right);
+        assertTrue(left.isExact());
+        assertEquals(900, left.count());
+    }
+
+    @Test
+    void exactValuesAreFoldedIntoASketch() {
+        DistinctCounter sketched = new DistinctCounter(100, 14);
+        DistinctCounter exact = new DistinctCounter(100, 14);
+        for (int i = 0; i < 5_000; i++) {
+            sketched.add("v" + i);
+        }
+        for (int i = 4_950; i < 5_050; i++) {
+            exact.add("v" + i);
+        }
+        sketched.merge(exact);
+        assertFalse(sketched.isExact());
+        assertEquals(5_050, sketched.count(), 5_050 * 0.03);
+    }
+}
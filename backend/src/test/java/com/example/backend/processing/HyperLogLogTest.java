@@ -0,0 +1,66 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimateStaysWithinThreeStandardErrors() {
+        for (int cardinality : new int[]{1_000, 50_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add("value-" + i);
+            }
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertTrue(error <= 3 * sketch.relativeStandardError(),
+                    "cardinality " + cardinality + " estimated as " + sketch.estimate());
+        }
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("v" + i);
+        }
+        assertEquals(100.0, sketch.estimate(), 1.0);
+    }
+
+    @Test
+    void repeatedValuesDoNotInflateTheEstimate() {
+        HyperLogLog once = new HyperLogLog(12);
+        HyperLogLog repeated = new HyperLogLog(12);
+        for (int i = 0; i < 20_000; i++) {
+            once.add("id" + i);
+            for (int copy = 0; copy < 3; copy++) {
+                repeated.add("id" + i);
+            }
+        }
+        assertEquals(once.estimate(), repeated.estimate());
+    }
+
+    @Test
+    void mergingDisjointHalvesEqualsSketchingTheWhole() {
+        HyperLogLog whole = new HyperLogLog(14);
+        HyperLogLog left = new HyperLogLog(14);
+        HyperLogLog right = new HyperLogLog(14);
+        for (int i = 0; i < 200_000; i++) {
+            String value = "row-" + i;
+            whole.add(value);
+            (i % 2 == 0 ? left : right).add(value);
+        }
+        left.merge(right);
+        assertEquals(whole.estimate(), left.estimate());
+    }
+
+    @Test
+    void rejectsInvalidPrecisionAndMismatchedMerges() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(10).merge(new HyperLogLog(12)));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbDownsamplerTest {
+
+    @Test
+    void matchesTheWholeArrayAlgorithm() {
+        double[] y = randomWalk(10_000, 1);
+        double[] x = indices(y.length);
+
+        // 3 keeps one middle bucket; 999 and 5_000 give buckets of uneven length; with 9_999 the
+        // bucket width is just over 1, where a floating-point layout ends the last bucket early
+        for (int threshold : new int[]{3, 4, 7, 100, 999, 5_000, 9_997, 9_999}) {
+            LttbDownsampler downsampler = downsample(x, y, y.length, threshold);
+            double[][] expected = reference(x, y, threshold);
+
+            assertEquals(threshold, downsampler.size());
+            assertArrayEquals(expected[0], keptX(downsampler), "threshold " + threshold);
+            assertArrayEquals(expected[1], keptY(downsampler), "threshold " + threshold);
+        }
+    }
+
+    @Test
+    void eachMiddleBucketKeepsOnePointFromItsOwnRange() {
+        double[] y = randomWalk(1_000, 2);
+        double[] x = indices(y.length);
+        int threshold = 7;
+        // 998 middle points over 5 buckets of 199.6
+        long[] ends = {200, 400, 599, 799, 999};
+
+        double[] kept = keptX(downsample(x, y, y.length, threshold));
+
+        assertEquals(0.0, kept[0]);
+        assertEquals(999.0, kept[threshold - 1]);
+        for (int b = 0; b < ends.length; b++) {
+            long start = b == 0 ? 1 : ends[b - 1];
+            assertTrue(kept[b + 1] >= start && kept[b + 1] < ends[b], "bucket " + b + " kept " + kept[b + 1]);
+        }
+    }
+
+    @Test
+    void aSpikeWinsItsBucketWhereverItSits() {
+        // 3 points per bucket; the spike moves to the first, middle and last slot of its bucket
+        for (int slot = 0; slot < 3; slot++) {
+            double[] y = new double[2 + 3 * 4];
+            int spike = 1 + 3 * 2 + slot;
+            y[spike] = 100;
+
+            double[] kept = keptX(downsample(indices(y.length), y, y.length, 6));
+
+            assertEquals(spike, kept[3], "slot " + slot);
+            // the flat buckets tie everywhere, and the first candidate wins a tie
+            assertArrayEquals(reference(indices(y.length), y, 6)[0], kept, "slot " + slot);
+        }
+    }
+
+    @Test
+    void totalsAtOrBelowTheThresholdKeepEveryPoint() {
+        for (int total : new int[]{0, 1, 2, 3, 5, 10}) {
+            double[] y = randomWalk(total, 3);
+            double[] x = indices(total);
+
+            LttbDownsampler downsampler = downsample(x, y, total, 10);
+
+            assertArrayEquals(x, keptX(downsampler), "total " + total);
+            assertArrayEquals(y, keptY(downsampler), "total " + total);
+        }
+    }
+
+    @Test
+    void fewerPointsThanAnnouncedLeaveAShortFinalBucket() {
+        double[] y = randomWalk(650, 4);
+        double[] x = indices(y.length);
+        int threshold = 12;
+
+        LttbDownsampler downsampler = downsample(x, y, 1_000, threshold);
+        double[] kept = keptX(downsampler);
+
+        // laid out for 1_000 points, 998 over 10 buckets of 99.8: points 1..648 reach 7 buckets,
+        // the last of them (599..698) only half full, and the rest stay empty
+        int reached = 7;
+        assertEquals(reached + 2, downsampler.size(), Arrays.toString(kept));
+        assertEquals(0.0, kept[0]);
+        assertEquals(649.0, kept[kept.length - 1]);
+        assertEquals(y[649], downsampler.y(downsampler.size() - 1));
+        for (int b = 0; b < reached; b++) {
+            int start = bucketStart(b, 1_000, threshold);
+            int end = bucketStart(b + 1, 1_000, threshold);
+            assertTrue(kept[b + 1] >= start && kept[b + 1] < end, "bucket " + b + " kept " + kept[b + 1]);
+        }
+    }
+
+    @Test
+    void thresholdBelowThreeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LttbDownsampler(100, 2));
+    }
+
+    /** The usual LTTB over arrays, with the same bucket layout and tie-breaking. */
+    private static double[][] reference(double[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (n <= threshold) {
+            return new double[][]{x.clone(), y.clone()};
+        }
+        double[] outX = new double[threshold];
+        double[] outY = new double[threshold];
+        outX[0] = x[0];
+        outY[0] = y[0];
+        int anchor = 0;
+        for (int b = 0; b < threshold - 2; b++) {
+            int start = bucketStart(b, n, threshold);
+            int end = bucketStart(b + 1, n, threshold);
+            int nextEnd = Math.min(bucketStart(b + 2, n, threshold), n);
+            double sumX = 0;
+            double sumY = 0;
+            for (int i = end; i < nextEnd; i++) {
+                sumX += x[i];
+                sumY += y[i];
+            }
+            double averageX = sumX / (nextEnd - end);
+            double averageY = sumY / (nextEnd - end);
+
+            int best = start;
+            double bestArea = -1;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[anchor] - averageX) * (y[i] - y[anchor])
+                        - (x[anchor] - x[i]) * (averageY - y[anchor]));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = i;
+                }
+            }
+            outX[b + 1] = x[best];
+            outY[b + 1] = y[best];
+            anchor = best;
+        }
+        outX[threshold - 1] = x[n - 1];
+        outY[threshold - 1] = y[n - 1];
+        return new double[][]{outX, outY};
+    }
+
+    /** floor(b * (n - 2) / (threshold - 2)) + 1, the first point of middle bucket b. */
+    private static int bucketStart(int b, long n, int threshold) {
+        return (int) (b * (n - 2) / (threshold - 2) + 1);
+    }
+
+    private static LttbDownsampler downsample(double[] x, double[] y, long announced, int threshold) {
+        LttbDownsampler downsampler = new LttbDownsampler(announced, threshold);
+        for (int i = 0; i < x.length; i++) {
+            downsampler.add(x[i], y[i]);
+        }
+        downsampler.finish();
+        return downsampler;
+    }
+
+    private static double[] keptX(LttbDownsampler downsampler) {
+        double[] x = new double[downsampler.size()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = downsampler.x(i);
+        }
+        return x;
+    }
+
+    private static double[] keptY(LttbDownsampler downsampler) {
+        double[] y = new double[downsampler.size()];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = downsampler.y(i);
+        }
+        return y;
+    }
+
+    private static double[] indices(int n) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+        }
+        return x;
+    }
+
+    private static double[] randomWalk(int n, long seed) {
+        Random random = new Random(seed);
+        double[] y = new double[n];
+        for (int i = 1; i < n; i++) {
+            y[i] = y[i - 1] + random.nextGaussian();
+        }
+        return y;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumberParserTest {
+
+    private final NumberParser parser = new NumberParser();
+
+    @Test
+    void fastPathBoundaries() {
+        // 15 significant digits and |exponent| <= 22 take Clinger's path, one more of either does not
+        assertMatchesJdk("123456789012345");
+        assertMatchesJdk("1234567890123456");
+        assertMatchesJdk("9007199254740993");
+        assertMatchesJdk("1.2759094383805523E7");
+        assertMatchesJdk("0.123456789012345");
+        assertMatchesJdk("0.1234567890123456");
+        assertMatchesJdk("1e22");
+        assertMatchesJdk("1e23");
+        assertMatchesJdk("3e23");
+        assertMatchesJdk("1e-22");
+        assertMatchesJdk("1e-23");
+        assertMatchesJdk("123456789012345e22");
+        assertMatchesJdk("123456789012345e-22");
+        assertMatchesJdk("0.0000000000000000000001");
+        assertMatchesJdk("0.00000000000000000000001");
+        assertMatchesJdk("4.9e-324");
+        assertMatchesJdk("1.7976931348623157e308");
+        assertMatchesJdk("1e309");
+    }
+
+    @Test
+    void signsZeroesAndDecimalPoints() {
+        assertMatchesJdk("-0");
+        assertMatchesJdk("-0.0");
+        assertMatchesJdk("+0");
+        assertMatchesJdk("+5");
+        assertMatchesJdk("+.5");
+        assertMatchesJdk("-.5e-3");
+        assertMatchesJdk("5.");
+        assertMatchesJdk(".5");
+        assertMatchesJdk("000123.4500");
+        assertMatchesJdk("-1234.56");
+
+        assertTrue(parser.parse("-0"));
+        assertEquals(Double.NEGATIVE_INFINITY, 1.0 / parser.value());
+    }
+
+    @Test
+    void exponentsAndLongMantissas() {
+        assertMatchesJdk("1E5");
+        assertMatchesJdk("1e+5");
+        assertMatchesJdk("2.5e-3");
+        assertMatchesJdk("1e0");
+        assertMatchesJdk("1e100000000");
+        assertMatchesJdk("1e-100000000");
+        assertMatchesJdk("3.14159265358979323846264338327950288");
+        assertMatchesJdk("123456789012345678901234567890");
+        assertMatchesJdk("0.000000000000000000000000000000000000123456789012345678901");
+        assertMatchesJdk("99999999999999999999.99999999999999999999");
+    }
+
+    @Test
+    void suffixesSpecialsHexAndWhitespace() {
+        assertMatchesJdk(" 42 \t");
+        assertMatchesJdk("\n-7.25\r");
+        assertMatchesJdk("1.5d");
+        assertMatchesJdk("2f");
+        assertMatchesJdk("1e5D");
+        assertMatchesJdk("0.1F");
+        assertMatchesJdk("NaN");
+        assertMatchesJdk("-NaN");
+        assertMatchesJdk("Infinity");
+        assertMatchesJdk("-Infinity");
+        assertMatchesJdk("+Infinity");
+        assertMatchesJdk("0x1p3");
+        assertMatchesJdk("-0X1.8p1");
+    }
+
+    @Test
+    void rejectsWhatTheJdkRejects() {
+        String[] invalid = {"", "   ", "-", "+", ".", "e5", "1e", "1e+", "1e-", "abc", "1.2.3", "1,000",
+                "--1", "1 2", "NaNx", "Inf", "infinity", "0x", "1dd", "1d5", "$5", "1_000", "١٢٣"};
+        for (String text : invalid) {
+            assertMatchesJdk(text);
+            assertFalse(parser.parse(text), text);
+        }
+        assertFalse(parser.parse(null));
+    }
+
+    @Test
+    void randomValuesMatchTheJdkBitForBit() {
+        Random random = new Random(17);
+        for (int i = 0; i < 50_000; i++) {
+            double value = switch (i % 4) {
+                case 0 -> random.nextDouble() * 1_000_000;
+                case 1 -> random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+                case 2 -> Double.longBitsToDouble(random.nextLong());
+                default -> random.nextInt(2_000_000) - 1_000_000;
+            };
+            assertMatchesJdk(Double.toString(value));
+            assertMatchesJdk(String.format(Locale.ROOT, "%." + random.nextInt(18) + "f", value));
+            assertMatchesJdk(String.format(Locale.ROOT, "%." + random.nextInt(18) + "e", value));
+        }
+    }
+
+    private void assertMatchesJdk(String text) {
+        double expected;
+        try {
+            expected = Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            assertFalse(parser.parse(text), () -> "accepted " + text);
+            return;
+        }
+
+        assertTrue(parser.parse(text), () -> "rejected " + text);
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(parser.value()),
+                () -> text + " parsed as " + parser.value() + ", JDK says " + expected);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Values per second through the numeric column path, before and after the single-pass parser:
+ * <ul>
+ *   <li>before: {@code isNumeric} (trim, {@code Double.parseDouble}, exception on failure), a
+ *   second parse, a growable {@code double[]} of every value and a two-pass mean and deviation</li>
+ *   <li>after: {@link NumberParser} and {@link NumericStats}</li>
+ * </ul>
+ * plus {@link QuantileSketch} updates per second. Excluded from the normal test run; run with
+ * {@code mvn test -Pbenchmark}, and {@code -Dbenchmark.rows=N} to change the input size.
+ */
+@Tag("benchmark")
+class NumericProfilingBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private static volatile double sink;
+
+    @Test
+    void parseAndStats() {
+        String[] values = values(Integer.getInteger("benchmark.rows", 4_000_000));
+
+        double before = measure("parse + stats, before", values.length, () -> before(values));
+        double after = measure("parse + stats, after ", values.length, () -> after(values));
+        assertEquals(before, after, 1e-6 * Math.max(1.0, Math.abs(before)));
+
+        double[] numbers = new double[values.length];
+        int count = 0;
+        NumberParser parser = new NumberParser();
+        for (String value : values) {
+            if (parser.parse(value)) {
+                numbers[count++] = parser.value();
+            }
+        }
+        double[] parsed = Arrays.copyOf(numbers, count);
+        measure("quantile sketch update", parsed.length, () -> {
+            QuantileSketch sketch = new QuantileSketch();
+            for (double number : parsed) {
+                sketch.add(number);
+            }
+            return sketch.quantile(0.5);
+        });
+    }
+
+    private interface Workload {
+        double run();
+    }
+
+    /** Returns the workload's result from the last round, so the two paths can be compared. */
+    private static double measure(String label, int items, Workload workload) {
+        double result = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            result = workload.run();
+        }
+        double best = 0;
+        double worst = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            result = workload.run();
+            double rate = items / ((System.nanoTime() - start) / 1e9);
+            best = Math.max(best, rate);
+            worst = Math.min(worst, rate);
+        }
+        sink = result;
+        System.out.printf(Locale.ROOT, "%s: %.1f-%.1fM per second over %,d values%n",
+                label, worst / 1e6, best / 1e6, items);
+        return result;
+    }
+
+    private static double before(String[] values) {
+        double[] numbers = new double[64];
+        int size = 0;
+        for (String value : values) {
+            if (isNumeric(value)) {
+                double number = Double.parseDouble(value.trim());
+                if (size == numbers.length) {
+                    numbers = Arrays.copyOf(numbers, size << 1);
+                }
+                numbers[size++] = number;
+            }
+        }
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += numbers[i];
+        }
+        double mean = sum / size;
+        double squares = 0;
+        for (int i = 0; i < size; i++) {
+            double delta = numbers[i] - mean;
+            squares += delta * delta;
+        }
+        sink = Math.sqrt(squares / size);
+        return mean;
+    }
+
+    private static double after(String[] values) {
+        NumberParser parser = new NumberParser();
+        NumericStats stats = new NumericStats();
+        for (String value : values) {
+            if (parser.parse(value)) {
+                stats.add(parser.value());
+            }
+        }
+        sink = stats.getStdDev();
+        return stats.getMean();
+    }
+
+    private static boolean isNumeric(String str) {
+        if (str == null || str.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            Double.parseDouble(str.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** Formatted decimals as they appear in CSV exports, with the odd blank and placeholder. */
+    private static String[] values(int rows) {
+        Random random = new Random(6);
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            if (i % 200 == 0) {
+                values[i] = i % 400 == 0 ? "" : "N/A";
+            } else if (i % 3 == 0) {
+                values[i] = Integer.toString(random.nextInt(100_000));
+            } else {
+                values[i] = String.format(Locale.ROOT, "%.2f", random.nextGaussian() * 2_500 + 10_000);
+            }
+        }
+        return values;
+    }
+}
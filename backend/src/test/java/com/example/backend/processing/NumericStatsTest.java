@@ -0,0 +1,114 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumericStatsTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void matchesTwoPassMeanAndVariance() {
+        double[] values = values(100_000, 1);
+        NumericStats stats = new NumericStats();
+        for (double value : values) {
+            stats.add(value);
+        }
+
+        assertEquals(values.length, stats.getCount());
+        assertClose(mean(values), stats.getMean());
+        assertClose(variance(values), stats.getVariance());
+        assertClose(Math.sqrt(variance(values)), stats.getStdDev());
+    }
+
+    @Test
+    void mergedSlicesMatchASinglePass() {
+        double[] values = values(90_001, 2);
+        NumericStats whole = new NumericStats();
+        for (double value : values) {
+            whole.add(value);
+        }
+
+        // uneven slices, including empty ones on both sides of a merge
+        int[] cuts = {0, 0, 1, 17, 5_000, 5_000, 40_000, 89_999, values.length};
+        NumericStats merged = new NumericStats();
+        for (int slice = 0; slice + 1 < cuts.length; slice++) {
+            NumericStats part = new NumericStats();
+            for (int i = cuts[slice]; i < cuts[slice + 1]; i++) {
+                part.add(values[i]);
+            }
+            merged.merge(part);
+        }
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+        assertClose(whole.getMean(), merged.getMean());
+        assertClose(whole.getVariance(), merged.getVariance());
+    }
+
+    @Test
+    void staysAccurateWithALargeOffset() {
+        // the naive sum-of-squares formula loses every digit here
+        NumericStats stats = new NumericStats();
+        for (int i = 0; i < 10_000; i++) {
+            stats.add(1e9 + (i % 2 == 0 ? 1 : -1));
+        }
+        assertClose(1e9, stats.getMean());
+        assertClose(1.0, stats.getVariance());
+    }
+
+    @Test
+    void emptyAndSingleValue() {
+        NumericStats empty = new NumericStats();
+        assertEquals(0, empty.getCount());
+        assertEquals(0.0, empty.getVariance());
+        assertTrue(Double.isNaN(empty.getMin()));
+
+        NumericStats single = new NumericStats();
+        single.add(-3.5);
+        single.merge(empty);
+        assertEquals(-3.5, single.getMean());
+        assertEquals(0.0, single.getVariance());
+        assertEquals(-3.5, single.getMin());
+        assertEquals(-3.5, single.getMax());
+
+        empty.merge(single);
+        assertEquals(1, empty.getCount());
+        assertEquals(-3.5, empty.getMean());
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, TOLERANCE * Math.max(1.0, Math.abs(expected)));
+    }
+
+    private static double[] values(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = 500 + random.nextGaussian() * 120;
+        }
+        return values;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double variance(double[] values) {
+        double mean = mean(values);
+        double sum = 0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return sum / values.length;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.DatasetColumn;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelCsvProfilerTest {
+
+    private static final int ROWS = 20_000;
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        file = tempDir.resolve("data.csv");
+        writeCsv(file);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void chunkBoundariesNeverSplitAQuotedField() throws IOException {
+        long[] boundaries;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            boundaries = CsvChunker.split(channel, 16, 1);
+        }
+        assertTrue(boundaries.length > 10, "expected the file to be cut into many ranges");
+
+        // most bytes of every row sit inside a multi-line quoted field, so evenly spaced targets
+        // land inside one; each cut must still start a fresh record
+        byte[] bytes = Files.readAllBytes(file);
+        long records = 0;
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            assertEquals((byte) '\n', bytes[(int) boundaries[i] - 1]);
+            String range = new String(bytes, (int) boundaries[i], (int) (boundaries[i + 1] - boundaries[i]),
+                    StandardCharsets.UTF_8);
+            try (CSVParser parser = CSVParser.parse(range, CsvFormats.RECORDS_ONLY)) {
+                for (CSVRecord record : parser) {
+                    assertEquals(4, record.size());
+                    records++;
+                }
+            }
+        }
+        assertEquals(ROWS, records);
+    }
+
+    @Test
+    void parallelProfileMatchesSequentialProfile() throws IOException {
+        DatasetProfiler sequential = profileSequentially(file);
+        DatasetProfiler parallel = new ParallelCsvProfiler(pool, 1, ProfilingOptions.defaults()).profile(file);
+
+        assertEquals(ROWS, sequential.getRowCount());
+        assertEquals(sequential.getRowCount(), parallel.getRowCount());
+        assertEquals(sequential.getHeaders(), parallel.getHeaders());
+
+        List<DatasetColumn> expected = sequential.toColumns(null);
+        List<DatasetColumn> actual = parallel.toColumns(null);
+        for (int i = 0; i < expected.size(); i++) {
+            DatasetColumn want = expected.get(i);
+            DatasetColumn got = actual.get(i);
+            String name = want.getColumnName();
+
+            assertEquals(want.getColumnName(), got.getColumnName());
+            assertEquals(want.getNullCount(), got.getNullCount(), name);
+            assertEquals(want.getUniqueValues(), got.getUniqueValues(), name);
+            assertEquals(want.getUniqueValuesApproximate(), got.getUniqueValuesApproximate(), name);
+            assertEquals(want.getDataType(), got.getDataType(), name);
+            assertEquals(want.getMinValue(), got.getMinValue(), name);
+            assertEquals(want.getMaxValue(), got.getMaxValue(), name);
+
+            NumericStats wantStats = sequential.numericStats(i);
+            NumericStats gotStats = parallel.numericStats(i);
+            assertEquals(wantStats.getCount(), gotStats.getCount(), name);
+            assertWithinTolerance(wantStats.getMean(), gotStats.getMean(), name + " mean");
+            assertWithinTolerance(wantStats.getVariance(), gotStats.getVariance(), name + " variance");
+        }
+    }
+
+    private static void assertWithinTolerance(double expected, double actual, String what) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual), what);
+            return;
+        }
+        double allowed = ParallelCsvProfiler.STATS_RELATIVE_TOLERANCE * Math.max(1.0, Math.abs(expected));
+        assertEquals(expected, actual, allowed, what);
+    }
+
+    private static DatasetProfiler profileSequentially(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             CSVParser parser = new CSVParser(reader, CsvFormats.WITH_HEADER)) {
+            DatasetProfiler profiler = new DatasetProfiler(parser.getHeaderNames(), ProfilingOptions.defaults(), 0L);
+            for (CSVRecord record : parser) {
+                profiler.acceptRecord(record);
+            }
+            return profiler;
+        }
+    }
+
+    private static void writeCsv(Path file) throws IOException {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("id,amount,notes,region\n");
+        for (int row = 0; row < ROWS; row++) {
+            String amount = row % 17 == 0 ? "" : String.valueOf(Math.round(random.nextGaussian() * 10_000) / 100.0);
+            csv.append(row).append(',')
+                    .append(amount).append(',')
+                    .append("\"first line of note ").append(row).append("\n")
+                    .append("second line, with a comma\r\n")
+                    .append("and \"\"quotes\"\" ").append(random.nextInt(500)).append("\",")
+                    .append(row % 5 == 0 ? "" : "region-" + random.nextInt(12))
+                    .append(row % 2 == 0 ? "\n" : "\r\n");
+        }
+        Files.writeString(file, csv.toString());
+    }
+}
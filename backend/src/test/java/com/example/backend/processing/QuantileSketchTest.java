@@ -0,0 +1,132 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    /** The documented error is about 1.3% at k = 200; leave some headroom for unlucky streams. */
+    private static final double RANK_ERROR = 0.02;
+
+    private static final double[] QUANTILES = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+    @Test
+    void smallInputsAreExactAndInterpolated() {
+        QuantileSketch odd = new QuantileSketch();
+        for (int i = 101; i >= 1; i--) {
+            odd.add(i);
+        }
+        assertTrue(odd.isExact());
+        assertEquals(51.0, odd.quantile(0.5));
+        assertEquals(1.0, odd.quantile(0.0));
+        assertEquals(101.0, odd.quantile(1.0));
+
+        QuantileSketch even = new QuantileSketch();
+        for (int i = 1; i <= 100; i++) {
+            even.add(i);
+        }
+        assertEquals(50.5, even.quantile(0.5));
+    }
+
+    @Test
+    void rankErrorStaysWithinBoundOnLargeStreams() {
+        int n = 1_000_000;
+        QuantileSketch sketch = new QuantileSketch();
+        for (int value : permutation(n, 7)) {
+            sketch.add(value);
+        }
+
+        assertFalse(sketch.isExact());
+        assertEquals(n, sketch.getCount());
+        assertEquals(0.0, sketch.getMin());
+        assertEquals(n - 1.0, sketch.getMax());
+        assertRankError(sketch, n);
+        // memory stays around 3k items however many values were added
+        assertTrue(sketch.toBytes().length < 3 * QuantileSketch.DEFAULT_K * 8 * 2);
+    }
+
+    @Test
+    void mergedSketchesKeepTheRankErrorBound() {
+        int n = 400_000;
+        int[] values = permutation(n, 11);
+        QuantileSketch merged = new QuantileSketch();
+        for (int slice = 0; slice < 8; slice++) {
+            QuantileSketch part = new QuantileSketch();
+            for (int i = slice * n / 8; i < (slice + 1) * n / 8; i++) {
+                part.add(values[i]);
+            }
+            merged.merge(part);
+        }
+
+        assertEquals(n, merged.getCount());
+        assertEquals(0.0, merged.getMin());
+        assertEquals(n - 1.0, merged.getMax());
+        assertRankError(merged, n);
+    }
+
+    @Test
+    void serializedSketchAnswersTheSameQueries() {
+        QuantileSketch sketch = new QuantileSketch();
+        Random random = new Random(3);
+        for (int i = 0; i < 50_000; i++) {
+            sketch.add(random.nextGaussian());
+        }
+
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+        assertEquals(sketch.getCount(), copy.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), copy.quantile(q));
+        }
+        assertEquals(sketch.cdf(0.0), copy.cdf(0.0));
+    }
+
+    @Test
+    void cdfIsTheInverseOfQuantile() {
+        int n = 200_000;
+        QuantileSketch sketch = new QuantileSketch();
+        for (int value : permutation(n, 5)) {
+            sketch.add(value);
+        }
+        for (double q : QUANTILES) {
+            assertEquals(q, sketch.cdf(sketch.quantile(q)), RANK_ERROR);
+        }
+    }
+
+    @Test
+    void ignoresNaNAndAnswersNaNWhenEmpty() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        sketch.add(Double.NaN);
+        assertTrue(sketch.isEmpty());
+        sketch.add(4.0);
+        assertEquals(4.0, sketch.quantile(0.5));
+    }
+
+    /** Values are a permutation of 0 .. n-1, so the true rank of v is v / n. */
+    private static void assertRankError(QuantileSketch sketch, int n) {
+        for (double q : QUANTILES) {
+            double rank = sketch.quantile(q) / n;
+            assertEquals(q, rank, RANK_ERROR, "quantile " + q);
+        }
+    }
+
+    private static int[] permutation(int n, long seed) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.backend.processing;
+
+import com.example.backend.processing.StreamingHistogram.Bin;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingHistogramTest {
+
+    /** Rank error of the sketch at the bin edges, as a share of all values. */
+    private static final double COUNT_ERROR = 0.03;
+
+    @Test
+    void equiDepthBinsHoldEqualSharesOfSkewedData() {
+        double[] values = new double[200_000];
+        Random random = new Random(3);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 1.5);
+        }
+        StreamingHistogram histogram = new StreamingHistogram();
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            histogram.add(value);
+            sketch.add(value);
+        }
+
+        List<Bin> bins = histogram.equiDepth(10, sketch);
+
+        assertEquals(10, bins.size());
+        assertEdges(bins, values);
+        for (Bin bin : bins) {
+            assertEquals(values.length / 10.0, bin.count(), COUNT_ERROR * values.length, bin.toString());
+            assertEquals(exactCount(values, bin, bins), bin.count(), COUNT_ERROR * values.length, bin.toString());
+        }
+
+        // the same data in equal-width bins is nearly all in the first one
+        List<Bin> equiWidth = histogram.equiWidth(10);
+        assertEdges(equiWidth, values);
+        assertTrue(equiWidth.get(0).count() > values.length * 0.9, equiWidth.toString());
+    }
+
+    @Test
+    void equiWidthCountsMatchTheData() {
+        double[] values = new double[100_000];
+        Random random = new Random(5);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 40 - 15;
+        }
+        StreamingHistogram histogram = new StreamingHistogram();
+        for (double value : values) {
+            histogram.add(value);
+        }
+
+        List<Bin> bins = histogram.equiWidth(20);
+
+        assertEquals(20, bins.size());
+        assertEdges(bins, values);
+        double width = (bins.get(19).upper() - bins.get(0).lower()) / 20;
+        for (Bin bin : bins) {
+            assertEquals(width, bin.upper() - bin.lower(), 1e-9 * width);
+            // bucket widths are a small fraction of a bin, so only the edge buckets are estimated
+            assertEquals(exactCount(values, bin, bins), bin.count(), 0.002 * values.length, bin.toString());
+        }
+    }
+
+    @Test
+    void repeatedValuesCollapseZeroWidthBins() {
+        double[] values = new double[50_000];
+        Random random = new Random(9);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 10 == 0 ? random.nextDouble() * 100 : 42.0;
+        }
+        StreamingHistogram histogram = new StreamingHistogram();
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            histogram.add(value);
+            sketch.add(value);
+        }
+
+        List<Bin> bins = histogram.equiDepth(10, sketch);
+
+        assertTrue(bins.size() < 10, bins.toString());
+        assertEdges(bins, values);
+        for (Bin bin : bins) {
+            assertTrue(bin.upper() > bin.lower(), bin.toString());
+            // the repeated value counts in the bin it opens, not the one it closes
+            assertEquals(exactCount(values, bin, bins), bin.count(), COUNT_ERROR * values.length, bin.toString());
+        }
+    }
+
+    @Test
+    void constantColumnIsOneBin() {
+        StreamingHistogram histogram = new StreamingHistogram();
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < 1_000; i++) {
+            histogram.add(7.5);
+            sketch.add(7.5);
+        }
+
+        assertEquals(List.of(new Bin(7.5, 7.5, 1_000)), histogram.equiDepth(10, sketch));
+        assertEquals(List.of(new Bin(7.5, 7.5, 1_000)), histogram.equiWidth(10));
+    }
+
+    @Test
+    void nonFiniteValuesAreIgnored() {
+        StreamingHistogram histogram = new StreamingHistogram();
+        histogram.add(Double.NaN);
+        histogram.add(Double.POSITIVE_INFINITY);
+        assertEquals(List.of(), histogram.equiWidth(10));
+
+        histogram.add(1.0);
+        histogram.add(Double.NEGATIVE_INFINITY);
+        histogram.add(3.0);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(1.0, histogram.getMin());
+        assertEquals(3.0, histogram.getMax());
+    }
+
+    @Test
+    void mergedSlicesAndStoredCopiesGiveTheSameBins() {
+        double[] values = new double[80_000];
+        Random random = new Random(13);
+        for (int i = 0; i < values.length; i++) {
+            // later slices widen the range, so merging has to fold buckets
+            values[i] = random.nextDouble() * (i + 1);
+        }
+        StreamingHistogram whole = new StreamingHistogram();
+        StreamingHistogram merged = new StreamingHistogram();
+        QuantileSketch sketch = new QuantileSketch();
+        for (int slice = 0; slice < 4; slice++) {
+            StreamingHistogram part = new StreamingHistogram();
+            for (int i = slice * values.length / 4; i < (slice + 1) * values.length / 4; i++) {
+                whole.add(values[i]);
+                part.add(values[i]);
+                sketch.add(values[i]);
+            }
+            merged.merge(part);
+        }
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+        List<Bin> expected = whole.equiDepth(8, sketch);
+        List<Bin> actual = merged.equiDepth(8, sketch);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).count(), actual.get(i).count(), COUNT_ERROR * values.length);
+        }
+
+        StreamingHistogram stored = StreamingHistogram.fromBytes(merged.toBytes());
+        assertEquals(actual, stored.equiDepth(8, sketch));
+        assertEquals(merged.equiWidth(16), stored.equiWidth(16));
+    }
+
+    /** Bins are contiguous from min to max and their counts add up to every value. */
+    private static void assertEdges(List<Bin> bins, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted[0], bins.get(0).lower());
+        assertEquals(sorted[sorted.length - 1], bins.get(bins.size() - 1).upper());
+        long total = 0;
+        for (int i = 0; i < bins.size(); i++) {
+            if (i > 0) {
+                assertEquals(bins.get(i - 1).upper(), bins.get(i).lower());
+            }
+            assertTrue(bins.get(i).count() >= 0);
+            total += bins.get(i).count();
+        }
+        assertEquals(values.length, total);
+    }
+
+    /** Values in [lower, upper), or [lower, upper] for the last bin. */
+    private static long exactCount(double[] values, Bin bin, List<Bin> bins) {
+        boolean last = bin == bins.get(bins.size() - 1);
+        long count = 0;
+        for (double value : values) {
+            if (value >= bin.lower() && (value < bin.upper() || (last && value == bin.upper()))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
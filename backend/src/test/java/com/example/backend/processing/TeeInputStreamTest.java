@@ -0,0 +1,64 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TeeInputStreamTest {
+
+    private final byte[] data = random(100_000);
+
+    @Test
+    void readsAndSkipsAreCopied() throws IOException {
+        ByteArrayOutputStream branch = new ByteArrayOutputStream();
+
+        try (TeeInputStream in = new TeeInputStream(new ByteArrayInputStream(data), branch)) {
+            assertEquals(data[0] & 0xff, in.read());
+            byte[] buffer = new byte[999];
+            assertEquals(999, in.read(buffer, 0, buffer.length));
+            assertArrayEquals(Arrays.copyOfRange(data, 1, 1_000), buffer);
+            assertEquals(50_000, in.skip(50_000));
+            assertEquals(49_000, in.readAllBytes().length);
+            assertEquals(-1, in.read());
+        }
+
+        assertArrayEquals(data, branch.toByteArray());
+    }
+
+    @Test
+    void closeCopiesTheUnreadRest() throws IOException {
+        ByteArrayOutputStream branch = new ByteArrayOutputStream();
+
+        TeeInputStream in = new TeeInputStream(new ByteArrayInputStream(data), branch);
+        in.readNBytes(10);
+        in.close();
+        in.close();
+
+        assertArrayEquals(data, branch.toByteArray());
+    }
+
+    @Test
+    void anAbortedTeeStopsAtWhatWasRead() throws IOException {
+        ByteArrayOutputStream branch = new ByteArrayOutputStream();
+
+        try (TeeInputStream in = new TeeInputStream(new ByteArrayInputStream(data), branch)) {
+            in.readNBytes(10);
+            in.abort();
+        }
+
+        assertArrayEquals(Arrays.copyOf(data, 10), branch.toByteArray());
+    }
+
+    private static byte[] random(int length) {
+        byte[] bytes = new byte[length];
+        new Random(5).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.backend.processing;
+
+import com.example.backend.model.ColumnType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TypeInferenceTest {
+
+    @Test
+    void emptySampleIsText() {
+        assertType(ColumnType.TEXT, null, List.of());
+        assertType(ColumnType.TEXT, null, List.of("", " "));
+    }
+
+    @Test
+    void numericTypes() {
+        assertType(ColumnType.INTEGER, null, List.of("1", "-20", "300"));
+        assertType(ColumnType.DECIMAL, null, List.of("1", "2.5", "3"));
+        // 1/0 columns are counted as numbers before booleans are considered
+        assertType(ColumnType.INTEGER, null, List.of("1", "0", "1", "1"));
+    }
+
+    @Test
+    void typeNeedsEightyPercentOfTheSample() {
+        assertType(ColumnType.INTEGER, null, mixed(8, "12", 2, "n/a"));
+        assertType(ColumnType.TEXT, null, mixed(7, "12", 3, "n/a"));
+        assertType(ColumnType.DATE, "yyyy-MM-dd", mixed(8, "2024-03-09", 2, ""));
+        assertType(ColumnType.TEXT, null, mixed(7, "2024-03-09", 3, ""));
+    }
+
+    @Test
+    void booleanStyles() {
+        assertType(ColumnType.BOOLEAN, "true/false", List.of("true", "FALSE", "True"));
+        assertType(ColumnType.BOOLEAN, "yes/no", List.of("yes", "no", "No", "true"));
+    }
+
+    @Test
+    void datePatterns() {
+        assertDates("yyyy-MM-dd", "2024-01-05", "2023-12-31");
+        assertDates("yyyy-M-dd", "2024-1-05", "2024-10-15");
+        assertDates("yyyy/MM/d", "2024/01/5", "2024/02/28");
+        assertDates("dd.MM.yyyy", "13.01.2024", "05.02.2024");
+        assertDates("d/M/yyyy", "25/12/2024", "1/2/2024");
+        assertDates("MM/dd/yyyy", "12/25/2024", "01/02/2024");
+        // nothing proves day-first, so month-first wins
+        assertDates("MM/dd/yyyy", "01/02/2024", "03/04/2024");
+    }
+
+    @Test
+    void timestampPatterns() {
+        assertTimestamps("yyyy-MM-dd'T'HH:mm:ssXXX", "2024-01-05T10:15:30Z", "2024-01-05T23:00:00+01:00");
+        assertTimestamps("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", "2024-01-05T10:15:30.123Z", "2024-06-01T00:00:00.500Z");
+        assertTimestamps("yyyy-MM-dd HH:mm", "2024-01-05 10:15", "2024-01-05 22:45");
+        assertTimestamps("MM/dd/yyyy H:mm:ss", "01/13/2024 9:05:00", "12/31/2024 17:30:59");
+        assertTimestamps("yyyy-MM-dd'T'HH:mm:ssXX", "2024-01-05T10:15:30+0530", "2024-01-05T10:15:30-0800");
+    }
+
+    @Test
+    void mixedDatesAndTimestampsFollowTheMajority() {
+        assertType(ColumnType.TIMESTAMP, "yyyy-MM-dd HH:mm",
+                List.of("2024-01-05 10:15", "2024-01-06 11:00", "2024-01-07"));
+        assertType(ColumnType.DATE, "yyyy-MM-dd",
+                List.of("2024-01-05", "2024-01-06", "2024-01-07 11:00"));
+    }
+
+    private static void assertDates(String pattern, String... values) {
+        assertType(ColumnType.DATE, pattern, List.of(values));
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+        for (String value : values) {
+            LocalDate.from(formatter.parse(value));
+        }
+    }
+
+    private static void assertTimestamps(String pattern, String... values) {
+        assertType(ColumnType.TIMESTAMP, pattern, List.of(values));
+        // resolved the way ColumnarFileWriter encodes timestamps
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+        for (String value : values) {
+            TemporalAccessor parsed = formatter.parse(value);
+            if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+                Instant.from(parsed);
+            } else {
+                LocalDateTime.from(parsed);
+            }
+        }
+    }
+
+    private static void assertType(ColumnType type, String format, List<String> sample) {
+        TypeInference.InferredType inferred = TypeInference.infer(sample);
+        assertEquals(type, inferred.getType(), sample::toString);
+        if (format == null) {
+            assertNull(inferred.getFormat(), sample::toString);
+        } else {
+            assertEquals(format, inferred.getFormat(), sample::toString);
+        }
+    }
+
+    private static List<String> mixed(int matching, String value, int others, String other) {
+        List<String> sample = new ArrayList<>(Collections.nCopies(matching, value));
+        sample.addAll(Collections.nCopies(others, other));
+        return sample;
+    }
+}
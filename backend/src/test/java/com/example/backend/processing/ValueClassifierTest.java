@@ -0,0 +1,146 @@
+package com.example.backend.processing;
+
+import org.junit.jupiter.api.Test;
+
+import static com.example.backend.processing.ValueClassifier.BOOLEAN;
+import static com.example.backend.processing.ValueClassifier.DATE;
+import static com.example.backend.processing.ValueClassifier.DECIMAL;
+import static com.example.backend.processing.ValueClassifier.INTEGER;
+import static com.example.backend.processing.ValueClassifier.TIMESTAMP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValueClassifierTest {
+
+    private final ValueClassifier classifier = new ValueClassifier();
+
+    @Test
+    void blankValuesAreNothing() {
+        assertEquals(0, classifier.classify(""));
+        assertEquals(0, classifier.classify("   "));
+        assertEquals(0, classifier.classify("\t\r\n"));
+    }
+
+    @Test
+    void integers() {
+        assertEquals(INTEGER, classifier.classify("42"));
+        assertEquals(INTEGER, classifier.classify(" -7 "));
+        assertEquals(INTEGER, classifier.classify("+7"));
+        assertEquals(INTEGER, classifier.classify("007"));
+        assertEquals(INTEGER, classifier.classify("123456789012345678"));
+        // one digit more than a long is guaranteed to hold is still a number, just not an integer
+        assertEquals(DECIMAL, classifier.classify("1234567890123456789"));
+        assertEquals(0, classifier.classify("-"));
+        assertEquals(0, classifier.classify("+"));
+        assertEquals(0, classifier.classify("1 000"));
+        assertEquals(0, classifier.classify("1,000"));
+    }
+
+    @Test
+    void decimals() {
+        assertEquals(DECIMAL, classifier.classify("3.14"));
+        assertEquals(DECIMAL, classifier.classify("-0.5"));
+        assertEquals(DECIMAL, classifier.classify(".5"));
+        assertEquals(DECIMAL, classifier.classify("1e5"));
+        assertEquals(DECIMAL, classifier.classify("-2.5E-3"));
+        assertEquals(DECIMAL, classifier.classify("NaN"));
+        assertEquals(DECIMAL, classifier.classify("-Infinity"));
+        assertEquals(0, classifier.classify("1.2.3"));
+        assertEquals(0, classifier.classify("$5.00"));
+        assertEquals(0, classifier.classify("5%"));
+    }
+
+    @Test
+    void booleansAndTheirStyle() {
+        assertEquals(BOOLEAN, classifier.classify("TRUE"));
+        assertEquals(ValueClassifier.BOOLEAN_TRUE_FALSE, classifier.booleanStyle());
+        assertEquals(BOOLEAN, classifier.classify(" no "));
+        assertEquals(ValueClassifier.BOOLEAN_YES_NO, classifier.booleanStyle());
+        assertEquals(INTEGER | BOOLEAN, classifier.classify("0"));
+        assertEquals(ValueClassifier.BOOLEAN_ONE_ZERO, classifier.booleanStyle());
+
+        assertEquals(INTEGER, classifier.classify("2"));
+        assertEquals(INTEGER, classifier.classify("10"));
+        assertEquals(0, classifier.classify("t"));
+        assertEquals(0, classifier.classify("y"));
+        assertEquals(0, classifier.classify("truex"));
+    }
+
+    @Test
+    void dateOrders() {
+        assertEquals(DATE, classifier.classify("2024-01-05"));
+        assertEquals(ValueClassifier.ORDER_YMD, classifier.order());
+        assertEquals('-', classifier.dateSeparator());
+        assertTrue(classifier.firstFieldPadded());
+        assertTrue(classifier.secondFieldPadded());
+
+        assertEquals(DATE, classifier.classify("13/01/2024"));
+        assertEquals(ValueClassifier.ORDER_DMY, classifier.order());
+
+        assertEquals(DATE, classifier.classify("01/13/2024"));
+        assertEquals(ValueClassifier.ORDER_MDY, classifier.order());
+
+        assertEquals(DATE, classifier.classify("01/02/2024"));
+        assertEquals(ValueClassifier.ORDER_AMBIGUOUS, classifier.order());
+
+        assertEquals(DATE, classifier.classify("5.3.2024"));
+        assertEquals('.', classifier.dateSeparator());
+        assertFalse(classifier.firstFieldPadded());
+        assertFalse(classifier.secondFieldPadded());
+    }
+
+    @Test
+    void rejectsDateLookalikes() {
+        assertEquals(0, classifier.classify("2024-13-01"));
+        assertEquals(0, classifier.classify("2024-01-32"));
+        assertEquals(0, classifier.classify("2024-00-10"));
+        assertEquals(0, classifier.classify("13/13/2024"));
+        assertEquals(0, classifier.classify("2024-01/05"));
+        assertEquals(0, classifier.classify("24-01-05"));
+        assertEquals(0, classifier.classify("2024-01-05x"));
+        assertEquals(0, classifier.classify("20240105-01-05"));
+        assertEquals(0, classifier.classify("2024-01"));
+        assertEquals(0, classifier.classify("2024-01-05T"));
+    }
+
+    @Test
+    void timestampShapes() {
+        assertEquals(TIMESTAMP, classifier.classify("2024-01-05T10:15:30Z"));
+        assertEquals('T', classifier.timeSeparator());
+        assertTrue(classifier.hourPadded());
+        assertTrue(classifier.hasSeconds());
+        assertEquals(0, classifier.fractionDigits());
+        assertEquals(ValueClassifier.OFFSET_COLON, classifier.offsetStyle());
+
+        assertEquals(TIMESTAMP, classifier.classify("2024-01-05 9:05"));
+        assertEquals(' ', classifier.timeSeparator());
+        assertFalse(classifier.hourPadded());
+        assertFalse(classifier.hasSeconds());
+        assertEquals(ValueClassifier.OFFSET_NONE, classifier.offsetStyle());
+
+        assertEquals(TIMESTAMP, classifier.classify("2024-01-05T10:15:30.123456+05:30"));
+        assertEquals(6, classifier.fractionDigits());
+        assertEquals(ValueClassifier.OFFSET_COLON, classifier.offsetStyle());
+
+        assertEquals(TIMESTAMP, classifier.classify("2024-01-05T10:15:30-0800"));
+        assertEquals(ValueClassifier.OFFSET_COMPACT, classifier.offsetStyle());
+        assertEquals(TIMESTAMP, classifier.classify("2024-01-05T10:15:30+05"));
+        assertEquals(ValueClassifier.OFFSET_COMPACT, classifier.offsetStyle());
+        assertEquals(TIMESTAMP, classifier.classify("2024-01-05T23:59:60"));
+    }
+
+    @Test
+    void rejectsTimeLookalikes() {
+        assertEquals(0, classifier.classify("2024-01-05T24:00"));
+        assertEquals(0, classifier.classify("2024-01-05T10:60"));
+        assertEquals(0, classifier.classify("2024-01-05T10:5"));
+        assertEquals(0, classifier.classify("2024-01-05T10"));
+        assertEquals(0, classifier.classify("2024-01-05T10:15:30."));
+        assertEquals(0, classifier.classify("2024-01-05T10:15:30.1234567890"));
+        assertEquals(0, classifier.classify("2024-01-05T10:15:30Zx"));
+        assertEquals(0, classifier.classify("2024-01-05T10:15:30+19:00"));
+        assertEquals(0, classifier.classify("2024-01-05T10:15:30+05:3"));
+        assertEquals(0, classifier.classify("2024-01-05_10:15"));
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.backend.processing;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class XlsxRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void blankAndSparseCellsArePaddedToTheirColumn() throws IOException {
+        Path file = workbook(sheet -> {
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("a");
+            header.createCell(1).setCellValue("b");
+            header.createCell(2).setCellValue("c");
+            header.createCell(3).setCellValue("d");
+            // only columns B and D are present
+            Row sparse = sheet.createRow(1);
+            sparse.createCell(1).setCellValue("x");
+            sparse.createCell(3).setCellValue(7);
+            // a blank cell is written, but holds no value
+            Row blank = sheet.createRow(2);
+            blank.createCell(0).setCellValue("y");
+            blank.createCell(1).setBlank();
+            blank.createCell(2).setCellValue("z");
+        });
+
+        List<List<String>> rows = readAll(file);
+
+        assertEquals(List.of("a", "b", "c", "d"), rows.get(0));
+        assertEquals(List.of("", "x", "", "7"), rows.get(1));
+        assertEquals(List.of("y", "", "z"), rows.get(2));
+    }
+
+    @Test
+    void sharedStringsAreResolved() throws IOException {
+        Path file = workbook(sheet -> {
+            for (int r = 0; r < 4; r++) {
+                Row row = sheet.createRow(r);
+                // the same strings repeat, so the shared strings table holds each once
+                row.createCell(0).setCellValue(r % 2 == 0 ? "north" : "south");
+                row.createCell(1).setCellValue("naïve, \"quoted\"");
+            }
+        });
+
+        List<List<String>> rows = readAll(file);
+
+        assertEquals(4, rows.size());
+        assertEquals(List.of("north", "naïve, \"quoted\""), rows.get(0));
+        assertEquals(List.of("south", "naïve, \"quoted\""), rows.get(3));
+    }
+
+    @Test
+    void datesAreIsoAndNumbersIgnoreDisplayFormats() throws IOException {
+        Path file = workbook(sheet -> {
+            CreationHelper helper = sheet.getWorkbook().getCreationHelper();
+            CellStyle date = sheet.getWorkbook().createCellStyle();
+            date.setDataFormat(helper.createDataFormat().getFormat("dd/mm/yyyy"));
+            CellStyle dateTime = sheet.getWorkbook().createCellStyle();
+            dateTime.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+            CellStyle money = sheet.getWorkbook().createCellStyle();
+            money.setDataFormat(helper.createDataFormat().getFormat("\"$\"#,##0.00"));
+
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue(LocalDate.of(2024, 2, 29));
+            row.getCell(0).setCellStyle(date);
+            row.createCell(1).setCellValue(LocalDateTime.of(2024, 3, 1, 13, 45));
+            row.getCell(1).setCellStyle(dateTime);
+            row.createCell(2).setCellValue(1234567.5);
+            row.getCell(2).setCellStyle(money);
+            row.createCell(3).setCellValue(0.1);
+            row.createCell(4).setCellValue(true);
+        });
+
+        List<List<String>> rows = readAll(file);
+
+        assertEquals(List.of("2024-02-29", "2024-03-01T13:45", "1234567.5", "0.1", "TRUE"), rows.get(0));
+    }
+
+    @Test
+    void rowsMissingFromTheSheetAreNotEmitted() throws IOException {
+        Path file = workbook(sheet -> {
+            sheet.createRow(0).createCell(0).setCellValue("header");
+            sheet.createRow(3).createCell(0).setCellValue("fourth");
+            sheet.createRow(4).createCell(0).setCellValue("fifth");
+        });
+        List<Integer> rowNums = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+
+        XlsxRowReader.read(file, (rowNum, values) -> {
+            rowNums.add(rowNum);
+            rows.add(List.copyOf(values));
+            return true;
+        });
+
+        // the reader reports sheet row numbers, so callers can see the gap
+        assertEquals(List.of(0, 3, 4), rowNums);
+        assertEquals(List.of(List.of("header"), List.of("fourth"), List.of("fifth")), rows);
+    }
+
+    @Test
+    void returningFalseStopsTheRead() throws IOException {
+        Path file = workbook(sheet -> {
+            for (int r = 0; r < 1_000; r++) {
+                sheet.createRow(r).createCell(0).setCellValue(r);
+            }
+        });
+        List<String> seen = new ArrayList<>();
+
+        XlsxRowReader.read(file, (rowNum, values) -> {
+            seen.add(values.get(0));
+            return seen.size() < 3;
+        });
+
+        assertEquals(List.of("0", "1", "2"), seen);
+    }
+
+    @Test
+    void streamsReadLikeFiles() throws IOException {
+        Path file = workbook(sheet -> sheet.createRow(0).createCell(0).setCellValue("only"));
+        List<List<String>> rows = new ArrayList<>();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            XlsxRowReader.read(in, (rowNum, values) -> rows.add(List.copyOf(values)));
+        }
+
+        assertEquals(List.of(List.of("only")), rows);
+    }
+
+    @Test
+    void notAnXlsxIsAnIOException() throws IOException {
+        Path file = tempDir.resolve("plain.xlsx");
+        Files.writeString(file, "a,b\n1,2\n");
+
+        assertThrows(IOException.class, () -> XlsxRowReader.read(file, (rowNum, values) -> true));
+    }
+
+    private List<List<String>> readAll(Path file) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        // the reader reuses its list between rows, so each one is copied
+        XlsxRowReader.read(file, (rowNum, values) -> rows.add(List.copyOf(values)));
+        return rows;
+    }
+
+    private Path workbook(Consumer<Sheet> fill) throws IOException {
+        Path file = tempDir.resolve("sheet.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             OutputStream out = Files.newOutputStream(file)) {
+            fill.accept(workbook.createSheet("data"));
+            workbook.write(out);
+        }
+        return file;
+    }
+}
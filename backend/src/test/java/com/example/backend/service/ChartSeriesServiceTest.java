@@ -0,0 +1,186 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.datasets.QueryRequest;
+import com.example.backend.dto.datasets.QueryResponse;
+import com.example.backend.model.ChartType;
+import com.example.backend.model.Dataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChartSeriesServiceTest {
+
+    private static final String CONFIG = """
+            {"x": "region", "y": ["amount"], "aggregation": "sum", "sort": "key", "limit": 1000,
+             "filters": [{"column": "status", "operator": "eq", "values": ["paid"]},
+                         {"column": "year", "operator": "ge", "values": ["2020"]}]}""";
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private Dataset dataset;
+    private DatasetQueryService datasetQueryService;
+    private ChartSeriesService service;
+
+    @BeforeEach
+    void setUp() {
+        dataset = dataset(7L);
+        datasetQueryService = mock(DatasetQueryService.class);
+        service = new ChartSeriesService(datasetQueryService, JsonMapper.builder().build());
+        ReflectionTestUtils.setField(service, "maxEntries", 100);
+        ReflectionTestUtils.setField(service, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(service, "defaultLimit", 1000);
+        ReflectionTestUtils.setField(service, "defaultPieSlices", 10);
+    }
+
+    @Test
+    void configsDifferingInSpellingDefaultsOrFilterOrderShareAnEntry() throws IOException {
+        answerQueries();
+        ChartSeriesService.Result first = service.getSeries(dataset, ChartType.BAR, CONFIG);
+        assertFalse(first.cached());
+
+        List<String> equivalent = List.of(
+                // padding and case
+                """
+                {"x": " region ", "y": [" amount"], "aggregation": "SUM", "sort": "Key", "limit": 1000,
+                 "filters": [{"column": " status", "operator": "EQ ", "values": ["paid"]},
+                             {"column": "year", "operator": "ge", "values": ["2020"]}]}""",
+                // sum, key order and the default limit left out; a lone y column
+                """
+                {"x": "region", "y": "amount",
+                 "filters": [{"column": "status", "operator": "eq", "values": ["paid"]},
+                             {"column": "year", "operator": "ge", "values": ["2020"]}]}""",
+                // filters in the other order, blank y entries dropped
+                """
+                {"x": "region", "y": ["amount", ""], "aggregation": "sum",
+                 "filters": [{"column": "year", "operator": "ge", "values": ["2020"]},
+                             {"column": "status", "operator": "eq", "values": ["paid"]}]}""");
+        for (String config : equivalent) {
+            ChartSeriesService.Result result = service.getSeries(dataset, ChartType.BAR, config);
+            assertTrue(result.cached(), config);
+            assertSame(first.data(), result.data());
+        }
+
+        assertEquals(1, queries.get());
+        assertEquals(1L, service.stats().get("entries"));
+        assertEquals(3L, service.stats().get("hits"));
+    }
+
+    @Test
+    void configsThatChangeTheResultGetTheirOwnEntries() throws IOException {
+        answerQueries();
+        service.getSeries(dataset, ChartType.BAR, CONFIG);
+
+        List<String> different = List.of(
+                CONFIG.replace("\"limit\": 1000", "\"limit\": 10"),
+                CONFIG.replace("\"sum\"", "\"avg\""),
+                CONFIG.replace("\"2020\"", "\"2021\""),
+                // a value holding the separator is not the same as two values
+                CONFIG.replace("\"values\": [\"paid\"]", "\"values\": [\"paid,due\"]").replace("\"eq\"", "\"in\""),
+                CONFIG.replace("\"values\": [\"paid\"]", "\"values\": [\"paid\", \"due\"]").replace("\"eq\"", "\"in\""),
+                CONFIG.replace("\"sort\": \"key\"", "\"sort\": \"value\""));
+        for (String config : different) {
+            assertFalse(service.getSeries(dataset, ChartType.BAR, config).cached(), config);
+        }
+        assertFalse(service.getSeries(dataset, ChartType.LINE, CONFIG).cached());
+        assertFalse(service.getSeries(dataset(8L), ChartType.BAR, CONFIG).cached());
+
+        assertEquals(different.size() + 3, queries.get());
+    }
+
+    @Test
+    void concurrentMissesRunOneQuery() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(datasetQueryService.query(any(Dataset.class), any(QueryRequest.class))).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return response();
+        });
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<ChartSeriesService.Result>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> service.getSeries(dataset, ChartType.BAR, CONFIG)));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // give the other callers time to find the query in flight
+            Thread.sleep(100);
+            release.countDown();
+
+            ChartSeriesService.ChartData data = results.get(0).get(10, TimeUnit.SECONDS).data();
+            int computed = 0;
+            for (Future<ChartSeriesService.Result> result : results) {
+                assertSame(data, result.get(10, TimeUnit.SECONDS).data());
+                computed += result.get().cached() ? 0 : 1;
+            }
+            assertEquals(1, computed);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, queries.get());
+        assertEquals(1L, service.stats().get("misses"));
+        assertEquals((long) callers - 1, service.stats().get("hits"));
+    }
+
+    @Test
+    void failedQueriesAreNotCached() throws IOException {
+        when(datasetQueryService.query(any(Dataset.class), any(QueryRequest.class)))
+                .thenThrow(new IOException("columnar copy missing"))
+                .thenAnswer(invocation -> {
+                    queries.incrementAndGet();
+                    return response();
+                });
+
+        assertThrows(IOException.class, () -> service.getSeries(dataset, ChartType.BAR, CONFIG));
+
+        assertFalse(service.getSeries(dataset, ChartType.BAR, CONFIG).cached());
+        assertTrue(service.getSeries(dataset, ChartType.BAR, CONFIG).cached());
+        assertEquals(1, queries.get());
+    }
+
+    private void answerQueries() throws IOException {
+        when(datasetQueryService.query(any(Dataset.class), any(QueryRequest.class))).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return response();
+        });
+    }
+
+    private static QueryResponse response() {
+        QueryResponse response = new QueryResponse();
+        response.setColumns(List.of("region", "sum(amount)"));
+        response.setRows(List.of(List.of("north", 12L), List.of("south", 5L)));
+        response.setGroupCount(2);
+        response.setMatchedRows(17L);
+        response.setTruncated(false);
+        return response;
+    }
+
+    private static Dataset dataset(long id) {
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        return dataset;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.backend.service;
+
+import com.example.backend.model.ColumnType;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetColumn;
+import com.example.backend.processing.ColumnarFile;
+import com.example.backend.repository.DatasetColumnRepository;
+import com.example.backend.repository.DatasetRepository;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ColumnarCacheServiceTest {
+
+    private static final long DATASET_ID = 7L;
+    private static final int ROWS = 10_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path tempDir;
+
+    private Path columnarDir;
+    private Path csv;
+    private Dataset dataset;
+    private DatasetRepository datasetRepository;
+    private ColumnarCacheService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataset = new Dataset();
+        dataset.setId(DATASET_ID);
+        datasetRepository = mock(DatasetRepository.class);
+        when(datasetRepository.findById(DATASET_ID)).thenReturn(Optional.of(dataset));
+
+        DatasetColumnRepository datasetColumnRepository = mock(DatasetColumnRepository.class);
+        when(datasetColumnRepository.findByDatasetIdOrderByColumnIndex(DATASET_ID)).thenReturn(List.of(
+                column("id", ColumnType.INTEGER, null),
+                column("amount", ColumnType.DECIMAL, null),
+                column("day", ColumnType.DATE, "yyyy-MM-dd"),
+                column("active", ColumnType.BOOLEAN, "yes/no"),
+                column("region", ColumnType.TEXT, null)));
+
+        columnarDir = tempDir.resolve("columnar");
+        service = new ColumnarCacheService(datasetRepository, datasetColumnRepository);
+        ReflectionTestUtils.setField(service, "columnarDir", columnarDir.toString());
+        service.init();
+
+        csv = writeCsv();
+    }
+
+    @Test
+    void builtCopyOpensWithEveryValue() throws IOException {
+        service.build(DATASET_ID, csv, "data.csv", ROWS);
+
+        verify(datasetRepository).save(dataset);
+        assertEquals(ColumnarFile.VERSION, dataset.getColumnarFormatVersion());
+        try (ColumnarFile file = service.open(dataset)) {
+            assertNotNull(file);
+            assertEquals(ROWS, file.getRowCount());
+            assertEquals(5, file.getColumns().size());
+
+            ColumnarFile.Column id = file.column("id");
+            ColumnarFile.Column amount = file.column("amount");
+            ColumnarFile.Column day = file.column("day");
+            ColumnarFile.Column active = file.column("active");
+            ColumnarFile.Column region = file.column("region");
+            for (int row = 0; row < ROWS; row++) {
+                assertEquals((long) row, id.getValue(row));
+                assertEquals(amount(row) == null ? null : row * 0.25, amount.getValue(row));
+                assertEquals(FIRST_DAY.plusDays(row % 366).toString(), day.getValue(row));
+                assertEquals(row % 3 == 0, active.getValue(row));
+                assertEquals("region-" + row % 7, region.getValue(row));
+            }
+        }
+    }
+
+    @Test
+    void rebuildReplacesTheCopyAndLeavesNoPartialFiles() throws IOException {
+        service.build(DATASET_ID, csv, "data.csv", ROWS);
+        service.build(DATASET_ID, csv, "data.csv", ROWS);
+
+        assertEquals(List.of(DATASET_ID + ".col"), columnarFiles());
+        try (ColumnarFile file = service.open(dataset)) {
+            assertEquals(ROWS, file.getRowCount());
+        }
+    }
+
+    @Test
+    void rowCountBelowTheFileFailsLoudlyAndCleansUp() {
+        assertThrows(IllegalStateException.class, () -> service.build(DATASET_ID, csv, "data.csv", ROWS - 1));
+
+        assertEquals(List.of(), columnarFiles());
+        verify(datasetRepository, never()).save(any());
+        assertNull(dataset.getColumnarPath());
+    }
+
+    @Test
+    void openReturnsNullWithoutAUsableCopy() throws IOException {
+        assertNull(service.open(dataset));
+
+        service.build(DATASET_ID, csv, "data.csv", ROWS);
+        dataset.setColumnarFormatVersion(ColumnarFile.VERSION + 1);
+        assertNull(service.open(dataset));
+
+        dataset.setColumnarFormatVersion(ColumnarFile.VERSION);
+        service.delete(DATASET_ID);
+        assertNull(service.open(dataset));
+    }
+
+    @Test
+    void aSheetStartingBelowItsFirstRowStillSkipsOnlyTheHeader() throws IOException {
+        Path xlsx = tempDir.resolve("data.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             OutputStream out = Files.newOutputStream(xlsx)) {
+            Sheet sheet = workbook.createSheet("data");
+            // rows 0 and 1 are left out of the sheet, so the header is sheet row 2
+            List<String> header = List.of("id", "amount", "day", "active", "region");
+            Row headerRow = sheet.createRow(2);
+            for (int c = 0; c < header.size(); c++) {
+                headerRow.createCell(c).setCellValue(header.get(c));
+            }
+            for (int row = 0; row < 3; row++) {
+                Row dataRow = sheet.createRow(3 + row);
+                dataRow.createCell(0).setCellValue(row);
+                dataRow.createCell(1).setCellValue(row * 0.25);
+                dataRow.createCell(2).setCellValue(FIRST_DAY.plusDays(row).toString());
+                dataRow.createCell(3).setCellValue("yes");
+                dataRow.createCell(4).setCellValue("region-" + row);
+            }
+            workbook.write(out);
+        }
+
+        service.build(DATASET_ID, xlsx, "data.xlsx", 3);
+
+        try (ColumnarFile file = service.open(dataset)) {
+            assertEquals(3, file.getRowCount());
+            assertEquals(0L, file.column("id").getValue(0));
+            assertEquals("region-2", file.column("region").getValue(2));
+        }
+    }
+
+    private List<String> columnarFiles() {
+        try (Stream<Path> files = Files.list(columnarDir)) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path writeCsv() throws IOException {
+        StringBuilder text = new StringBuilder("id,amount,day,active,region\n");
+        for (int row = 0; row < ROWS; row++) {
+            String amount = amount(row);
+            text.append(row).append(',')
+                    .append(amount == null ? (row % 2 == 0 ? "" : "n/a") : amount).append(',')
+                    .append(FIRST_DAY.plusDays(row % 366)).append(',')
+                    .append(row % 3 == 0 ? "yes" : "no").append(',')
+                    .append("region-").append(row % 7).append('\n');
+        }
+        return Files.writeString(tempDir.resolve("data.csv"), text);
+    }
+
+    /** Blank or unparsable every 13th row; both are stored as null. */
+    private static String amount(int row) {
+        return row % 13 == 0 ? null : Double.toString(row * 0.25);
+    }
+
+    private static DatasetColumn column(String name, ColumnType type, String formatPattern) {
+        DatasetColumn column = new DatasetColumn();
+        column.setColumnName(name);
+        column.setDataType(type);
+        column.setFormatPattern(formatPattern);
+        return column;
+    }
+}
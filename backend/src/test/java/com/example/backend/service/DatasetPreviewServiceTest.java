@@ -0,0 +1,149 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetArtifacts;
+import com.example.backend.processing.PreviewSnapshot;
+import com.example.backend.repository.DatasetArtifactsRepository;
+import com.example.backend.repository.DatasetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DatasetPreviewServiceTest {
+
+    private static final String KEY = "1/objects/data.csv";
+    private static final int SNAPSHOT_ROWS = 100;
+    private static final int INITIAL_RANGE_BYTES = 1024;
+
+    private final List<String> requestedRanges = new ArrayList<>();
+    private byte[] object;
+    private S3Client s3Client;
+    private DatasetArtifactsRepository datasetArtifactsRepository;
+    private DatasetPreviewService service;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> serve(invocation.getArgument(0)));
+
+        datasetArtifactsRepository = mock(DatasetArtifactsRepository.class);
+        service = new DatasetPreviewService(s3Client, mock(ObjectCacheService.class), mock(DatasetRepository.class),
+                datasetArtifactsRepository, mock(ColumnarCacheService.class));
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+        ReflectionTestUtils.setField(service, "snapshotRows", SNAPSHOT_ROWS);
+        ReflectionTestUtils.setField(service, "initialRangeBytes", INITIAL_RANGE_BYTES);
+        ReflectionTestUtils.setField(service, "maxRangeBytes", 8 * INITIAL_RANGE_BYTES);
+    }
+
+    @Test
+    void limitWithinTheSnapshotIsServedFromIt() throws IOException {
+        Dataset dataset = dataset(1_000, 1_000);
+
+        List<Map<String, Object>> rows = service.getDataPreview(dataset, 50);
+
+        assertRows(50, rows);
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void snapshotOfTheWholeDatasetServesAnyLimit() throws IOException {
+        Dataset dataset = dataset(40, 40);
+
+        List<Map<String, Object>> rows = service.getDataPreview(dataset, 500);
+
+        assertRows(40, rows);
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void limitBeyondTheSnapshotReadsRangesOfTheObject() throws IOException {
+        Dataset dataset = dataset(1_000, 1_000);
+
+        List<Map<String, Object>> rows = service.getDataPreview(dataset, 300);
+
+        assertRows(300, rows);
+        assertEquals("bytes=0-" + (INITIAL_RANGE_BYTES - 1), requestedRanges.get(0));
+        assertTrue(requestedRanges.size() > 1);
+        assertFalse(requestedRanges.get(requestedRanges.size() - 1).endsWith("-" + (object.length - 1)),
+                "read up to the end of the object for a prefix");
+    }
+
+    @Test
+    void unpersistedRowCountDoesNotCutThePreviewShort() throws IOException {
+        // datasets ingested while the count was not saved have a total of 0
+        Dataset dataset = dataset(1_000, 0);
+
+        List<Map<String, Object>> rows = service.getDataPreview(dataset, 300);
+
+        assertRows(300, rows);
+        assertFalse(requestedRanges.isEmpty());
+    }
+
+    private Dataset dataset(int rows, int persistedTotalRows) {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        PreviewSnapshot.Collector collector = new PreviewSnapshot.Collector(SNAPSHOT_ROWS);
+        boolean collecting = collector.onRow(0, List.of("id", "name"));
+        for (int row = 0; row < rows; row++) {
+            csv.append(row).append(",name-").append(row).append('\n');
+            if (collecting) {
+                collecting = collector.onRow(row + 1, List.of(String.valueOf(row), "name-" + row));
+            }
+        }
+        object = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        Dataset dataset = new Dataset();
+        dataset.setId(1L);
+        dataset.setFilePath(KEY);
+        dataset.setFileSize((long) object.length);
+        dataset.setTotalRows(persistedTotalRows);
+        dataset.setPreviewRowCount(collector.getRowCount());
+
+        DatasetArtifacts artifacts = new DatasetArtifacts();
+        artifacts.setDatasetId(dataset.getId());
+        artifacts.setPreviewSnapshot(collector.encode());
+        when(datasetArtifactsRepository.findById(dataset.getId())).thenReturn(Optional.of(artifacts));
+        return dataset;
+    }
+
+    private static void assertRows(int expected, List<Map<String, Object>> rows) {
+        assertEquals(expected, rows.size());
+        for (int row = 0; row < expected; row++) {
+            assertEquals(String.valueOf(row), rows.get(row).get("id"));
+            assertEquals("name-" + row, rows.get(row).get("name"));
+        }
+    }
+
+    private ResponseInputStream<GetObjectResponse> serve(GetObjectRequest request) {
+        requestedRanges.add(request.range());
+        String[] bounds = request.range().substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentRange("bytes " + start + "-" + end + "/" + object.length)
+                .contentLength((long) (end - start + 1))
+                .build();
+        return new ResponseInputStream<>(response,
+                AbortableInputStream.create(new ByteArrayInputStream(object, start, end - start + 1)));
+    }
+}
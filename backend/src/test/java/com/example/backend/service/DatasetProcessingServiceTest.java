@@ -0,0 +1,176 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetColumn;
+import com.example.backend.model.DatasetStatus;
+import com.example.backend.repository.DatasetColumnRepository;
+import com.example.backend.repository.DatasetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DatasetProcessingServiceTest {
+
+    private static final long DATASET_ID = 7L;
+    private static final int ROWS = 250;
+
+    @TempDir
+    Path tempDir;
+
+    /** Row state as the database holds it; every lookup hands out a fresh, detached copy. */
+    private final Map<Long, Dataset> stored = new HashMap<>();
+    private final List<DatasetColumn> storedColumns = new ArrayList<>();
+
+    private DatasetRepository datasetRepository;
+    private DatasetColumnRepository datasetColumnRepository;
+    private PlatformTransactionManager transactionManager;
+    private DatasetProcessingService service;
+
+    @BeforeEach
+    void setUp() {
+        datasetRepository = mock(DatasetRepository.class);
+        datasetColumnRepository = mock(DatasetColumnRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        when(datasetRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(stored.get(invocation.<Long>getArgument(0))).map(DatasetProcessingServiceTest::copy));
+        when(datasetRepository.save(any(Dataset.class))).thenAnswer(invocation -> {
+            Dataset dataset = invocation.getArgument(0);
+            stored.put(dataset.getId(), copy(dataset));
+            return dataset;
+        });
+        when(datasetColumnRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<DatasetColumn> columns = invocation.getArgument(0);
+            storedColumns.addAll(columns);
+            return columns;
+        });
+
+        service = new DatasetProcessingService(datasetRepository, datasetColumnRepository,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+        ReflectionTestUtils.setField(service, "parallelThresholdBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(service, "distinctExactThreshold", 100_000);
+        ReflectionTestUtils.setField(service, "hllPrecision", 14);
+        ReflectionTestUtils.setField(service, "typeSampleSize", 1_000);
+        ReflectionTestUtils.setField(service, "histogramBins", 20);
+        service.init();
+
+        Dataset dataset = new Dataset();
+        dataset.setId(DATASET_ID);
+        dataset.setName("orders.csv");
+        dataset.setStatus(DatasetStatus.PROCESSING);
+        dataset.setTotalRows(0);
+        dataset.setTotalColumns(0);
+        stored.put(DATASET_ID, dataset);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void profiledFileKeepsItsCountsThroughCompletion() throws IOException {
+        Path file = writeCsv();
+
+        assertEquals(ROWS, service.profileFile(DATASET_ID, file, "orders.csv"));
+        service.markCompleted(DATASET_ID);
+
+        assertPersistedProfile();
+    }
+
+    @Test
+    void profiledStreamKeepsItsCountsThroughCompletion() throws IOException {
+        Path file = writeCsv();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            assertEquals(ROWS, service.profileStream(DATASET_ID, in));
+        }
+        service.markCompleted(DATASET_ID);
+
+        assertPersistedProfile();
+    }
+
+    @Test
+    void parallelProfileKeepsItsCountsThroughCompletion() throws IOException {
+        ReflectionTestUtils.setField(service, "parallelThresholdBytes", 1L);
+        Path file = writeCsv();
+
+        service.profileFile(DATASET_ID, file, "orders.csv");
+        service.markCompleted(DATASET_ID);
+
+        assertPersistedProfile();
+    }
+
+    @Test
+    void countsAndColumnsAreWrittenInOneTransaction() throws IOException {
+        service.profileFile(DATASET_ID, writeCsv(), "orders.csv");
+
+        InOrder order = inOrder(transactionManager, datasetRepository, datasetColumnRepository);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(datasetRepository).save(any(Dataset.class));
+        order.verify(datasetColumnRepository).saveAll(anyList());
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void headerOnlyFileStoresNothing() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("empty.csv"), "id,amount,region\n");
+
+        assertThrows(RuntimeException.class, () -> service.profileFile(DATASET_ID, file, "empty.csv"));
+
+        assertEquals(0, stored.get(DATASET_ID).getTotalRows());
+        assertTrue(storedColumns.isEmpty());
+    }
+
+    private void assertPersistedProfile() {
+        Dataset dataset = stored.get(DATASET_ID);
+        assertEquals(DatasetStatus.COMPLETED, dataset.getStatus());
+        assertEquals(ROWS, dataset.getTotalRows());
+        assertEquals(3, dataset.getTotalColumns());
+        assertEquals(3, storedColumns.size());
+    }
+
+    private Path writeCsv() throws IOException {
+        StringBuilder csv = new StringBuilder("id,amount,region\n");
+        for (int row = 0; row < ROWS; row++) {
+            csv.append(row).append(',').append(row * 1.5).append(",region-").append(row % 4).append('\n');
+        }
+        return Files.writeString(tempDir.resolve("orders.csv"), csv);
+    }
+
+    private static Dataset copy(Dataset source) {
+        Dataset copy = new Dataset();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setStatus(source.getStatus());
+        copy.setTotalRows(source.getTotalRows());
+        copy.setTotalColumns(source.getTotalColumns());
+        return copy;
+    }
+}
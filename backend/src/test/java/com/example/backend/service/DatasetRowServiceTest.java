@@ -0,0 +1,217 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.datasets.RowPageResponse;
+import com.example.backend.model.ColumnType;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetArtifacts;
+import com.example.backend.model.DatasetColumn;
+import com.example.backend.processing.ColumnarFile;
+import com.example.backend.processing.ColumnarFileWriter;
+import com.example.backend.processing.CsvRowIndex;
+import com.example.backend.repository.DatasetArtifactsRepository;
+import com.example.backend.repository.DatasetColumnRepository;
+import com.example.backend.repository.DatasetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatasetRowServiceTest {
+
+    private static final long DATASET_ID = 3L;
+    private static final String KEY = "1/objects/data.csv";
+    private static final int ROWS = 250;
+    private static final int STRIDE = 7;
+
+    @TempDir
+    Path tempDir;
+
+    private Path csv;
+    private Dataset dataset;
+    private DatasetArtifacts artifacts;
+    private ObjectCacheService objectCacheService;
+    private ColumnarCacheService columnarCacheService;
+    private DatasetRowService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        csv = writeCsv();
+        dataset = new Dataset();
+        dataset.setId(DATASET_ID);
+        dataset.setFilePath(KEY);
+        // datasets ingested while the count was not saved have a total of 0
+        dataset.setTotalRows(0);
+
+        DatasetRepository datasetRepository = mock(DatasetRepository.class);
+        when(datasetRepository.findById(DATASET_ID)).thenReturn(Optional.of(dataset));
+        DatasetColumnRepository datasetColumnRepository = mock(DatasetColumnRepository.class);
+        when(datasetColumnRepository.findByDatasetIdOrderByColumnIndex(DATASET_ID)).thenReturn(List.of(
+                column("id", ColumnType.INTEGER), column("notes", ColumnType.TEXT)));
+
+        DatasetArtifactsRepository datasetArtifactsRepository = mock(DatasetArtifactsRepository.class);
+        when(datasetArtifactsRepository.findById(DATASET_ID)).thenAnswer(invocation -> Optional.ofNullable(artifacts));
+        when(datasetArtifactsRepository.save(any(DatasetArtifacts.class))).thenAnswer(invocation -> {
+            artifacts = invocation.getArgument(0);
+            return artifacts;
+        });
+
+        objectCacheService = mock(ObjectCacheService.class);
+        when(objectCacheService.openStream(KEY)).thenAnswer(invocation -> Files.newInputStream(csv));
+        columnarCacheService = mock(ColumnarCacheService.class);
+
+        service = new DatasetRowService(objectCacheService, datasetRepository, datasetColumnRepository,
+                datasetArtifactsRepository, columnarCacheService);
+        ReflectionTestUtils.setField(service, "indexStride", STRIDE);
+        ReflectionTestUtils.setField(service, "maxPageSize", 500);
+    }
+
+    @Test
+    void pagesAcrossCheckpointsConcatenateToEveryRow() throws IOException {
+        service.buildIndex(DATASET_ID, csv, "data.csv");
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int pages = 0;
+        for (int offset = 0; offset < ROWS; offset += 11, pages++) {
+            RowPageResponse page = service.getRows(dataset, offset, 11);
+            assertEquals(offset, page.getOffset());
+            assertEquals(ROWS, page.getTotalRows());
+            rows.addAll(page.getRows());
+        }
+
+        assertRows(0, rows);
+        verify(objectCacheService, times(pages)).openStream(KEY);
+    }
+
+    @Test
+    void followingCursorsVisitsEveryRowOnce() throws IOException {
+        service.buildIndex(DATASET_ID, csv, "data.csv");
+
+        RowPageResponse page = service.getRows(dataset, 0, 40);
+        List<Map<String, Object>> rows = new ArrayList<>(page.getRows());
+        int pages = 1;
+        while (page.getNextCursor() != null) {
+            page = service.getRowsAfter(dataset, page.getNextCursor(), 40);
+            assertEquals(rows.size(), page.getOffset());
+            rows.addAll(page.getRows());
+            pages++;
+        }
+
+        assertRows(0, rows);
+        assertEquals((ROWS + 39) / 40, pages);
+    }
+
+    @Test
+    void offsetPastTheEndIsAnEmptyLastPage() throws IOException {
+        service.buildIndex(DATASET_ID, csv, "data.csv");
+
+        RowPageResponse page = service.getRows(dataset, ROWS, 10);
+
+        assertTrue(page.getRows().isEmpty());
+        assertEquals(ROWS, page.getTotalRows());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void cursorsThatDoNotMatchTheIndexAreRejected() throws IOException {
+        service.buildIndex(DATASET_ID, csv, "data.csv");
+        CsvRowIndex index = CsvRowIndex.fromBytes(artifacts.getRowIndex());
+        String cursor = service.getRows(dataset, 0, 20).getNextCursor();
+        assertEquals(cursor(DATASET_ID, 20, index.offsetBefore(20)), cursor);
+
+        assertInvalid(cursor(DATASET_ID + 1, 20, index.offsetBefore(20)));
+        assertInvalid(cursor(DATASET_ID, 20, index.offsetBefore(20) + 1));
+        assertInvalid(cursor(DATASET_ID, 40, index.offsetBefore(20)));
+        assertInvalid(cursor(DATASET_ID, ROWS, index.offsetBefore(ROWS - 1)));
+        assertInvalid(cursor(DATASET_ID, 20, -1));
+        assertInvalid(Base64.getUrlEncoder().encodeToString("r20".getBytes(StandardCharsets.UTF_8)));
+        assertInvalid("not base64!");
+    }
+
+    @Test
+    void datasetsWithoutAnIndexPageTheColumnarCopy() throws IOException {
+        Path columnar = tempDir.resolve("data.dcol");
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(columnar, List.of(
+                new ColumnarFileWriter.ColumnSpec("id", ColumnType.INTEGER, null),
+                new ColumnarFileWriter.ColumnSpec("notes", ColumnType.TEXT, null)), ROWS)) {
+            for (int row = 0; row < ROWS; row++) {
+                writer.acceptRow(List.of(String.valueOf(row), "note " + row));
+            }
+            writer.finish();
+        }
+        when(columnarCacheService.open(any(Dataset.class))).thenAnswer(invocation -> ColumnarFile.open(columnar));
+
+        RowPageResponse first = service.getRows(dataset, 0, 100);
+        assertEquals(ROWS, first.getTotalRows());
+        assertNotNull(first.getNextCursor());
+        assertInvalid(cursor(DATASET_ID, 100, 0));
+
+        RowPageResponse second = service.getRowsAfter(dataset, first.getNextCursor(), 200);
+        assertEquals(100, second.getOffset());
+        assertEquals(ROWS - 100, second.getRows().size());
+        assertEquals(100L, second.getRows().get(0).get("id"));
+        assertNull(second.getNextCursor());
+    }
+
+    private void assertInvalid(String cursor) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.getRowsAfter(dataset, cursor, 10), cursor);
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    private static String cursor(long datasetId, int row, long checkpoint) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((datasetId + ":" + row + ":" + checkpoint).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertRows(int first, List<Map<String, Object>> rows) {
+        assertEquals(ROWS - first, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            int row = first + i;
+            assertEquals(String.valueOf(row), rows.get(i).get("id"));
+            assertEquals(note(row), rows.get(i).get("notes"));
+        }
+    }
+
+    private static String note(int row) {
+        return "line one of " + row + "\nline two, \"quoted\"";
+    }
+
+    private Path writeCsv() throws IOException {
+        // every note spans two lines, so checkpoints have to land on record starts, not line starts
+        StringBuilder text = new StringBuilder("id,notes\n");
+        for (int row = 0; row < ROWS; row++) {
+            text.append(row).append(",\"").append(note(row).replace("\"", "\"\"")).append("\"\n");
+        }
+        Path file = tempDir.resolve("data.csv");
+        Files.writeString(file, text.toString());
+        return file;
+    }
+
+    private static DatasetColumn column(String name, ColumnType type) {
+        DatasetColumn column = new DatasetColumn();
+        column.setColumnName(name);
+        column.setDataType(type);
+        return column;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.backend.service;
+
+import com.example.backend.model.ColumnType;
+import com.example.backend.model.Dataset;
+import com.example.backend.model.DatasetArtifacts;
+import com.example.backend.model.DatasetColumn;
+import com.example.backend.model.DatasetStatus;
+import com.example.backend.model.StorageCodec;
+import com.example.backend.model.User;
+import com.example.backend.repository.ChartRepository;
+import com.example.backend.repository.DatasetArtifactsRepository;
+import com.example.backend.repository.DatasetColumnRepository;
+import com.example.backend.repository.DatasetRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.StorageUsageService.QuotaExceededException;
+import com.example.backend.service.UploadSpoolService.SpooledUpload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatasetServiceTest {
+
+    private static final long USER_ID = 1L;
+    private static final String SHA256 = "ab".repeat(32);
+    private static final String KEY = USER_ID + "/objects/" + SHA256 + ".csv";
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong ids = new AtomicLong(100);
+    private User user;
+    private Path spooled;
+    private S3Client s3Client;
+    private DatasetRepository datasetRepository;
+    private DatasetColumnRepository datasetColumnRepository;
+    private DatasetArtifactsRepository datasetArtifactsRepository;
+    private DatasetIngestService datasetIngestService;
+    private UploadSpoolService uploadSpoolService;
+    private ColumnarCacheService columnarCacheService;
+    private StorageUsageService storageUsageService;
+    private DatasetService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        user = new User();
+        user.setId(USER_ID);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+
+        s3Client = mock(S3Client.class);
+        datasetRepository = mock(DatasetRepository.class);
+        when(datasetRepository.save(any(Dataset.class))).thenAnswer(invocation -> {
+            Dataset dataset = invocation.getArgument(0);
+            if (dataset.getId() == null) {
+                dataset.setId(ids.incrementAndGet());
+            }
+            return dataset;
+        });
+        datasetColumnRepository = mock(DatasetColumnRepository.class);
+        datasetArtifactsRepository = mock(DatasetArtifactsRepository.class);
+        datasetIngestService = mock(DatasetIngestService.class);
+        storageUsageService = mock(StorageUsageService.class);
+
+        spooled = Files.writeString(tempDir.resolve("upload.csv"), "id,amount\n1,2\n");
+        uploadSpoolService = mock(UploadSpoolService.class);
+        when(uploadSpoolService.spool(any())).thenReturn(new SpooledUpload(spooled, Files.size(spooled), SHA256));
+        ObjectUploadService objectUploadService = mock(ObjectUploadService.class);
+        when(objectUploadService.getCodec()).thenReturn(StorageCodec.NONE);
+
+        columnarCacheService = new ColumnarCacheService(datasetRepository, datasetColumnRepository);
+        ReflectionTestUtils.setField(columnarCacheService, "columnarDir", tempDir.resolve("columnar").toString());
+        columnarCacheService.init();
+
+        service = new DatasetService(s3Client, mock(PresignedUrlService.class), datasetRepository,
+                datasetColumnRepository, datasetArtifactsRepository, mock(ChartRepository.class), userRepository,
+                datasetIngestService, uploadSpoolService, columnarCacheService, mock(ObjectCacheService.class),
+                objectUploadService, storageUsageService, mock(ChartSeriesService.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+    }
+
+    @Test
+    void aDuplicateUploadCopiesTheCompletedDataset() throws IOException {
+        Dataset source = completedSource();
+        DatasetArtifacts sourceArtifacts = new DatasetArtifacts();
+        sourceArtifacts.setDatasetId(source.getId());
+        sourceArtifacts.setPreviewSnapshot("id,amount\r\n1,2\r\n");
+        sourceArtifacts.setRowIndex(new byte[]{1, 2, 3});
+        when(datasetArtifactsRepository.findById(source.getId())).thenReturn(Optional.of(sourceArtifacts));
+        when(datasetColumnRepository.findByDatasetIdOrderByColumnIndex(source.getId())).thenReturn(List.of(
+                column(source, "id", 0, ColumnType.INTEGER), column(source, "amount", 1, ColumnType.DECIMAL)));
+
+        Dataset copy = service.uploadAndCreateDataset(upload(), USER_ID);
+
+        assertNotEquals(source.getId(), copy.getId());
+        assertEquals(DatasetStatus.COMPLETED, copy.getStatus());
+        assertEquals("renamed.csv", copy.getName());
+        assertEquals(KEY, copy.getFilePath());
+        assertEquals(source.getTotalRows(), copy.getTotalRows());
+        assertEquals(source.getTotalColumns(), copy.getTotalColumns());
+        assertEquals(source.getPreviewRowCount(), copy.getPreviewRowCount());
+        assertEquals(source.getStoredBytes(), copy.getStoredBytes());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DatasetColumn>> columns = ArgumentCaptor.forClass(List.class);
+        verify(datasetColumnRepository).saveAll(columns.capture());
+        assertEquals(List.of("id", "amount"), columns.getValue().stream().map(DatasetColumn::getColumnName).toList());
+        assertEquals(List.of(ColumnType.INTEGER, ColumnType.DECIMAL),
+                columns.getValue().stream().map(DatasetColumn::getDataType).toList());
+        assertTrue(columns.getValue().stream().allMatch(column -> column.getDataset() == copy));
+
+        ArgumentCaptor<DatasetArtifacts> artifacts = ArgumentCaptor.forClass(DatasetArtifacts.class);
+        verify(datasetArtifactsRepository).save(artifacts.capture());
+        assertEquals(copy.getId(), artifacts.getValue().getDatasetId());
+        assertEquals(sourceArtifacts.getPreviewSnapshot(), artifacts.getValue().getPreviewSnapshot());
+        assertArrayEquals(sourceArtifacts.getRowIndex(), artifacts.getValue().getRowIndex());
+
+        // the copy counts as a dataset, but its object is already counted
+        verify(storageUsageService).recordDatasetCreated(USER_ID);
+        verify(storageUsageService, never()).recordObjectStored(anyLong(), anyLong());
+        verify(datasetIngestService, never()).processDatasetAsync(any());
+        verify(uploadSpoolService).release(spooled);
+    }
+
+    @Test
+    void theQuotaOnlyStopsUploadsThatStoreANewObject() throws IOException {
+        when(storageUsageService.wouldExceedQuota(eq(USER_ID), anyLong())).thenReturn(true);
+
+        assertThrows(QuotaExceededException.class, () -> service.uploadAndCreateDataset(upload(), USER_ID));
+        verify(datasetRepository, never()).save(any());
+        verify(uploadSpoolService).release(spooled);
+
+        completedSource();
+        Dataset copy = service.uploadAndCreateDataset(upload(), USER_ID);
+
+        assertEquals(DatasetStatus.COMPLETED, copy.getStatus());
+    }
+
+    @Test
+    void theCopyGetsItsOwnNameForTheSharedColumnarFile() throws IOException {
+        Dataset source = completedSource();
+        Path sourceFile = Files.write(tempDir.resolve("columnar").resolve(source.getId() + ".col"), new byte[]{7, 8, 9});
+        source.setColumnarPath(sourceFile.toString());
+        source.setColumnarFormatVersion(3);
+
+        Dataset copy = service.uploadAndCreateDataset(upload(), USER_ID);
+
+        Path copyFile = Path.of(copy.getColumnarPath());
+        assertNotEquals(sourceFile, copyFile);
+        assertArrayEquals(new byte[]{7, 8, 9}, Files.readAllBytes(copyFile));
+        assertEquals(3, copy.getColumnarFormatVersion());
+
+        // deleting either name leaves the other readable
+        columnarCacheService.delete(source.getId());
+        assertArrayEquals(new byte[]{7, 8, 9}, Files.readAllBytes(copyFile));
+    }
+
+    @Test
+    void deletingADatasetKeepsAnObjectAnotherOneStillUses() throws IOException {
+        Dataset dataset = stored(7L);
+        Path columnar = Files.write(tempDir.resolve("columnar").resolve("7.col"), new byte[]{1});
+        when(datasetRepository.countByFilePath(KEY)).thenReturn(1L);
+
+        service.deleteDatasetComplete(dataset);
+
+        verify(datasetRepository).deleteById(7L);
+        verify(storageUsageService).recordDatasetDeleted(USER_ID);
+        verify(s3Client, never()).deleteObject(any(DeleteObjectRequest.class));
+        verify(storageUsageService, never()).recordObjectDeleted(any(), any());
+        assertFalse(Files.exists(columnar));
+    }
+
+    @Test
+    void deletingTheLastReferenceDeletesTheObject() {
+        Dataset dataset = stored(7L);
+        when(datasetRepository.countByFilePath(KEY)).thenReturn(0L);
+
+        service.deleteDatasetComplete(dataset);
+
+        ArgumentCaptor<DeleteObjectRequest> request = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client).deleteObject(request.capture());
+        assertEquals(KEY, request.getValue().key());
+        verify(storageUsageService).recordObjectDeleted(USER_ID, 1_234L);
+    }
+
+    @Test
+    void aFailedObjectDeleteIsReportedAndNotSubtracted() {
+        Dataset dataset = stored(7L);
+        when(datasetRepository.countByFilePath(KEY)).thenReturn(0L);
+        when(s3Client.deleteObject(any(DeleteObjectRequest.class)))
+                .thenThrow(S3Exception.builder().message("boom").build());
+
+        assertThrows(RuntimeException.class, () -> service.deleteDatasetComplete(dataset));
+
+        verify(datasetRepository).deleteById(7L);
+        verify(storageUsageService, never()).recordObjectDeleted(any(), any());
+    }
+
+    private Dataset completedSource() {
+        Dataset source = stored(ids.incrementAndGet());
+        source.setName("original.csv");
+        source.setStatus(DatasetStatus.COMPLETED);
+        source.setTotalRows(1);
+        source.setTotalColumns(2);
+        source.setPreviewRowCount(1);
+        when(datasetRepository.findFirstByFilePathAndStatusOrderByIdDesc(KEY, DatasetStatus.COMPLETED))
+                .thenReturn(Optional.of(source));
+        return source;
+    }
+
+    private Dataset stored(long id) {
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        dataset.setUser(user);
+        dataset.setFilePath(KEY);
+        dataset.setFileType("CSV");
+        dataset.setFileSize(14L);
+        dataset.setContentSha256(SHA256);
+        dataset.setStorageCodec(StorageCodec.NONE);
+        dataset.setStoredBytes(1_234L);
+        return dataset;
+    }
+
+    private static MockMultipartFile upload() {
+        return new MockMultipartFile("file", "renamed.csv", "text/csv", "id,amount\n1,2\n".getBytes());
+    }
+
+    private static DatasetColumn column(Dataset dataset, String name, int index, ColumnType type) {
+        DatasetColumn column = new DatasetColumn();
+        column.setDataset(dataset);
+        column.setColumnName(name);
+        column.setColumnIndex(index);
+        column.setDataType(type);
+        column.setUniqueValues(1);
+        column.setNullCount(0);
+        return column;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.backend.service;
+
+import com.example.backend.service.ParallelObjectDownloader.Download;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ObjectCacheServiceTest {
+
+    private static final Instant MODIFIED = Instant.parse("2024-05-01T10:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+    private final List<Runnable> heldDownloads = new ArrayList<>();
+    private boolean holdDownloads;
+    private boolean headWithoutETag;
+    private CompletableFuture<HeadObjectResponse> heldHead;
+    private ObjectCacheService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ParallelObjectDownloader downloader = mock(ParallelObjectDownloader.class);
+        when(downloader.downloadToFile(anyString(), any(Path.class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            Path target = invocation.getArgument(1);
+            downloads.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            // the bytes are fixed when the download starts, as they would be on the wire
+            byte[] bytes = objects.get(key);
+            CompletableFuture<Download> download = new CompletableFuture<>();
+            Runnable finish = () -> {
+                try {
+                    Files.write(target, bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                download.complete(new Download(bytes.length, eTag(bytes), MODIFIED, null, Map.of()));
+            };
+            if (holdDownloads) {
+                heldDownloads.add(finish);
+            } else {
+                finish.run();
+            }
+            return download;
+        });
+        when(downloader.head(anyString())).thenAnswer(invocation -> {
+            if (heldHead != null) {
+                return heldHead;
+            }
+            return CompletableFuture.completedFuture(head(objects.get(invocation.<String>getArgument(0))));
+        });
+
+        service = new ObjectCacheService(mock(S3Client.class), downloader);
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+        ReflectionTestUtils.setField(service, "cacheDir", tempDir.resolve("cache").toString());
+        ReflectionTestUtils.setField(service, "maxBytes", 10L);
+        ReflectionTestUtils.setField(service, "revalidateAfterMs", 60_000L);
+        service.init();
+    }
+
+    @Test
+    void concurrentMissesShareOneDownload() throws IOException {
+        objects.put("a", bytes("aaaa"));
+        holdDownloads = true;
+
+        CompletableFuture<InputStream> first = service.openStreamAsync("a");
+        CompletableFuture<InputStream> second = service.openStreamAsync("a");
+        assertFalse(first.isDone());
+        releaseDownloads();
+
+        assertEquals("aaaa", read(first.join()));
+        assertEquals("aaaa", read(second.join()));
+        assertEquals(1, downloads("a"));
+        assertEquals(2L, service.stats().get("misses"));
+    }
+
+    @Test
+    void evictionDropsTheLeastRecentlyUsedButNeverTheNewEntry() throws IOException {
+        objects.put("a", bytes("aaaa"));
+        objects.put("b", bytes("bbbb"));
+        objects.put("c", bytes("cccc"));
+        objects.put("big", bytes("x".repeat(25)));
+
+        read("a");
+        read("b");
+        read("a");
+        // 12 bytes do not fit in 10: b is the least recently used
+        read("c");
+        read("a");
+        read("c");
+        read("b");
+
+        assertEquals(1, downloads("a"));
+        assertEquals(2, downloads("b"));
+        assertEquals(1, downloads("c"));
+
+        // larger than the whole cache: everything else goes, the new entry stays
+        assertEquals("x".repeat(25), read("big"));
+        assertEquals(1L, service.stats().get("entries"));
+        assertEquals(25L, service.stats().get("bytes"));
+        assertEquals(List.of(), cachedFiles().stream().filter(name -> name.endsWith(".partial")).toList());
+        assertEquals(1, cachedFiles().size());
+        read("big");
+        assertEquals(1, downloads("big"));
+    }
+
+    @Test
+    void revalidationKeepsCurrentEntriesAndRefetchesChangedOnes() throws IOException {
+        ReflectionTestUtils.setField(service, "revalidateAfterMs", 0L);
+        objects.put("a", bytes("v1"));
+
+        read("a");
+        assertEquals("v1", read("a"));
+        assertEquals(1, downloads("a"));
+
+        objects.put("a", bytes("v2"));
+        assertEquals("v2", read("a"));
+        assertEquals(2, downloads("a"));
+        assertEquals(1L, service.stats().get("staleEntries"));
+    }
+
+    @Test
+    void withoutAnETagSizeAndLastModifiedDecide() throws IOException {
+        ReflectionTestUtils.setField(service, "revalidateAfterMs", 0L);
+        headWithoutETag = true;
+        objects.put("a", bytes("v1"));
+
+        read("a");
+        assertEquals("v1", read("a"));
+        assertEquals(1, downloads("a"));
+
+        objects.put("a", bytes("v22"));
+        assertEquals("v22", read("a"));
+        assertEquals(2, downloads("a"));
+    }
+
+    @Test
+    void anEntryEvictedBeforeItIsOpenedIsDownloadedAgain() throws IOException {
+        objects.put("a", bytes("aaaa"));
+        objects.put("big", bytes("x".repeat(25)));
+        read("a");
+
+        // the revalidation of a is answered only after a larger object has evicted it
+        ReflectionTestUtils.setField(service, "revalidateAfterMs", 0L);
+        CompletableFuture<HeadObjectResponse> revalidation = new CompletableFuture<>();
+        heldHead = revalidation;
+        CompletableFuture<InputStream> pending = service.openStreamAsync("a");
+        heldHead = null;
+        read("big");
+        assertFalse(pending.isDone());
+        revalidation.complete(head(objects.get("a")));
+
+        assertEquals("aaaa", read(pending.join()));
+        assertEquals(2, downloads("a"));
+    }
+
+    @Test
+    void invalidatingDuringADownloadDropsItsResult() throws IOException {
+        objects.put("a", bytes("old"));
+        holdDownloads = true;
+        CompletableFuture<InputStream> pending = service.openStreamAsync("a");
+
+        service.invalidate("a");
+        objects.put("a", bytes("new"));
+        holdDownloads = false;
+        releaseDownloads();
+
+        assertEquals("new", read(pending.join()));
+        assertEquals("new", read("a"));
+        assertEquals(2, downloads("a"));
+        assertEquals(1L, service.stats().get("entries"));
+        assertEquals(1, cachedFiles().size());
+    }
+
+    private String read(String key) throws IOException {
+        return read(service.openStream(key));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void releaseDownloads() {
+        List<Runnable> held = new ArrayList<>(heldDownloads);
+        heldDownloads.clear();
+        held.forEach(Runnable::run);
+    }
+
+    private int downloads(String key) {
+        AtomicInteger count = downloads.get(key);
+        return count == null ? 0 : count.get();
+    }
+
+    private List<String> cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("cache"))) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    private HeadObjectResponse head(byte[] bytes) {
+        return HeadObjectResponse.builder()
+                .eTag(headWithoutETag ? null : eTag(bytes))
+                .contentLength((long) bytes.length)
+                .lastModified(MODIFIED)
+                .build();
+    }
+
+    private String eTag(byte[] bytes) {
+        return headWithoutETag ? null : "\"" + Arrays.hashCode(bytes) + "\"";
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
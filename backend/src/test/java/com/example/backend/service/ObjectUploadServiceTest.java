@@ -0,0 +1,185 @@
+package com.example.backend.service;
+
+import com.example.backend.model.StorageCodec;
+import com.example.backend.service.ObjectUploadService.MultipartSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ObjectUploadServiceTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private final ConcurrentSkipListMap<Integer, byte[]> uploadedParts = new ConcurrentSkipListMap<>();
+    private S3Client s3Client;
+    private ObjectUploadService service;
+    private byte[] putBody;
+    private PutObjectRequest putRequest;
+    private CompleteMultipartUploadRequest completeRequest;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            putRequest = invocation.getArgument(0);
+            putBody = bytes(invocation.getArgument(1));
+            return PutObjectResponse.builder().build();
+        });
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            uploadedParts.put(request.partNumber(), bytes(invocation.getArgument(1)));
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            completeRequest = invocation.getArgument(0);
+            return null;
+        });
+
+        service = new ObjectUploadService(s3Client);
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+        ReflectionTestUtils.setField(service, "partSizeBytes", PART_SIZE);
+        ReflectionTestUtils.setField(service, "maxInFlightParts", 2);
+        ReflectionTestUtils.setField(service, "uploadThreads", 2);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void anObjectOfExactlyOnePartIsASinglePut() throws IOException {
+        byte[] data = random(PART_SIZE, 1);
+
+        long stored = upload(data, StorageCodec.NONE);
+
+        assertEquals(PART_SIZE, stored);
+        assertArrayEquals(data, putBody);
+        assertEquals((long) PART_SIZE, putRequest.contentLength());
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void oneByteMoreThanAPartIsAMultipartUpload() throws IOException {
+        byte[] data = random(PART_SIZE + 1, 2);
+
+        long stored = upload(data, StorageCodec.NONE);
+
+        assertEquals(PART_SIZE + 1, stored);
+        assertNull(putBody);
+        assertEquals(List.of(1, 2), List.copyOf(uploadedParts.keySet()));
+        assertEquals(PART_SIZE, uploadedParts.get(1).length);
+        assertEquals(1, uploadedParts.get(2).length);
+        assertArrayEquals(data, concat(uploadedParts.values()));
+        assertEquals(List.of("etag-1", "etag-2"),
+                completeRequest.multipartUpload().parts().stream().map(CompletedPart::eTag).toList());
+    }
+
+    @Test
+    void manyPartsReuseTheirBuffersInOrder() throws IOException {
+        // more parts than buffers, written in odd-sized chunks
+        byte[] data = random(PART_SIZE * 5 + 12_345, 3);
+
+        try (MultipartSink sink = service.open("key", "text/csv", Map.of(), StorageCodec.NONE)) {
+            for (int off = 0; off < data.length; off += 100_003) {
+                sink.write(data, off, Math.min(100_003, data.length - off));
+            }
+            sink.complete();
+        }
+
+        assertEquals(6, uploadedParts.size());
+        assertArrayEquals(data, concat(uploadedParts.values()));
+    }
+
+    @Test
+    void aFailedPartAbortsTheUpload() {
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("boom").build());
+        byte[] data = random(PART_SIZE * 2, 4);
+
+        assertThrows(IOException.class, () -> upload(data, StorageCodec.NONE));
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void gzipObjectsDecodeToTheWrittenBytesAndCountWhatIsStored() throws IOException {
+        byte[] data = "region,amount\nnorth,1\nsouth,2\n".repeat(10_000).getBytes();
+
+        long stored = upload(data, StorageCodec.GZIP);
+
+        assertEquals(putBody.length, stored);
+        assertEquals("gzip", putRequest.contentEncoding());
+        assertEquals("gzip", putRequest.metadata().get(StorageCodec.METADATA_KEY));
+        try (InputStream in = StorageCodec.GZIP.decode(new ByteArrayInputStream(putBody))) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    private long upload(byte[] data, StorageCodec codec) throws IOException {
+        try (MultipartSink sink = service.open("key", "text/csv", Map.of(), codec)) {
+            sink.write(data);
+            sink.complete();
+            return sink.getStoredBytes();
+        }
+    }
+
+    private static byte[] bytes(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] concat(Iterable<byte[]> parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParallelObjectDownloaderTest {
+
+    private static final String KEY = "1/objects/data.csv";
+    private static final int PART_SIZE = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<GetObjectRequest> requests = new CopyOnWriteArrayList<>();
+    private byte[] object;
+    private volatile String eTag = "\"v1\"";
+    private volatile String eTagAfterFirstPart;
+    private S3AsyncClient s3AsyncClient;
+    private ParallelObjectDownloader downloader;
+
+    @BeforeEach
+    void setUp() {
+        s3AsyncClient = mock(S3AsyncClient.class);
+        when(s3AsyncClient.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenAnswer(invocation -> serve(invocation.getArgument(0)));
+        when(s3AsyncClient.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(HeadObjectResponse.builder()
+                        .contentLength((long) object.length)
+                        .eTag(eTag)
+                        .metadata(Map.of("codec", "none"))
+                        .build()));
+
+        downloader = new ParallelObjectDownloader(s3AsyncClient);
+        ReflectionTestUtils.setField(downloader, "bucketName", "bucket");
+        ReflectionTestUtils.setField(downloader, "partSizeBytes", PART_SIZE);
+        ReflectionTestUtils.setField(downloader, "maxPartsInFlight", 3);
+    }
+
+    @Test
+    void partsFinishingOutOfOrderAreReassembledInPlace() throws Exception {
+        object = randomBytes(5 * PART_SIZE + 1_000);
+        Path target = tempDir.resolve("object");
+
+        ParallelObjectDownloader.Download download = downloader.downloadToFile(KEY, target).get(10, TimeUnit.SECONDS);
+
+        assertEquals(object.length, download.size());
+        assertEquals(eTag, download.eTag());
+        assertArrayEquals(object, Files.readAllBytes(target));
+        assertEquals(6, requests.size());
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L),
+                requests.stream().map(r -> rangeStart(r) / PART_SIZE).sorted().toList());
+    }
+
+    @Test
+    void partsAfterTheFirstArePinnedToItsETag() throws Exception {
+        object = randomBytes(3 * PART_SIZE);
+
+        downloader.downloadToFile(KEY, tempDir.resolve("object")).get(10, TimeUnit.SECONDS);
+
+        for (GetObjectRequest request : requests) {
+            if (rangeStart(request) == 0) {
+                assertNull(request.ifMatch());
+            } else {
+                assertEquals("\"v1\"", request.ifMatch(), request.range());
+            }
+        }
+    }
+
+    @Test
+    void objectReplacedMidDownloadFailsInsteadOfMixingVersions() {
+        object = randomBytes(3 * PART_SIZE);
+        eTagAfterFirstPart = "\"v2\"";
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> downloader.downloadToFile(KEY, tempDir.resolve("object")).get(10, TimeUnit.SECONDS));
+        S3Exception cause = assertInstanceOf(S3Exception.class, e.getCause());
+        assertEquals(412, cause.statusCode());
+    }
+
+    @Test
+    void smallObjectTakesOneRequest() throws Exception {
+        object = randomBytes(1_000);
+        Path target = tempDir.resolve("object");
+
+        ParallelObjectDownloader.Download download = downloader.downloadToFile(KEY, target).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1_000, download.size());
+        assertArrayEquals(object, Files.readAllBytes(target));
+        assertEquals(1, requests.size());
+        verify(s3AsyncClient, never()).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void emptyObjectFallsBackToHeadAfter416() throws Exception {
+        object = new byte[0];
+        Path target = tempDir.resolve("object");
+        Files.write(target, randomBytes(100));
+
+        ParallelObjectDownloader.Download download = downloader.downloadToFile(KEY, target).get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, download.size());
+        assertEquals(eTag, download.eTag());
+        assertEquals(Map.of("codec", "none"), download.metadata());
+        assertEquals(0, Files.size(target));
+        verify(s3AsyncClient).headObject(any(HeadObjectRequest.class));
+    }
+
+    /** Serves ranges like S3 does, completing later parts sooner so writes land out of order. */
+    private CompletableFuture<ResponseBytes<GetObjectResponse>> serve(GetObjectRequest request) {
+        requests.add(request);
+        if (request.ifMatch() != null && !request.ifMatch().equals(eTag)) {
+            return CompletableFuture.failedFuture(S3Exception.builder()
+                    .message("At least one of the pre-conditions you specified did not hold")
+                    .statusCode(412)
+                    .build());
+        }
+        int start = (int) rangeStart(request);
+        if (start >= object.length) {
+            return CompletableFuture.failedFuture(S3Exception.builder()
+                    .message("The requested range is not satisfiable")
+                    .statusCode(416)
+                    .build());
+        }
+        int end = Math.min(Integer.parseInt(request.range().substring(request.range().indexOf('-') + 1)),
+                object.length - 1);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .eTag(eTag)
+                .contentRange("bytes " + start + "-" + end + "/" + object.length)
+                .contentLength((long) (end - start + 1))
+                .build();
+        ResponseBytes<GetObjectResponse> bytes =
+                ResponseBytes.fromByteArray(response, Arrays.copyOfRange(object, start, end + 1));
+        if (start == 0) {
+            if (eTagAfterFirstPart != null) {
+                eTag = eTagAfterFirstPart;
+            }
+            return CompletableFuture.completedFuture(bytes);
+        }
+        long delayMillis = Math.max(1, 30 - 5L * (start / PART_SIZE));
+        return CompletableFuture.supplyAsync(() -> bytes,
+                CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private static long rangeStart(GetObjectRequest request) {
+        String range = request.range();
+        return Long.parseLong(range.substring("bytes=".length(), range.indexOf('-')));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares a plain GET on the blocking client with the parallel ranged download on the async
+ * client. Needs an S3-compatible server (MinIO, for instance) holding a large object; run with
+ * {@code mvn test -Pbenchmark -Dbenchmark.s3.endpoint=http://localhost:9000
+ * -Dbenchmark.s3.bucket=<bucket> -Dbenchmark.s3.key=<key> -Dbenchmark.s3.key-id=<id>
+ * -Dbenchmark.s3.application-key=<secret>}, and {@code -Dbenchmark.iterations=N} to change the
+ * number of timed rounds. Skipped when no endpoint is given.
+ */
+@Tag("benchmark")
+class StorageDownloadBenchmark {
+
+    @Test
+    void syncGetAgainstParallelRangedDownload() throws Exception {
+        String endpoint = System.getProperty("benchmark.s3.endpoint");
+        assumeTrue(endpoint != null, "set -Dbenchmark.s3.endpoint to run");
+        String bucket = System.getProperty("benchmark.s3.bucket");
+        String key = System.getProperty("benchmark.s3.key");
+        int iterations = Integer.getInteger("benchmark.iterations", 5);
+
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                System.getProperty("benchmark.s3.key-id"), System.getProperty("benchmark.s3.application-key")));
+        Region region = Region.of(System.getProperty("benchmark.s3.region", "us-east-1"));
+
+        Path target = Files.createTempFile("storage-benchmark", ".object");
+        try (S3Client s3Client = S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentials)
+                .region(region)
+                .httpClientBuilder(ApacheHttpClient.builder())
+                .build();
+             S3AsyncClient s3AsyncClient = S3AsyncClient.builder()
+                     .endpointOverride(URI.create(endpoint))
+                     .credentialsProvider(credentials)
+                     .region(region)
+                     .httpClientBuilder(NettyNioAsyncHttpClient.builder())
+                     .build()) {
+
+            ParallelObjectDownloader downloader = new ParallelObjectDownloader(s3AsyncClient);
+            ReflectionTestUtils.setField(downloader, "bucketName", bucket);
+            ReflectionTestUtils.setField(downloader, "partSizeBytes", 8 * 1024 * 1024);
+            ReflectionTestUtils.setField(downloader, "maxPartsInFlight", 8);
+
+            // one untimed round each to warm up connections and the JIT
+            syncDownload(s3Client, bucket, key, target);
+            long size = Files.size(target);
+            downloader.downloadToFile(key, target).join();
+            assertEquals(size, Files.size(target));
+
+            long syncNanos = 0;
+            long asyncNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                syncDownload(s3Client, bucket, key, target);
+                syncNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                downloader.downloadToFile(key, target).join();
+                asyncNanos += System.nanoTime() - start;
+            }
+
+            System.out.printf(Locale.ROOT, "%s (%d bytes), %d iterations: sync GET %d ms (%s MB/s), "
+                            + "parallel ranged %d ms (%s MB/s)%n",
+                    key, size, iterations,
+                    TimeUnit.NANOSECONDS.toMillis(syncNanos / iterations), throughput(size, syncNanos / iterations),
+                    TimeUnit.NANOSECONDS.toMillis(asyncNanos / iterations), throughput(size, asyncNanos / iterations));
+        } finally {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private static void syncDownload(S3Client s3Client, String bucket, String key, Path target) throws Exception {
+        Files.deleteIfExists(target);
+        s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build(),
+                ResponseTransformer.toFile(target));
+    }
+
+    private static String throughput(long bytes, long nanos) {
+        return String.format(Locale.ROOT, "%.1f", bytes / 1_048_576.0 / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Dataset;
+import com.example.backend.model.User;
+import com.example.backend.model.UserStorageUsage;
+import com.example.backend.repository.DatasetRepository;
+import com.example.backend.repository.DatasetRepository.UserDatasetCount;
+import com.example.backend.repository.UserStorageUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StorageUsageServiceTest {
+
+    private static final long USER_ID = 1L;
+    private static final String KEY = USER_ID + "/objects/abc.csv";
+
+    private final Map<Long, Dataset> datasets = new HashMap<>();
+    private S3Client s3Client;
+    private UserStorageUsageRepository usageRepository;
+    private DatasetRepository datasetRepository;
+    private StorageUsageService service;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        usageRepository = mock(UserStorageUsageRepository.class);
+        datasetRepository = mock(DatasetRepository.class);
+        when(datasetRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(datasets.get(invocation.<Long>getArgument(0))));
+        when(datasetRepository.existsByFilePathAndStoredBytesIsNotNullAndIdNot(anyString(), any()))
+                .thenAnswer(invocation -> datasets.values().stream().anyMatch(dataset ->
+                        dataset.getFilePath().equals(invocation.getArgument(0))
+                                && !dataset.getId().equals(invocation.getArgument(1))
+                                && dataset.getStoredBytes() != null));
+
+        service = new StorageUsageService(s3Client, usageRepository, datasetRepository);
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+    }
+
+    @Test
+    void overlappingIdenticalUploadsCountTheirObjectOnce() {
+        dataset(10L, KEY);
+        dataset(11L, KEY);
+
+        service.recordObjectStored(10L, 500L);
+        service.recordObjectStored(11L, 500L);
+
+        verify(usageRepository).add(USER_ID, 500L, 1, 0);
+        assertEquals(500L, datasets.get(11L).getStoredBytes());
+    }
+
+    @Test
+    void differentObjectsAreEachCounted() {
+        dataset(10L, KEY);
+        dataset(11L, USER_ID + "/objects/def.csv");
+
+        service.recordObjectStored(10L, 500L);
+        service.recordObjectStored(11L, 700L);
+
+        verify(usageRepository).add(USER_ID, 500L, 1, 0);
+        verify(usageRepository).add(USER_ID, 700L, 1, 0);
+    }
+
+    @Test
+    void anObjectThatWasNeverWrittenIsNotSubtracted() {
+        service.recordObjectDeleted(USER_ID, null);
+
+        verify(usageRepository, never()).add(any(), anyLong(), anyLong(), anyLong());
+
+        service.recordObjectDeleted(USER_ID, 500L);
+
+        verify(usageRepository).add(eq(USER_ID), eq(-500L), eq(-1L), eq(0L));
+    }
+
+    @Test
+    void deltasAreClampedAtZero() throws NoSuchMethodException {
+        String sql = UserStorageUsageRepository.class
+                .getMethod("add", Long.class, long.class, long.class, long.class)
+                .getAnnotation(Query.class).value();
+
+        // a first row for the user, and every running total, never goes below zero
+        for (String column : List.of("bytes", "objects", "datasets")) {
+            assertTrue(sql.contains("GREATEST(:" + column + ", 0)"), column);
+        }
+        for (String column : List.of("bytes", "object_count", "dataset_count")) {
+            assertTrue(sql.contains(column + " = GREATEST(user_storage_usage." + column + " + :"), column);
+        }
+    }
+
+    @Test
+    void reconcileSetsEveryUsersTotalsFromTheBucket() {
+        ListObjectsV2Iterable pages = mock(ListObjectsV2Iterable.class);
+        when(pages.contents()).thenReturn(() -> List.of(
+                object("1/objects/a.csv", 100),
+                object("1/objects/b.csv", 50),
+                object("2/objects/c.csv", 7),
+                object("stray.csv", 1_000),
+                object("x/objects/d.csv", 1_000)).iterator());
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class))).thenReturn(pages);
+        when(datasetRepository.countDatasetsByUser()).thenReturn(List.of(count(1L, 3L), count(3L, 1L)));
+        UserStorageUsage stale = new UserStorageUsage();
+        stale.setUserId(4L);
+        when(usageRepository.findAll()).thenReturn(List.of(stale));
+
+        service.reconcile();
+
+        verify(usageRepository).set(1L, 150L, 2L, 3L);
+        verify(usageRepository).set(2L, 7L, 1L, 0L);
+        // a dataset whose object was never written, and a user whose data is all gone
+        verify(usageRepository).set(3L, 0L, 0L, 1L);
+        verify(usageRepository).set(4L, 0L, 0L, 0L);
+        verify(usageRepository, times(4)).set(any(), anyLong(), anyLong(), anyLong());
+    }
+
+    private static S3Object object(String key, long size) {
+        return S3Object.builder().key(key).size(size).build();
+    }
+
+    private static UserDatasetCount count(Long userId, Long datasetCount) {
+        return new UserDatasetCount() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getDatasetCount() {
+                return datasetCount;
+            }
+        };
+    }
+
+    private Dataset dataset(long id, String filePath) {
+        User user = new User();
+        user.setId(USER_ID);
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        dataset.setUser(user);
+        dataset.setFilePath(filePath);
+        datasets.put(id, dataset);
+        return dataset;
+    }
+}
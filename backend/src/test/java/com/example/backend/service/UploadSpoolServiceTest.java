@@ -0,0 +1,142 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadSpoolServiceTest {
+
+    private static final long MAX_AGE_MINUTES = 180;
+
+    @TempDir
+    Path tempDir;
+
+    private Path spoolDir;
+    private UploadSpoolService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        spoolDir = tempDir.resolve("spool");
+        service = new UploadSpoolService();
+        ReflectionTestUtils.setField(service, "spoolDir", spoolDir.toString());
+        ReflectionTestUtils.setField(service, "maxAgeMinutes", MAX_AGE_MINUTES);
+        service.init();
+    }
+
+    @Test
+    void spoolCopiesAndHashesTheUpload() throws Exception {
+        byte[] content = new byte[300_000];
+        new Random(9).nextBytes(content);
+
+        UploadSpoolService.SpooledUpload spooled = service.spool(
+                new MockMultipartFile("file", "data.csv", "text/csv", content));
+
+        assertEquals(spoolDir, spooled.path().getParent());
+        assertEquals(content.length, spooled.size());
+        assertArrayEquals(content, Files.readAllBytes(spooled.path()));
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals(expected, spooled.sha256());
+    }
+
+    @Test
+    void failedCopyLeavesNothingBehind() {
+        MockMultipartFile broken = new MockMultipartFile("file", "data.csv", "text/csv", new byte[500_000]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new FilterInputStream(super.getInputStream()) {
+                    private int read;
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        if (read > 100_000) {
+                            throw new IOException("connection reset");
+                        }
+                        int n = super.read(b, off, len);
+                        read += Math.max(n, 0);
+                        return n;
+                    }
+                };
+            }
+        };
+
+        assertThrows(IOException.class, () -> service.spool(broken));
+        assertEquals(0, spoolFileCount());
+    }
+
+    @Test
+    void sweepRemovesOnlyStaleFiles() throws IOException {
+        Path stale = spoolFile("stale.upload", Duration.ofMinutes(MAX_AGE_MINUTES + 5));
+        Path fresh = spoolFile("fresh.upload", Duration.ofMinutes(MAX_AGE_MINUTES - 5));
+        Path justWritten = spoolFile("new.upload", Duration.ZERO);
+
+        service.sweep();
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(justWritten));
+    }
+
+    @Test
+    void sweepUsesTheConfiguredMaxAge() throws IOException {
+        ReflectionTestUtils.setField(service, "maxAgeMinutes", 10L);
+        Path file = spoolFile("job.upload", Duration.ofMinutes(30));
+
+        service.sweep();
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void sweepSurvivesAMissingSpoolDirectory() throws IOException {
+        Files.delete(spoolDir);
+
+        service.sweep();
+
+        assertFalse(Files.exists(spoolDir));
+    }
+
+    @Test
+    void releaseIgnoresFilesThatAreAlreadyGone() throws IOException {
+        Path file = spoolFile("done.upload", Duration.ZERO);
+
+        service.release(file);
+        service.release(file);
+
+        assertFalse(Files.exists(file));
+    }
+
+    private Path spoolFile(String name, Duration age) throws IOException {
+        Path file = Files.writeString(spoolDir.resolve(name), "id,value\n1,2\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+        return file;
+    }
+
+    private long spoolFileCount() {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
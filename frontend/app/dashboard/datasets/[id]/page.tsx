@@ -1,7 +1,11 @@
 /* eslint-disable @typescript-eslint/no-explicit-any */
 'use client';
 
-import { formatFileSize } from '@/lib/helpers';
+import {
+  formatFileSize,
+  isNumericType,
+  isTemporalType,
+} from '@/lib/helpers';
 import {
   Dataset,
   DatasetColumn,
@@ -306,9 +310,9 @@ export default function DatasetDetailPage() {
                       >
                         <div className='flex items-start justify-between mb-2'>
                           <div className='flex items-center gap-2'>
-                            {col.dataType === 'NUMERIC' ? (
+                            {isNumericType(col.dataType) ? (
                               <Hash className='w-4 h-4 text-blue-600' />
-                            ) : col.dataType === 'DATE' ? (
+                            ) : isTemporalType(col.dataType) ? (
                               <Calendar className='w-4 h-4 text-purple-600' />
                             ) : (
                               <Type className='w-4 h-4 text-green-600' />
@@ -319,9 +323,9 @@ export default function DatasetDetailPage() {
                           </div>
                           <span
                             className={`px-2 py-1 text-xs font-medium rounded ${
-                              col.dataType === 'NUMERIC'
+                              isNumericType(col.dataType)
                                 ? 'bg-blue-100 text-blue-700'
-                                : col.dataType === 'DATE'
+                                : isTemporalType(col.dataType)
                                 ? 'bg-purple-100 text-purple-700'
                                 : 'bg-green-100 text-green-700'
                             }`}
@@ -335,6 +339,7 @@ export default function DatasetDetailPage() {
                               Unique Values
                             </p>
                             <p className='text-sm font-semibold text-gray-900'>
+                              {col.uniqueValuesApproximate ? '~' : ''}
                               {col.uniqueValues.toLocaleString()}
                             </p>
                           </div>
@@ -56,3 +56,9 @@ export const safeDate = (value: any) => {
 };
 
 export const safeTime = (v: any) => (v ? new Date(v).getTime() : 0);
+
+export const isNumericType = (dataType: string) =>
+  dataType === 'NUMERIC' || dataType === 'INTEGER' || dataType === 'DECIMAL';
+
+export const isTemporalType = (dataType: string) =>
+  dataType === 'DATE' || dataType === 'TIMESTAMP';
@@ -0,0 +1,85 @@
+import { api } from '@/lib/axios';
+import type { QueryRequest } from './datasetService';
+
+export type ChartType = 'LINE' | 'BAR' | 'PIE' | 'SCATTER' | 'AREA' | 'HISTOGRAM' | 'HEATMAP';
+
+export interface Chart {
+  id: number;
+  datasetId: number;
+  title: string;
+  chartType: ChartType;
+  configJson: string;
+  createdAt: string;
+  updatedAt: string;
+}
+
+/** Parsed form of `Chart.configJson`. */
+export interface ChartConfig {
+  x: string;
+  y?: string | string[];
+  aggregation?: 'count' | 'sum' | 'avg' | 'min' | 'max';
+  series?: string;
+  filters?: QueryRequest['filters'];
+  sort?: 'key' | 'value';
+  limit?: number;
+}
+
+export interface ChartRequest {
+  datasetId: number;
+  title: string;
+  chartType: ChartType;
+  configJson: string;
+}
+
+export interface ChartData {
+  chartType: ChartType;
+  labels: unknown[];
+  series: { name: string | null; data: (number | null)[] }[];
+  categoryCount: number;
+  truncated: boolean;
+  matchedRows: number;
+  computedAt: string;
+  cached: boolean;
+}
+
+export const chartService = {
+  async getCharts(datasetId?: number): Promise<Chart[]> {
+    const response = await api.get('/charts', {
+      params: datasetId ? { datasetId } : {},
+    });
+    return response.data;
+  },
+
+  async getChart(id: number): Promise<Chart> {
+    const response = await api.get(`/charts/${id}`);
+    return response.data;
+  },
+
+  async createChart(request: ChartRequest): Promise<Chart> {
+    const response = await api.post('/charts', request);
+    return response.data;
+  },
+
+  async updateChart(id: number, request: Omit<ChartRequest, 'datasetId'>): Promise<Chart> {
+    const response = await api.put(`/charts/${id}`, request);
+    return response.data;
+  },
+
+  async deleteChart(id: number): Promise<void> {
+    await api.delete(`/charts/${id}`);
+  },
+
+  async getChartData(id: number): Promise<ChartData> {
+    const response = await api.get(`/charts/${id}/data`);
+    return response.data;
+  },
+
+  async previewChart(datasetId: number, chartType: ChartType, config: ChartConfig): Promise<ChartData> {
+    const response = await api.post('/charts/preview', {
+      datasetId,
+      chartType,
+      configJson: JSON.stringify(config),
+    });
+    return response.data;
+  },
+};
@@ -17,8 +17,17 @@ export interface DatasetColumn {
   id: number;
   columnName: string;
   columnIndex: number;
-  dataType: 'NUMERIC' | 'TEXT' | 'DATE' | 'BOOLEAN';
+  dataType:
+    | 'NUMERIC'
+    | 'INTEGER'
+    | 'DECIMAL'
+    | 'TEXT'
+    | 'DATE'
+    | 'TIMESTAMP'
+    | 'BOOLEAN';
+  formatPattern?: string;
   uniqueValues: number;
+  uniqueValuesApproximate?: boolean;
   nullCount: number;
   mean?: number;
   median?: number;
@@ -27,6 +36,69 @@ export interface DatasetColumn {
   maxValue?: number;
 }
 
+export interface HistogramBin {
+  lower: number;
+  upper: number;
+  count: number;
+}
+
+export interface ColumnHistogram {
+  columnId: number;
+  binCount: number;
+  precomputed: boolean;
+  equiWidth: HistogramBin[];
+  equiDepth: HistogramBin[];
+}
+
+export interface RowPage {
+  columns: string[];
+  rows: Record<string, unknown>[];
+  offset: number;
+  totalRows: number;
+  nextCursor: string | null;
+}
+
+export interface QueryRequest {
+  groupBy?: string[];
+  aggregates?: { function: 'count' | 'sum' | 'avg' | 'min' | 'max'; column?: string }[];
+  filters?: {
+    column: string;
+    operator: 'eq' | 'ne' | 'lt' | 'le' | 'gt' | 'ge' | 'in' | 'is_null' | 'not_null';
+    values?: string[];
+  }[];
+  sort?: 'key' | 'value';
+  limit?: number;
+}
+
+export interface QueryResult {
+  columns: string[];
+  rows: unknown[][];
+  groupCount: number;
+  matchedRows: number;
+  truncated: boolean;
+  elapsedMs: number;
+  blocksScanned: number;
+  blocksSkipped: number;
+}
+
+export interface FilteredPreview {
+  columns: string[];
+  rows: Record<string, unknown>[];
+  blocksScanned: number;
+  blocksSkipped: number;
+  elapsedMs: number;
+}
+
+export interface Series {
+  method: 'lttb' | 'grid';
+  x: (number | string)[];
+  y: number[];
+  weights: number[] | null;
+  pointCount: number;
+  ordered: boolean;
+  elapsedMs: number;
+}
+
 export const datasetService = {
   async getAllDatasets(): Promise<Dataset[]> {
     const response = await api.get('/datasets/user');
@@ -63,11 +135,34 @@ export const datasetService = {
 
   async getDownloadUrl(
     id: number
-  ): Promise<{ downloadUrl: string; filename: string }> {
+  ): Promise<{ downloadUrl: string; filename: string; expiresAt: string }> {
     const response = await api.get(`/datasets/${id}/download`);
     return response.data;
   },
 
+  async getDownloadUrls(
+    ids: number[]
+  ): Promise<
+    { id: number; downloadUrl: string; filename: string; expiresAt: string }[]
+  > {
+    const response = await api.post('/datasets/download-urls', {
+      datasetIds: ids,
+    });
+    return response.data;
+  },
+
+  async getStorageUsage(): Promise<{
+    bytes: number;
+    objectCount: number;
+    datasetCount: number;
+    quotaBytes: number | null;
+    warning: boolean;
+    reconciledAt: string | null;
+  }> {
+    const response = await api.get('/storage/usage');
+    return response.data;
+  },
+
   async deleteDataset(id: number): Promise<void> {
     await api.delete(`/datasets/${id}`);
   },
@@ -77,6 +172,13 @@ export const datasetService = {
     return response.data;
   },
 
+  async getColumnHistogram(id: number, columnId: number, bins?: number): Promise<ColumnHistogram> {
+    const response = await api.get(`/datasets/${id}/columns/${columnId}/histogram`, {
+      params: bins ? { bins } : {},
+    });
+    return response.data;
+  },
+
   async getDatasetWithColumns(id: number) {
     const [datasetRes, columnsRes] = await Promise.all([
       api.get(`/datasets/${id}`),
@@ -96,4 +198,43 @@ export const datasetService = {
 
     return response.data;
   },
+
+  /**
+   * Filters look like `column:operator[:value]`, e.g. `price:gt:100` or `region:in:north|south`.
+   */
+  async getFilteredPreview(id: number, filters: string[], limit = 10): Promise<FilteredPreview> {
+    const params = new URLSearchParams({ limit: String(limit) });
+    filters.forEach((filter) => params.append('filter', filter));
+    const response = await api.get(`/datasets/${id}/preview`, { params });
+
+    return response.data;
+  },
+
+  async getRows(
+    id: number,
+    page: { offset?: number; cursor?: string; limit?: number } = {}
+  ): Promise<RowPage> {
+    const response = await api.get(`/datasets/${id}/rows`, {
+      params: page,
+    });
+
+    return response.data;
+  },
+
+  async query(id: number, request: QueryRequest): Promise<QueryResult> {
+    const response = await api.post(`/datasets/${id}/query`, request);
+    return response.data;
+  },
+
+  async getSeries(
+    id: number,
+    x: string,
+    y: string,
+    options: { chartType?: 'LINE' | 'AREA' | 'SCATTER'; points?: number } = {}
+  ): Promise<Series> {
+    const response = await api.get(`/datasets/${id}/series`, {
+      params: { x, y, ...options },
+    });
+    return response.data;
+  },
 };